@@ -1,9 +1,13 @@
 package medievalsim.banking.domain;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import medievalsim.banking.diagnostics.BankingDiagnostics;
+import medievalsim.config.ModConfig;
 import medievalsim.util.ModLogger;
 import necesse.engine.network.server.ServerClient;
 import necesse.engine.save.LoadData;
@@ -13,32 +17,148 @@ import necesse.level.maps.levelData.LevelData;
 
 /**
  * World-level data storage for all player banks.
+ *
+ * Banks are kept in compact form (PlayerBank.toCompactData()) until something needs
+ * them: the world save stores that byte array, loading a world only picks it up, and
+ * the PlayerBank (with its Inventory) is decoded on the first getBank/getOrCreateBank.
+ * Unloaded banks are written back to the save as the same bytes. Banks nobody has
+ * touched for Banking.idleUnloadMinutes, and that no container holds, are packed back
+ * into compact form from tick().
+ *
+ * A bank moves between the two maps only under residencyLock (or inside the map's
+ * atomic compute for the same key), and addSaveData snapshots both maps under it,
+ * so every bank is saved exactly once and a bank handed out is never packed first.
  */
 public class BankingLevelData extends LevelData {
 
-    private final Map<Long, PlayerBank> banks = new ConcurrentHashMap<>();
+    private static final long UNLOAD_CHECK_INTERVAL_MS = 60_000L;
+
+    private final Map<Long, PlayerBank> banks = new ConcurrentHashMap<>(); // Loaded
+    private final Map<Long, byte[]> compactBanks = new ConcurrentHashMap<>(); // Not loaded
+    private final Object residencyLock = new Object();
 
     private long totalBanksCreated = 0;
     private long totalUpgradesPurchased = 0;
+    private long lastUnloadCheck = 0L;
 
     public PlayerBank getOrCreateBank(long ownerAuth) {
-        return banks.computeIfAbsent(ownerAuth, auth -> {
-            totalBanksCreated++;
-            ModLogger.info("Created new bank for player auth=%d (total banks: %d)", auth, totalBanksCreated);
-            return new PlayerBank(auth);
-        });
+        PlayerBank bank = touchLoadedBank(ownerAuth);
+        if (bank == null) {
+            synchronized (residencyLock) {
+                bank = banks.computeIfAbsent(ownerAuth, auth -> {
+                    PlayerBank loaded = loadCompactBank(auth);
+                    if (loaded != null) {
+                        return loaded;
+                    }
+                    totalBanksCreated++;
+                    ModLogger.info("Created new bank for player auth=%d (total banks: %d)", auth, totalBanksCreated);
+                    return new PlayerBank(auth);
+                });
+                bank.touch();
+            }
+        }
+        return bank;
     }
 
     public PlayerBank getBank(long ownerAuth) {
-        return banks.get(ownerAuth);
+        PlayerBank bank = touchLoadedBank(ownerAuth);
+        if (bank == null && compactBanks.containsKey(ownerAuth)) {
+            synchronized (residencyLock) {
+                bank = banks.computeIfAbsent(ownerAuth, this::loadCompactBank);
+                if (bank != null) {
+                    bank.touch();
+                }
+            }
+        }
+        return bank;
+    }
+
+    /**
+     * Lock-free lookup of a loaded bank. The touch happens inside the map's compute for
+     * that key, so unloadIdleBanks (which packs inside the same compute) either sees
+     * the bank as just used or has already packed it and this returns null.
+     */
+    private PlayerBank touchLoadedBank(long ownerAuth) {
+        return banks.computeIfPresent(ownerAuth, (auth, bank) -> {
+            bank.touch();
+            return bank;
+        });
     }
 
     public boolean hasBank(long ownerAuth) {
-        return banks.containsKey(ownerAuth);
+        return banks.containsKey(ownerAuth) || compactBanks.containsKey(ownerAuth);
+    }
+
+    /**
+     * Banks currently loaded (read-only view; unloaded banks are not included).
+     */
+    public Map<Long, PlayerBank> getLoadedBanks() {
+        return Collections.unmodifiableMap(banks);
+    }
+
+    public int getBankCount() {
+        return banks.size() + compactBanks.size();
+    }
+
+    /**
+     * Build the PlayerBank for an unloaded bank; called inside banks.computeIfAbsent
+     * while holding residencyLock.
+     */
+    private PlayerBank loadCompactBank(long ownerAuth) {
+        byte[] compact = compactBanks.remove(ownerAuth);
+        if (compact == null) {
+            return null;
+        }
+        PlayerBank bank = PlayerBank.fromCompactData(ownerAuth, compact);
+        BankingDiagnostics.debug("lifecycle", "Loaded bank auth=%d on demand (%d bytes)", ownerAuth, compact.length);
+        return bank;
     }
 
-    public Map<Long, PlayerBank> getAllBanks() {
-        return new HashMap<>(banks);
+    /**
+     * Pack idle banks back into compact form.
+     * @return Number of banks unloaded
+     */
+    public int unloadIdleBanks(long now) {
+        int minutes = ModConfig.Banking.idleUnloadMinutes;
+        if (minutes <= 0) {
+            return 0;
+        }
+        long cutoff = now - minutes * 60_000L;
+        int unloaded = 0;
+        synchronized (residencyLock) {
+            for (Long ownerAuth : banks.keySet()) {
+                // Atomic with touchLoadedBank for the same player: a bank just handed out is not idle
+                boolean[] packed = new boolean[1];
+                banks.computeIfPresent(ownerAuth, (auth, bank) -> {
+                    if (bank.isInUse() || bank.getLastUsedTime() > cutoff) {
+                        return bank;
+                    }
+                    compactBanks.put(auth, bank.toCompactData());
+                    packed[0] = true;
+                    return null;
+                });
+                if (packed[0]) {
+                    unloaded++;
+                }
+            }
+        }
+        if (unloaded > 0) {
+            ModLogger.debug("Unloaded %d idle banks (%d loaded, %d compact)", unloaded, banks.size(), compactBanks.size());
+        }
+        return unloaded;
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        if (this.level == null || !this.level.isServer()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastUnloadCheck >= UNLOAD_CHECK_INTERVAL_MS) {
+            lastUnloadCheck = now;
+            unloadIdleBanks(now);
+        }
     }
 
     public void recordUpgrade() {
@@ -94,20 +214,30 @@ public class BankingLevelData extends LevelData {
     public void addSaveData(SaveData save) {
         super.addSaveData(save);
 
-        ModLogger.debug("Saving BankingLevelData: %d banks", banks.size());
+        ModLogger.debug("Saving BankingLevelData: %d loaded banks, %d compact", banks.size(), compactBanks.size());
 
         save.addLong("totalBanksCreated", totalBanksCreated);
         save.addLong("totalUpgradesPurchased", totalUpgradesPurchased);
 
+        // One consistent view of both maps; encoding happens outside the lock
+        List<PlayerBank> loadedSnapshot;
+        List<Map.Entry<Long, byte[]>> compactSnapshot;
+        synchronized (residencyLock) {
+            loadedSnapshot = new ArrayList<>(banks.values());
+            compactSnapshot = new ArrayList<>(compactBanks.entrySet());
+        }
+
         SaveData banksData = new SaveData("BANKS");
-        for (PlayerBank bank : banks.values()) {
-            SaveData bankSave = new SaveData("BANK");
-            bank.addSaveData(bankSave);
-            banksData.addSaveData(bankSave);
+        for (Map.Entry<Long, byte[]> compact : compactSnapshot) {
+            // A compact bank cannot change, so its bytes go into the save as they are
+            banksData.addSaveData(PlayerBank.compactSaveData(compact.getKey(), compact.getValue()));
+        }
+        for (PlayerBank bank : loadedSnapshot) {
+            banksData.addSaveData(PlayerBank.compactSaveData(bank.getOwnerAuth(), bank.toCompactData()));
         }
         save.addSaveData(banksData);
 
-        ModLogger.debug("Saved %d banks to data", banks.size());
+        ModLogger.debug("Saved %d banks to data", loadedSnapshot.size() + compactSnapshot.size());
     }
 
     @Override
@@ -121,7 +251,10 @@ public class BankingLevelData extends LevelData {
 
         LoadData banksData = save.getFirstLoadDataByName("BANKS");
         if (banksData != null) {
-            banks.clear();
+            synchronized (residencyLock) {
+                banks.clear();
+                compactBanks.clear();
+            }
             for (LoadData bankSave : banksData.getLoadDataByName("BANK")) {
                 try {
                     long ownerAuth = bankSave.getLong("ownerAuth", 0L);
@@ -130,9 +263,8 @@ public class BankingLevelData extends LevelData {
                         continue;
                     }
 
-                    PlayerBank bank = new PlayerBank(ownerAuth);
-                    bank.applyLoadData(bankSave);
-                    banks.put(ownerAuth, bank);
+                    // Loaded into a PlayerBank only when first used
+                    compactBanks.put(ownerAuth, PlayerBank.compactLoadData(bankSave));
                 } catch (Exception e) {
                     ModLogger.error("Failed to load bank: %s", e.getMessage());
                     e.printStackTrace();
@@ -140,7 +272,7 @@ public class BankingLevelData extends LevelData {
             }
         }
 
-        ModLogger.info("Loaded %d banks (total created: %d, upgrades: %d)",
-            banks.size(), totalBanksCreated, totalUpgradesPurchased);
+        ModLogger.info("Loaded %d banks in compact form (total created: %d, upgrades: %d)",
+            compactBanks.size(), totalBanksCreated, totalUpgradesPurchased);
     }
 }
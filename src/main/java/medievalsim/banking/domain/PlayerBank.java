@@ -1,11 +1,25 @@
 package medievalsim.banking.domain;
 
 import medievalsim.banking.diagnostics.BankingDiagnostics;
+import medievalsim.banking.service.BankSlotTracker;
 import medievalsim.config.ModConfig;
+import necesse.engine.network.Packet;
+import necesse.engine.network.PacketReader;
+import necesse.engine.network.PacketWriter;
 import necesse.engine.save.LoadData;
 import necesse.engine.save.SaveData;
 import necesse.engine.save.levelData.InventorySave;
 import necesse.inventory.Inventory;
+import necesse.inventory.InventoryItem;
+import necesse.level.maps.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PlayerBank {
 
@@ -22,6 +36,9 @@ public class PlayerBank {
     private long creationTime;
     private int failedPinAttempts = 0;
     private long lockUntil = 0L;
+    private final List<BankSlotTracker> slotTrackers = new CopyOnWriteArrayList<>(); // Open views, not saved
+    private final AtomicInteger openViews = new AtomicInteger(); // Containers holding this bank, not saved
+    private volatile long lastUsedTime = System.currentTimeMillis(); // For idle unloading, not saved
 
     public PlayerBank(long ownerAuth) {
         this(ownerAuth, 0);
@@ -41,6 +58,47 @@ public class PlayerBank {
             ownerAuth, upgradeLevel, inventory.getSize());
     }
 
+    /**
+     * Rebuild a bank from toCompactData() without the default-inventory allocation and logging.
+     */
+    private PlayerBank(long ownerAuth, byte[] compactData) {
+        PacketReader reader = new PacketReader(new Packet(compactData));
+        this.ownerAuth = ownerAuth;
+        this.pinHash = reader.getNextInt();
+        this.pinSet = reader.getNextBoolean();
+        this.upgradeLevel = reader.getNextInt();
+        this.coins = reader.getNextLong();
+        this.totalDeposits = reader.getNextLong();
+        this.totalWithdrawals = reader.getNextLong();
+        this.totalCoinsReceived = reader.getNextLong();
+        this.lastAccessTime = reader.getNextLong();
+        this.creationTime = reader.getNextLong();
+        this.failedPinAttempts = reader.getNextInt();
+        this.lockUntil = reader.getNextLong();
+
+        this.inventory = new Inventory(ModConfig.Banking.getTotalSlots(upgradeLevel));
+        int stacks = reader.getNextShortUnsigned();
+        for (int i = 0; i < stacks; i++) {
+            int slot = reader.getNextShortUnsigned();
+            String itemStringID = reader.getNextString();
+            int amount = reader.getNextInt();
+            InventoryItem item = InventoryItem.fromContentPacket(reader.getNextContentPacket());
+            if (item == null || item.item == null || !itemStringID.equals(item.item.getStringID())) {
+                // Numeric item IDs changed since the bank was packed (e.g. a different mod list)
+                item = new InventoryItem(itemStringID, amount);
+                if (item.item == null) {
+                    BankingDiagnostics.warn("persistence", "Dropping unknown item %s x%d from bank auth=%d",
+                        itemStringID, amount, ownerAuth);
+                    continue;
+                }
+            }
+            if (slot < inventory.getSize()) {
+                inventory.setItem(slot, item);
+            }
+        }
+        inventory.clean();
+    }
+
     public long getOwnerAuth() {
         return ownerAuth;
     }
@@ -65,6 +123,41 @@ public class PlayerBank {
         return inventory.getSize();
     }
 
+    /**
+     * Register an open view of this bank; it receives every slot change from now on.
+     */
+    public void addSlotTracker(BankSlotTracker tracker) {
+        slotTrackers.add(tracker);
+    }
+
+    public void removeSlotTracker(BankSlotTracker tracker) {
+        slotTrackers.remove(tracker);
+    }
+
+    /**
+     * Move the inventory's dirty flags into every open view's tracker and clean the inventory,
+     * so each view sends the change once no matter which of them collects it.
+     */
+    public void collectInventoryChanges() {
+        if (!inventory.isDirty()) {
+            return;
+        }
+        if (inventory.isFullDirty()) {
+            for (BankSlotTracker tracker : slotTrackers) {
+                tracker.markAllDirty();
+            }
+        } else {
+            for (int i = 0; i < inventory.getSize(); i++) {
+                if (inventory.isDirty(i)) {
+                    for (BankSlotTracker tracker : slotTrackers) {
+                        tracker.markDirty(i);
+                    }
+                }
+            }
+        }
+        inventory.clean();
+    }
+
     public long getTotalDeposits() {
         return totalDeposits;
     }
@@ -167,6 +260,9 @@ public class PlayerBank {
 
         this.inventory = newInventory;
         this.upgradeLevel = newUpgradeLevel;
+        for (BankSlotTracker tracker : slotTrackers) {
+            tracker.requestFullResync(newTotalSlots);
+        }
 
         BankingDiagnostics.info("upgrade", "Upgraded bank auth=%d to level %d (%d slots)",
             ownerAuth, upgradeLevel, newTotalSlots);
@@ -232,6 +328,173 @@ public class PlayerBank {
         return true;
     }
 
+    /**
+     * Deposit a batch of items in one pass over the bank.
+     *
+     * Incoming items are first merged by item ID, then a single scan tops up existing
+     * stacks and records empty slots, and whatever is left goes into empty slots. The
+     * input items are not modified; callers use the result to see how much of each one
+     * fit. Each changed slot is written once, so an open BankContainer sends a single
+     * update for the whole batch.
+     *
+     * @param level Level used for item stacking rules (may be null)
+     * @param items Items to deposit; null or empty entries are skipped
+     * @param purpose Inventory purpose string
+     * @return Per-item deposited amounts and the slots that changed
+     */
+    public BulkDepositResult depositItems(Level level, List<InventoryItem> items, String purpose) {
+        int[] deposited = new int[items.size()];
+
+        // 1. Merge incoming items into stackable groups (one lookup per item)
+        Map<String, List<DepositGroup>> groupsByID = new HashMap<>();
+        List<DepositGroup> groups = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            InventoryItem item = items.get(i);
+            if (item == null || item.item == null || item.getAmount() <= 0) {
+                continue;
+            }
+            List<DepositGroup> candidates = groupsByID.computeIfAbsent(item.item.getStringID(), k -> new ArrayList<>(1));
+            DepositGroup group = null;
+            for (DepositGroup candidate : candidates) {
+                if (candidate.prototype.canCombine(level, null, item, purpose)) {
+                    group = candidate;
+                    break;
+                }
+            }
+            if (group == null) {
+                group = new DepositGroup(item);
+                candidates.add(group);
+                groups.add(group);
+            }
+            group.add(i, item.getAmount());
+        }
+        if (groups.isEmpty()) {
+            return new BulkDepositResult(deposited, new int[0]);
+        }
+
+        // 2. One pass over the bank: top up matching stacks, remember empty slots
+        int size = inventory.getSize();
+        InventoryItem[] updated = new InventoryItem[size];
+        int[] emptySlots = new int[size];
+        int emptyCount = 0;
+        for (int slot = 0; slot < size; slot++) {
+            InventoryItem existing = inventory.getItem(slot);
+            if (existing == null) {
+                emptySlots[emptyCount++] = slot;
+                continue;
+            }
+            List<DepositGroup> candidates = groupsByID.get(existing.item.getStringID());
+            if (candidates == null) {
+                continue;
+            }
+            int space = existing.item.getStackSize() - existing.getAmount();
+            for (int g = 0; g < candidates.size() && space > 0; g++) {
+                DepositGroup group = candidates.get(g);
+                if (group.remaining <= 0 || !existing.canCombine(level, null, group.prototype, purpose)) {
+                    continue;
+                }
+                int moved = Math.min(space, group.remaining);
+                group.remaining -= moved;
+                space -= moved;
+                InventoryItem stack = updated[slot] != null ? updated[slot] : existing.copy();
+                stack.setAmount(stack.getAmount() + moved);
+                updated[slot] = stack;
+            }
+        }
+
+        // 3. Remaining amounts go into empty slots, one full stack at a time
+        int nextEmpty = 0;
+        for (DepositGroup group : groups) {
+            int stackSize = Math.max(1, group.prototype.item.getStackSize());
+            while (group.remaining > 0 && nextEmpty < emptyCount) {
+                int moved = Math.min(stackSize, group.remaining);
+                InventoryItem stack = group.prototype.copy();
+                stack.setAmount(moved);
+                updated[emptySlots[nextEmpty++]] = stack;
+                group.remaining -= moved;
+            }
+        }
+
+        // 4. Apply: each changed slot is written exactly once
+        int[] changedSlots = new int[size];
+        int changedCount = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (updated[slot] != null) {
+                inventory.setItem(slot, updated[slot]);
+                changedSlots[changedCount++] = slot;
+            }
+        }
+
+        // Credit each input in order with its share of the group's deposit
+        for (DepositGroup group : groups) {
+            int placed = group.total - group.remaining;
+            for (int m = 0; m < group.members.size() && placed > 0; m++) {
+                int index = group.members.get(m);
+                int amount = Math.min(placed, items.get(index).getAmount());
+                deposited[index] = amount;
+                placed -= amount;
+            }
+        }
+
+        if (changedCount > 0) {
+            recordDeposit();
+        }
+        BankingDiagnostics.debug("inventory", "Bulk deposit of %d items into bank auth=%d changed %d slots",
+            items.size(), ownerAuth, changedCount);
+        return new BulkDepositResult(deposited, Arrays.copyOf(changedSlots, changedCount));
+    }
+
+    /**
+     * Incoming items that stack with each other.
+     */
+    private static final class DepositGroup {
+        final InventoryItem prototype;
+        final List<Integer> members = new ArrayList<>(1);
+        int total;
+        int remaining;
+
+        DepositGroup(InventoryItem prototype) {
+            this.prototype = prototype;
+        }
+
+        void add(int index, int amount) {
+            members.add(index);
+            total += amount;
+            remaining += amount;
+        }
+    }
+
+    /**
+     * Outcome of depositItems().
+     */
+    public static final class BulkDepositResult {
+        private final int[] deposited;
+        private final int[] changedSlots;
+
+        private BulkDepositResult(int[] deposited, int[] changedSlots) {
+            this.deposited = deposited;
+            this.changedSlots = changedSlots;
+        }
+
+        /** Amount of the item at index that went into the bank */
+        public int getDeposited(int index) {
+            return deposited[index];
+        }
+
+        public int getTotalDeposited() {
+            int total = 0;
+            for (int amount : deposited) {
+                total += amount;
+            }
+            return total;
+        }
+
+        /** Bank slots written by the deposit, ascending */
+        public int[] getChangedSlots() {
+            return changedSlots.clone();
+        }
+    }
+
     public void updateAccessTime() {
         lastAccessTime = System.currentTimeMillis();
     }
@@ -245,6 +508,141 @@ public class PlayerBank {
         updateAccessTime();
     }
 
+    // ===== COMPACT FORM (unloaded banks) =====
+
+    /**
+     * @return true while a container holds this bank, so it must stay loaded
+     */
+    public boolean isInUse() {
+        return openViews.get() > 0 || !slotTrackers.isEmpty();
+    }
+
+    /**
+     * Pin the bank while a container (e.g. the Grand Exchange) keeps a reference to it.
+     */
+    public void retainView() {
+        openViews.incrementAndGet();
+        touch();
+    }
+
+    public void releaseView() {
+        openViews.updateAndGet(count -> Math.max(0, count - 1));
+        touch();
+    }
+
+    /**
+     * Record a lookup; BankingLevelData unloads banks that have not been touched for a while.
+     */
+    public void touch() {
+        lastUsedTime = System.currentTimeMillis();
+    }
+
+    public long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    /**
+     * Serialize the whole bank (including transient PIN lockout) into a byte array:
+     * scalars plus only the occupied slots, each as its string ID, amount and content packet.
+     * This is both the in-memory form of an unloaded bank and what the world save stores.
+     */
+    public byte[] toCompactData() {
+        Packet packet = new Packet();
+        PacketWriter writer = new PacketWriter(packet);
+        writer.putNextInt(pinHash);
+        writer.putNextBoolean(pinSet);
+        writer.putNextInt(upgradeLevel);
+        writer.putNextLong(coins);
+        writer.putNextLong(totalDeposits);
+        writer.putNextLong(totalWithdrawals);
+        writer.putNextLong(totalCoinsReceived);
+        writer.putNextLong(lastAccessTime);
+        writer.putNextLong(creationTime);
+        writer.putNextInt(failedPinAttempts);
+        writer.putNextLong(lockUntil);
+        writeStacks(writer, inventory);
+        return packet.getPacketData();
+    }
+
+    public static PlayerBank fromCompactData(long ownerAuth, byte[] data) {
+        return new PlayerBank(ownerAuth, data);
+    }
+
+    /**
+     * BANK save entry holding the compact form as-is.
+     */
+    public static SaveData compactSaveData(long ownerAuth, byte[] data) {
+        SaveData save = new SaveData("BANK");
+        save.addLong("ownerAuth", ownerAuth);
+        save.addByteArray("compact", data);
+        return save;
+    }
+
+    /**
+     * Read a saved BANK entry into the compact form without building a PlayerBank.
+     * Entries written by compactSaveData() are returned without decoding; older
+     * entries (written by addSaveData()) are converted once, mirroring applyLoadData().
+     */
+    public static byte[] compactLoadData(LoadData save) {
+        byte[] compact = save.getByteArray("compact", null);
+        if (compact != null) {
+            return compact;
+        }
+
+        long now = System.currentTimeMillis();
+        int pinHash = save.getInt("pinHash", 0);
+        boolean pinSet = save.getBoolean("pinSet", false);
+        int upgradeLevel = save.getInt("upgradeLevel", 0);
+        long coins = save.getLong("coins", 0L);
+        long totalDeposits = save.getLong("totalDeposits", 0L);
+        long totalWithdrawals = save.getLong("totalWithdrawals", 0L);
+        long totalCoinsReceived = save.getLong("totalCoinsReceived", 0L);
+        long lastAccessTime = save.getLong("lastAccessTime", now);
+        long creationTime = save.getLong("creationTime", now);
+        LoadData inventoryLoad = save.getFirstLoadDataByName("INVENTORY");
+        Inventory loadedInventory = inventoryLoad == null ? null : InventorySave.loadSave(inventoryLoad);
+
+        Packet packet = new Packet();
+        PacketWriter writer = new PacketWriter(packet);
+        writer.putNextInt(pinHash);
+        writer.putNextBoolean(pinSet);
+        writer.putNextInt(upgradeLevel);
+        writer.putNextLong(coins);
+        writer.putNextLong(totalDeposits);
+        writer.putNextLong(totalWithdrawals);
+        writer.putNextLong(totalCoinsReceived);
+        writer.putNextLong(lastAccessTime);
+        writer.putNextLong(creationTime);
+        writer.putNextInt(0);
+        writer.putNextLong(0L);
+        if (loadedInventory != null) {
+            writeStacks(writer, loadedInventory);
+        } else {
+            writer.putNextShortUnsigned(0);
+        }
+
+        return packet.getPacketData();
+    }
+
+    private static void writeStacks(PacketWriter writer, Inventory source) {
+        int stacks = 0;
+        for (int i = 0; i < source.getSize(); i++) {
+            if (source.getItem(i) != null) {
+                stacks++;
+            }
+        }
+        writer.putNextShortUnsigned(stacks);
+        for (int i = 0; i < source.getSize(); i++) {
+            InventoryItem item = source.getItem(i);
+            if (item != null) {
+                writer.putNextShortUnsigned(i);
+                writer.putNextString(item.item.getStringID());
+                writer.putNextInt(item.getAmount());
+                writer.putNextContentPacket(InventoryItem.getContentPacket(item));
+            }
+        }
+    }
+
     public void addSaveData(SaveData save) {
         save.addLong("ownerAuth", ownerAuth);
         save.addInt("pinHash", pinHash);
@@ -0,0 +1,112 @@
+package medievalsim.banking.service;
+
+import java.util.BitSet;
+
+/**
+ * Server-side record of which bank slots one open BankContainer still has to send.
+ *
+ * Changed slots accumulate in a bitmap and go out together as one sequenced delta
+ * (PacketBankInventoryUpdate). Each batch names the sequence it builds on, so the
+ * client can spot a missed or foreign batch and ask for a full resync instead of
+ * silently drifting. The first batch after opening is always full.
+ *
+ * Thread-safe (synchronized): GE transfers may mark slots from outside the tick.
+ */
+public class BankSlotTracker {
+
+    public static final int FULL_SYNC = -1;
+
+    private final BitSet dirty = new BitSet();
+    private int slotCount;
+    private boolean fullPending = true;
+    private int lastSentSequence = FULL_SYNC;
+    private int nextSequence = 0;
+
+    public BankSlotTracker(int slotCount) {
+        this.slotCount = Math.max(0, slotCount);
+    }
+
+    public synchronized void markDirty(int slot) {
+        if (slot >= 0 && slot < slotCount) {
+            dirty.set(slot);
+        }
+    }
+
+    public synchronized void markAllDirty() {
+        dirty.set(0, slotCount);
+    }
+
+    /**
+     * Send every slot with no base on the next poll (client lost track, or slot count changed).
+     */
+    public synchronized void requestFullResync(int slotCount) {
+        this.slotCount = Math.max(0, slotCount);
+        dirty.clear();
+        fullPending = true;
+    }
+
+    public synchronized boolean hasPending() {
+        return fullPending || !dirty.isEmpty();
+    }
+
+    /**
+     * Take everything pending as the next batch.
+     * @return The batch to send, or null if nothing changed
+     */
+    public synchronized Batch poll() {
+        if (!hasPending()) {
+            return null;
+        }
+        int[] slots;
+        int baseSequence;
+        if (fullPending) {
+            slots = new int[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                slots[i] = i;
+            }
+            baseSequence = FULL_SYNC;
+            fullPending = false;
+        } else {
+            slots = dirty.stream().toArray();
+            baseSequence = lastSentSequence;
+        }
+        dirty.clear();
+
+        int sequence = nextSequence;
+        nextSequence = nextSequence == Integer.MAX_VALUE ? 0 : nextSequence + 1;
+        lastSentSequence = sequence;
+        return new Batch(sequence, baseSequence, slots);
+    }
+
+    /**
+     * One sequenced set of slots to send.
+     */
+    public static final class Batch {
+        private final int sequence;
+        private final int baseSequence;
+        private final int[] slots;
+
+        private Batch(int sequence, int baseSequence, int[] slots) {
+            this.sequence = sequence;
+            this.baseSequence = baseSequence;
+            this.slots = slots;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        /** Sequence the client must hold to apply this batch, or FULL_SYNC */
+        public int getBaseSequence() {
+            return baseSequence;
+        }
+
+        public boolean isFull() {
+            return baseSequence == FULL_SYNC;
+        }
+
+        public int[] getSlots() {
+            return slots;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import medievalsim.banking.diagnostics.BankingDiagnostics;
 import medievalsim.banking.domain.BankingLevelData;
 import medievalsim.banking.domain.PlayerBank;
 import medievalsim.config.ModConfig;
+import medievalsim.metrics.MetricsRegistry;
 import medievalsim.util.ModLogger;
+import medievalsim.util.TokenBucketLimiter;
 import necesse.engine.localization.Localization;
 import necesse.engine.network.server.ServerClient;
 import necesse.engine.registries.ItemRegistry;
@@ -19,6 +21,19 @@ public class BankingService {
     private static final int MAX_PIN_ATTEMPTS = 3;
     private static final long PIN_LOCK_COOLDOWN_MILLIS = 5 * 60 * 1000L;
 
+    private static final String OPERATION_HELP = "Server-side time of a bank operation";
+    private static final MetricsRegistry.Timer DEPOSIT_LATENCY =
+        MetricsRegistry.timer("bank_operation_seconds", OPERATION_HELP, "op", "deposit_coins");
+    private static final MetricsRegistry.Timer WITHDRAW_LATENCY =
+        MetricsRegistry.timer("bank_operation_seconds", OPERATION_HELP, "op", "withdraw_coins");
+    private static final MetricsRegistry.Timer PIN_LATENCY =
+        MetricsRegistry.timer("bank_operation_seconds", OPERATION_HELP, "op", "validate_pin");
+
+    // Shared by every bank on the server: one bucket per player, not per level
+    private static final TokenBucketLimiter OPERATION_LIMITER = new TokenBucketLimiter("bank_operation",
+        () -> ModConfig.RateLimits.bankOperationBurst,
+        () -> ModConfig.RateLimits.bankOperationsPerMinute / 60.0);
+
     private final ServerClient client;
     private final PlayerBank bank;
 
@@ -32,7 +47,36 @@ public class BankingService {
         return bank;
     }
 
+    /**
+     * Spend one of the player's bank operation tokens (UI-initiated coin moves, PIN, upgrades).
+     * Internal callers such as GE escrow are not throttled.
+     * @return true if allowed, false if rate limited
+     */
+    public boolean tryAcquireOperation() {
+        boolean allowed = OPERATION_LIMITER.tryAcquire(client.authentication, System.currentTimeMillis());
+        if (!allowed) {
+            ModLogger.debug("Bank rate limit: player auth=%d denied", client.authentication);
+        }
+        return allowed;
+    }
+
+    /**
+     * @return Seconds until the player may perform another bank operation
+     */
+    public float getOperationWaitSeconds() {
+        return OPERATION_LIMITER.getWaitMillis(client.authentication, System.currentTimeMillis()) / 1000.0f;
+    }
+
     public BankingResult depositCoins(int amount) {
+        long start = System.nanoTime();
+        try {
+            return depositCoinsInternal(amount);
+        } finally {
+            DEPOSIT_LATENCY.recordSince(start);
+        }
+    }
+
+    private BankingResult depositCoinsInternal(int amount) {
         if (bank == null) {
             return BankingResult.failure(BankingResult.Status.ERROR, "bankerror");
         }
@@ -62,6 +106,15 @@ public class BankingService {
     }
 
     public BankingResult withdrawCoins(int amount) {
+        long start = System.nanoTime();
+        try {
+            return withdrawCoinsInternal(amount);
+        } finally {
+            WITHDRAW_LATENCY.recordSince(start);
+        }
+    }
+
+    private BankingResult withdrawCoinsInternal(int amount) {
         if (bank == null) {
             return BankingResult.failure(BankingResult.Status.ERROR, "bankerror");
         }
@@ -151,7 +204,9 @@ public class BankingService {
             client.sendChatMessage(Localization.translate("ui", "bankpinlocked", "seconds", String.valueOf(remaining / 1000)));
             return false;
         }
+        long start = System.nanoTime();
         boolean valid = bank.validatePin(pin);
+        PIN_LATENCY.recordSince(start);
         if (!valid) {
             boolean locked = bank.recordFailedPinAttempt(MAX_PIN_ATTEMPTS, PIN_LOCK_COOLDOWN_MILLIS);
             if (locked) {
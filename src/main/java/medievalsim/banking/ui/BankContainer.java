@@ -2,12 +2,14 @@ package medievalsim.banking.ui;
 
 import medievalsim.banking.domain.PlayerBank;
 import medievalsim.banking.service.BankClientSnapshot;
+import medievalsim.banking.service.BankSlotTracker;
 import medievalsim.banking.service.BankingResult;
 import medievalsim.banking.service.BankingService;
 import medievalsim.config.ModConfig;
 import medievalsim.packets.PacketBankInventoryUpdate;
 import medievalsim.registries.MedievalSimContainers;
 import medievalsim.util.ModLogger;
+import medievalsim.util.TokenBucketLimiter;
 import necesse.engine.localization.Localization;
 import necesse.engine.network.NetworkClient;
 import necesse.engine.network.Packet;
@@ -26,6 +28,11 @@ import necesse.inventory.container.slots.ContainerSlot;
 
 public class BankContainer extends Container {
 
+    // Full resyncs resend every slot; one bucket per player across all bank containers
+    private static final TokenBucketLimiter RESYNC_LIMITER = new TokenBucketLimiter("bank_resync",
+        () -> ModConfig.RateLimits.bankResyncBurst,
+        () -> ModConfig.RateLimits.bankResyncsPerMinute / 60.0);
+
     public final PlayerBank bank;
     private final BankingService bankingService;
     public final long ownerAuth;
@@ -38,6 +45,11 @@ public class BankContainer extends Container {
     public int maxUpgradeLevel = ModConfig.Banking.maxUpgrades;
     public long clientCoinCount = 0;
     public long lastSyncedCoinCount = 0;
+    public int bankSyncSequence = BankSlotTracker.FULL_SYNC; // Client-side: last applied PacketBankInventoryUpdate
+    public boolean bankResyncRequested = false; // Client-side: PacketBankResyncRequest sent, waiting for a full update
+    private final BankSlotTracker slotTracker; // Server-side: slots this container still has to send
+    private boolean bankResyncDeferred = false; // Server-side: rate-limited resync, answered from tick()
+    private long bankResyncRetryTime = 0L;
 
     public EmptyCustomAction purchaseUpgrade;
     public StringCustomAction validatePin;
@@ -72,11 +84,14 @@ public class BankContainer extends Container {
             }
             this.clientCoinCount = bank.getCoins();
             this.lastSyncedCoinCount = bank.getCoins();
+            this.slotTracker = new BankSlotTracker(bank.getInventory().getSize());
+            bank.addSlotTracker(slotTracker);
             ModLogger.debug("Server: Loaded bank for auth=%d, level=%d, slots=%d, coins=%d",
                 ownerAuth, bank.getUpgradeLevel(), bank.getInventory().getSize(), bank.getCoins());
         } else {
             this.bankingService = null;
             this.bank = new PlayerBank(ownerAuth, currentUpgradeLevel);
+            this.slotTracker = null;
         }
         if (!client.isServer()) {
             this.bank.setPinSet(pinSet);
@@ -248,7 +263,7 @@ public class BankContainer extends Container {
     }
 
     private void handlePurchaseUpgrade() {
-        if (bankingService == null) {
+        if (bankingService == null || !checkOperationRateLimit()) {
             return;
         }
         if (!bankingService.upgradeBank()) {
@@ -272,6 +287,9 @@ public class BankContainer extends Container {
     }
 
     private void handleValidatePin(String pin) {
+        if (bankingService != null && !checkOperationRateLimit()) {
+            return;
+        }
         if (bankingService != null && bankingService.validatePin(pin)) {
             isPinValidated = true;
             setPinValidated.runAndSend(true);
@@ -284,6 +302,9 @@ public class BankContainer extends Container {
     }
 
     private void handleSetNewPin(String pin) {
+        if (bankingService != null && !checkOperationRateLimit()) {
+            return;
+        }
         if (bankingService != null && bankingService.setPin(pin)) {
             isPinValidated = true;
             setPinValidated.runAndSend(true);
@@ -298,7 +319,7 @@ public class BankContainer extends Container {
             return;
         }
 
-        if (bankingService == null) {
+        if (bankingService == null || !checkOperationRateLimit()) {
             return;
         }
         BankingResult result = bankingService.depositCoins(amount);
@@ -314,7 +335,7 @@ public class BankContainer extends Container {
             ModLogger.warn("Player auth=%d attempted to withdraw invalid amount: %d", ownerAuth, amount);
             return;
         }
-        if (bankingService == null) {
+        if (bankingService == null || !checkOperationRateLimit()) {
             return;
         }
         BankingResult result = bankingService.withdrawCoins(amount);
@@ -348,6 +369,17 @@ public class BankContainer extends Container {
         return this.bank;
     }
 
+    /**
+     * Server-side: spend a bank operation token, telling the player how long to wait if there is none.
+     */
+    private boolean checkOperationRateLimit() {
+        if (bankingService.tryAcquireOperation()) {
+            return true;
+        }
+        sendBankMessage("ratelimited", "seconds", String.format("%.1f", bankingService.getOperationWaitSeconds()));
+        return false;
+    }
+
     private void sendBankMessage(String key, Object... args) {
         if (!client.isServer()) {
             return;
@@ -364,35 +396,19 @@ public class BankContainer extends Container {
         super.tick();
 
         if (client.isServer()) {
-            necesse.inventory.Inventory inventory = bank.getInventory();
-
-            if (inventory.isDirty()) {
-                necesse.engine.network.server.Server server = client.getServerClient().getServer();
-
-                if (inventory.isFullDirty()) {
-                    for (int i = 0; i < inventory.getSize(); i++) {
-                        PacketBankInventoryUpdate updatePacket = new PacketBankInventoryUpdate(
-                            ownerAuth,
-                            i,
-                            inventory.getItem(i)
-                        );
-                        server.network.sendPacket(updatePacket, client.getServerClient());
-                    }
-                    inventory.clean();
-                    ModLogger.debug("Synced all bank slots for auth=%d (full dirty)", ownerAuth);
-                } else {
-                    for (int i = 0; i < inventory.getSize(); i++) {
-                        if (inventory.isDirty(i)) {
-                            PacketBankInventoryUpdate updatePacket = new PacketBankInventoryUpdate(
-                                ownerAuth,
-                                i,
-                                inventory.getItem(i)
-                            );
-                            server.network.sendPacket(updatePacket, client.getServerClient());
-                            inventory.clean(i);
-                        }
-                    }
-                }
+            if (bankResyncDeferred && System.currentTimeMillis() >= bankResyncRetryTime) {
+                bankResyncDeferred = false;
+                requestFullBankResync();
+            }
+
+            // Shared inventory dirty flags -> this view's bitmap, then one sequenced delta per tick
+            bank.collectInventoryChanges();
+            BankSlotTracker.Batch batch = slotTracker.poll();
+            if (batch != null) {
+                PacketBankInventoryUpdate updatePacket = new PacketBankInventoryUpdate(ownerAuth, batch, bank.getInventory());
+                client.getServerClient().getServer().network.sendPacket(updatePacket, client.getServerClient());
+                ModLogger.debug("Synced %d bank slots for auth=%d (seq=%d%s)",
+                    batch.getSlots().length, ownerAuth, batch.getSequence(), batch.isFull() ? ", full" : "");
             }
             long coinCount = bank.getCoins();
             if (coinCount != lastSyncedCoinCount) {
@@ -403,6 +419,34 @@ public class BankContainer extends Container {
         }
     }
 
+    /**
+     * Server-side: the client lost track of the slot sequence, send every slot on the next tick.
+     * Rate limited per player; a limited request is answered once a token is available
+     * (the client asks only once and waits), and repeats in the meantime are ignored.
+     */
+    public void requestFullBankResync() {
+        if (slotTracker == null || bankResyncDeferred) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (RESYNC_LIMITER.tryAcquire(ownerAuth, now)) {
+            slotTracker.requestFullResync(bank.getInventory().getSize());
+        } else {
+            bankResyncDeferred = true;
+            bankResyncRetryTime = now + RESYNC_LIMITER.getWaitMillis(ownerAuth, now);
+            ModLogger.debug("Bank resync for auth=%d rate limited, retrying in %d ms",
+                ownerAuth, bankResyncRetryTime - now);
+        }
+    }
+
+    @Override
+    public void onClose() {
+        super.onClose();
+        if (slotTracker != null) {
+            bank.removeSlotTracker(slotTracker);
+        }
+    }
+
     public static Packet getOpenPacketContent(long ownerAuth, boolean pinValidated, PlayerBank bank) {
         Packet packet = new Packet();
         PacketWriter writer = new PacketWriter(packet);
@@ -467,6 +467,13 @@ public class ModConfig {
         )
         public static boolean settlementCoinsToBank = true;
 
+        @ConfigValue(
+            defaultValue = "10",
+            description = "Minutes an unused bank stays loaded before it is packed into compact form (0 = keep loaded)",
+            min = 0, max = 1440
+        )
+        public static int idleUnloadMinutes = 10;
+
         // Setters with validation
         public static void setBaseSlots(int value) {
             baseSlots = validateInt(value, 10, 100, "baseSlots");
@@ -488,6 +495,10 @@ public class ModConfig {
             pinLength = validateInt(value, 4, 8, "pinLength");
         }
 
+        public static void setIdleUnloadMinutes(int value) {
+            idleUnloadMinutes = validateInt(value, 0, 1440, "idleUnloadMinutes");
+        }
+
         /** Calculate total slots for a given upgrade level */
         public static int getTotalSlots(int upgradeLevel) {
             return baseSlots + (upgradeLevel * slotsPerUpgrade);
@@ -664,7 +675,7 @@ public class ModConfig {
         
         @ConfigValue(
             defaultValue = "5000",
-            description = "Cooldown in milliseconds between creating offers/orders (5000 = 5 seconds)",
+            description = "Milliseconds for a player to regain one offer/order action (burst: RateLimits.geOfferBurst, 0 = unlimited)",
             min = 0, max = 60000
         )
         public static int offerCreationCooldown = 5000;
@@ -674,7 +685,7 @@ public class ModConfig {
         @ConfigValue(
             defaultValue = "1000",
             description = "Number of trades to keep in audit log per category",
-            min = 100, max = 10000
+            min = 100, max = 100000
         )
         public static int auditLogSize = 1000;
 
@@ -691,6 +702,34 @@ public class ModConfig {
         )
         public static float priceOutlierThreshold = 2.0f;
 
+        @ConfigValue(
+            defaultValue = "0.1",
+            description = "Weight of each new trade in the fraud detector's rolling price average (EWMA alpha)",
+            min = 0.01, max = 0.5
+        )
+        public static float fraudEwmaAlpha = 0.1f;
+
+        @ConfigValue(
+            defaultValue = "3",
+            description = "Trades in each direction between the same two players that count as wash trading",
+            min = 2, max = 100
+        )
+        public static int washTradeThreshold = 3;
+
+        @ConfigValue(
+            defaultValue = "600",
+            description = "Window in seconds for counting trades between the same two players",
+            min = 60, max = 86400
+        )
+        public static int washTradeWindowSeconds = 600;
+
+        @ConfigValue(
+            defaultValue = "100",
+            description = "Number of fraud alerts kept for admins (oldest dropped first)",
+            min = 10, max = 1000
+        )
+        public static int fraudAlertQueueSize = 100;
+
         // === PERFORMANCE ===
         
         @ConfigValue(
@@ -706,6 +745,59 @@ public class ModConfig {
         )
         public static boolean enablePerformanceMetrics = true;
 
+        @ConfigValue(
+            defaultValue = "1024",
+            description = "Capacity of the per-level GE command queue (rounded up to a power of two)",
+            min = 64, max = 65536
+        )
+        public static int commandQueueCapacity = 1024;
+
+        @ConfigValue(
+            defaultValue = "256",
+            description = "Maximum queued GE commands executed per server tick",
+            min = 16, max = 4096
+        )
+        public static int commandsPerTick = 256;
+
+        @ConfigValue(
+            defaultValue = "256",
+            description = "Number of rendered market browser pages to cache (0 = disabled)",
+            min = 0, max = 4096
+        )
+        public static int snapshotCacheSize = 256;
+
+        @ConfigValue(
+            defaultValue = "true",
+            description = "Send market page updates as deltas against the client's last acknowledged page"
+        )
+        public static boolean enableDeltaSync = true;
+
+        @ConfigValue(
+            defaultValue = "true",
+            description = "Journal GE changes to disk between world saves so a crash loses at most one commit window"
+        )
+        public static boolean enableJournal = true;
+
+        @ConfigValue(
+            defaultValue = "200",
+            description = "GE journal group-commit window in milliseconds",
+            min = 10, max = 10000
+        )
+        public static int journalCommitIntervalMs = 200;
+
+        @ConfigValue(
+            defaultValue = "true",
+            description = "Force each GE journal commit to disk (fsync)"
+        )
+        public static boolean journalFsync = true;
+
+        @ConfigValue(
+            defaultValue = "250",
+            description = "Minimum milliseconds between coalesced GE fill/sync updates sent to one player (0 = every tick)",
+            min = 0, max = 5000
+        )
+        public static int clientUpdateMinIntervalMs = 250;
+
         // ===== SETTERS WITH VALIDATION =====
         
         public static void setGeInventorySlots(int value) {
@@ -753,13 +845,49 @@ public class ModConfig {
         }
 
         public static void setAuditLogSize(int value) {
-            auditLogSize = validateInt(value, 100, 10000, "auditLogSize");
+            auditLogSize = validateInt(value, 100, 100000, "auditLogSize");
+        }
+
+        public static void setCommandQueueCapacity(int value) {
+            commandQueueCapacity = validateInt(value, 64, 65536, "commandQueueCapacity");
+        }
+
+        public static void setCommandsPerTick(int value) {
+            commandsPerTick = validateInt(value, 16, 4096, "commandsPerTick");
+        }
+
+        public static void setSnapshotCacheSize(int value) {
+            snapshotCacheSize = validateInt(value, 0, 4096, "snapshotCacheSize");
+        }
+
+        public static void setJournalCommitIntervalMs(int value) {
+            journalCommitIntervalMs = validateInt(value, 10, 10000, "journalCommitIntervalMs");
+        }
+
+        public static void setClientUpdateMinIntervalMs(int value) {
+            clientUpdateMinIntervalMs = validateInt(value, 0, 5000, "clientUpdateMinIntervalMs");
         }
 
         public static void setPriceOutlierThreshold(float value) {
             priceOutlierThreshold = validateFloat(value, 1.0f, 5.0f, "priceOutlierThreshold");
         }
 
+        public static void setFraudEwmaAlpha(float value) {
+            fraudEwmaAlpha = validateFloat(value, 0.01f, 0.5f, "fraudEwmaAlpha");
+        }
+
+        public static void setWashTradeThreshold(int value) {
+            washTradeThreshold = validateInt(value, 2, 100, "washTradeThreshold");
+        }
+
+        public static void setWashTradeWindowSeconds(int value) {
+            washTradeWindowSeconds = validateInt(value, 60, 86400, "washTradeWindowSeconds");
+        }
+
+        public static void setFraudAlertQueueSize(int value) {
+            fraudAlertQueueSize = validateInt(value, 10, 1000, "fraudAlertQueueSize");
+        }
+
         public static void setMetricsWindowSeconds(int value) {
             metricsWindowSeconds = validateInt(value, 10, 300, "metricsWindowSeconds");
         }
@@ -803,6 +931,190 @@ public class ModConfig {
         }
     }
 
+    // ===== METRICS EXPORT CONFIGURATION =====
+    @ConfigSection(value = "METRICS", description = "Hot-path metrics export (Prometheus text format)")
+    public static class Metrics {
+
+        @ConfigValue(
+            defaultValue = "false",
+            description = "Periodically write hot-path metrics (GE, zones, banking) to medievalsim/metrics/medievalsim.prom"
+        )
+        public static boolean enableMetricsExport = false;
+
+        @ConfigValue(
+            defaultValue = "15",
+            description = "Seconds between metrics file exports",
+            min = 5, max = 600
+        )
+        public static int exportIntervalSeconds = 15;
+
+        @ConfigValue(
+            defaultValue = "60",
+            description = "Window in seconds covered by latency quantiles (reported over the last one to two windows)",
+            min = 10, max = 3600
+        )
+        public static int quantileWindowSeconds = 60;
+
+        @ConfigValue(
+            defaultValue = "0",
+            description = "Serve /metrics on this localhost-only HTTP port while export is enabled (0 = disabled)",
+            min = 0, max = 65535
+        )
+        public static int httpPort = 0;
+
+        public static void setEnableMetricsExport(boolean value) {
+            enableMetricsExport = value;
+        }
+
+        public static void setExportIntervalSeconds(int value) {
+            exportIntervalSeconds = validateInt(value, 5, 600, "exportIntervalSeconds");
+        }
+
+        public static void setQuantileWindowSeconds(int value) {
+            quantileWindowSeconds = validateInt(value, 10, 3600, "quantileWindowSeconds");
+        }
+
+        public static void setHttpPort(int value) {
+            httpPort = validateInt(value, 0, 65535, "httpPort");
+        }
+    }
+
+    // ===== RATE LIMIT CONFIGURATION =====
+    @ConfigSection(value = "RATE_LIMITS", description = "Per-player token buckets that throttle packet-driven actions")
+    public static class RateLimits {
+
+        @ConfigValue(
+            defaultValue = "true",
+            description = "Enable per-player rate limits on GE, bank and zone actions"
+        )
+        public static boolean enableRateLimits = true;
+
+        @ConfigValue(
+            defaultValue = "3",
+            description = "GE sell offer / buy order state changes allowed back to back (one more every GrandExchange.offerCreationCooldown ms)",
+            min = 1, max = 20
+        )
+        public static int geOfferBurst = 3;
+
+        @ConfigValue(
+            defaultValue = "5",
+            description = "GE market purchases allowed back to back",
+            min = 1, max = 50
+        )
+        public static int gePurchaseBurst = 5;
+
+        @ConfigValue(
+            defaultValue = "30",
+            description = "GE market purchases a player regains per minute (0 = unlimited)",
+            min = 0, max = 600
+        )
+        public static int gePurchasesPerMinute = 30;
+
+        @ConfigValue(
+            defaultValue = "10",
+            description = "GE market browser refreshes (filter, category, page, sort) allowed back to back",
+            min = 1, max = 100
+        )
+        public static int geBrowseBurst = 10;
+
+        @ConfigValue(
+            defaultValue = "120",
+            description = "GE market browser refreshes a player regains per minute (0 = unlimited)",
+            min = 0, max = 1200
+        )
+        public static int geBrowseRefreshesPerMinute = 120;
+
+        @ConfigValue(
+            defaultValue = "10",
+            description = "Bank operations (deposit, withdraw, PIN, upgrade) allowed back to back",
+            min = 1, max = 100
+        )
+        public static int bankOperationBurst = 10;
+
+        @ConfigValue(
+            defaultValue = "120",
+            description = "Bank operations a player regains per minute (0 = unlimited)",
+            min = 0, max = 1200
+        )
+        public static int bankOperationsPerMinute = 120;
+
+        @ConfigValue(
+            defaultValue = "3",
+            description = "Full bank slot resyncs a player can request back to back",
+            min = 1, max = 20
+        )
+        public static int bankResyncBurst = 3;
+
+        @ConfigValue(
+            defaultValue = "12",
+            description = "Full bank slot resyncs a player regains per minute (0 = unlimited)",
+            min = 0, max = 600
+        )
+        public static int bankResyncsPerMinute = 12;
+
+        @ConfigValue(
+            defaultValue = "20",
+            description = "Zone edits (create, expand, shrink, rename, configure, delete) allowed back to back",
+            min = 1, max = 200
+        )
+        public static int zoneEditBurst = 20;
+
+        @ConfigValue(
+            defaultValue = "240",
+            description = "Zone edits a player regains per minute (0 = unlimited)",
+            min = 0, max = 2400
+        )
+        public static int zoneEditsPerMinute = 240;
+
+        public static void setEnableRateLimits(boolean value) {
+            enableRateLimits = value;
+        }
+
+        public static void setGeOfferBurst(int value) {
+            geOfferBurst = validateInt(value, 1, 20, "geOfferBurst");
+        }
+
+        public static void setGePurchaseBurst(int value) {
+            gePurchaseBurst = validateInt(value, 1, 50, "gePurchaseBurst");
+        }
+
+        public static void setGePurchasesPerMinute(int value) {
+            gePurchasesPerMinute = validateInt(value, 0, 600, "gePurchasesPerMinute");
+        }
+
+        public static void setGeBrowseBurst(int value) {
+            geBrowseBurst = validateInt(value, 1, 100, "geBrowseBurst");
+        }
+
+        public static void setGeBrowseRefreshesPerMinute(int value) {
+            geBrowseRefreshesPerMinute = validateInt(value, 0, 1200, "geBrowseRefreshesPerMinute");
+        }
+
+        public static void setBankOperationBurst(int value) {
+            bankOperationBurst = validateInt(value, 1, 100, "bankOperationBurst");
+        }
+
+        public static void setBankOperationsPerMinute(int value) {
+            bankOperationsPerMinute = validateInt(value, 0, 1200, "bankOperationsPerMinute");
+        }
+
+        public static void setBankResyncBurst(int value) {
+            bankResyncBurst = validateInt(value, 1, 20, "bankResyncBurst");
+        }
+
+        public static void setBankResyncsPerMinute(int value) {
+            bankResyncsPerMinute = validateInt(value, 0, 600, "bankResyncsPerMinute");
+        }
+
+        public static void setZoneEditBurst(int value) {
+            zoneEditBurst = validateInt(value, 1, 200, "zoneEditBurst");
+        }
+
+        public static void setZoneEditsPerMinute(int value) {
+            zoneEditsPerMinute = validateInt(value, 0, 2400, "zoneEditsPerMinute");
+        }
+    }
+
     // ===== SAVE/LOAD FUNCTIONALITY =====
     
     /**
@@ -851,6 +1163,16 @@ public class ModConfig {
             saveSectionToData(GrandExchange.class, grandExchangeData);
             parentSave.addSaveData(grandExchangeData);
 
+            // Save Metrics section
+            SaveData metricsData = new SaveData("METRICS");
+            saveSectionToData(Metrics.class, metricsData);
+            parentSave.addSaveData(metricsData);
+
+            // Save RateLimits section
+            SaveData rateLimitsData = new SaveData("RATE_LIMITS");
+            saveSectionToData(RateLimits.class, rateLimitsData);
+            parentSave.addSaveData(rateLimitsData);
+
             ModLogger.debug("Saved configuration to data");
             
         } catch (Exception e) {
@@ -912,6 +1234,18 @@ public class ModConfig {
                 loadSectionFromData(GrandExchange.class, grandExchangeData);
             }
 
+            // Load Metrics section
+            LoadData metricsData = parentLoad.getFirstLoadDataByName("METRICS");
+            if (metricsData != null) {
+                loadSectionFromData(Metrics.class, metricsData);
+            }
+
+            // Load RateLimits section
+            LoadData rateLimitsData = parentLoad.getFirstLoadDataByName("RATE_LIMITS");
+            if (rateLimitsData != null) {
+                loadSectionFromData(RateLimits.class, rateLimitsData);
+            }
+
             ModLogger.debug("Loaded configuration from data");
             
         } catch (Exception e) {
@@ -0,0 +1,95 @@
+package medievalsim.grandexchange.commands;
+
+import medievalsim.commandcenter.domain.CommandCategory;
+import medievalsim.commandcenter.service.AdminCommand;
+import medievalsim.commandcenter.service.CommandResult;
+import medievalsim.grandexchange.domain.GrandExchangeLevelData;
+import medievalsim.grandexchange.services.FraudDetector;
+import medievalsim.grandexchange.services.TradeAuditLog;
+import medievalsim.util.ModLogger;
+
+import necesse.engine.commands.PermissionLevel;
+import necesse.engine.network.client.Client;
+import necesse.engine.network.server.Server;
+import necesse.engine.network.server.ServerClient;
+
+import java.util.List;
+
+/**
+ * Admin command: show recent GE fraud alerts (price outliers, self-trades, wash trading).
+ * Usage: /gefraudalerts [count|clear]
+ */
+public class FraudAlertsCommand extends AdminCommand {
+
+    private static final int DEFAULT_COUNT = 10;
+
+    public FraudAlertsCommand() {
+        super(new Builder("gefraudalerts", "GE Fraud Alerts")
+            .description("Show recent Grand Exchange fraud alerts")
+            .permission(PermissionLevel.ADMIN)
+            .category(CommandCategory.OTHER)
+        );
+    }
+
+    @Override
+    public CommandResult execute(Client client, Server server, ServerClient executor, Object[] args) {
+        // Enforce permission at runtime as an extra safeguard
+        if (!hasPermission(executor)) {
+            if (executor != null) {
+                executor.sendChatMessage("[GE] Permission denied: insufficient privileges");
+            }
+            ModLogger.warn("Unauthorized admin command attempt: %s by permission=%s",
+                this.getId(), executor == null ? "unknown" : String.valueOf(executor.getPermissionLevel()));
+            return CommandResult.error("Permission denied");
+        }
+        if (server == null || executor == null) {
+            return CommandResult.error("Server context required");
+        }
+
+        GrandExchangeLevelData geData = GrandExchangeLevelData.getGrandExchangeData(server.world.getLevel(executor));
+        if (geData == null || geData.getAuditLog() == null) {
+            return CommandResult.error("Grand Exchange not available in this world");
+        }
+        FraudDetector detector = geData.getAuditLog().getFraudDetector();
+
+        int count = DEFAULT_COUNT;
+        if (args.length >= 1 && args[0] != null) {
+            String arg = args[0].toString();
+            if (arg.equalsIgnoreCase("clear")) {
+                detector.clearAlerts();
+                executor.sendChatMessage("[GE] Cleared fraud alerts");
+                return CommandResult.success("Cleared fraud alerts");
+            }
+            try {
+                count = Math.max(1, Integer.parseInt(arg));
+            } catch (NumberFormatException e) {
+                return CommandResult.error("Usage: /gefraudalerts [count|clear]");
+            }
+        }
+
+        List<FraudDetector.Alert> alerts = detector.getRecentAlerts(count);
+        if (alerts.isEmpty()) {
+            executor.sendChatMessage("[GE] No fraud alerts");
+            return CommandResult.success("No fraud alerts");
+        }
+
+        executor.sendChatMessage(String.format("[GE] %d of %d fraud alerts (%d raised in total), newest first:",
+            alerts.size(), detector.getAlertCount(), detector.getTotalAlerts()));
+        int index = 0;
+        for (FraudDetector.Alert alert : alerts) {
+            TradeAuditLog.AuditEntry trade = alert.trade();
+            executor.sendChatMessage(String.format("%d) %s %s x%d @ %d — buyer=%d seller=%d: %s",
+                ++index,
+                alert.type(),
+                trade.getItemStringID(),
+                trade.getQuantity(),
+                trade.getPricePerItem(),
+                trade.getBuyerAuth(),
+                trade.getSellerAuth(),
+                alert.detail()
+            ));
+        }
+
+        return CommandResult.success(String.format("Displayed %d fraud alerts", alerts.size()));
+    }
+}
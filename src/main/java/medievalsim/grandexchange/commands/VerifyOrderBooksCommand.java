@@ -0,0 +1,82 @@
+package medievalsim.grandexchange.commands;
+
+import medievalsim.commandcenter.domain.CommandCategory;
+import medievalsim.commandcenter.service.AdminCommand;
+import medievalsim.commandcenter.service.CommandResult;
+import medievalsim.grandexchange.domain.GrandExchangeLevelData;
+import medievalsim.util.ModLogger;
+
+import necesse.engine.commands.PermissionLevel;
+import necesse.engine.network.client.Client;
+import necesse.engine.network.server.Server;
+import necesse.engine.network.server.ServerClient;
+
+import java.util.List;
+
+/**
+ * Admin command: diff the live order books against the offer repository.
+ * Usage: /gecheckbooks [repair]
+ */
+public class VerifyOrderBooksCommand extends AdminCommand {
+
+    private static final int MAX_LINES = 20;
+
+    public VerifyOrderBooksCommand() {
+        super(new Builder("gecheckbooks", "GE Check OrderBooks")
+            .description("Debug: verify live OrderBooks match the repository (pass 'repair' to rebuild)")
+            .permission(PermissionLevel.ADMIN)
+            .category(CommandCategory.OTHER)
+        );
+    }
+
+    @Override
+    public CommandResult execute(Client client, Server server, ServerClient executor, Object[] args) {
+        // Enforce permission at runtime as an extra safeguard
+        if (!hasPermission(executor)) {
+            if (executor != null) {
+                executor.sendChatMessage("[GE] Permission denied: insufficient privileges");
+            }
+            ModLogger.warn("Unauthorized admin command attempt: %s by permission=%s",
+                this.getId(), executor == null ? "unknown" : String.valueOf(executor.getPermissionLevel()));
+            return CommandResult.error("Permission denied");
+        }
+        if (server == null || executor == null) {
+            return CommandResult.error("Server context required");
+        }
+
+        GrandExchangeLevelData geData = GrandExchangeLevelData.getGrandExchangeData(server.world.getLevel(executor));
+        if (geData == null) {
+            return CommandResult.error("Grand Exchange not available in this world");
+        }
+
+        boolean repair = args.length > 0 && "repair".equalsIgnoreCase(String.valueOf(args[0]));
+
+        List<String> problems = geData.verifyOrderBooks();
+        if (problems.isEmpty()) {
+            executor.sendChatMessage(String.format("[GE] %d order books consistent with repository",
+                geData.getOrderBooksByItem().size()));
+            return CommandResult.success("Order books consistent");
+        }
+
+        executor.sendChatMessage(String.format("[GE] Found %d order book discrepancies:", problems.size()));
+        for (int i = 0; i < problems.size() && i < MAX_LINES; i++) {
+            executor.sendChatMessage(" - " + problems.get(i));
+        }
+        if (problems.size() > MAX_LINES) {
+            executor.sendChatMessage(String.format(" ... and %d more (see server log)", problems.size() - MAX_LINES));
+        }
+        for (String problem : problems) {
+            ModLogger.warn("OrderBook discrepancy: %s", problem);
+        }
+
+        if (repair) {
+            geData.rebuildOrderBooks();
+            int remaining = geData.verifyOrderBooks().size();
+            executor.sendChatMessage(String.format("[GE] Rebuilt order books, %d discrepancies remain", remaining));
+            return CommandResult.success(String.format("Repaired order books (%d -> %d discrepancies)",
+                problems.size(), remaining));
+        }
+
+        return CommandResult.error(String.format("%d order book discrepancies found", problems.size()));
+    }
+}
@@ -7,6 +7,10 @@ import necesse.engine.save.LoadData;
 import necesse.engine.save.SaveData;
 import necesse.inventory.item.Item;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Represents a buy order in the Grand Exchange.
  * 
@@ -207,6 +211,14 @@ public class BuyOrder {
         this.lastModifiedTime = System.currentTimeMillis();
     }
     
+    /**
+     * Set the order state directly (for rollback operations only).
+     */
+    public void setState(BuyOrderState newState) {
+        this.state = newState;
+        this.lastModifiedTime = System.currentTimeMillis();
+    }
+    
     // ===== STATE MANAGEMENT =====
     
     /**
@@ -490,6 +502,51 @@ public class BuyOrder {
             enabled, state, creationTime, durationDays, expirationTime, lastModifiedTime);
     }
     
+    /**
+     * Write the order's full state as a binary journal image (same fields as getSaveData).
+     */
+    public void writeJournalImage(DataOutput out) throws IOException {
+        out.writeLong(orderID);
+        out.writeLong(playerAuth);
+        out.writeUTF(playerName == null ? "" : playerName);
+        out.writeInt(slotIndex);
+        out.writeUTF(itemStringID != null ? itemStringID : "");
+        out.writeInt(quantityTotal);
+        out.writeInt(quantityRemaining);
+        out.writeInt(pricePerItem);
+        out.writeBoolean(enabled);
+        out.writeByte(state.ordinal());
+        out.writeLong(creationTime);
+        out.writeInt(durationDays);
+        out.writeLong(expirationTime);
+        out.writeLong(lastModifiedTime);
+    }
+
+    /**
+     * Read an order written by writeJournalImage.
+     */
+    public static BuyOrder readJournalImage(DataInput in) throws IOException {
+        long orderID = in.readLong();
+        long playerAuth = in.readLong();
+        String playerName = in.readUTF();
+        int slotIndex = in.readInt();
+        String itemStringID = in.readUTF();
+        if (itemStringID.isEmpty()) itemStringID = null;
+        int quantityTotal = in.readInt();
+        int quantityRemaining = in.readInt();
+        int pricePerItem = in.readInt();
+        boolean enabled = in.readBoolean();
+        BuyOrderState state = BuyOrderState.values()[in.readUnsignedByte()];
+        long creationTime = in.readLong();
+        int durationDays = in.readInt();
+        long expirationTime = in.readLong();
+        long lastModifiedTime = in.readLong();
+
+        return new BuyOrder(orderID, playerAuth, playerName, slotIndex,
+            itemStringID, quantityTotal, quantityRemaining, pricePerItem,
+            enabled, state, creationTime, durationDays, expirationTime, lastModifiedTime);
+    }
+
     @Override
     public String toString() {
         return String.format("BuyOrder{id=%d, player=%s, slot=%d, item=%s, qty=%d/%d, price=%d, enabled=%b, state=%s}",
@@ -8,6 +8,10 @@ import necesse.engine.registries.ItemRegistry;
 import necesse.inventory.InventoryItem;
 import necesse.inventory.item.Item;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Represents a Grand Exchange offer (buy or sell).
  * 
@@ -621,6 +625,56 @@ public class GEOffer {
             lastUpdateTime, expirationTime, totalCoinsReceived, totalCoinsSpent, transactionCount);
     }
 
+    /**
+     * Write the offer's full state as a binary journal image (same fields as addSaveData).
+     */
+    public void writeJournalImage(DataOutput out) throws IOException {
+        out.writeLong(offerID);
+        out.writeLong(playerAuth);
+        out.writeUTF(playerName == null ? "" : playerName);
+        out.writeInt(inventorySlot);
+        out.writeByte(type.ordinal());
+        out.writeByte(state.ordinal());
+        out.writeBoolean(enabled);
+        out.writeUTF(itemStringID);
+        out.writeInt(quantityTotal);
+        out.writeInt(quantityRemaining);
+        out.writeInt(pricePerItem);
+        out.writeLong(createdTime);
+        out.writeLong(lastUpdateTime);
+        out.writeLong(expirationTime);
+        out.writeLong(totalCoinsReceived);
+        out.writeLong(totalCoinsSpent);
+        out.writeInt(transactionCount);
+    }
+
+    /**
+     * Read an offer written by writeJournalImage.
+     */
+    public static GEOffer readJournalImage(DataInput in) throws IOException {
+        long offerID = in.readLong();
+        long playerAuth = in.readLong();
+        String playerName = in.readUTF();
+        int inventorySlot = in.readInt();
+        OfferType type = OfferType.values()[in.readUnsignedByte()];
+        OfferState state = OfferState.values()[in.readUnsignedByte()];
+        boolean enabled = in.readBoolean();
+        String itemStringID = in.readUTF();
+        int quantityTotal = in.readInt();
+        int quantityRemaining = in.readInt();
+        int pricePerItem = in.readInt();
+        long createdTime = in.readLong();
+        long lastUpdateTime = in.readLong();
+        long expirationTime = in.readLong();
+        long totalCoinsReceived = in.readLong();
+        long totalCoinsSpent = in.readLong();
+        int transactionCount = in.readInt();
+
+        return new GEOffer(offerID, playerAuth, playerName, inventorySlot, type, state, enabled,
+            itemStringID, quantityTotal, quantityRemaining, pricePerItem, createdTime,
+            lastUpdateTime, expirationTime, totalCoinsReceived, totalCoinsSpent, transactionCount);
+    }
+
     @Override
     public String toString() {
         return String.format("GEOffer[ID=%d, %s, %s, enabled=%b, %s x%d@%dc, slot=%d, player=%s]",
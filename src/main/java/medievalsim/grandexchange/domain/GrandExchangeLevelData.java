@@ -3,10 +3,14 @@ package medievalsim.grandexchange.domain;
 import medievalsim.banking.domain.BankingLevelData;
 import medievalsim.banking.domain.PlayerBank;
 import medievalsim.config.ModConfig;
+import medievalsim.grandexchange.repository.GEJournal;
 import medievalsim.grandexchange.repository.InMemoryOfferRepository;
 import medievalsim.grandexchange.repository.OfferRepository;
 import medievalsim.grandexchange.services.*;
+import medievalsim.metrics.MetricsExporter;
+import medievalsim.metrics.MetricsRegistry;
 import medievalsim.util.ModLogger;
+import necesse.engine.GlobalData;
 import necesse.engine.network.server.Server;
 import necesse.engine.network.server.ServerClient;
 import necesse.engine.save.LoadData;
@@ -18,13 +22,19 @@ import necesse.engine.registries.ItemRegistry;
 import necesse.level.maps.Level;
 import necesse.level.maps.levelData.LevelData;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
 import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -60,32 +70,74 @@ public class GrandExchangeLevelData extends LevelData {
     // All buy orders (orderID -> BuyOrder)
     private final ConcurrentHashMap<Long, BuyOrder> buyOrders = new ConcurrentHashMap<>();
     
-    // Price history (itemStringID -> list of recent sale prices)
-    private final ConcurrentHashMap<String, List<Integer>> priceHistory = new ConcurrentHashMap<>();
+    // Price history (itemStringID -> ring buffer of recent sale prices)
+    private final ConcurrentHashMap<String, PriceHistory> priceHistory = new ConcurrentHashMap<>();
 
     // ID generators
     private final AtomicLong nextOfferID = new AtomicLong(1);
     private final AtomicLong nextBuyOrderID = new AtomicLong(1);
 
-    // Statistics
-    private long totalInventoriesCreated = 0;
-    private long totalOffersCreated = 0;
-    private long totalTradesCompleted = 0;
-    private long totalVolumeTraded = 0L;  // Total coins traded
+    // Statistics (updated from concurrent trades, so atomic)
+    private final AtomicLong totalInventoriesCreated = new AtomicLong();
+    private final AtomicLong totalOffersCreated = new AtomicLong();
+    private final AtomicLong totalTradesCompleted = new AtomicLong();
+    private final AtomicLong totalVolumeTraded = new AtomicLong();  // Total coins traded
 
     // Cleanup tracking (run cleanup every 5 minutes)
     private int tickCounter = 0;
     private static final int CLEANUP_INTERVAL_TICKS = 20 * 60 * 5; // 5 minutes
     
+    // Expiration resolution: offers and buy orders expire within one second of their deadline
+    private static final long EXPIRATION_TICK_MS = 1000L;
+    
     // ===== ENTERPRISE SERVICES =====
     
     private final ConcurrentHashMap<String, OrderBook> orderBooksByItem = new ConcurrentHashMap<>();
     private MarketAnalyticsService analyticsService;
+    private CandleAggregator candleAggregator;
     private RateLimitService rateLimitService;
     private TradeAuditLog auditLog;
     private NotificationService notificationService;
     private PerformanceMetrics performanceMetrics;
     private OfferRepository repository;
+    private StripedLockManager lockManager;
+    private MatchingEngine matchingEngine;
+    private MarketIndex marketIndex;
+    private MarketSnapshotCache snapshotCache;
+    private GECommandQueue commandQueue;
+    private GEUpdateCoalescer updateCoalescer;
+    private ExpirationWheel<Long> offerExpirations;
+    private ExpirationWheel<Long> buyOrderExpirations;
+    
+    // ===== EXPORTED METRICS =====
+    
+    private static final MetricsRegistry.Timer MATCH_LATENCY = MetricsRegistry.timer(
+        "ge_match_latency_seconds", "Time to execute one GE trade (locks, prepare, commit)");
+    private static final MetricsRegistry.Timer SNAPSHOT_BUILD = MetricsRegistry.timer(
+        "ge_snapshot_build_seconds", "Time to build a market browser page on a snapshot cache miss");
+    private boolean metricsRegistered = false;
+    
+    // ===== WRITE-AHEAD JOURNAL =====
+    
+    // Opened on the first server tick (after load, so replay sees banking data too)
+    private GEJournal journal;
+    private long journalID = newJournalKey();
+    private int journalEpoch = 0;
+    private long journalToken = 0L;      // Segment token the next snapshot records (0: nothing to replay)
+    private boolean journalReplayPending = false;
+    private boolean journalOpenAttempted = false;
+    private long lastJournalCommitTime = 0L;
+    
+    // ===== SEGMENTED SAVE =====
+    
+    // Player inventories, offers and buy orders are saved in segments keyed by owner auth.
+    // Each segment tracks its members and is flagged dirty by the mutation that touched it,
+    // so a save only visits dirty segments; the rest reuse the SaveData built last time.
+    private static final int SAVE_SEGMENTS = 64;
+    private final AtomicIntegerArray dirtySaveSegments = new AtomicIntegerArray(SAVE_SEGMENTS);
+    private final SaveSegment[] saveSegments = createSaveSegments();
+    private volatile boolean priceHistorySaveDirty = true;
+    private SaveData cachedPriceHistorySave;
     
     public GrandExchangeLevelData() {
         super();
@@ -101,6 +153,7 @@ public class GrandExchangeLevelData extends LevelData {
         this.analyticsService = new MarketAnalyticsService(
             ModConfig.GrandExchange.priceHistorySize
         );
+        this.candleAggregator = new CandleAggregator();
         this.rateLimitService = new RateLimitService();
         this.auditLog = new TradeAuditLog(
             ModConfig.GrandExchange.auditLogSize,
@@ -109,6 +162,15 @@ public class GrandExchangeLevelData extends LevelData {
         );
         this.notificationService = new NotificationService();
         this.performanceMetrics = new PerformanceMetrics();
+        this.lockManager = new StripedLockManager();
+        this.matchingEngine = new MatchingEngine(lockManager);
+        this.marketIndex = new MarketIndex(this::resolveCategoryChain);
+        this.snapshotCache = new MarketSnapshotCache(ModConfig.GrandExchange.snapshotCacheSize);
+        this.commandQueue = new GECommandQueue(ModConfig.GrandExchange.commandQueueCapacity);
+        this.updateCoalescer = new GEUpdateCoalescer();
+        long now = System.currentTimeMillis();
+        this.offerExpirations = new ExpirationWheel<>(EXPIRATION_TICK_MS, now);
+        this.buyOrderExpirations = new ExpirationWheel<>(EXPIRATION_TICK_MS, now);
         // TradeTransaction instances are created per-trade, no persistent field needed
         
         ModLogger.info("Grand Exchange Level Data initialized with enterprise services");
@@ -140,10 +202,12 @@ public class GrandExchangeLevelData extends LevelData {
      */
     public PlayerGEInventory getOrCreateInventory(long playerAuth) {
         return inventories.computeIfAbsent(playerAuth, auth -> {
-            totalInventoriesCreated++;
+            long created = totalInventoriesCreated.incrementAndGet();
             ModLogger.info("Created GE inventory for player auth=%d (total inventories: %d)", 
-                auth, totalInventoriesCreated);
-            return new PlayerGEInventory(auth);
+                auth, created);
+            PlayerGEInventory inventory = new PlayerGEInventory(auth);
+            trackInventory(inventory);
+            return inventory;
         });
     }
     
@@ -284,13 +348,14 @@ public class GrandExchangeLevelData extends LevelData {
         }
         
         // Store offer in DRAFT state (user must enable via checkbox)
-        offers.put(offerID, offer);
+        putOffer(offer);
         inventory.setSlotOffer(slot, offer);
         inventory.recordSellOfferCreated();
-        totalOffersCreated++;
+        totalOffersCreated.incrementAndGet();
         
         // Save to repository
         repository.saveSellOffer(offer);
+        persistOffer(offer);
         
         // Note: Do NOT add to offersByItem index yet - only when enabled
         // Note: Do NOT activate offer - it starts in DRAFT state
@@ -323,16 +388,12 @@ public class GrandExchangeLevelData extends LevelData {
         }
         
         // Remove from persistent OrderBook if present
-        OrderBook book = orderBooksByItem.get(offer.getItemStringID());
-        if (book != null) {
-            book.removeSellOffer(offerID);
-            if (book.isEmpty()) {
-                orderBooksByItem.remove(offer.getItemStringID());
-            }
-        }
+        removeSellOfferFromBook(offer);
+        offerExpirations.cancel(offerID);
 
         // Remove from repository
         repository.deleteSellOffer(offerID);
+        persistOfferRemoved(offer);
         
         ModLogger.info("Cleaned up orphaned offer ID=%d from all data structures", offerID);
     }
@@ -345,7 +406,7 @@ public class GrandExchangeLevelData extends LevelData {
         long offerID = offer.getOfferID();
 
         // Remove from main map
-        offers.remove(offerID);
+        removeOffer(offerID);
 
         // Remove from item index (atomically)
         if (offer.getItemStringID() != null) {
@@ -359,15 +420,11 @@ public class GrandExchangeLevelData extends LevelData {
 
         // Remove from repository
         repository.deleteSellOffer(offerID);
+        persistOfferRemoved(offer);
 
         // Remove from persistent OrderBook if present
-        OrderBook book = orderBooksByItem.get(offer.getItemStringID());
-        if (book != null) {
-            book.removeSellOffer(offerID);
-            if (book.isEmpty()) {
-                orderBooksByItem.remove(offer.getItemStringID());
-            }
-        }
+        removeSellOfferFromBook(offer);
+        offerExpirations.cancel(offerID);
 
         ModLogger.debug("Cleaned up finished offer ID=%d (state=%s)", offerID, offer.getState());
     }
@@ -387,6 +444,14 @@ public class GrandExchangeLevelData extends LevelData {
         if (offer == null) {
             return false;
         }
+        return lockManager.withItemLock(offer.getItemStringID(), () -> cancelOfferLocked(level, offer));
+    }
+    
+    /**
+     * Body of cancelOffer(); caller holds the offer's item stripe.
+     */
+    private boolean cancelOfferLocked(Level level, GEOffer offer) {
+        long offerID = offer.getOfferID();
 
         if (!offer.isActive()) {
             ModLogger.warn("Offer ID=%d is not active (state=%s)", offerID, offer.getState());
@@ -398,8 +463,10 @@ public class GrandExchangeLevelData extends LevelData {
         // Update inventory
         PlayerGEInventory inventory = inventories.get(offer.getPlayerAuth());
         if (inventory != null) {
-            inventory.setSlotOffer(offer.getInventorySlot(), null);
-            inventory.recordSellOfferCancelled();
+            lockManager.runWithPlayerLock(offer.getPlayerAuth(), () -> {
+                inventory.setSlotOffer(offer.getInventorySlot(), null);
+                inventory.recordSellOfferCancelled();
+            });
         }
 
         // Remove from item index
@@ -409,17 +476,13 @@ public class GrandExchangeLevelData extends LevelData {
         }
 
         // Remove from persistent OrderBook if present
-        OrderBook book = orderBooksByItem.get(offer.getItemStringID());
-        if (book != null) {
-            book.removeSellOffer(offerID);
-            if (book.isEmpty()) {
-                orderBooksByItem.remove(offer.getItemStringID());
-            }
-        }
+        removeSellOfferFromBook(offer);
+        offerExpirations.cancel(offerID);
 
         // Remove from repository and main map
-        offers.remove(offerID);
+        removeOffer(offerID);
         repository.deleteSellOffer(offerID);
+        persistOfferRemoved(offer);
 
         ModLogger.info("Cancelled offer ID=%d (player auth=%d, slot=%d)",
             offerID, offer.getPlayerAuth(), offer.getInventorySlot());
@@ -468,52 +531,34 @@ public class GrandExchangeLevelData extends LevelData {
 
     /**
      * Build a filtered + sorted + paginated view of the market for the client UI.
+     * Served from the incrementally maintained MarketIndex (no full market copy or sort);
+     * repeat requests at the same market version come straight from the snapshot cache.
      */
     public MarketSnapshot buildMarketSnapshot(String filter, String category, int sortMode, int requestedPage) {
-        List<GEOffer> activeOffers = new ArrayList<>(getAllActiveOffers());
-
         String normalizedFilter = filter == null ? "" : filter.trim();
         String normalizedCategory = (category == null || category.isBlank()) ? "all" : category.trim();
-
-        if (!normalizedFilter.isEmpty()) {
-            String lowerFilter = normalizedFilter.toLowerCase();
-            activeOffers.removeIf(offer -> offer.getItemStringID() == null ||
-                !offer.getItemStringID().toLowerCase().contains(lowerFilter));
-        }
-
-        if (!normalizedCategory.equalsIgnoreCase("all")) {
-            activeOffers.removeIf(offer -> !matchesCategory(offer.getItemStringID(), normalizedCategory));
+        int pageSize = Math.max(1, ModConfig.GrandExchange.maxListingsPerPage);
+        
+        // Read the version before querying: a change mid-build leaves the entry stale, never wrong
+        long marketVersion = marketIndex.getVersion();
+        MarketSnapshot cached = snapshotCache.get(normalizedFilter, normalizedCategory, sortMode,
+            requestedPage, pageSize, marketVersion);
+        if (ModConfig.GrandExchange.enablePerformanceMetrics) {
+            if (cached != null) {
+                performanceMetrics.recordSnapshotCacheHit();
+            } else {
+                performanceMetrics.recordSnapshotCacheMiss();
+            }
         }
-
-        Comparator<GEOffer> comparator;
-        switch (sortMode) {
-            case 2: // Price high -> low
-                comparator = Comparator.comparingInt(GEOffer::getPricePerItem).reversed();
-                break;
-            case 3: // Quantity high -> low
-                comparator = Comparator.comparingInt(GEOffer::getQuantityRemaining).reversed();
-                break;
-            case 4: // Expiration approaching first
-                comparator = Comparator.comparingLong(this::getComparableExpirationTime);
-                break;
-            case 1:
-            default: // Price low -> high
-                comparator = Comparator.comparingInt(GEOffer::getPricePerItem);
-                break;
+        if (cached != null) {
+            return cached;
         }
-        activeOffers.sort(comparator);
-
-        int pageSize = Math.max(1, ModConfig.GrandExchange.maxListingsPerPage);
-        int totalResults = activeOffers.size();
-        int totalPages = totalResults == 0 ? 1 : (int) Math.ceil((double) totalResults / pageSize);
-        int safePage = Math.max(0, Math.min(requestedPage, totalPages - 1));
 
-        int startIndex = Math.min(totalResults, safePage * pageSize);
-        int endIndex = Math.min(totalResults, startIndex + pageSize);
+        long buildStart = System.nanoTime();
+        MarketIndex.Page page = marketIndex.query(normalizedFilter, normalizedCategory, sortMode, requestedPage, pageSize);
 
-        List<MarketSnapshot.Entry> entries = new ArrayList<>();
-        for (int i = startIndex; i < endIndex; i++) {
-            GEOffer offer = activeOffers.get(i);
+        List<MarketSnapshot.Entry> entries = new ArrayList<>(page.getOffers().size());
+        for (GEOffer offer : page.getOffers()) {
             entries.add(new MarketSnapshot.Entry(
                 offer.getOfferID(),
                 offer.getItemStringID(),
@@ -528,88 +573,338 @@ public class GrandExchangeLevelData extends LevelData {
             ));
         }
 
-        return new MarketSnapshot(safePage, totalPages, totalResults, pageSize,
-            normalizedFilter, normalizedCategory, sortMode, entries);
+        MarketSnapshot snapshot = new MarketSnapshot(page.getPage(), page.getTotalPages(), page.getTotalResults(),
+            pageSize, normalizedFilter, normalizedCategory, sortMode, entries);
+        snapshotCache.put(normalizedFilter, normalizedCategory, sortMode, requestedPage, pageSize,
+            marketVersion, snapshot);
+        SNAPSHOT_BUILD.recordSince(buildStart);
+        return snapshot;
     }
 
-    private boolean matchesCategory(String itemStringID, String targetCategoryId) {
-        if (itemStringID == null || targetCategoryId == null || targetCategoryId.equalsIgnoreCase("all")) {
-            return true;
-        }
-
+    /**
+     * Category chain for an item (leaf first), used by the MarketIndex category index.
+     */
+    private List<String> resolveCategoryChain(String itemStringID) {
+        List<String> chain = new ArrayList<>();
         Item item = ItemRegistry.getItem(itemStringID);
         if (item == null) {
-            return false;
+            return chain;
         }
 
-        ItemCategory category = ItemCategory.getItemsCategory(item);
-        ItemCategory current = category;
+        ItemCategory current = ItemCategory.getItemsCategory(item);
         while (current != null) {
-            if (current.stringID != null && current.stringID.equalsIgnoreCase(targetCategoryId)) {
-                return true;
+            if (current.stringID != null) {
+                chain.add(current.stringID);
             }
             current = current.parent;
         }
-        return false;
-    }
-
-    private long getComparableExpirationTime(GEOffer offer) {
-        long expiration = offer.getExpirationTime();
-        return expiration == 0L ? Long.MAX_VALUE : expiration;
+        return chain;
     }
     
-    // ===== PRICE MATCHING & INSTANT TRADES =====
+    /**
+     * Get the market browser index.
+     */
+    public MarketIndex getMarketIndex() {
+        return marketIndex;
+    }
     
     /**
-     * Attempt to match buy/sell offers for instant trades.
-     * Currently supports SELL offers only (buy offers in Phase 10).
+     * Get the rendered market page cache.
      */
+    public MarketSnapshotCache getSnapshotCache() {
+        return snapshotCache;
+    }
+    
+    // ===== PRICE MATCHING & INSTANT TRADES =====
+    
     /**
-     * Match offers for a specific item using the OrderBook service.
-     * This is the new enterprise-grade matching engine (O(log n)).
+     * Uncross the live OrderBook for a specific item.
+     * Incoming orders are matched as they are enabled, so this only finds work
+     * when the book was left crossed (e.g. instant trades were off, or after load).
      */
     public void matchOffers(String itemStringID) {
         if (!ModConfig.GrandExchange.enableInstantTrades) {
             return;
         }
+        lockManager.runWithItemLock(itemStringID, () -> uncrossOrderBook(itemStringID));
+    }
+    
+    /**
+     * Body of matchOffers(); caller holds the item stripe.
+     */
+    private void uncrossOrderBook(String itemStringID) {
+        OrderBook itemOrderBook = orderBooksByItem.get(itemStringID);
+        if (itemOrderBook == null) {
+            ModLogger.debug("matchOffers() called for item %s with no live order book", itemStringID);
+            return;
+        }
+        
+        MatchingEngine.MatchBatch batch = matchingEngine.uncross(this.level, itemOrderBook);
+        applyMatchBatch(batch);
         
-        // Get or create order book for this item
-        OrderBook itemOrderBook = new OrderBook(itemStringID);
+        if (!batch.isEmpty()) {
+            ModLogger.info("Uncrossed order book for %s: %d fills, %d items",
+                itemStringID, batch.getFills().size(), batch.getTotalQuantity());
+        }
+    }
+    
+    /**
+     * Apply post-trade side effects for every fill in a MatchingEngine batch.
+     * The engine has already updated the OrderBook; this handles the rest.
+     */
+    private void applyMatchBatch(MatchingEngine.MatchBatch batch) {
+        for (MatchingEngine.Fill fill : batch.getFills()) {
+            recordTradeSideEffects(fill.getBuyOrder(), fill.getSellOffer(), fill.getResult(), fill.getExecutionTimeNanos());
+        }
+    }
+    
+    // ===== ORDER BOOK MAINTENANCE =====
+    
+    /**
+     * Get the live order book for an item, creating it on first use.
+     */
+    private OrderBook getOrCreateOrderBook(String itemStringID) {
+        return orderBooksByItem.computeIfAbsent(itemStringID, OrderBook::new);
+    }
+    
+    /**
+     * Remove a sell offer from its item's live order book, dropping the book once empty.
+     */
+    private void removeSellOfferFromBook(GEOffer offer) {
+        marketIndex.remove(offer.getOfferID());
+        if (offer.getItemStringID() == null) {
+            return;
+        }
+        orderBooksByItem.computeIfPresent(offer.getItemStringID(), (k, book) -> {
+            book.removeSellOffer(offer.getOfferID());
+            return book.isEmpty() ? null : book;
+        });
+    }
+    
+    /**
+     * Remove a buy order from its item's live order book, dropping the book once empty.
+     */
+    private void removeBuyOrderFromBook(BuyOrder order) {
+        if (order.getItemStringID() == null) {
+            return;
+        }
+        orderBooksByItem.computeIfPresent(order.getItemStringID(), (k, book) -> {
+            book.removeBuyOrder(order.getOrderID());
+            return book.isEmpty() ? null : book;
+        });
+    }
+    
+    /**
+     * Rebuild every live order book from the repository.
+     * Called once at load; afterwards books are maintained incrementally.
+     */
+    public void rebuildOrderBooks() {
+        lockManager.withAllItemLocks(() -> {
+            rebuildOrderBooksLocked();
+            return null;
+        });
+    }
+    
+    private void rebuildOrderBooksLocked() {
+        orderBooksByItem.clear();
         
-        // Add all active sell offers for this item (take snapshot under lock)
-        List<Long> sellOfferIDs = offersByItem.get(itemStringID);
-        if (sellOfferIDs != null) {
-            List<Long> sellSnapshot;
-            synchronized (sellOfferIDs) {
-                sellSnapshot = new ArrayList<>(sellOfferIDs);
+        // Add in time priority so every price level append is O(1); in repository
+        // order each append could walk back through the whole level
+        List<GEOffer> sellOffers = new ArrayList<>(repository.findAllActiveSellOffers());
+        sellOffers.sort(Comparator.comparingLong(GEOffer::getCreatedTime).thenComparingLong(GEOffer::getOfferID));
+        for (GEOffer offer : sellOffers) {
+            if (offer.getItemStringID() != null) {
+                getOrCreateOrderBook(offer.getItemStringID()).addSellOffer(offer);
             }
-            for (Long offerID : sellSnapshot) {
-                GEOffer offer = offers.get(offerID);
-                if (offer != null && offer.isActive()) {
-                    itemOrderBook.addSellOffer(offer);
-                }
+        }
+        List<BuyOrder> buyOrderList = new ArrayList<>(repository.findAllActiveBuyOrders());
+        buyOrderList.sort(Comparator.comparingLong(BuyOrder::getCreationTime).thenComparingLong(BuyOrder::getOrderID));
+        for (BuyOrder order : buyOrderList) {
+            if (order.getItemStringID() != null) {
+                getOrCreateOrderBook(order.getItemStringID()).addBuyOrder(order);
             }
         }
         
-        // Add all active buy orders for this item
-        List<Long> buyOrderIDs = buyOrdersByItem.get(itemStringID);
-        if (buyOrderIDs != null) {
-            List<Long> buySnapshot;
-            synchronized (buyOrderIDs) {
-                buySnapshot = new ArrayList<>(buyOrderIDs);
+        marketIndex.rebuild(sellOffers);
+        rebuildExpirationsLocked();
+        
+        ModLogger.info("Rebuilt %d order books from repository", orderBooksByItem.size());
+    }
+    
+    /**
+     * Re-file every active offer and buy order in the expiration wheels.
+     * Caller holds all item stripes (part of the order book rebuild).
+     */
+    private void rebuildExpirationsLocked() {
+        offerExpirations.clear();
+        buyOrderExpirations.clear();
+        for (GEOffer offer : repository.findAllActiveSellOffers()) {
+            scheduleOfferExpiration(offer);
+        }
+        for (BuyOrder order : repository.findAllActiveBuyOrders()) {
+            scheduleBuyOrderExpiration(order);
+        }
+    }
+    
+    /**
+     * File an active offer in the expiration wheel (no-op for offers without a deadline).
+     */
+    private void scheduleOfferExpiration(GEOffer offer) {
+        if (offer.isActive() && offer.getExpirationTime() > 0) {
+            offerExpirations.schedule(offer.getOfferID(), offer.getExpirationTime());
+        } else {
+            offerExpirations.cancel(offer.getOfferID());
+        }
+    }
+    
+    /**
+     * File an active buy order in the expiration wheel (ephemeral market purchase orders never rest).
+     */
+    private void scheduleBuyOrderExpiration(BuyOrder order) {
+        if (order.isActive() && order.getSlotIndex() >= 0 && order.getExpirationTime() > 0) {
+            buyOrderExpirations.schedule(order.getOrderID(), order.getExpirationTime());
+        } else {
+            buyOrderExpirations.cancel(order.getOrderID());
+        }
+    }
+    
+    /**
+     * Diff the live order books against the repository.
+     * Reports offers/orders missing from a book, stale entries left in a book,
+     * and books that exist for items with no active offers or orders.
+     * @return Human-readable discrepancies (empty if consistent)
+     */
+    public List<String> verifyOrderBooks() {
+        return lockManager.withAllItemLocks(this::verifyOrderBooksLocked);
+    }
+    
+    private List<String> verifyOrderBooksLocked() {
+        List<String> problems = new ArrayList<>();
+        
+        Map<String, java.util.Set<Long>> expectedSells = new java.util.HashMap<>();
+        for (GEOffer offer : repository.findAllActiveSellOffers()) {
+            expectedSells.computeIfAbsent(offer.getItemStringID(), k -> new java.util.HashSet<>())
+                .add(offer.getOfferID());
+        }
+        Map<String, java.util.Set<Long>> expectedBuys = new java.util.HashMap<>();
+        for (BuyOrder order : repository.findAllActiveBuyOrders()) {
+            expectedBuys.computeIfAbsent(order.getItemStringID(), k -> new java.util.HashSet<>())
+                .add(order.getOrderID());
+        }
+        
+        java.util.Set<String> items = new java.util.HashSet<>(orderBooksByItem.keySet());
+        items.addAll(expectedSells.keySet());
+        items.addAll(expectedBuys.keySet());
+        
+        for (String itemID : items) {
+            OrderBook book = orderBooksByItem.get(itemID);
+            java.util.Set<Long> sells = expectedSells.getOrDefault(itemID, Collections.emptySet());
+            java.util.Set<Long> buys = expectedBuys.getOrDefault(itemID, Collections.emptySet());
+            
+            if (book == null) {
+                problems.add(String.format("%s: no order book (repository has %d sells, %d buys)",
+                    itemID, sells.size(), buys.size()));
+                continue;
             }
-            for (Long orderID : buySnapshot) {
-                BuyOrder order = buyOrders.get(orderID);
-                if (order != null && order.canMatch()) {
-                    itemOrderBook.addBuyOrder(order);
+            
+            java.util.Set<Long> bookSells = book.getSellOfferIDs();
+            java.util.Set<Long> bookBuys = book.getBuyOrderIDs();
+            
+            for (Long id : sells) {
+                if (!bookSells.contains(id)) {
+                    problems.add(String.format("%s: sell offer ID=%d missing from book", itemID, id));
+                }
+            }
+            for (Long id : bookSells) {
+                if (!sells.contains(id)) {
+                    problems.add(String.format("%s: stale sell offer ID=%d in book", itemID, id));
+                }
+            }
+            for (Long id : buys) {
+                if (!bookBuys.contains(id)) {
+                    problems.add(String.format("%s: buy order ID=%d missing from book", itemID, id));
                 }
             }
+            for (Long id : bookBuys) {
+                if (!buys.contains(id)) {
+                    problems.add(String.format("%s: stale buy order ID=%d in book", itemID, id));
+                }
+            }
+            if (book.isEmpty()) {
+                problems.add(String.format("%s: empty order book not released", itemID));
+            }
         }
         
-        // Match all buy orders and sell offers
-        // Note: OrderBook doesn't have findAllMatches(), we need to match per-offer/order
-        // For now, this method is a stub - use matchSellOffersNew/matchBuyOrdersNew instead
-        ModLogger.debug("matchOffers() called for item %s (use specific matching methods)", itemStringID);
+        return problems;
+    }
+    
+    // ===== LOCK ROUTING =====
+    
+    /**
+     * Item in a player's sell slot, used to pick the item stripe before locking (null if empty).
+     */
+    private String getSellSlotItemID(long playerAuth, int slotIndex) {
+        PlayerGEInventory inventory = getInventory(playerAuth);
+        GEOffer offer = inventory == null ? null : inventory.getSlotOffer(slotIndex);
+        return offer == null ? null : offer.getItemStringID();
+    }
+    
+    /**
+     * Item in a player's buy order slot, used to pick the item stripe before locking (null if empty).
+     */
+    private String getBuySlotItemID(long playerAuth, int slotIndex) {
+        PlayerGEInventory inventory = getInventory(playerAuth);
+        BuyOrder order = inventory == null ? null : inventory.getBuyOrder(slotIndex);
+        return order == null ? null : order.getItemStringID();
+    }
+    
+    // ===== COMMAND QUEUE =====
+    // The queue serves the enable/disable toggles only: rapid checkbox packets are applied
+    // in arrival order on the level tick and a burst is rejected instead of stalling the
+    // handler. It is NOT the single writer for GE state. These paths mutate books and
+    // escrow directly, from the packet handler or tick that triggers them:
+    // - createSellOffer/createBuyOrder (drafts, no book or escrow change until enabled)
+    // - cancelOffer/cancelBuyOrder and processMarketPurchase (the caller needs the result
+    //   synchronously to answer the client)
+    // - collection box collects (player inventory and bank, not the books)
+    // - cleanupExpiredOffers (already runs on the level tick)
+    // - the container's buy order toggles (the container escrows bank coins around the call)
+    // Queued and direct mutations alike take the striped locks (StripedLockManager), which
+    // remain what keeps books, escrow and banks consistent.
+    
+    /**
+     * Queue a sell offer enable/disable from a packet handler.
+     * The mutation runs on the next level tick; completion is called there with the result.
+     * @return false if the queue is full and the action was rejected
+     */
+    public boolean submitSellOfferToggle(Level level, long playerAuth, int slotIndex, boolean enable,
+                                         GECommandQueue.Completion completion) {
+        String description = String.format("%s sell offer auth=%d slot=%d",
+            enable ? "enable" : "disable", playerAuth, slotIndex);
+        return commandQueue.offer(description,
+            () -> enable ? enableSellOffer(level, playerAuth, slotIndex) : disableSellOffer(level, playerAuth, slotIndex),
+            completion);
+    }
+    
+    /**
+     * Queue a buy order enable/disable from a packet handler.
+     * The mutation runs on the next level tick; completion is called there with the result.
+     * @return false if the queue is full and the action was rejected
+     */
+    public boolean submitBuyOrderToggle(Level level, long playerAuth, int slotIndex, boolean enable,
+                                        GECommandQueue.Completion completion) {
+        String description = String.format("%s buy order auth=%d slot=%d",
+            enable ? "enable" : "disable", playerAuth, slotIndex);
+        return commandQueue.offer(description,
+            () -> enable ? enableBuyOrder(level, playerAuth, slotIndex) : disableBuyOrder(level, playerAuth, slotIndex),
+            completion);
+    }
+    
+    /**
+     * Get the GE command queue (drained by tick()).
+     */
+    public GECommandQueue getCommandQueue() {
+        return commandQueue;
     }
     
     // ===== SELL OFFER ENABLE/DISABLE =====
@@ -618,9 +913,18 @@ public class GrandExchangeLevelData extends LevelData {
      * Enable a sell offer (checkbox checked).
      * Moves offer from DRAFT → ACTIVE, adds to market.
      * NEW: Uses rate limiting and OrderBook-based matching.
-     * Thread-safe: synchronized to prevent race conditions during matching.
+     * Thread-safe: runs under the item's lock stripe (see StripedLockManager).
+     */
+    public boolean enableSellOffer(Level level, long playerAuth, int slotIndex) {
+        String itemStringID = getSellSlotItemID(playerAuth, slotIndex);
+        return lockManager.withItemLock(itemStringID,
+            () -> enableSellOfferLocked(level, playerAuth, slotIndex, itemStringID));
+    }
+    
+    /**
+     * Body of enableSellOffer(); caller holds the stripe for lockedItemID.
      */
-    public synchronized boolean enableSellOffer(Level level, long playerAuth, int slotIndex) {
+    private boolean enableSellOfferLocked(Level level, long playerAuth, int slotIndex, String lockedItemID) {
         // 1. Check rate limit
         if (!rateLimitService.canCreateSellOffer(playerAuth)) {
             float remaining = rateLimitService.getRemainingCooldownForSellOffer(playerAuth);
@@ -641,6 +945,11 @@ public class GrandExchangeLevelData extends LevelData {
             return false;
         }
         
+        if (!Objects.equals(offer.getItemStringID(), lockedItemID)) {
+            ModLogger.warn("Sell offer in slot %d changed item while locking (player auth=%d)", slotIndex, playerAuth);
+            return false;
+        }
+        
         if (offer.getState() != GEOffer.OfferState.DRAFT) {
             ModLogger.warn("Sell offer ID=%d cannot be enabled (state=%s)", offer.getOfferID(), offer.getState());
             return false;
@@ -661,6 +970,7 @@ public class GrandExchangeLevelData extends LevelData {
         
         // Save to repository (within synchronized block for consistency)
         repository.saveSellOffer(offer);
+        persistOffer(offer);
         
         // Record rate limit
         rateLimitService.recordSellOfferCreation(playerAuth);
@@ -668,24 +978,18 @@ public class GrandExchangeLevelData extends LevelData {
         ModLogger.info("Enabled sell offer ID=%d (player auth=%d, slot=%d)",
             offer.getOfferID(), playerAuth, slotIndex);
         
-        // Attempt to match with existing buy orders using new OrderBook system
-        // This happens within the synchronized block to prevent race conditions
+        // Cross against resting buy orders, then rest any remainder in the live OrderBook
+        OrderBook itemOrderBook = getOrCreateOrderBook(offer.getItemStringID());
         if (ModConfig.GrandExchange.enableInstantTrades) {
-            // Add to persistent OrderBook and try matching against existing buy orders
-            OrderBook itemOrderBook = orderBooksByItem.computeIfAbsent(offer.getItemStringID(), k -> new OrderBook(k));
+            MatchingEngine.MatchBatch batch = matchingEngine.submitSellOffer(level, itemOrderBook, offer);
+            ModLogger.debug("MatchingEngine executed %d fills for sell offer ID=%d",
+                batch.getFills().size(), offer.getOfferID());
+            applyMatchBatch(batch);
+        } else {
             itemOrderBook.addSellOffer(offer);
-            List<OrderBook.Match> matches = itemOrderBook.findMatchesForSellOffer(offer);
-            ModLogger.debug("OrderBook found %d matches for sell offer ID=%d", matches.size(), offer.getOfferID());
-            for (OrderBook.Match match : matches) {
-                BuyOrder buyOrder = match.getBuyOrder();
-                if (buyOrder == null || !buyOrder.canMatch()) continue;
-
-                synchronized (offer) {
-                    if (!offer.isActive() || offer.getQuantityRemaining() <= 0) break;
-                    executeTradeWithTransaction(level, buyOrder, offer, match.getQuantity(), match.getExecutionPrice());
-                }
-            }
         }
+        marketIndex.refresh(offer);
+        scheduleOfferExpiration(offer);
         
         // Notify player client so UI stays in sync (if online)
         notifyPlayerSellInventory(level, playerAuth);
@@ -696,9 +1000,18 @@ public class GrandExchangeLevelData extends LevelData {
     /**
      * Disable a sell offer (checkbox unchecked).
      * Moves offer from ACTIVE → DRAFT, removes from market.
-     * Thread-safe: synchronized to prevent race conditions.
+     * Thread-safe: runs under the item's lock stripe (see StripedLockManager).
+     */
+    public boolean disableSellOffer(Level level, long playerAuth, int slotIndex) {
+        String itemStringID = getSellSlotItemID(playerAuth, slotIndex);
+        return lockManager.withItemLock(itemStringID,
+            () -> disableSellOfferLocked(level, playerAuth, slotIndex, itemStringID));
+    }
+    
+    /**
+     * Body of disableSellOffer(); caller holds the stripe for lockedItemID.
      */
-    public synchronized boolean disableSellOffer(Level level, long playerAuth, int slotIndex) {
+    private boolean disableSellOfferLocked(Level level, long playerAuth, int slotIndex, String lockedItemID) {
         // Check rate limit to prevent rapid enable/disable spam
         if (!rateLimitService.canCreateSellOffer(playerAuth)) {
             float remaining = rateLimitService.getRemainingCooldownForSellOffer(playerAuth);
@@ -718,6 +1031,11 @@ public class GrandExchangeLevelData extends LevelData {
             return false;
         }
         
+        if (!Objects.equals(offer.getItemStringID(), lockedItemID)) {
+            ModLogger.warn("Sell offer in slot %d changed item while locking (player auth=%d)", slotIndex, playerAuth);
+            return false;
+        }
+        
         GEOffer.OfferState state = offer.getState();
         if (state != GEOffer.OfferState.ACTIVE && state != GEOffer.OfferState.PARTIAL) {
             ModLogger.warn("Sell offer ID=%d cannot be disabled (state=%s)", offer.getOfferID(), offer.getState());
@@ -741,12 +1059,11 @@ public class GrandExchangeLevelData extends LevelData {
         
         // Update repository
         repository.saveSellOffer(offer);
+        persistOffer(offer);
         
         // Remove from persistent OrderBook if present
-        OrderBook book = orderBooksByItem.get(offer.getItemStringID());
-        if (book != null) {
-            book.removeSellOffer(offer.getOfferID());
-        }
+        removeSellOfferFromBook(offer);
+        offerExpirations.cancel(offer.getOfferID());
         
         ModLogger.info("Disabled sell offer ID=%d (player auth=%d, slot=%d)",
             offer.getOfferID(), playerAuth, slotIndex);
@@ -784,6 +1101,7 @@ public class GrandExchangeLevelData extends LevelData {
             // If existing order is DRAFT, reconfigure it instead of creating new
             if (existingOrder.getState() == BuyOrder.BuyOrderState.DRAFT) {
                 if (existingOrder.configure(itemStringID, quantity, pricePerItem, durationDays)) {
+                    persistBuyOrder(existingOrder);
                     ModLogger.info("Reconfigured existing DRAFT buy order ID=%d in slot %d", 
                         existingOrder.getOrderID(), slotIndex);
                     return existingOrder;
@@ -796,8 +1114,9 @@ public class GrandExchangeLevelData extends LevelData {
             // For completed/cancelled/expired orders, remove them and create new
             ModLogger.debug("Removing %s buy order ID=%d from slot %d", 
                 existingOrder.getState(), existingOrder.getOrderID(), slotIndex);
-            buyOrders.remove(existingOrder.getOrderID());
+            removeBuyOrder(existingOrder.getOrderID());
             inventory.setBuyOrder(slotIndex, null);
+            persistBuyOrderRemoved(existingOrder);
         }
         
         // Create buy order (DRAFT state)
@@ -816,7 +1135,8 @@ public class GrandExchangeLevelData extends LevelData {
         inventory.recordBuyOrderCreated();
         
         // Store in global map (but NOT in buyOrdersByItem index until enabled)
-        buyOrders.put(orderID, order);
+        putBuyOrder(order);
+        persistBuyOrder(order);
         
         ModLogger.info("Created buy order ID=%d (player auth=%d, slot=%d, item=%s, qty=%d, price=%d) [DRAFT]",
             orderID, playerAuth, slotIndex, itemStringID, quantity, pricePerItem);
@@ -831,6 +1151,15 @@ public class GrandExchangeLevelData extends LevelData {
      * NEW: Uses rate limiting to prevent spam.
      */
     public boolean enableBuyOrder(Level level, long playerAuth, int slotIndex) {
+        String itemStringID = getBuySlotItemID(playerAuth, slotIndex);
+        return lockManager.withItemLock(itemStringID,
+            () -> enableBuyOrderLocked(level, playerAuth, slotIndex, itemStringID));
+    }
+    
+    /**
+     * Body of enableBuyOrder(); caller holds the stripe for lockedItemID.
+     */
+    private boolean enableBuyOrderLocked(Level level, long playerAuth, int slotIndex, String lockedItemID) {
         // Check rate limit
         if (!rateLimitService.canCreateBuyOrder(playerAuth)) {
             float remaining = rateLimitService.getRemainingCooldownForBuyOrder(playerAuth);
@@ -851,6 +1180,11 @@ public class GrandExchangeLevelData extends LevelData {
             return false;
         }
         
+        if (!Objects.equals(order.getItemStringID(), lockedItemID)) {
+            ModLogger.warn("Buy order in slot %d changed item while locking (player auth=%d)", slotIndex, playerAuth);
+            return false;
+        }
+        
         if (order.getState() != BuyOrder.BuyOrderState.DRAFT) {
             ModLogger.warn("Buy order ID=%d cannot be enabled (state=%s)", order.getOrderID(), order.getState());
             return false;
@@ -867,21 +1201,28 @@ public class GrandExchangeLevelData extends LevelData {
         }
         
         PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
-        if (bank.getCoins() < coinsRequired) {
-            ModLogger.warn("Player auth=%d has insufficient bank coins for buy order: has %d, needs %d",
-                playerAuth, bank.getCoins(), coinsRequired);
-            return false;
-        }
-        
-        // Deduct coins from bank
-        if (!bank.removeCoins(coinsRequired)) {
-            ModLogger.error("Failed to deduct %d coins from bank for player auth=%d", coinsRequired, playerAuth);
+        boolean escrowed = lockManager.withPlayerLock(playerAuth, () -> {
+            if (bank.getCoins() < coinsRequired) {
+                ModLogger.warn("Player auth=%d has insufficient bank coins for buy order: has %d, needs %d",
+                    playerAuth, bank.getCoins(), coinsRequired);
+                return false;
+            }
+            
+            // Deduct coins from bank
+            if (!bank.removeCoins(coinsRequired)) {
+                ModLogger.error("Failed to deduct %d coins from bank for player auth=%d", coinsRequired, playerAuth);
+                return false;
+            }
+            
+            // Add to escrow
+            inventory.addCoinsToEscrow(coinsRequired);
+            persistCoins(playerAuth, coinsRequired, -coinsRequired);
+            return true;
+        });
+        if (!escrowed) {
             return false;
         }
         
-        // Add to escrow
-        inventory.addCoinsToEscrow(coinsRequired);
-        
         // Enable the order
         order.enable();
         
@@ -895,6 +1236,7 @@ public class GrandExchangeLevelData extends LevelData {
         
         // Save to repository
         repository.saveBuyOrder(order);
+        persistBuyOrder(order);
         
         // Record rate limit
         rateLimitService.recordBuyOrderCreation(playerAuth);
@@ -902,23 +1244,17 @@ public class GrandExchangeLevelData extends LevelData {
         ModLogger.info("Enabled buy order ID=%d (player auth=%d, slot=%d, escrowed %d coins)",
             order.getOrderID(), playerAuth, slotIndex, coinsRequired);
         
-        // Attempt to match with existing sell offers using new OrderBook system
+        // Cross against resting sell offers, then rest any remainder in the live OrderBook
+        OrderBook itemOrderBook = getOrCreateOrderBook(order.getItemStringID());
         if (ModConfig.GrandExchange.enableInstantTrades) {
-            // Add to persistent OrderBook and match
-            OrderBook itemOrderBook = orderBooksByItem.computeIfAbsent(order.getItemStringID(), k -> new OrderBook(k));
+            MatchingEngine.MatchBatch batch = matchingEngine.submitBuyOrder(level, itemOrderBook, order);
+            ModLogger.debug("MatchingEngine executed %d fills for buy order ID=%d",
+                batch.getFills().size(), order.getOrderID());
+            applyMatchBatch(batch);
+        } else {
             itemOrderBook.addBuyOrder(order);
-            List<OrderBook.Match> matches = itemOrderBook.findMatchesForBuyOrder(order);
-            ModLogger.debug("OrderBook found %d matches for buy order ID=%d", matches.size(), order.getOrderID());
-            for (OrderBook.Match match : matches) {
-                GEOffer sellOffer = match.getSellOffer();
-                if (sellOffer == null || !sellOffer.isActive()) continue;
-
-                synchronized (order) {
-                    if (!order.canMatch()) break;
-                    executeTradeWithTransaction(level, order, sellOffer, match.getQuantity(), match.getExecutionPrice());
-                }
-            }
         }
+        scheduleBuyOrderExpiration(order);
         
         // Notify player client so buy order UI stays in sync (if online)
         notifyPlayerBuyOrders(level, playerAuth);
@@ -931,6 +1267,15 @@ public class GrandExchangeLevelData extends LevelData {
      * Refunds escrowed coins back to player's bank.
      */
     public boolean disableBuyOrder(Level level, long playerAuth, int slotIndex) {
+        String itemStringID = getBuySlotItemID(playerAuth, slotIndex);
+        return lockManager.withItemLock(itemStringID,
+            () -> disableBuyOrderLocked(level, playerAuth, slotIndex, itemStringID));
+    }
+    
+    /**
+     * Body of disableBuyOrder(); caller holds the stripe for lockedItemID.
+     */
+    private boolean disableBuyOrderLocked(Level level, long playerAuth, int slotIndex, String lockedItemID) {
         // Check rate limit to prevent rapid enable/disable spam
         if (!rateLimitService.canCreateBuyOrder(playerAuth)) {
             float remaining = rateLimitService.getRemainingCooldownForBuyOrder(playerAuth);
@@ -950,6 +1295,11 @@ public class GrandExchangeLevelData extends LevelData {
             return false;
         }
         
+        if (!Objects.equals(order.getItemStringID(), lockedItemID)) {
+            ModLogger.warn("Buy order in slot %d changed item while locking (player auth=%d)", slotIndex, playerAuth);
+            return false;
+        }
+        
         BuyOrder.BuyOrderState state = order.getState();
         if (state != BuyOrder.BuyOrderState.ACTIVE && state != BuyOrder.BuyOrderState.PARTIAL) {
             ModLogger.warn("Buy order ID=%d cannot be disabled (state=%s)", order.getOrderID(), order.getState());
@@ -969,37 +1319,36 @@ public class GrandExchangeLevelData extends LevelData {
             });
         }
         // Remove from persistent OrderBook if present
-        OrderBook book = orderBooksByItem.get(order.getItemStringID());
-        if (book != null) {
-            book.removeBuyOrder(order.getOrderID());
-            if (book.isEmpty()) {
-                orderBooksByItem.remove(order.getItemStringID());
-            }
-        }
+        removeBuyOrderFromBook(order);
+        buyOrderExpirations.cancel(order.getOrderID());
         
         // Disable the order
         order.disable();
+        persistBuyOrder(order);
         
         // Refund coins to bank
         if (coinsToRefund > 0) {
             BankingLevelData bankingData = BankingLevelData.getBankingData(level);
             if (bankingData != null) {
                 PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
-                bank.addCoins(coinsToRefund);
-                
-                // Remove from escrow
-                inventory.removeCoinsFromEscrow(coinsToRefund);
-                
-                // Add notification to collection box so player knows coins were refunded
-                SaleNotification refundNotification = new SaleNotification(
-                    "coins",
-                    coinsToRefund,
-                    1, // price per "item" is 1 coin
-                    coinsToRefund,
-                    false, // not partial
-                    "System"
-                );
-                inventory.addSaleNotification(refundNotification);
+                lockManager.runWithPlayerLock(playerAuth, () -> {
+                    bank.addCoins(coinsToRefund);
+                    
+                    // Remove from escrow
+                    inventory.removeCoinsFromEscrow(coinsToRefund);
+                    persistCoins(playerAuth, -coinsToRefund, coinsToRefund);
+                    
+                    // Add notification to collection box so player knows coins were refunded
+                    SaleNotification refundNotification = new SaleNotification(
+                        "coins",
+                        coinsToRefund,
+                        1, // price per "item" is 1 coin
+                        coinsToRefund,
+                        false, // not partial
+                        "System"
+                    );
+                    inventory.addSaleNotification(refundNotification);
+                });
                 
                 ModLogger.info("Disabled buy order ID=%d (player auth=%d, slot=%d, refunded %d coins)",
                     order.getOrderID(), playerAuth, slotIndex, coinsToRefund);
@@ -1019,6 +1368,15 @@ public class GrandExchangeLevelData extends LevelData {
      * Refunds any escrowed coins and clears the slot.
      */
     public boolean cancelBuyOrder(Level level, long playerAuth, int slotIndex) {
+        String itemStringID = getBuySlotItemID(playerAuth, slotIndex);
+        return lockManager.withItemLock(itemStringID,
+            () -> cancelBuyOrderLocked(level, playerAuth, slotIndex, itemStringID));
+    }
+    
+    /**
+     * Body of cancelBuyOrder(); caller holds the stripe for lockedItemID.
+     */
+    private boolean cancelBuyOrderLocked(Level level, long playerAuth, int slotIndex, String lockedItemID) {
         PlayerGEInventory inventory = getInventory(playerAuth);
         if (inventory == null) {
             return false;
@@ -1029,6 +1387,11 @@ public class GrandExchangeLevelData extends LevelData {
             return false;
         }
         
+        if (!Objects.equals(order.getItemStringID(), lockedItemID)) {
+            ModLogger.warn("Buy order in slot %d changed item while locking (player auth=%d)", slotIndex, playerAuth);
+            return false;
+        }
+        
         // If enabled/active, refund coins first
         if (order.isActive()) {
             int coinsToRefund = order.getTotalCoinsRequired();
@@ -1036,8 +1399,11 @@ public class GrandExchangeLevelData extends LevelData {
                 BankingLevelData bankingData = BankingLevelData.getBankingData(level);
                 if (bankingData != null) {
                     PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
-                    bank.addCoins(coinsToRefund);
-                    inventory.removeCoinsFromEscrow(coinsToRefund);
+                    lockManager.runWithPlayerLock(playerAuth, () -> {
+                        bank.addCoins(coinsToRefund);
+                        inventory.removeCoinsFromEscrow(coinsToRefund);
+                        persistCoins(playerAuth, -coinsToRefund, coinsToRefund);
+                    });
                 }
             }
             
@@ -1047,13 +1413,8 @@ public class GrandExchangeLevelData extends LevelData {
                 itemOrders.remove(order.getOrderID());
             }
             // Remove from persistent OrderBook if present
-            OrderBook book = orderBooksByItem.get(order.getItemStringID());
-            if (book != null) {
-                book.removeBuyOrder(order.getOrderID());
-                if (book.isEmpty()) {
-                    orderBooksByItem.remove(order.getItemStringID());
-                }
-            }
+            removeBuyOrderFromBook(order);
+            buyOrderExpirations.cancel(order.getOrderID());
         }
         
         // Cancel the order
@@ -1064,7 +1425,8 @@ public class GrandExchangeLevelData extends LevelData {
         inventory.recordBuyOrderCancelled();
         
         // Remove from global map
-        buyOrders.remove(order.getOrderID());
+        removeBuyOrder(order.getOrderID());
+        persistBuyOrderRemoved(order);
         
         ModLogger.info("Cancelled buy order ID=%d (player auth=%d, slot=%d)",
             order.getOrderID(), playerAuth, slotIndex);
@@ -1084,6 +1446,17 @@ public class GrandExchangeLevelData extends LevelData {
             ModLogger.warn("Cannot process market purchase without level context");
             return false;
         }
+        
+        GEOffer listed = getOffer(offerID);
+        String itemStringID = listed == null ? null : listed.getItemStringID();
+        return lockManager.withItemLock(itemStringID,
+            () -> processMarketPurchaseLocked(level, buyerAuth, buyerName, offerID));
+    }
+    
+    /**
+     * Body of processMarketPurchase(); caller holds the offer's item stripe.
+     */
+    private boolean processMarketPurchaseLocked(Level level, long buyerAuth, String buyerName, long offerID) {
 
         PlayerGEInventory buyerInventory = getOrCreateInventory(buyerAuth);
         if (buyerInventory == null) {
@@ -1128,40 +1501,49 @@ public class GrandExchangeLevelData extends LevelData {
             return false;
         }
 
-        if (buyerBank.getCoins() < totalCost) {
-            ModLogger.warn("Player auth=%d lacks coins for purchase: has %d, needs %d",
-                buyerAuth, buyerBank.getCoins(), totalCost);
-            return false;
-        }
+        boolean escrowed = lockManager.withPlayerLock(buyerAuth, () -> {
+            if (buyerBank.getCoins() < totalCost) {
+                ModLogger.warn("Player auth=%d lacks coins for purchase: has %d, needs %d",
+                    buyerAuth, buyerBank.getCoins(), totalCost);
+                return false;
+            }
+
+            if (!buyerBank.removeCoins(totalCost)) {
+                ModLogger.error("Failed to remove %d coins from bank for player auth=%d", totalCost, buyerAuth);
+                return false;
+            }
 
-        if (!buyerBank.removeCoins(totalCost)) {
-            ModLogger.error("Failed to remove %d coins from bank for player auth=%d", totalCost, buyerAuth);
+            buyerInventory.addCoinsToEscrow(totalCost);
+            persistCoins(buyerAuth, totalCost, -totalCost);
+            return true;
+        });
+        if (!escrowed) {
             return false;
         }
-
-        buyerInventory.addCoinsToEscrow(totalCost);
+        Runnable refundEscrow = () -> lockManager.runWithPlayerLock(buyerAuth, () -> {
+            buyerInventory.removeCoinsFromEscrow(totalCost);
+            buyerBank.addCoins(totalCost);
+            persistCoins(buyerAuth, -totalCost, totalCost);
+        });
 
         long orderID = nextBuyOrderID.getAndIncrement();
         String resolvedBuyerName = (buyerName != null && !buyerName.isEmpty()) ? buyerName : "Player";
         BuyOrder instantOrder = new BuyOrder(orderID, buyerAuth, resolvedBuyerName, -1);
         if (!instantOrder.configure(offer.getItemStringID(), quantity, pricePerItem, 1)) {
-            buyerInventory.removeCoinsFromEscrow(totalCost);
-            buyerBank.addCoins(totalCost);
+            refundEscrow.run();
             ModLogger.warn("Failed to configure instant buy order for offer ID=%d", offerID);
             return false;
         }
 
         if (!instantOrder.enable()) {
-            buyerInventory.removeCoinsFromEscrow(totalCost);
-            buyerBank.addCoins(totalCost);
+            refundEscrow.run();
             ModLogger.warn("Failed to enable instant buy order for offer ID=%d", offerID);
             return false;
         }
 
         TradeTransaction.TradeResult tradeResult = executeTradeWithTransaction(level, instantOrder, offer, quantity, pricePerItem);
         if (tradeResult == null) {
-            buyerInventory.removeCoinsFromEscrow(totalCost);
-            buyerBank.addCoins(totalCost);
+            refundEscrow.run();
             ModLogger.warn("Trade transaction failed for manual purchase (offer ID=%d)", offerID);
             return false;
         }
@@ -1190,47 +1572,65 @@ public class GrandExchangeLevelData extends LevelData {
             return null;
         }
         
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         
         // Create transaction
-        TradeTransaction transaction = new TradeTransaction(level, buyOrder, sellOffer, quantity, pricePerItem);
-        
-        // Phase 1: Prepare
-        if (!transaction.prepare()) {
-            ModLogger.error("Trade preparation failed: %s", transaction.getFailureReason());
+        TradeTransaction transaction = new TradeTransaction(TradeTransaction.Accounts.forLevel(level), buyOrder, sellOffer,
+            quantity, pricePerItem);
+        
+        // Both inventories change, so hold both player stripes (ascending order)
+        TradeTransaction.TradeResult result = lockManager.withPlayerLocks(
+            buyOrder.getPlayerAuth(), sellOffer.getPlayerAuth(), () -> {
+                // Phase 1: Prepare
+                if (!transaction.prepare()) {
+                    ModLogger.error("Trade preparation failed: %s", transaction.getFailureReason());
+                    return null;
+                }
+                
+                // Phase 2: Commit (returns TradeResult or null on failure)
+                TradeTransaction.TradeResult committed = transaction.commit();
+                if (committed == null) {
+                    ModLogger.error("Trade commit failed: %s", transaction.getFailureReason());
+                }
+                return committed;
+            });
+        if (result == null) {
             return null;
         }
         
-        // Phase 2: Commit (returns TradeResult or null on failure)
-        TradeTransaction.TradeResult result = transaction.commit();
-        if (result == null) {
-            ModLogger.error("Trade commit failed: %s", transaction.getFailureReason());
-            return null;
-        }
-        
-        long executionTime = System.currentTimeMillis() - startTime;
+        long executionNanos = System.nanoTime() - startTime;
+        recordTradeSideEffects(buyOrder, sellOffer, result, executionNanos);
+        return result;
+    }
+    
+    /**
+     * Record a committed trade: metrics, analytics, audit, notifications,
+     * index/OrderBook cleanup, persistence and legacy statistics.
+     * Shared by the MatchingEngine fill path and direct market purchases.
+     */
+    private void recordTradeSideEffects(BuyOrder buyOrder, GEOffer sellOffer,
+                                        TradeTransaction.TradeResult result, long executionNanos) {
+        int quantity = result.getQuantity();
+        int pricePerItem = result.getPricePerItem();
         boolean isEphemeralOrder = buyOrder.getSlotIndex() < 0;
         
+        MATCH_LATENCY.recordNanos(executionNanos);
+        
         // Record trade in enterprise services
         if (ModConfig.GrandExchange.enablePerformanceMetrics) {
-            performanceMetrics.recordTrade(sellOffer.getItemStringID(), quantity, result.getTotalCoins(), executionTime);
+            performanceMetrics.recordTrade(sellOffer.getItemStringID(), quantity, pricePerItem, executionNanos);
         }
         
         analyticsService.recordTrade(result);
+        candleAggregator.recordTrade(result.getItemStringID(), pricePerItem, quantity, result.getTimestamp());
         auditLog.logTrade(result);
         
-        // Send notifications with individual parameters (not TradeResult object)
+        // Notifications and client updates are merged per slot and sent at the end of the tick
         int totalCoins = result.getTotalCoins();
         if (!isEphemeralOrder) {
-            notificationService.notifyBuyOrderFilled(buyOrder, quantity, totalCoins);
-        }
-        
-        if (sellOffer.getQuantityRemaining() == 0) {
-            notificationService.notifyOfferFilled(sellOffer, sellOffer.getQuantityTotal(), 
-                (int)sellOffer.getTotalCoinsReceived());
-        } else {
-            notificationService.notifyOfferPartiallyFilled(sellOffer, quantity, pricePerItem, totalCoins);
+            updateCoalescer.recordBuyFill(buyOrder, quantity, totalCoins);
         }
+        updateCoalescer.recordSellFill(sellOffer, quantity, totalCoins);
 
         PlayerGEInventory sellerInventory = getInventory(sellOffer.getPlayerAuth());
         if (sellerInventory != null) {
@@ -1242,7 +1642,14 @@ public class GrandExchangeLevelData extends LevelData {
                 sellOffer.getQuantityRemaining() > 0,
                 buyOrder.getPlayerName()
             );
-            sellerInventory.addSaleNotification(saleNotification);
+            lockManager.runWithPlayerLock(sellOffer.getPlayerAuth(), () -> sellerInventory.addSaleNotification(saleNotification));
+        }
+        
+        // Keep the live book's per-level quantity totals in step with the fill
+        OrderBook tradeBook = orderBooksByItem.get(sellOffer.getItemStringID());
+        if (tradeBook != null) {
+            tradeBook.syncSellOfferQuantity(sellOffer.getOfferID());
+            tradeBook.syncBuyOrderQuantity(buyOrder.getOrderID());
         }
         
         // Update indexes if orders/offers are complete
@@ -1256,13 +1663,8 @@ public class GrandExchangeLevelData extends LevelData {
                 });
             }
             // Also remove from persistent OrderBook
-            OrderBook buyBook = orderBooksByItem.get(buyOrder.getItemStringID());
-            if (buyBook != null) {
-                buyBook.removeBuyOrder(buyOrder.getOrderID());
-                if (buyBook.isEmpty()) {
-                    orderBooksByItem.remove(buyOrder.getItemStringID());
-                }
-            }
+            removeBuyOrderFromBook(buyOrder);
+            buyOrderExpirations.cancel(buyOrder.getOrderID());
         }
 
         if (sellOffer.getState() == GEOffer.OfferState.COMPLETED) {
@@ -1275,31 +1677,30 @@ public class GrandExchangeLevelData extends LevelData {
                 });
             }
             // Also remove from persistent OrderBook
-            OrderBook sellBook = orderBooksByItem.get(sellOffer.getItemStringID());
-            if (sellBook != null) {
-                sellBook.removeSellOffer(sellOffer.getOfferID());
-                if (sellBook.isEmpty()) {
-                    orderBooksByItem.remove(sellOffer.getItemStringID());
-                }
-            }
+            removeSellOfferFromBook(sellOffer);
+            offerExpirations.cancel(sellOffer.getOfferID());
         }
         
         // Save to repository
         if (!isEphemeralOrder) {
             repository.saveBuyOrder(buyOrder);
+            persistBuyOrder(buyOrder);
         }
         repository.saveSellOffer(sellOffer);
+        persistOffer(sellOffer);
+        persistCoins(result.getBuyerAuth(), -result.getTotalCoins(), 0L);
+        persistCoins(result.getSellerAuth(), 0, result.getSellerProceeds());
+        persistCollectionAdd(result.getBuyerAuth(), result.getItemStringID(), quantity, "purchase");
+        marketIndex.refresh(sellOffer);
         
         // Update legacy statistics
-        totalTradesCompleted++;
-        totalVolumeTraded += result.getTotalCoins();
+        totalTradesCompleted.incrementAndGet();
+        totalVolumeTraded.addAndGet(result.getTotalCoins());
         recordSale(sellOffer.getItemStringID(), pricePerItem, quantity, result.getTotalCoins());
         
         ModLogger.info("Trade executed with transaction service: buy order ID=%d + sell offer ID=%d, " +
-            "qty=%d, price=%d/ea, execution time=%dms",
-            buyOrder.getOrderID(), sellOffer.getOfferID(), quantity, pricePerItem, executionTime);
-
-        return result;
+            "qty=%d, price=%d/ea, execution time=%dus",
+            buyOrder.getOrderID(), sellOffer.getOfferID(), quantity, pricePerItem, executionNanos / 1000);
     }
 
     
@@ -1313,12 +1714,65 @@ public class GrandExchangeLevelData extends LevelData {
             return null;
         }
         
-        return inventory.removeFromCollectionBox(index);
+        return lockManager.withPlayerLock(playerAuth, () -> {
+            CollectionItem removed = inventory.removeFromCollectionBox(index);
+            if (removed != null) {
+                persistCollectionRemove(playerAuth, removed.getItemStringID(), removed.getQuantity(), false);
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Put an item taken by collectFromCollectionBox back (the player's inventory could not take it).
+     */
+    public void restoreToCollectionBox(long playerAuth, int index, CollectionItem item) {
+        PlayerGEInventory inventory = getOrCreateInventory(playerAuth);
+        lockManager.runWithPlayerLock(playerAuth, () -> {
+            inventory.insertIntoCollectionBox(index, item);
+            persistCollectionAdd(playerAuth, item.getItemStringID(), item.getQuantity(), item.getSource());
+        });
+    }
+
+    /**
+     * Deposit one collection box entry into the player's bank.
+     * An entry that only partly fits stays in the box with the remainder.
+     * @return Quantity deposited (0 if nothing fit or the index is invalid)
+     */
+    public int collectToBank(Level level, long playerAuth, int index) {
+        PlayerGEInventory inventory = getInventory(playerAuth);
+        BankingLevelData bankingData = BankingLevelData.getBankingData(level);
+        if (inventory == null || bankingData == null) {
+            return 0;
+        }
+
+        PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
+        return lockManager.withPlayerLock(playerAuth, () -> {
+            List<CollectionItem> collectionBox = inventory.getCollectionBox();
+            if (index < 0 || index >= collectionBox.size()) {
+                return 0;
+            }
+            CollectionItem item = collectionBox.get(index);
+            PlayerBank.BulkDepositResult result = bank.depositItems(level,
+                Collections.singletonList(item.toInventoryItem()), "geCollection");
+            int deposited = result.getDeposited(0);
+            if (deposited <= 0) {
+                return 0;
+            }
+            if (deposited >= item.getQuantity()) {
+                inventory.removeFromCollectionBox(index);
+            } else {
+                item.removeQuantity(deposited);
+            }
+            persistCollectionRemove(playerAuth, item.getItemStringID(), deposited, true);
+            return deposited;
+        });
     }
     
     /**
-     * Collect all items from collection box to bank.
-     * Returns number of items successfully transferred.
+     * Collect all items from collection box to bank in one bulk deposit.
+     * Items that only partly fit stay in the box with the remainder.
+     * Returns number of entries fully transferred.
      */
     public int collectAllToBank(Level level, long playerAuth) {
         PlayerGEInventory inventory = getInventory(playerAuth);
@@ -1332,18 +1786,32 @@ public class GrandExchangeLevelData extends LevelData {
         }
         
         PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
-        List<CollectionItem> collectionBox = new ArrayList<>(inventory.getCollectionBox());
-        int transferred = 0;
-        
-        for (int i = collectionBox.size() - 1; i >= 0; i--) {
-            CollectionItem item = collectionBox.get(i);
-            InventoryItem invItem = item.toInventoryItem();
-            
-            if (bank.getInventory().addItem(level, null, invItem, "geCollection", null)) {
-                inventory.removeFromCollectionBox(i);
-                transferred++;
+        int transferred = lockManager.withPlayerLock(playerAuth, () -> {
+            List<CollectionItem> collectionBox = new ArrayList<>(inventory.getCollectionBox());
+            List<InventoryItem> items = new ArrayList<>(collectionBox.size());
+            for (CollectionItem item : collectionBox) {
+                items.add(item.toInventoryItem()); // null for unknown items, skipped by the deposit
             }
-        }
+            PlayerBank.BulkDepositResult result = bank.depositItems(level, items, "geCollection");
+
+            // Remove from the back so earlier indices stay valid
+            int moved = 0;
+            for (int i = collectionBox.size() - 1; i >= 0; i--) {
+                int deposited = result.getDeposited(i);
+                if (deposited <= 0) {
+                    continue;
+                }
+                CollectionItem item = collectionBox.get(i);
+                if (deposited >= item.getQuantity()) {
+                    inventory.removeFromCollectionBox(i);
+                    moved++;
+                } else {
+                    item.removeQuantity(deposited);
+                }
+                persistCollectionRemove(playerAuth, item.getItemStringID(), deposited, true);
+            }
+            return moved;
+        });
         
         ModLogger.info("Collected %d items from collection box to bank for player auth=%d", transferred, playerAuth);
         return transferred;
@@ -1391,18 +1859,19 @@ public class GrandExchangeLevelData extends LevelData {
             return;
         }
         
-        List<Integer> history = priceHistory.computeIfAbsent(itemStringID, k -> new ArrayList<>());
-        history.add(pricePerItem);
-
-        // Trim history if too long
         int maxHistory = ModConfig.GrandExchange.priceHistorySize;
-        if (history.size() > maxHistory) {
-            history.remove(0);
+        PriceHistory history = priceHistory.get(itemStringID);
+        if (history == null || history.getCapacity() != maxHistory) {
+            // First sale of this item, or priceHistorySize changed at runtime
+            history = priceHistory.compute(itemStringID, (k, existing) ->
+                existing == null ? new PriceHistory(maxHistory) : existing.withCapacity(maxHistory));
         }
+        history.record(pricePerItem);
+        priceHistorySaveDirty = true;
         
         // Update statistics
-        totalTradesCompleted++;
-        totalVolumeTraded += totalCoins;
+        totalTradesCompleted.incrementAndGet();
+        totalVolumeTraded.addAndGet(totalCoins);
         
         ModLogger.debug("Recorded sale: %s x%d @ %d coins (total: %d coins)",
             itemStringID, quantity, pricePerItem, totalCoins);
@@ -1421,17 +1890,26 @@ public class GrandExchangeLevelData extends LevelData {
      * @return Average price, or 0 if no history
      */
     public int getAveragePrice(String itemStringID) {
-        List<Integer> history = priceHistory.get(itemStringID);
-        if (history == null || history.isEmpty()) {
-            return 0;
-        }
+        PriceHistory history = priceHistory.get(itemStringID);
+        return history == null ? 0 : history.getAverage();
+    }
 
-        // Calculate average of recent sales
-        long sum = 0;
-        for (int price : history) {
-            sum += price;
-        }
-        return (int)(sum / history.size());
+    /**
+     * Get the lowest recent sale price for an item.
+     * @return Lowest price, or 0 if no history
+     */
+    public int getMinPrice(String itemStringID) {
+        PriceHistory history = priceHistory.get(itemStringID);
+        return history == null ? 0 : history.getMin();
+    }
+
+    /**
+     * Get the highest recent sale price for an item.
+     * @return Highest price, or 0 if no history
+     */
+    public int getMaxPrice(String itemStringID) {
+        PriceHistory history = priceHistory.get(itemStringID);
+        return history == null ? 0 : history.getMax();
     }
 
     /**
@@ -1439,10 +1917,7 @@ public class GrandExchangeLevelData extends LevelData {
      * @return Lowest price, or 0 if no offers
      */
     public int getLowestPrice(String itemStringID) {
-        return getActiveOffersForItem(itemStringID).stream()
-            .mapToInt(GEOffer::getPricePerItem)
-            .min()
-            .orElse(0);
+        return getTopOfBook(itemStringID).bestAsk();
     }
     
     /**
@@ -1450,28 +1925,41 @@ public class GrandExchangeLevelData extends LevelData {
      * @return Highest price, or 0 if no offers
      */
     public int getHighestPrice(String itemStringID) {
-        return getActiveOffersForItem(itemStringID).stream()
-            .mapToInt(GEOffer::getPricePerItem)
-            .max()
-            .orElse(0);
+        return getTopOfBook(itemStringID).highestAsk();
+    }
+
+    /**
+     * Get the highest current buy order price for an item.
+     * @return Best bid, or 0 if no buy orders
+     */
+    public int getBestBidPrice(String itemStringID) {
+        return getTopOfBook(itemStringID).bestBid();
+    }
+
+    /**
+     * Get the published best bid/ask summary for an item without locking or copying offers.
+     */
+    public OrderBook.TopOfBook getTopOfBook(String itemStringID) {
+        OrderBook book = orderBooksByItem.get(itemStringID);
+        return book == null ? OrderBook.TopOfBook.EMPTY : book.getTopOfBook();
     }
 
     // ===== STATISTICS =====
     
     public long getTotalInventoriesCreated() {
-        return totalInventoriesCreated;
+        return totalInventoriesCreated.get();
     }
     
     public long getTotalOffersCreated() {
-        return totalOffersCreated;
+        return totalOffersCreated.get();
     }
     
     public long getTotalTradesCompleted() {
-        return totalTradesCompleted;
+        return totalTradesCompleted.get();
     }
     
     public long getTotalVolumeTraded() {
-        return totalVolumeTraded;
+        return totalVolumeTraded.get();
     }
     
     public int getActiveOfferCount() {
@@ -1494,6 +1982,13 @@ public class GrandExchangeLevelData extends LevelData {
         return analyticsService;
     }
     
+    /**
+     * Get the OHLCV candles (1m/1h/1d) of every traded item.
+     */
+    public CandleAggregator getCandleAggregator() {
+        return candleAggregator;
+    }
+    
     /**
      * Get the trade audit log for transaction history and fraud detection.
      */
@@ -1597,7 +2092,7 @@ public class GrandExchangeLevelData extends LevelData {
     
     /**
      * Tick handler - called every game tick by LevelDataManager.
-     * Periodically cleans up expired offers.
+     * Runs queued commands, expires due offers and periodically cleans up services.
      */
     @Override
     public void tick() {
@@ -1608,92 +2103,558 @@ public class GrandExchangeLevelData extends LevelData {
             return;
         }
 
+        if (!journalOpenAttempted) {
+            openJournal();
+        }
+        if (!metricsRegistered) {
+            registerMetrics();
+        }
+
+        // Single writer: run queued GE commands on the level tick, bounded per tick
+        commandQueue.drain(ModConfig.GrandExchange.commandsPerTick);
+
+        // Expiration wheels only hand back what is due, so this is cheap every tick
+        if (ModConfig.GrandExchange.enableOfferExpiration) {
+            cleanupExpiredOffers(this.level);
+        }
+
+        // One merged update per affected player, after everything this tick has executed
+        updateCoalescer.flush(System.currentTimeMillis(),
+            ModConfig.GrandExchange.clientUpdateMinIntervalMs, this::deliverClientUpdate);
+
+        commitJournalIfDue();
+        MetricsExporter.tick();
+
         tickCounter++;
         if (tickCounter >= CLEANUP_INTERVAL_TICKS) {
             tickCounter = 0;
-            if (ModConfig.GrandExchange.enableOfferExpiration) {
-                cleanupExpiredOffers(this.level);
-            }
             // Clean up service layer
             performServiceCleanup();
         }
     }
 
     /**
-     * Clean up expired offers.
-     * Returns unsold items to seller's bank if enabled.
+     * Register this server level's gauges (re-registration replaces the previous level's).
+     * Sizes are read at export time only.
+     */
+    private void registerMetrics() {
+        metricsRegistered = true;
+        // Held weakly by the registry: an unloaded level's data drops out of the export
+        // and stays collectable; several GE levels are summed
+        MetricsRegistry.gauge("ge_order_books", "Items with a GE order book",
+            this, data -> data.orderBooksByItem.size());
+        MetricsRegistry.gauge("ge_resting_buy_orders", "Buy orders resting in GE order books",
+            this, data -> data.orderBooksByItem.values().stream().mapToInt(OrderBook::getBuyOrderCount).sum());
+        MetricsRegistry.gauge("ge_resting_sell_offers", "Sell offers resting in GE order books",
+            this, data -> data.orderBooksByItem.values().stream().mapToInt(OrderBook::getSellOfferCount).sum());
+        MetricsRegistry.gauge("ge_command_queue_depth", "GE commands waiting for the level tick",
+            this, data -> data.commandQueue.getPendingCount());
+        MetricsRegistry.gauge("ge_scheduled_expirations", "GE offers and buy orders waiting to expire",
+            this, data -> data.offerExpirations.size() + data.buyOrderExpirations.size());
+    }
+
+    // ===== WRITE-AHEAD JOURNAL =====
+
+    private static long newJournalKey() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0L);
+        return id;
+    }
+
+    /**
+     * Open the journal, replaying the segment chain written since the loaded snapshot.
+     * Runs once, on the first server tick.
+     */
+    private void openJournal() {
+        journalOpenAttempted = true;
+        boolean replayPending = journalReplayPending;
+        journalReplayPending = false;
+        if (!ModConfig.GrandExchange.enableJournal) {
+            return;
+        }
+
+        GEJournal opened = new GEJournal(
+            Paths.get(GlobalData.appDataPath(), "medievalsim", "gejournal"),
+            journalID,
+            ModConfig.GrandExchange.journalFsync
+        );
+
+        int lastEpoch = journalEpoch;
+        long previousToken = journalToken;
+        if (replayPending) {
+            if (journalToken != 0L) {
+                GEJournal.ReplayResult replay = opened.replay(journalToken, new JournalReplayer());
+                if (replay.getRecords() > 0) {
+                    rebuildOrderBooks();
+                    ModLogger.info("Replayed %d GE journal records from %d segments (%d failed)",
+                        replay.getRecords(), replay.getSegments(), replay.getFailedRecords());
+                }
+                lastEpoch = Math.max(lastEpoch, replay.getLastEpoch());
+                previousToken = replay.getLastToken();
+            }
+        }
+
+        // Continue the replayed chain so a crash before the next save still finds these changes
+        long token = newJournalKey();
+        if (opened.open(lastEpoch + 1, token, previousToken)) {
+            journalEpoch = lastEpoch + 1;
+            journalToken = token;
+            lastJournalCommitTime = System.currentTimeMillis();
+            journal = opened;
+        }
+    }
+
+    /**
+     * Group commit: flush everything journalled in the last window with one write.
+     */
+    private void commitJournalIfDue() {
+        GEJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastJournalCommitTime >= ModConfig.GrandExchange.journalCommitIntervalMs) {
+            lastJournalCommitTime = now;
+            current.commit();
+        }
+    }
+
+    public GEJournal getJournal() {
+        return journal;
+    }
+
+    // ===== PERSISTENCE HOOKS =====
+    // Every mutation of saved state goes through one of these: the change is journalled
+    // and the owner's save segment is flagged for re-encoding on the next world save.
+
+    private void persistOffer(GEOffer offer) {
+        markSaveSegmentDirty(offer.getPlayerAuth());
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendOffer(offer);
+        }
+    }
+
+    private void persistOfferRemoved(GEOffer offer) {
+        markSaveSegmentDirty(offer.getPlayerAuth());
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendOfferRemoved(offer.getOfferID());
+        }
+    }
+
+    private void persistBuyOrder(BuyOrder order) {
+        markSaveSegmentDirty(order.getPlayerAuth());
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendBuyOrder(order);
+        }
+    }
+
+    private void persistBuyOrderRemoved(BuyOrder order) {
+        markSaveSegmentDirty(order.getPlayerAuth());
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendBuyOrderRemoved(order.getOrderID());
+        }
+    }
+
+    private void persistCoins(long playerAuth, int escrowDelta, long bankDelta) {
+        markSaveSegmentDirty(playerAuth);
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendCoins(playerAuth, escrowDelta, bankDelta);
+        }
+    }
+
+    private void persistCollectionAdd(long playerAuth, String itemStringID, int quantity, String source) {
+        markSaveSegmentDirty(playerAuth);
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendCollectionAdd(playerAuth, itemStringID, quantity, source);
+        }
+    }
+
+    private void persistCollectionRemove(long playerAuth, String itemStringID, int quantity, boolean toBank) {
+        markSaveSegmentDirty(playerAuth);
+        GEJournal current = journal;
+        if (current != null) {
+            current.appendCollectionRemove(playerAuth, itemStringID, quantity, toBank);
+        }
+    }
+
+    /**
+     * Applies journal records on top of the loaded snapshot.
+     * Order books and the market index are rebuilt once afterwards.
+     */
+    private final class JournalReplayer implements GEJournal.Replayer {
+
+        @Override
+        public void onOffer(GEOffer offer) {
+            long offerID = offer.getOfferID();
+            PlayerGEInventory inventory = inventories.get(offer.getPlayerAuth());
+            GEOffer previous = offers.get(offerID);
+            if (previous == null && !slotHoldsItem(inventory, offer)) {
+                // Created after the snapshot from items the snapshot never saw in the GE slot
+                ModLogger.warn("Skipping journalled offer ID=%d: slot %d no longer holds %s",
+                    offerID, offer.getInventorySlot(), offer.getItemStringID());
+                return;
+            }
+
+            putOffer(offer);
+            repository.saveSellOffer(offer);
+            nextOfferID.accumulateAndGet(offerID + 1, Math::max);
+
+            unindex(offersByItem, offer.getItemStringID(), offerID);
+            if (offer.isActive()) {
+                offersByItem.computeIfAbsent(offer.getItemStringID(),
+                    k -> Collections.synchronizedList(new ArrayList<>())).add(offerID);
+            }
+
+            if (inventory != null) {
+                GEOffer linked = inventory.getSlotOffer(offer.getInventorySlot());
+                if (offer.isActive() || offer.isDraft()) {
+                    inventory.setSlotOffer(offer.getInventorySlot(), offer);
+                } else if (linked != null && linked.getOfferID() == offerID) {
+                    inventory.setSlotOffer(offer.getInventorySlot(), null);
+                }
+            }
+        }
+
+        @Override
+        public void onOfferRemoved(long offerID) {
+            GEOffer removed = removeOffer(offerID);
+            repository.deleteSellOffer(offerID);
+            if (removed == null) {
+                return;
+            }
+            unindex(offersByItem, removed.getItemStringID(), offerID);
+            PlayerGEInventory inventory = inventories.get(removed.getPlayerAuth());
+            if (inventory != null) {
+                GEOffer linked = inventory.getSlotOffer(removed.getInventorySlot());
+                if (linked != null && linked.getOfferID() == offerID) {
+                    inventory.setSlotOffer(removed.getInventorySlot(), null);
+                }
+            }
+        }
+
+        @Override
+        public void onBuyOrder(BuyOrder order) {
+            long orderID = order.getOrderID();
+            BuyOrder previous = putBuyOrder(order);
+            repository.saveBuyOrder(order);
+            nextBuyOrderID.accumulateAndGet(orderID + 1, Math::max);
+
+            if (previous != null) {
+                unindex(buyOrdersByItem, previous.getItemStringID(), orderID);
+            }
+            if (order.isActive() && order.getItemStringID() != null) {
+                buyOrdersByItem.computeIfAbsent(order.getItemStringID(),
+                    k -> Collections.synchronizedList(new ArrayList<>())).add(orderID);
+            }
+
+            if (order.getSlotIndex() >= 0) {
+                getOrCreateInventory(order.getPlayerAuth()).setBuyOrder(order.getSlotIndex(), order);
+            }
+        }
+
+        @Override
+        public void onBuyOrderRemoved(long orderID) {
+            BuyOrder removed = removeBuyOrder(orderID);
+            repository.deleteBuyOrder(orderID);
+            if (removed == null) {
+                return;
+            }
+            unindex(buyOrdersByItem, removed.getItemStringID(), orderID);
+            PlayerGEInventory inventory = inventories.get(removed.getPlayerAuth());
+            if (inventory != null && removed.getSlotIndex() >= 0) {
+                BuyOrder linked = inventory.getBuyOrder(removed.getSlotIndex());
+                if (linked != null && linked.getOrderID() == orderID) {
+                    inventory.setBuyOrder(removed.getSlotIndex(), null);
+                }
+            }
+        }
+
+        @Override
+        public void onCoins(long playerAuth, int escrowDelta, long bankDelta) {
+            if (escrowDelta != 0) {
+                PlayerGEInventory inventory = getOrCreateInventory(playerAuth);
+                inventory.setCoinsInEscrow(Math.max(0, inventory.getCoinsInEscrow() + escrowDelta));
+            }
+            if (bankDelta != 0) {
+                BankingLevelData bankingData = BankingLevelData.getBankingData(level);
+                if (bankingData == null) {
+                    ModLogger.error("Banking data unavailable, dropping journalled bank delta %d for player auth=%d",
+                        bankDelta, playerAuth);
+                    return;
+                }
+                PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
+                bank.setCoins(Math.max(0L, bank.getCoins() + bankDelta));
+            }
+        }
+
+        @Override
+        public void onCollectionAdd(long playerAuth, String itemStringID, int quantity, String source) {
+            getOrCreateInventory(playerAuth).addToCollectionBox(itemStringID, quantity, source);
+        }
+
+        @Override
+        public void onCollectionRemove(long playerAuth, String itemStringID, int quantity, boolean toBank) {
+            int removed = getOrCreateInventory(playerAuth).removeFromCollectionBox(itemStringID, quantity);
+            if (removed < quantity) {
+                ModLogger.warn("Journalled collection of %d x %s for player auth=%d found only %d in the box",
+                    quantity, itemStringID, playerAuth, removed);
+            }
+            if (!toBank || removed <= 0) {
+                return;
+            }
+            BankingLevelData bankingData = BankingLevelData.getBankingData(level);
+            if (bankingData == null) {
+                ModLogger.error("Banking data unavailable, dropping journalled deposit of %d x %s for player auth=%d",
+                    removed, itemStringID, playerAuth);
+                return;
+            }
+            PlayerBank.BulkDepositResult result = bankingData.getOrCreateBank(playerAuth).depositItems(level,
+                Collections.singletonList(new InventoryItem(itemStringID, removed)), "geCollection");
+            int deposited = result.getDeposited(0);
+            if (deposited < removed) {
+                // The bank filled up differently this time: keep the rest collectable
+                getOrCreateInventory(playerAuth).addToCollectionBox(itemStringID, removed - deposited, "returned");
+            }
+        }
+
+        private boolean slotHoldsItem(PlayerGEInventory inventory, GEOffer offer) {
+            if (inventory == null) {
+                return false;
+            }
+            InventoryItem slotItem = inventory.getSlotItem(offer.getInventorySlot());
+            return slotItem != null && slotItem.item.getStringID().equals(offer.getItemStringID());
+        }
+
+        private <K> void unindex(Map<K, List<Long>> index, K key, long id) {
+            if (key == null) {
+                return;
+            }
+            index.computeIfPresent(key, (k, list) -> {
+                synchronized (list) {
+                    list.remove(id);
+                    return list.isEmpty() ? null : list;
+                }
+            });
+        }
+    }
+
+    /**
+     * Expire the offers and buy orders whose deadline has passed.
+     * Driven by the expiration wheels, so only due entries are touched. Unsold items
+     * and escrow refunds go back to each player's bank in one batch per player.
      */
     public void cleanupExpiredOffers(Level level) {
+        long now = System.currentTimeMillis();
+        List<Long> dueOffers = offerExpirations.advance(now);
+        List<Long> dueOrders = buyOrderExpirations.advance(now);
+        if (dueOffers.isEmpty() && dueOrders.isEmpty()) {
+            return;
+        }
+
+        // Expire under each item's stripe, then settle per player (item before player lock)
+        Map<Long, List<GEOffer>> expiredOffersByPlayer = new HashMap<>();
+        for (Long offerID : dueOffers) {
+            GEOffer offer = offers.get(offerID);
+            if (offer != null && lockManager.withItemLock(offer.getItemStringID(), () -> expireSellOfferLocked(offer))) {
+                expiredOffersByPlayer.computeIfAbsent(offer.getPlayerAuth(), k -> new ArrayList<>()).add(offer);
+            }
+        }
+        Map<Long, Integer> refundsByPlayer = new HashMap<>();
+        int expiredOrders = 0;
+        for (Long orderID : dueOrders) {
+            BuyOrder order = buyOrders.get(orderID);
+            if (order == null) {
+                continue;
+            }
+            int refund = lockManager.withItemLock(order.getItemStringID(), () -> expireBuyOrderLocked(order, now));
+            if (refund >= 0) {
+                refundsByPlayer.merge(order.getPlayerAuth(), refund, Integer::sum);
+                expiredOrders++;
+            }
+        }
+
         int expired = 0;
         int returned = 0;
-        
-        Iterator<Map.Entry<Long, GEOffer>> iterator = offers.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Long, GEOffer> entry = iterator.next();
-            GEOffer offer = entry.getValue();
+        for (Map.Entry<Long, List<GEOffer>> entry : expiredOffersByPlayer.entrySet()) {
+            returned += returnExpiredSellOffers(level, entry.getKey(), entry.getValue());
+            expired += entry.getValue().size();
+            notifyPlayerSellInventory(level, entry.getKey());
+        }
+        for (Map.Entry<Long, Integer> entry : refundsByPlayer.entrySet()) {
+            refundExpiredBuyOrders(level, entry.getKey(), entry.getValue());
+            notifyPlayerBuyOrders(level, entry.getKey());
+        }
 
-            if (offer.isExpired() && offer.isActive()) {
-                offer.expire();
-                
-                // Get player's GE inventory
-                PlayerGEInventory inventory = inventories.get(offer.getPlayerAuth());
-                if (inventory != null) {
-                    int slot = offer.getInventorySlot();
-                    
-                    // Return items to bank if enabled
-                    if (ModConfig.GrandExchange.returnExpiredToBank &&
-                        ModConfig.Banking.enabled &&
-                        offer.getType() == GEOffer.OfferType.SELL) {
-
-                        medievalsim.banking.domain.BankingLevelData bankingData =
-                            medievalsim.banking.domain.BankingLevelData.getBankingData(level);
-
-                        if (bankingData != null) {
-                            medievalsim.banking.domain.PlayerBank playerBank =
-                                bankingData.getOrCreateBank(offer.getPlayerAuth());
-
-                            necesse.inventory.InventoryItem unsoldItem = inventory.getSlotItem(slot);
-                            if (unsoldItem != null && unsoldItem.getAmount() > 0) {
-                                boolean success = playerBank.getInventory().addItem(
-                                    level,
-                                    null,
-                                    unsoldItem,
-                                    "grandexchange_expired",
-                                    null
-                                );
-
-                                if (success) {
-                                    // Clear GE slot after returning to bank
-                                    inventory.clearSlot(slot);
-                                    returned++;
-                                    ModLogger.debug("Returned %d x %s to bank (offer expired, player auth=%d)",
-                                        unsoldItem.getAmount(), offer.getItemStringID(), offer.getPlayerAuth());
-                                } else {
-                                    ModLogger.warn("Failed to return expired items to bank (bank full?) - items remain in GE slot");
-                                }
-                            }
-                        }
-                    } else {
-                        // Just clear the slot offer link (items stay in GE slot for manual retrieval)
-                        inventory.setSlotOffer(slot, null);
+        if (expired > 0 || expiredOrders > 0) {
+            ModLogger.info("Expired %d offers (%d items returned to banks) and %d buy orders (%d players refunded)",
+                expired, returned, expiredOrders, refundsByPlayer.size());
+        }
+    }
+
+    /**
+     * Expire one due sell offer and take it off the market; caller holds its item stripe.
+     * @return true if the offer expired (false if it finished meanwhile or is not due yet)
+     */
+    private boolean expireSellOfferLocked(GEOffer offer) {
+        if (!offer.isActive()) {
+            return false;
+        }
+        if (!offer.isExpired()) {
+            scheduleOfferExpiration(offer);
+            return false;
+        }
+
+        offer.expire();
+        repository.saveSellOffer(offer);
+        persistOffer(offer);
+
+        // Remove from item index
+        List<Long> itemOffers = offersByItem.get(offer.getItemStringID());
+        if (itemOffers != null) {
+            itemOffers.remove(offer.getOfferID());
+        }
+
+        // Remove from persistent OrderBook
+        removeSellOfferFromBook(offer);
+        return true;
+    }
+
+    /**
+     * Expire one due buy order and take it off the market; caller holds its item stripe.
+     * @return Escrowed coins to refund, or -1 if the order did not expire
+     */
+    private int expireBuyOrderLocked(BuyOrder order, long now) {
+        if (!order.isActive()) {
+            return -1;
+        }
+        if (now < order.getExpirationTime()) {
+            scheduleBuyOrderExpiration(order);
+            return -1;
+        }
+
+        int coinsToRefund = order.getTotalCoinsRequired();
+        if (order.getItemStringID() != null) {
+            buyOrdersByItem.computeIfPresent(order.getItemStringID(), (k, list) -> {
+                synchronized (list) {
+                    list.remove(order.getOrderID());
+                    return list.isEmpty() ? null : list;
+                }
+            });
+        }
+        removeBuyOrderFromBook(order);
+
+        order.expire();
+        repository.saveBuyOrder(order);
+        persistBuyOrder(order);
+        return coinsToRefund;
+    }
+
+    /**
+     * Return a player's expired sell offers: unsold items go to the bank (one bank
+     * lookup and one player lock for the whole batch) or stay in the GE slot.
+     * @return Number of offers whose items were returned to the bank
+     */
+    private int returnExpiredSellOffers(Level level, long playerAuth, List<GEOffer> expiredOffers) {
+        PlayerGEInventory inventory = inventories.get(playerAuth);
+        if (inventory == null) {
+            return 0;
+        }
+
+        PlayerBank playerBank = null;
+        if (ModConfig.GrandExchange.returnExpiredToBank && ModConfig.Banking.enabled) {
+            BankingLevelData bankingData = BankingLevelData.getBankingData(level);
+            if (bankingData != null) {
+                playerBank = bankingData.getOrCreateBank(playerAuth);
+            }
+        }
+        PlayerBank bank = playerBank;
+
+        return lockManager.withPlayerLock(playerAuth, () -> {
+            // Gather every unsold stack first so the bank takes them in one deposit
+            List<Integer> slots = new ArrayList<>();
+            List<InventoryItem> unsoldItems = new ArrayList<>();
+            for (GEOffer offer : expiredOffers) {
+                int slot = offer.getInventorySlot();
+                if (bank != null && offer.getType() == GEOffer.OfferType.SELL) {
+                    InventoryItem unsoldItem = inventory.getSlotItem(slot);
+                    if (unsoldItem != null && unsoldItem.getAmount() > 0) {
+                        slots.add(slot);
+                        unsoldItems.add(unsoldItem);
                     }
-                    
-                    inventory.recordSellOfferCompleted();
+                } else if (bank == null) {
+                    // Just clear the slot offer link (items stay in GE slot for manual retrieval)
+                    inventory.setSlotOffer(slot, null);
                 }
-                
-                // Remove from item index
-                List<Long> itemOffers = offersByItem.get(offer.getItemStringID());
-                if (itemOffers != null) {
-                    itemOffers.remove(offer.getOfferID());
+                inventory.recordSellOfferCompleted();
+            }
+            if (unsoldItems.isEmpty()) {
+                return 0;
+            }
+
+            PlayerBank.BulkDepositResult result = bank.depositItems(level, unsoldItems, "grandexchange_expired");
+            int returned = 0;
+            for (int i = 0; i < unsoldItems.size(); i++) {
+                InventoryItem unsoldItem = unsoldItems.get(i);
+                int deposited = result.getDeposited(i);
+                if (deposited >= unsoldItem.getAmount()) {
+                    // Clear GE slot after returning to bank
+                    inventory.clearSlot(slots.get(i));
+                    returned++;
+                    ModLogger.debug("Returned %d x %s to bank (offer expired, player auth=%d)",
+                        deposited, unsoldItem.item.getStringID(), playerAuth);
+                } else {
+                    if (deposited > 0) {
+                        InventoryItem remainder = unsoldItem.copy();
+                        remainder.setAmount(unsoldItem.getAmount() - deposited);
+                        inventory.setSlotItem(slots.get(i), remainder);
+                    }
+                    ModLogger.warn("Bank full: %d x %s from expired offer remain in GE slot %d (player auth=%d)",
+                        unsoldItem.getAmount() - deposited, unsoldItem.item.getStringID(), slots.get(i), playerAuth);
                 }
-                
-                expired++;
             }
+            return returned;
+        });
+    }
+
+    /**
+     * Refund the escrow of a player's expired buy orders to their bank in one deposit.
+     */
+    private void refundExpiredBuyOrders(Level level, long playerAuth, int coinsToRefund) {
+        PlayerGEInventory inventory = inventories.get(playerAuth);
+        if (inventory == null || coinsToRefund <= 0) {
+            return;
         }
-        
-        if (expired > 0) {
-            ModLogger.info("Cleaned up %d expired offers (%d items returned to banks)", expired, returned);
+        BankingLevelData bankingData = BankingLevelData.getBankingData(level);
+        if (bankingData == null) {
+            ModLogger.error("Banking system not available for expired buy order refund!");
+            return;
         }
+
+        PlayerBank bank = bankingData.getOrCreateBank(playerAuth);
+        lockManager.runWithPlayerLock(playerAuth, () -> {
+            bank.addCoins(coinsToRefund);
+            inventory.removeCoinsFromEscrow(coinsToRefund);
+            persistCoins(playerAuth, -coinsToRefund, coinsToRefund);
+
+            // Add notification to collection box so player knows coins were refunded
+            inventory.addSaleNotification(new SaleNotification(
+                "coins",
+                coinsToRefund,
+                1, // price per "item" is 1 coin
+                coinsToRefund,
+                false, // not partial
+                "System"
+            ));
+        });
+        ModLogger.debug("Refunded %d coins of expired buy orders (player auth=%d)", coinsToRefund, playerAuth);
     }
 
     // ===== PERSISTENCE =====
@@ -1750,31 +2711,65 @@ public class GrandExchangeLevelData extends LevelData {
     }
 
     /**
-     * Helper: notify player's client to refresh sell inventory UI (if online).
+     * Helper: schedule a sell inventory UI refresh for the player's client.
+     * Coalesced with any other updates for the player and sent at the end of the tick.
      */
     private void notifyPlayerSellInventory(Level level, long playerAuth) {
         if (level == null || !level.isServer()) return;
-        Server server = level.getServer();
-        if (server == null) return;
-        ServerClient client = server.getClientByAuth(playerAuth);
-        if (client != null) {
-            sendSellInventorySyncToClient(client, playerAuth);
-        }
+        updateCoalescer.requestSellSync(playerAuth);
     }
 
     /**
-     * Helper: notify player's client to refresh buy order UI (if online).
+     * Helper: schedule a buy order UI refresh for the player's client.
+     * Coalesced with any other updates for the player and sent at the end of the tick.
      */
     private void notifyPlayerBuyOrders(Level level, long playerAuth) {
         if (level == null || !level.isServer()) return;
-        Server server = level.getServer();
-        if (server == null) return;
-        ServerClient client = server.getClientByAuth(playerAuth);
-        if (client != null) {
+        updateCoalescer.requestBuySync(playerAuth);
+    }
+
+    /**
+     * GEUpdateCoalescer sink: queue one notification per touched slot (not per fill),
+     * then send the player's client at most one sync per side plus one compact fill
+     * update for the slots a full sync does not already cover.
+     */
+    private void deliverClientUpdate(long playerAuth, GEUpdateCoalescer.PlayerUpdate update) {
+        for (GEUpdateCoalescer.SellFill fill : update.getSellFills()) {
+            GEOffer offer = fill.getOffer();
+            if (offer.getQuantityRemaining() == 0) {
+                notificationService.notifyOfferFilled(offer, offer.getQuantityTotal(),
+                    (int) offer.getTotalCoinsReceived());
+            } else {
+                notificationService.notifyOfferPartiallyFilled(offer, fill.getQuantity(),
+                    offer.getQuantityRemaining(), (int) fill.getCoins());
+            }
+        }
+        for (GEUpdateCoalescer.BuyFill fill : update.getBuyFills()) {
+            notificationService.notifyBuyOrderFilled(fill.getOrder(), fill.getQuantity(), (int) fill.getCoins());
+        }
+
+        Server server = this.level == null ? null : this.level.getServer();
+        ServerClient client = server == null ? null : server.getClientByAuth(playerAuth);
+        if (client == null) {
+            return;
+        }
+
+        if (update.needsSellSync()) {
+            sendSellInventorySyncToClient(client, playerAuth);
+        }
+        if (update.needsBuySync()) {
             medievalsim.packets.PacketGEBuyOrderSync packet =
                 new medievalsim.packets.PacketGEBuyOrderSync(playerAuth, getPlayerInventorySnapshot(playerAuth).getBuyOrders());
             client.sendPacket(packet);
         }
+
+        Collection<GEUpdateCoalescer.SellFill> sellFills = update.needsSellSync()
+            ? Collections.emptyList() : update.getSellFills();
+        Collection<GEUpdateCoalescer.BuyFill> buyFills = update.needsBuySync()
+            ? Collections.emptyList() : update.getBuyFills();
+        if (!sellFills.isEmpty() || !buyFills.isEmpty()) {
+            client.sendPacket(new medievalsim.packets.PacketGEFillUpdate(playerAuth, sellFills, buyFills));
+        }
     }
 
     // Small helper to safely fetch a PlayerGEInventory or a minimal snapshot used for buy sync creation
@@ -1790,52 +2785,67 @@ public class GrandExchangeLevelData extends LevelData {
         ModLogger.debug("Saving GrandExchangeLevelData: %d inventories, %d offers, %d buy orders",
             inventories.size(), offers.size(), buyOrders.size());
         
+        // Compaction point: encode the player state and start the journal segment this
+        // snapshot points at with every striped mutation held off, so each change lands
+        // either in the snapshot or in the new segment, never both
+        long[] nextIDs = new long[2];
+        int reencoded = lockManager.withAllLocks(() -> {
+            nextIDs[0] = nextOfferID.get();
+            nextIDs[1] = nextBuyOrderID.get();
+            int encoded = encodeDirtySaveSegments();
+            if (journal != null) {
+                // Recorded even if the segment cannot be created: a snapshot must never
+                // point at the segment it already contains
+                journalEpoch++;
+                journalToken = newJournalKey();
+                journal.rotate(journalEpoch, journalToken);
+            } else if (!journalReplayPending) {
+                // No journal: make sure no stale segment can ever match this snapshot
+                journalToken = newJournalKey();
+            }
+            return encoded;
+        });
+        save.addLong("journalID", journalID);
+        save.addInt("journalEpoch", journalEpoch);
+        save.addLong("journalToken", journalToken);
+        
         // Save ID generators
-        save.addLong("nextOfferID", nextOfferID.get());
-        save.addLong("nextBuyOrderID", nextBuyOrderID.get());
+        save.addLong("nextOfferID", nextIDs[0]);
+        save.addLong("nextBuyOrderID", nextIDs[1]);
         
         // Save statistics
-        save.addLong("totalInventoriesCreated", totalInventoriesCreated);
-        save.addLong("totalOffersCreated", totalOffersCreated);
-        save.addLong("totalTradesCompleted", totalTradesCompleted);
-        save.addLong("totalVolumeTraded", totalVolumeTraded);
-
-        // Save all player inventories
-        SaveData inventoriesData = new SaveData("INVENTORIES");
-        for (PlayerGEInventory inventory : inventories.values()) {
-            SaveData inventorySave = new SaveData("INVENTORY");
-            inventory.addSaveData(inventorySave);
-            inventoriesData.addSaveData(inventorySave);
+        save.addLong("totalInventoriesCreated", totalInventoriesCreated.get());
+        save.addLong("totalOffersCreated", totalOffersCreated.get());
+        save.addLong("totalTradesCompleted", totalTradesCompleted.get());
+        save.addLong("totalVolumeTraded", totalVolumeTraded.get());
+
+        // Save player inventories, offers and buy orders (unchanged segments are reused)
+        SaveData segmentsData = new SaveData("SEGMENTS");
+        for (SaveSegment segment : saveSegments) {
+            if (segment.cachedSize > 0) {
+                segmentsData.addSaveData(segment.cached);
+            }
         }
-        save.addSaveData(inventoriesData);
-
-        // Save all offers
-        SaveData offersData = new SaveData("OFFERS");
-        for (GEOffer offer : offers.values()) {
-            SaveData offerSave = new SaveData("OFFER");
-            offer.addSaveData(offerSave);
-            offersData.addSaveData(offerSave);
+        save.addSaveData(segmentsData);
+
+        // Save price history (only rebuilt after new sales)
+        if (priceHistorySaveDirty || cachedPriceHistorySave == null) {
+            priceHistorySaveDirty = false;
+            SaveData historyData = new SaveData("PRICE_HISTORY");
+            for (Map.Entry<String, PriceHistory> entry : priceHistory.entrySet()) {
+                SaveData itemHistory = new SaveData("ITEM");
+                itemHistory.addUnsafeString("itemID", entry.getKey());
+                itemHistory.addIntArray("prices", entry.getValue().toArray());
+                historyData.addSaveData(itemHistory);
+            }
+            cachedPriceHistorySave = historyData;
         }
-        save.addSaveData(offersData);
+        save.addSaveData(cachedPriceHistorySave);
         
-        // Save all buy orders
-        SaveData buyOrdersData = new SaveData("BUY_ORDERS");
-        for (BuyOrder order : buyOrders.values()) {
-            SaveData orderSave = new SaveData("ORDER");
-            orderSave.addSaveData(order.getSaveData());
-            buyOrdersData.addSaveData(orderSave);
-        }
-        save.addSaveData(buyOrdersData);
-
-        // Save price history
-        SaveData historyData = new SaveData("PRICE_HISTORY");
-        for (Map.Entry<String, List<Integer>> entry : priceHistory.entrySet()) {
-            SaveData itemHistory = new SaveData("ITEM");
-            itemHistory.addUnsafeString("itemID", entry.getKey());
-            itemHistory.addIntArray("prices", entry.getValue().stream().mapToInt(i -> i).toArray());
-            historyData.addSaveData(itemHistory);
-        }
-        save.addSaveData(historyData);
+        // Save price candles
+        SaveData candlesSave = new SaveData("CANDLES");
+        candleAggregator.addSaveData(candlesSave);
+        save.addSaveData(candlesSave);
         
         // Save audit log
         if (auditLog != null) {
@@ -1844,8 +2854,146 @@ public class GrandExchangeLevelData extends LevelData {
             save.addSaveData(auditSave);
         }
         
-        ModLogger.debug("Saved %d inventories, %d offers, %d buy orders, %d price histories",
-            inventories.size(), offers.size(), buyOrders.size(), priceHistory.size());
+        ModLogger.debug("Saved %d inventories, %d offers, %d buy orders, %d price histories (%d/%d segments re-encoded)",
+            inventories.size(), offers.size(), buyOrders.size(), priceHistory.size(), reencoded, SAVE_SEGMENTS);
+    }
+
+    private static int getSaveSegment(long playerAuth) {
+        return Math.floorMod(Long.hashCode(playerAuth), SAVE_SEGMENTS);
+    }
+
+    private void markSaveSegmentDirty(long playerAuth) {
+        dirtySaveSegments.set(getSaveSegment(playerAuth), 1);
+    }
+
+    private static SaveSegment[] createSaveSegments() {
+        SaveSegment[] segments = new SaveSegment[SAVE_SEGMENTS];
+        for (int i = 0; i < SAVE_SEGMENTS; i++) {
+            segments[i] = new SaveSegment();
+        }
+        return segments;
+    }
+
+    // Every put/remove on inventories, offers and buyOrders goes through these so the
+    // segment member sets stay in step with the maps
+
+    private void trackInventory(PlayerGEInventory inventory) {
+        long ownerAuth = inventory.getOwnerAuth();
+        saveSegments[getSaveSegment(ownerAuth)].inventoryOwners.add(ownerAuth);
+        inventory.setSaveDirtyListener(this::markSaveSegmentDirty);
+        markSaveSegmentDirty(ownerAuth);
+    }
+
+    private void putOffer(GEOffer offer) {
+        offers.put(offer.getOfferID(), offer);
+        saveSegments[getSaveSegment(offer.getPlayerAuth())].offerIDs.add(offer.getOfferID());
+        markSaveSegmentDirty(offer.getPlayerAuth());
+    }
+
+    private GEOffer removeOffer(long offerID) {
+        GEOffer removed = offers.remove(offerID);
+        if (removed != null) {
+            saveSegments[getSaveSegment(removed.getPlayerAuth())].offerIDs.remove(offerID);
+            markSaveSegmentDirty(removed.getPlayerAuth());
+        }
+        return removed;
+    }
+
+    private BuyOrder putBuyOrder(BuyOrder order) {
+        BuyOrder previous = buyOrders.put(order.getOrderID(), order);
+        saveSegments[getSaveSegment(order.getPlayerAuth())].orderIDs.add(order.getOrderID());
+        markSaveSegmentDirty(order.getPlayerAuth());
+        return previous;
+    }
+
+    private BuyOrder removeBuyOrder(long orderID) {
+        BuyOrder removed = buyOrders.remove(orderID);
+        if (removed != null) {
+            saveSegments[getSaveSegment(removed.getPlayerAuth())].orderIDs.remove(orderID);
+            markSaveSegmentDirty(removed.getPlayerAuth());
+        }
+        return removed;
+    }
+
+    /**
+     * Rebuild the cached SaveData of every segment flagged since the last save.
+     * Only the members of those segments are visited.
+     * Package-private for tests; saves call it under withAllLocks.
+     * @return Number of segments re-encoded
+     */
+    int encodeDirtySaveSegments() {
+        int reencoded = 0;
+        for (int i = 0; i < SAVE_SEGMENTS; i++) {
+            SaveSegment segment = saveSegments[i];
+            if (dirtySaveSegments.getAndSet(i, 0) == 0 && segment.cached != null) {
+                continue;
+            }
+
+            SaveData segmentSave = new SaveData("SEGMENT");
+            int size = 0;
+            for (Long ownerAuth : segment.inventoryOwners) {
+                PlayerGEInventory inventory = inventories.get(ownerAuth);
+                if (inventory != null) {
+                    SaveData inventorySave = new SaveData("INVENTORY");
+                    inventory.addSaveData(inventorySave);
+                    segmentSave.addSaveData(inventorySave);
+                    size++;
+                }
+            }
+            for (Long offerID : segment.offerIDs) {
+                GEOffer offer = offers.get(offerID);
+                if (offer != null) {
+                    SaveData offerSave = new SaveData("OFFER");
+                    offer.addSaveData(offerSave);
+                    segmentSave.addSaveData(offerSave);
+                    size++;
+                }
+            }
+            for (Long orderID : segment.orderIDs) {
+                BuyOrder order = buyOrders.get(orderID);
+                if (order != null) {
+                    SaveData orderSave = new SaveData("ORDER");
+                    orderSave.addSaveData(order.getSaveData());
+                    segmentSave.addSaveData(orderSave);
+                    size++;
+                }
+            }
+
+            segment.cached = segmentSave;
+            segment.cachedSize = size;
+            reencoded++;
+        }
+        return reencoded;
+    }
+
+    /**
+     * Members and last encoded SaveData of one save segment.
+     */
+    private static final class SaveSegment {
+        final Set<Long> inventoryOwners = ConcurrentHashMap.newKeySet();
+        final Set<Long> offerIDs = ConcurrentHashMap.newKeySet();
+        final Set<Long> orderIDs = ConcurrentHashMap.newKeySet();
+        SaveData cached;
+        int cachedSize;
+    }
+
+    /**
+     * Collect saved entries from both the segmented layout and the legacy flat
+     * layout (one INVENTORIES/OFFERS/BUY_ORDERS list each).
+     */
+    private static List<LoadData> getSavedEntries(LoadData load, String legacyListName, String entryName) {
+        List<LoadData> entries = new ArrayList<>();
+        LoadData legacyList = load.getFirstLoadDataByName(legacyListName);
+        if (legacyList != null) {
+            entries.addAll(legacyList.getLoadDataByName(entryName));
+        }
+        LoadData segmentsData = load.getFirstLoadDataByName("SEGMENTS");
+        if (segmentsData != null) {
+            for (LoadData segment : segmentsData.getLoadDataByName("SEGMENT")) {
+                entries.addAll(segment.getLoadDataByName(entryName));
+            }
+        }
+        return entries;
     }
 
     @Override
@@ -1854,21 +3002,41 @@ public class GrandExchangeLevelData extends LevelData {
         
         ModLogger.debug("Loading GrandExchangeLevelData...");
         
+        // Journal segments written after this snapshot are replayed on the first tick
+        long savedJournalID = load.getLong("journalID", 0L);
+        if (savedJournalID != 0L) {
+            journalID = savedJournalID;
+        }
+        journalEpoch = load.getInt("journalEpoch", 0);
+        journalToken = load.getLong("journalToken", 0L);
+        journalReplayPending = true;
+        
         // Load ID generators
         nextOfferID.set(load.getLong("nextOfferID", 1L));
         nextBuyOrderID.set(load.getLong("nextBuyOrderID", 1L));
         
         // Load statistics
-        this.totalInventoriesCreated = load.getLong("totalInventoriesCreated", 0L);
-        this.totalOffersCreated = load.getLong("totalOffersCreated", 0L);
-        this.totalTradesCompleted = load.getLong("totalTradesCompleted", 0L);
-        this.totalVolumeTraded = load.getLong("totalVolumeTraded", 0L);
+        totalInventoriesCreated.set(load.getLong("totalInventoriesCreated", 0L));
+        totalOffersCreated.set(load.getLong("totalOffersCreated", 0L));
+        totalTradesCompleted.set(load.getLong("totalTradesCompleted", 0L));
+        totalVolumeTraded.set(load.getLong("totalVolumeTraded", 0L));
+
+        // Everything is re-encoded on the first save after a load
+        for (SaveSegment segment : saveSegments) {
+            segment.cached = null;
+            segment.cachedSize = 0;
+        }
+        cachedPriceHistorySave = null;
+        priceHistorySaveDirty = true;
 
         // Load all player inventories
-        LoadData inventoriesData = load.getFirstLoadDataByName("INVENTORIES");
-        if (inventoriesData != null) {
+        List<LoadData> inventoryLoads = getSavedEntries(load, "INVENTORIES", "INVENTORY");
+        if (!inventoryLoads.isEmpty()) {
             inventories.clear();
-            for (LoadData inventoryLoad : inventoriesData.getLoadDataByName("INVENTORY")) {
+            for (SaveSegment segment : saveSegments) {
+                segment.inventoryOwners.clear();
+            }
+            for (LoadData inventoryLoad : inventoryLoads) {
                 try {
                     long ownerAuth = inventoryLoad.getLong("ownerAuth", 0L);
                     if (ownerAuth == 0L) {
@@ -1879,6 +3047,7 @@ public class GrandExchangeLevelData extends LevelData {
                     PlayerGEInventory inventory = new PlayerGEInventory(ownerAuth);
                     inventory.applyLoadData(inventoryLoad);
                     inventories.put(ownerAuth, inventory);
+                    trackInventory(inventory);
                 } catch (Exception e) {
                     ModLogger.error("Failed to load GE inventory: %s", e.getMessage());
                     e.printStackTrace();
@@ -1887,15 +3056,20 @@ public class GrandExchangeLevelData extends LevelData {
         }
 
         // Load all offers
-        LoadData offersData = load.getFirstLoadDataByName("OFFERS");
-        if (offersData != null) {
+        List<LoadData> offerLoads = getSavedEntries(load, "OFFERS", "OFFER");
+        repository.clearAll();
+        if (!offerLoads.isEmpty()) {
             offers.clear();
             offersByItem.clear();
+            for (SaveSegment segment : saveSegments) {
+                segment.offerIDs.clear();
+            }
             
-            for (LoadData offerLoad : offersData.getLoadDataByName("OFFER")) {
+            for (LoadData offerLoad : offerLoads) {
                 try {
                     GEOffer offer = GEOffer.fromLoadData(offerLoad);
-                    offers.put(offer.getOfferID(), offer);
+                    putOffer(offer);
+                    repository.saveSellOffer(offer);
                     
                     // Rebuild item index
                     offersByItem.computeIfAbsent(offer.getItemStringID(), k -> new ArrayList<>())
@@ -1919,12 +3093,15 @@ public class GrandExchangeLevelData extends LevelData {
         }
 
         // Load all buy orders
-        LoadData buyOrdersData = load.getFirstLoadDataByName("BUY_ORDERS");
-        if (buyOrdersData != null) {
+        List<LoadData> orderLoads = getSavedEntries(load, "BUY_ORDERS", "ORDER");
+        if (!orderLoads.isEmpty()) {
             buyOrders.clear();
             buyOrdersByItem.clear();
+            for (SaveSegment segment : saveSegments) {
+                segment.orderIDs.clear();
+            }
             
-            for (LoadData orderLoad : buyOrdersData.getLoadDataByName("ORDER")) {
+            for (LoadData orderLoad : orderLoads) {
                 try {
                     LoadData buyOrderData = orderLoad.getFirstLoadDataByName("BUY_ORDER");
                     if (buyOrderData == null) {
@@ -1933,7 +3110,8 @@ public class GrandExchangeLevelData extends LevelData {
                     }
                     BuyOrder order = BuyOrder.fromSaveData(buyOrderData);
                     if (order != null) {
-                        buyOrders.put(order.getOrderID(), order);
+                        putBuyOrder(order);
+                        repository.saveBuyOrder(order);
                         
                         // Rebuild item index (only for active orders)
                         if (order.isActive()) {
@@ -1954,6 +3132,9 @@ public class GrandExchangeLevelData extends LevelData {
             }
         }
         
+        // Rebuild live order books from the repository (only done at load)
+        rebuildOrderBooks();
+        
         // Load price history
         LoadData historyData = load.getFirstLoadDataByName("PRICE_HISTORY");
         if (historyData != null) {
@@ -1962,17 +3143,23 @@ public class GrandExchangeLevelData extends LevelData {
                 try {
                     String itemID = itemHistory.getUnsafeString("itemID");
                     int[] prices = itemHistory.getIntArray("prices");
-                    List<Integer> priceList = new ArrayList<>();
-                    for (int price : prices) {
-                        priceList.add(price);
-                    }
-                    priceHistory.put(itemID, priceList);
+                    priceHistory.put(itemID, PriceHistory.fromArray(prices, ModConfig.GrandExchange.priceHistorySize));
                 } catch (Exception e) {
                     ModLogger.error("Failed to load price history: %s", e.getMessage());
                 }
             }
         }
         
+        // Load price candles
+        LoadData candlesData = load.getFirstLoadDataByName("CANDLES");
+        if (candlesData != null) {
+            try {
+                candleAggregator.applyLoadData(candlesData);
+            } catch (Exception e) {
+                ModLogger.error("Failed to load price candles: %s", e.getMessage());
+            }
+        }
+        
         // Load audit log
         LoadData auditLogData = load.getFirstLoadDataByName("AuditLog");
         if (auditLogData != null && auditLog != null) {
@@ -1986,7 +3173,7 @@ public class GrandExchangeLevelData extends LevelData {
         }
         
         ModLogger.info("Loaded GE data: %d inventories, %d offers, %d buy orders, %d price histories (trades: %d, volume: %d coins)",
-            inventories.size(), offers.size(), buyOrders.size(), priceHistory.size(), totalTradesCompleted, totalVolumeTraded);
+            inventories.size(), offers.size(), buyOrders.size(), priceHistory.size(), totalTradesCompleted.get(), totalVolumeTraded.get());
     }
 }
 
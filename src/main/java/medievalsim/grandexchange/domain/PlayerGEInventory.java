@@ -9,7 +9,9 @@ import necesse.inventory.Inventory;
 import necesse.inventory.InventoryItem;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 /**
  * Per-player Grand Exchange data (enhanced multi-tab system).
@@ -57,6 +59,15 @@ public class PlayerGEInventory {
     private int totalItemsPurchased;
     private int totalItemsSold;
 
+    // ===== SAVE TRACKING =====
+    // Mutators report to the listener (the level data marks the owner's save segment dirty).
+    // The sell inventory is edited in place by an open container, which compares its slots
+    // against the references/amounts captured at the last save (checkSellSlotChanges).
+    private volatile boolean saveDirty = true;
+    private volatile LongConsumer saveDirtyListener;
+    private InventoryItem[] savedSlotItems = new InventoryItem[0];
+    private int[] savedSlotAmounts = new int[0];
+
     /**
      * Create new GE data for player.
      * @param ownerAuth Player authentication ID
@@ -218,10 +229,13 @@ public class PlayerGEInventory {
         BuyOrder[] newArray = new BuyOrder[newSlotCount];
         System.arraycopy(buyOrders, 0, newArray, 0, Math.min(buyOrders.length, newSlotCount));
         buyOrders = newArray;
+        markSaveDirty();
     }
     
     // Collection box accessors
     public List<CollectionItem> getCollectionBox() {
+        // Callers edit the returned list directly (collect/collect-all)
+        markSaveDirty();
         return collectionBox;
     }
     
@@ -231,6 +245,7 @@ public class PlayerGEInventory {
     
     // Sale history accessors
     public List<SaleNotification> getSaleHistory() {
+        markSaveDirty();
         return saleHistory;
     }
     
@@ -446,6 +461,33 @@ public class PlayerGEInventory {
         return item;
     }
 
+    /**
+     * Remove up to quantity of an item from the collection box, wherever it sits
+     * (journal replay, where indices may have shifted).
+     * @return The quantity actually removed
+     */
+    public int removeFromCollectionBox(String itemStringID, int quantity) {
+        int remaining = quantity;
+        Iterator<CollectionItem> iterator = collectionBox.iterator();
+        while (remaining > 0 && iterator.hasNext()) {
+            CollectionItem item = iterator.next();
+            if (!item.getItemStringID().equals(itemStringID)) {
+                continue;
+            }
+            if (item.getQuantity() <= remaining) {
+                remaining -= item.getQuantity();
+                iterator.remove();
+            } else {
+                item.removeQuantity(remaining);
+                remaining = 0;
+            }
+        }
+        if (remaining < quantity) {
+            updateAccessTime();
+        }
+        return quantity - remaining;
+    }
+
     /**
      * Reinsert an item into the collection box at a specific index (used for rollbacks).
      */
@@ -596,6 +638,67 @@ public class PlayerGEInventory {
 
     public void updateAccessTime() {
         lastAccessTime = System.currentTimeMillis();
+        markSaveDirty();
+    }
+
+    /**
+     * Called with the owner auth whenever this inventory is flagged for re-encoding.
+     */
+    public void setSaveDirtyListener(LongConsumer listener) {
+        this.saveDirtyListener = listener;
+    }
+
+    /**
+     * Flag this inventory for re-encoding on the next save.
+     */
+    public void markSaveDirty() {
+        saveDirty = true;
+        LongConsumer listener = saveDirtyListener;
+        if (listener != null) {
+            listener.accept(ownerAuth);
+        }
+    }
+
+    /**
+     * Flag the inventory dirty if the sell slots were edited in place since the last save.
+     * Called by an open GE container, the only thing that edits the slots directly.
+     * @return true if the inventory has unsaved changes
+     */
+    public boolean checkSellSlotChanges() {
+        if (saveDirty) {
+            return true;
+        }
+        if (!sellSlotsMatchSavedState()) {
+            markSaveDirty();
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized boolean sellSlotsMatchSavedState() {
+        int size = sellInventory.getSize();
+        if (size != savedSlotItems.length) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            InventoryItem item = sellInventory.getItem(i);
+            if (item != savedSlotItems[i] || (item != null && item.getAmount() != savedSlotAmounts[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void captureSavedState() {
+        int size = sellInventory.getSize();
+        savedSlotItems = new InventoryItem[size];
+        savedSlotAmounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            InventoryItem item = sellInventory.getItem(i);
+            savedSlotItems[i] = item;
+            savedSlotAmounts[i] = item == null ? 0 : item.getAmount();
+        }
+        saveDirty = false;
     }
     
     // ===== LEGACY COMPATIBILITY =====
@@ -711,6 +814,7 @@ public class PlayerGEInventory {
      * Save GE data to SaveData.
      */
     public void addSaveData(SaveData save) {
+        captureSavedState();
         save.addLong("ownerAuth", ownerAuth);
         
         // Save sell inventory
@@ -836,6 +940,7 @@ public class PlayerGEInventory {
         this.totalBuyOrdersCompleted = save.getInt("totalBuyOrdersCompleted", 0);
         this.totalItemsPurchased = save.getInt("totalItemsPurchased", 0);
         this.totalItemsSold = save.getInt("totalItemsSold", 0);
+        this.saveDirty = true;
 
         ModLogger.debug("Loaded GE data for auth=%d: %d sell slots, %d buy orders, %d collection items, %d notifications",
             ownerAuth, sellInventory.getSize(), getActiveBuyOrderCount(), collectionBox.size(), saleHistory.size());
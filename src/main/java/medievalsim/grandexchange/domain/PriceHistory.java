@@ -0,0 +1,141 @@
+package medievalsim.grandexchange.domain;
+
+/**
+ * Fixed-capacity history of recent sale prices for one item.
+ *
+ * Prices live in a primitive int[] ring buffer. The window sum is maintained on
+ * every record, and min/max come from monotonic deques of sale sequence numbers,
+ * so recording a sale and reading average/min/max are O(1) and allocation-free.
+ *
+ * Thread-safe: synchronized on the history.
+ */
+public class PriceHistory {
+
+    private final int[] prices;
+    private long sum;
+    private long sequence; // Total sales ever recorded; sale N lives in prices[N % capacity]
+
+    // Monotonic deques of sequence numbers (ring buffers over the same capacity)
+    private final long[] minDeque;
+    private int minHead;
+    private int minSize;
+    private final long[] maxDeque;
+    private int maxHead;
+    private int maxSize;
+
+    public PriceHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.prices = new int[capacity];
+        this.minDeque = new long[capacity];
+        this.maxDeque = new long[capacity];
+    }
+
+    /**
+     * Restore a history from saved prices (oldest first). Keeps the newest capacity prices.
+     */
+    public static PriceHistory fromArray(int[] savedPrices, int capacity) {
+        PriceHistory history = new PriceHistory(capacity);
+        if (savedPrices != null) {
+            for (int i = Math.max(0, savedPrices.length - capacity); i < savedPrices.length; i++) {
+                history.record(savedPrices[i]);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Record a sale price, evicting the oldest price once the window is full.
+     */
+    public synchronized void record(int price) {
+        int capacity = prices.length;
+        if (sequence >= capacity) {
+            long evicted = sequence - capacity;
+            sum -= prices[(int) (evicted % capacity)];
+            if (minSize > 0 && minDeque[minHead] == evicted) {
+                minHead = (minHead + 1) % capacity;
+                minSize--;
+            }
+            if (maxSize > 0 && maxDeque[maxHead] == evicted) {
+                maxHead = (maxHead + 1) % capacity;
+                maxSize--;
+            }
+        }
+
+        prices[(int) (sequence % capacity)] = price;
+        sum += price;
+
+        while (minSize > 0 && priceAt(minDeque[(minHead + minSize - 1) % capacity]) >= price) {
+            minSize--;
+        }
+        minDeque[(minHead + minSize) % capacity] = sequence;
+        minSize++;
+
+        while (maxSize > 0 && priceAt(maxDeque[(maxHead + maxSize - 1) % capacity]) <= price) {
+            maxSize--;
+        }
+        maxDeque[(maxHead + maxSize) % capacity] = sequence;
+        maxSize++;
+
+        sequence++;
+    }
+
+    /**
+     * @return Mean of the prices in the window, or 0 if empty
+     */
+    public synchronized int getAverage() {
+        int size = sizeUnsafe();
+        return size == 0 ? 0 : (int) (sum / size);
+    }
+
+    /**
+     * @return Lowest price in the window, or 0 if empty
+     */
+    public synchronized int getMin() {
+        return minSize == 0 ? 0 : priceAt(minDeque[minHead]);
+    }
+
+    /**
+     * @return Highest price in the window, or 0 if empty
+     */
+    public synchronized int getMax() {
+        return maxSize == 0 ? 0 : priceAt(maxDeque[maxHead]);
+    }
+
+    public synchronized int size() {
+        return sizeUnsafe();
+    }
+
+    public int getCapacity() {
+        return prices.length;
+    }
+
+    /**
+     * @return Prices in the window, oldest first (used for saving)
+     */
+    public synchronized int[] toArray() {
+        int size = sizeUnsafe();
+        int[] result = new int[size];
+        long first = sequence - size;
+        for (int i = 0; i < size; i++) {
+            result[i] = priceAt(first + i);
+        }
+        return result;
+    }
+
+    /**
+     * @return This history if it already has the given capacity, otherwise a copy resized to it
+     */
+    public PriceHistory withCapacity(int capacity) {
+        return capacity == prices.length ? this : fromArray(toArray(), capacity);
+    }
+
+    private int sizeUnsafe() {
+        return (int) Math.min(sequence, prices.length);
+    }
+
+    private int priceAt(long saleSequence) {
+        return prices[(int) (saleSequence % prices.length)];
+    }
+}
@@ -0,0 +1,537 @@
+package medievalsim.grandexchange.repository;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import medievalsim.util.ModLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary write-ahead journal of Grand Exchange changes between world saves.
+ *
+ * Records are buffered in memory and written with one FileChannel write (and optional
+ * fsync) per commit, so a burst of trades costs one disk flush (group commit). A crash
+ * loses at most the records of the current commit window.
+ *
+ * Segments: each world save starts a new segment ({journalID}-{epoch}-{token}-{previous}.wal)
+ * under a fresh random token, and the saved snapshot records that token. Every segment
+ * names the token of the segment it follows, so the segments written after a snapshot
+ * form a chain. On load only that chain is replayed: it must start with the snapshot's
+ * own segment and each link must have exactly one successor. Segments of another
+ * timeline (a restored backup, a copied world sharing this journalID) never match, so
+ * their non-idempotent coin and collection deltas are not applied twice. Segments of
+ * this chain older than the previous one are deleted on rotation (the previous one is
+ * kept in case the save that superseded it never reached disk).
+ *
+ * Record framing: [int payloadLength][int crc32(payload)][payload], payload starts with
+ * the record type. A torn or corrupt record ends replay of that segment.
+ *
+ * Record kinds:
+ * - Offer / buy order images: full post-change state, replayed as upserts
+ * - Coins: escrow and bank deltas caused by the GE (the bank snapshot is saved with ours)
+ * - Collection adds: items delivered to a collection box
+ * - Collection removals: items collected to the player or deposited into the bank
+ *
+ * Thread-safe: appends synchronize on the journal; commits are serialized separately
+ * so appends are never blocked by disk I/O.
+ */
+public class GEJournal {
+
+    static final byte RECORD_OFFER = 1;
+    static final byte RECORD_OFFER_REMOVED = 2;
+    static final byte RECORD_BUY_ORDER = 3;
+    static final byte RECORD_BUY_ORDER_REMOVED = 4;
+    static final byte RECORD_COINS = 5;
+    static final byte RECORD_COLLECTION_ADD = 6;
+    static final byte RECORD_COLLECTION_REMOVE = 7;
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final Path directory;
+    private final long journalID;
+    private final boolean fsync;
+
+    // Pending (uncommitted) records, guarded by this
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private int pendingRecords;
+
+    // Open segment, guarded by commitLock
+    private final Object commitLock = new Object();
+    private FileChannel channel;
+    private int epoch = -1;
+    private long token = 0L;
+    private final Deque<Path> chainSegments = new ArrayDeque<>(); // This timeline's segments, oldest first
+
+    // Statistics
+    private long committedRecords;
+    private long commitCount;
+    private long bytesWritten;
+
+    /**
+     * @param fsync Force each commit to disk (otherwise the OS decides when to flush)
+     */
+    public GEJournal(Path directory, long journalID, boolean fsync) {
+        this.directory = directory;
+        this.journalID = journalID;
+        this.fsync = fsync;
+    }
+
+    // ===== APPEND =====
+
+    public void appendOffer(GEOffer offer) {
+        append(RECORD_OFFER, out -> offer.writeJournalImage(out));
+    }
+
+    public void appendOfferRemoved(long offerID) {
+        append(RECORD_OFFER_REMOVED, out -> out.writeLong(offerID));
+    }
+
+    public void appendBuyOrder(BuyOrder order) {
+        append(RECORD_BUY_ORDER, out -> order.writeJournalImage(out));
+    }
+
+    public void appendBuyOrderRemoved(long orderID) {
+        append(RECORD_BUY_ORDER_REMOVED, out -> out.writeLong(orderID));
+    }
+
+    /**
+     * Record coins moved by the GE for one player.
+     * @param escrowDelta Change to coins held in GE escrow
+     * @param bankDelta Change to the player's bank coins
+     */
+    public void appendCoins(long playerAuth, int escrowDelta, long bankDelta) {
+        append(RECORD_COINS, out -> {
+            out.writeLong(playerAuth);
+            out.writeInt(escrowDelta);
+            out.writeLong(bankDelta);
+        });
+    }
+
+    public void appendCollectionAdd(long playerAuth, String itemStringID, int quantity, String source) {
+        append(RECORD_COLLECTION_ADD, out -> {
+            out.writeLong(playerAuth);
+            out.writeUTF(itemStringID);
+            out.writeInt(quantity);
+            out.writeUTF(source == null ? "" : source);
+        });
+    }
+
+    /**
+     * Record items taken out of a collection box.
+     * @param toBank true if they were deposited into the player's bank (replay re-deposits them)
+     */
+    public void appendCollectionRemove(long playerAuth, String itemStringID, int quantity, boolean toBank) {
+        append(RECORD_COLLECTION_REMOVE, out -> {
+            out.writeLong(playerAuth);
+            out.writeUTF(itemStringID);
+            out.writeInt(quantity);
+            out.writeBoolean(toBank);
+        });
+    }
+
+    private synchronized void append(byte type, RecordBody body) {
+        try {
+            record.reset();
+            recordOut.writeByte(type);
+            body.write(recordOut);
+            recordOut.flush();
+
+            crc.reset();
+            crc.update(record.toByteArray(), 0, record.size());
+            pendingOut.writeInt(record.size());
+            pendingOut.writeInt((int) crc.getValue());
+            record.writeTo(pendingOut);
+            pendingRecords++;
+        } catch (IOException e) {
+            ModLogger.error("Failed to encode GE journal record type=%d: %s", type, e.getMessage());
+        }
+    }
+
+    // ===== COMMIT / SEGMENTS =====
+
+    /**
+     * Open a new segment that continues the chain after previousToken.
+     * @param token Fresh random token for this segment (never 0)
+     * @param previousToken Token of the segment this one follows, or 0 to start a chain
+     * @return false if the file could not be opened; appends then stay in memory
+     */
+    public boolean open(int epoch, long token, long previousToken) {
+        synchronized (commitLock) {
+            closeChannel();
+            Path path = segmentPath(epoch, token, previousToken);
+            try {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                this.epoch = epoch;
+                this.token = token;
+                chainSegments.addLast(path);
+                return true;
+            } catch (IOException e) {
+                ModLogger.error("Failed to open GE journal segment %s: %s", path, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Write every pending record with a single channel write, then fsync if enabled.
+     * @return Number of records committed
+     */
+    public int commit() {
+        synchronized (commitLock) {
+            byte[] batch;
+            int records;
+            synchronized (this) {
+                if (pendingRecords == 0 || channel == null) {
+                    return 0;
+                }
+                batch = pending.toByteArray();
+                records = pendingRecords;
+                pending.reset();
+                pendingRecords = 0;
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+                committedRecords += records;
+                commitCount++;
+                bytesWritten += batch.length;
+                return records;
+            } catch (IOException e) {
+                ModLogger.error("Failed to commit %d GE journal records: %s", records, e.getMessage());
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Compaction point: the caller has just snapshotted all GE state and holds off
+     * every mutation until this returns.
+     * Commits what is pending into the current segment, starts a segment for newToken
+     * after it and deletes this chain's segments older than the one being closed.
+     */
+    public boolean rotate(int newEpoch, long newToken) {
+        synchronized (commitLock) {
+            commit();
+            if (!open(newEpoch, newToken, token)) {
+                return false;
+            }
+            while (chainSegments.size() > 2) {
+                Path old = chainSegments.removeFirst();
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    ModLogger.warn("Failed to delete GE journal segment %s: %s", old, e.getMessage());
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Commit pending records and close the segment.
+     */
+    public void close() {
+        synchronized (commitLock) {
+            commit();
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            ModLogger.warn("Failed to close GE journal segment: %s", e.getMessage());
+        }
+        channel = null;
+    }
+
+    // ===== REPLAY =====
+
+    /**
+     * Replay the chain that starts with the segment written under fromToken, oldest first.
+     * Nothing is replayed if that segment does not exist, and the chain stops (with a
+     * warning) where a segment has more than one successor.
+     */
+    public ReplayResult replay(long fromToken, Replayer replayer) {
+        int segments = 0;
+        int records = 0;
+        int failed = 0;
+        int lastEpoch = -1;
+        long lastToken = fromToken;
+
+        List<SegmentFile> files = listSegments();
+        SegmentFile current = null;
+        for (SegmentFile file : files) {
+            if (file.token == fromToken) {
+                current = file;
+                break;
+            }
+        }
+
+        while (current != null) {
+            byte[] data;
+            try {
+                data = Files.readAllBytes(current.path);
+            } catch (IOException e) {
+                ModLogger.error("Failed to read GE journal segment %s: %s", current.path, e.getMessage());
+                break;
+            }
+            segments++;
+            lastEpoch = current.epoch;
+            lastToken = current.token;
+            synchronized (commitLock) {
+                chainSegments.addLast(current.path);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int expectedCrc = buffer.getInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH || length > buffer.remaining()) {
+                    ModLogger.warn("GE journal segment %d ends with a torn record, ignoring the tail", current.epoch);
+                    break;
+                }
+                crc.reset();
+                crc.update(data, buffer.position(), length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    ModLogger.warn("GE journal segment %d has a corrupt record, ignoring the tail", current.epoch);
+                    break;
+                }
+                DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(data, buffer.position(), length));
+                buffer.position(buffer.position() + length);
+                try {
+                    dispatch(in, replayer);
+                    records++;
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                    ModLogger.error("Failed to replay GE journal record: %s", e.getMessage());
+                }
+            }
+
+            SegmentFile next = null;
+            for (SegmentFile file : files) {
+                if (file.previousToken != current.token) {
+                    continue;
+                }
+                if (next != null) {
+                    ModLogger.warn("GE journal segment %d is followed by more than one timeline, not replaying past it",
+                        current.epoch);
+                    next = null;
+                    break;
+                }
+                next = file;
+            }
+            current = next;
+        }
+        return new ReplayResult(segments, records, failed, lastEpoch, lastToken);
+    }
+
+    private static void dispatch(DataInputStream in, Replayer replayer) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case RECORD_OFFER:
+                replayer.onOffer(GEOffer.readJournalImage(in));
+                break;
+            case RECORD_OFFER_REMOVED:
+                replayer.onOfferRemoved(in.readLong());
+                break;
+            case RECORD_BUY_ORDER:
+                replayer.onBuyOrder(BuyOrder.readJournalImage(in));
+                break;
+            case RECORD_BUY_ORDER_REMOVED:
+                replayer.onBuyOrderRemoved(in.readLong());
+                break;
+            case RECORD_COINS:
+                replayer.onCoins(in.readLong(), in.readInt(), in.readLong());
+                break;
+            case RECORD_COLLECTION_ADD:
+                replayer.onCollectionAdd(in.readLong(), in.readUTF(), in.readInt(), in.readUTF());
+                break;
+            case RECORD_COLLECTION_REMOVE:
+                replayer.onCollectionRemove(in.readLong(), in.readUTF(), in.readInt(), in.readBoolean());
+                break;
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    private List<SegmentFile> listSegments() {
+        List<SegmentFile> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        String prefix = segmentPrefix();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String[] parts = name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length()).split("-");
+                try {
+                    if (parts.length != 3) {
+                        throw new NumberFormatException(name);
+                    }
+                    segments.add(new SegmentFile(path, Integer.parseInt(parts[0]),
+                        Long.parseUnsignedLong(parts[1], 16), Long.parseUnsignedLong(parts[2], 16)));
+                } catch (NumberFormatException e) {
+                    ModLogger.warn("Ignoring unexpected GE journal file %s", name);
+                }
+            }
+        } catch (IOException e) {
+            ModLogger.error("Failed to list GE journal segments in %s: %s", directory, e.getMessage());
+        }
+        segments.sort(Comparator.comparingInt(segment -> segment.epoch));
+        return segments;
+    }
+
+    private String segmentPrefix() {
+        return String.format("%016x-", journalID);
+    }
+
+    Path segmentPath(int epoch, long token, long previousToken) {
+        return directory.resolve(String.format("%s%d-%016x-%016x%s",
+            segmentPrefix(), epoch, token, previousToken, SEGMENT_SUFFIX));
+    }
+
+    // ===== STATISTICS =====
+
+    public int getEpoch() {
+        synchronized (commitLock) {
+            return epoch;
+        }
+    }
+
+    /**
+     * @return Token of the open segment (what a snapshot taken now must record)
+     */
+    public long getToken() {
+        synchronized (commitLock) {
+            return token;
+        }
+    }
+
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public long getCommittedRecords() {
+        synchronized (commitLock) {
+            return committedRecords;
+        }
+    }
+
+    public long getCommitCount() {
+        synchronized (commitLock) {
+            return commitCount;
+        }
+    }
+
+    public long getBytesWritten() {
+        synchronized (commitLock) {
+            return bytesWritten;
+        }
+    }
+
+    // ===== NESTED TYPES =====
+
+    @FunctionalInterface
+    private interface RecordBody {
+        void write(DataOutput out) throws IOException;
+    }
+
+    /**
+     * Applies replayed records to live state.
+     */
+    public interface Replayer {
+        void onOffer(GEOffer offer);
+
+        void onOfferRemoved(long offerID);
+
+        void onBuyOrder(BuyOrder order);
+
+        void onBuyOrderRemoved(long orderID);
+
+        void onCoins(long playerAuth, int escrowDelta, long bankDelta);
+
+        void onCollectionAdd(long playerAuth, String itemStringID, int quantity, String source);
+
+        void onCollectionRemove(long playerAuth, String itemStringID, int quantity, boolean toBank);
+    }
+
+    private static final class SegmentFile {
+        final Path path;
+        final int epoch;
+        final long token;
+        final long previousToken;
+
+        SegmentFile(Path path, int epoch, long token, long previousToken) {
+            this.path = path;
+            this.epoch = epoch;
+            this.token = token;
+            this.previousToken = previousToken;
+        }
+    }
+
+    public static final class ReplayResult {
+        private final int segments;
+        private final int records;
+        private final int failedRecords;
+        private final int lastEpoch;
+        private final long lastToken;
+
+        ReplayResult(int segments, int records, int failedRecords, int lastEpoch, long lastToken) {
+            this.segments = segments;
+            this.records = records;
+            this.failedRecords = failedRecords;
+            this.lastEpoch = lastEpoch;
+            this.lastToken = lastToken;
+        }
+
+        public int getSegments() { return segments; }
+        public int getRecords() { return records; }
+        public int getFailedRecords() { return failedRecords; }
+
+        /**
+         * @return Highest epoch replayed, or -1 if no segment was found
+         */
+        public int getLastEpoch() { return lastEpoch; }
+
+        /**
+         * @return Token of the last segment replayed (the token replay started from if none was found)
+         */
+        public long getLastToken() { return lastToken; }
+    }
+}
@@ -0,0 +1,329 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.util.ModLogger;
+import necesse.engine.save.LoadData;
+import necesse.engine.save.SaveData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OHLCV candle aggregation for every traded item.
+ *
+ * Each trade is folded into the current 1-minute, 1-hour and 1-day candle of its item,
+ * so charts and trend queries read pre-aggregated data instead of replaying trades.
+ *
+ * Storage:
+ * - Per item and resolution, a ring of candles in parallel primitive arrays
+ *   (bucket index, open, high, low, close, volume, trade count)
+ * - Rings start small and grow up to the resolution's retention, so rarely traded
+ *   items stay cheap
+ * - Intervals without trades have no candle (series are sparse)
+ * - Retention is a time window: a series keeps the candles of the last retention
+ *   intervals up to its newest candle, and older ones are dropped as trades arrive
+ *
+ * Thread-safe: each item's candles are synchronized on their holder.
+ */
+public class CandleAggregator {
+
+    /**
+     * Candle interval and how many intervals of history are kept.
+     */
+    public enum Resolution {
+        MINUTE(60_000L, 180),           // 3 hours
+        HOUR(60 * 60_000L, 168),        // 7 days
+        DAY(24 * 60 * 60_000L, 365);    // 1 year
+
+        private final long intervalMs;
+        private final int retention;
+
+        Resolution(long intervalMs, int retention) {
+            this.intervalMs = intervalMs;
+            this.retention = retention;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public int getRetention() {
+            return retention;
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Map<String, ItemCandles> candlesByItem = new ConcurrentHashMap<>();
+
+    /**
+     * Fold a trade into the item's candles.
+     */
+    public void recordTrade(String itemID, int pricePerItem, int quantity, long timestamp) {
+        ItemCandles item = candlesByItem.computeIfAbsent(itemID, k -> new ItemCandles());
+        synchronized (item) {
+            for (CandleSeries series : item.series) {
+                series.record(pricePerItem, quantity, timestamp);
+            }
+        }
+    }
+
+    /**
+     * @return Up to limit most recent candles of the item, oldest first
+     */
+    public List<Candle> getCandles(String itemID, Resolution resolution, int limit) {
+        ItemCandles item = candlesByItem.get(itemID);
+        if (item == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        synchronized (item) {
+            return item.series[resolution.ordinal()].toList(limit);
+        }
+    }
+
+    /**
+     * @return The candle covering the given time, or null if the item had no trades in it
+     */
+    public Candle getCandleAt(String itemID, Resolution resolution, long timestamp) {
+        ItemCandles item = candlesByItem.get(itemID);
+        if (item == null) {
+            return null;
+        }
+        synchronized (item) {
+            CandleSeries series = item.series[resolution.ordinal()];
+            int slot = series.find(Math.floorDiv(timestamp, resolution.intervalMs));
+            return slot < 0 ? null : series.candle(slot);
+        }
+    }
+
+    public int getTrackedItemCount() {
+        return candlesByItem.size();
+    }
+
+    // ===== PERSISTENCE =====
+
+    /**
+     * Save all candles: one ITEM per item with one child per resolution holding its columns.
+     */
+    public void addSaveData(SaveData save) {
+        for (Map.Entry<String, ItemCandles> entry : candlesByItem.entrySet()) {
+            SaveData itemSave = new SaveData("ITEM");
+            itemSave.addUnsafeString("itemID", entry.getKey());
+            ItemCandles item = entry.getValue();
+            synchronized (item) {
+                for (Resolution resolution : RESOLUTIONS) {
+                    SaveData seriesSave = new SaveData(resolution.name());
+                    item.series[resolution.ordinal()].addSaveData(seriesSave);
+                    itemSave.addSaveData(seriesSave);
+                }
+            }
+            save.addSaveData(itemSave);
+        }
+    }
+
+    public void applyLoadData(LoadData save) {
+        candlesByItem.clear();
+        for (LoadData itemLoad : save.getLoadDataByName("ITEM")) {
+            String itemID = itemLoad.getUnsafeString("itemID", null);
+            if (itemID == null) {
+                continue;
+            }
+            ItemCandles item = new ItemCandles();
+            for (Resolution resolution : RESOLUTIONS) {
+                LoadData seriesLoad = itemLoad.getFirstLoadDataByName(resolution.name());
+                if (seriesLoad != null) {
+                    item.series[resolution.ordinal()].applyLoadData(seriesLoad);
+                }
+            }
+            candlesByItem.put(itemID, item);
+        }
+        ModLogger.debug("Loaded candles for %d items", candlesByItem.size());
+    }
+
+    // ===== NESTED TYPES =====
+
+    /**
+     * One aggregated interval.
+     */
+    public record Candle(long startTime, int open, int high, int low, int close, long volume, int tradeCount) {
+    }
+
+    private static final class ItemCandles {
+        final CandleSeries[] series = new CandleSeries[RESOLUTIONS.length];
+
+        ItemCandles() {
+            for (Resolution resolution : RESOLUTIONS) {
+                series[resolution.ordinal()] = new CandleSeries(resolution);
+            }
+        }
+    }
+
+    /**
+     * Ring of candles for one resolution, newest at (head + size - 1).
+     */
+    private static final class CandleSeries {
+        private final Resolution resolution;
+        private long[] buckets = new long[INITIAL_CAPACITY];
+        private int[] opens = new int[INITIAL_CAPACITY];
+        private int[] highs = new int[INITIAL_CAPACITY];
+        private int[] lows = new int[INITIAL_CAPACITY];
+        private int[] closes = new int[INITIAL_CAPACITY];
+        private long[] volumes = new long[INITIAL_CAPACITY];
+        private int[] tradeCounts = new int[INITIAL_CAPACITY];
+        private int head;
+        private int size;
+
+        CandleSeries(Resolution resolution) {
+            this.resolution = resolution;
+        }
+
+        void record(int price, int quantity, long timestamp) {
+            long bucket = Math.floorDiv(timestamp, resolution.intervalMs);
+            int slot;
+            if (size > 0 && bucket == buckets[slotOf(size - 1)]) {
+                slot = slotOf(size - 1);
+                closes[slot] = price;
+            } else if (size == 0 || bucket > buckets[slotOf(size - 1)]) {
+                slot = append(bucket);
+                opens[slot] = price;
+                highs[slot] = price;
+                lows[slot] = price;
+                closes[slot] = price;
+            } else {
+                // Late trade (clock moved back): fold into its candle if still retained
+                slot = find(bucket);
+                if (slot < 0) {
+                    return;
+                }
+            }
+            highs[slot] = Math.max(highs[slot], price);
+            lows[slot] = Math.min(lows[slot], price);
+            volumes[slot] += quantity;
+            tradeCounts[slot]++;
+        }
+
+        private int append(long bucket) {
+            // Drop candles that fall out of the window ending at the new bucket, so
+            // at most retention - 1 remain and the ring never exceeds retention
+            long oldestKept = bucket - resolution.retention + 1;
+            while (size > 0 && buckets[head] < oldestKept) {
+                head = (head + 1) % buckets.length;
+                size--;
+            }
+            if (size == buckets.length) {
+                grow(Math.min(resolution.retention, buckets.length * 2));
+            }
+            int slot = slotOf(size);
+            size++;
+            buckets[slot] = bucket;
+            volumes[slot] = 0;
+            tradeCounts[slot] = 0;
+            return slot;
+        }
+
+        private void grow(int capacity) {
+            buckets = unrollLong(buckets, capacity);
+            opens = unrollInt(opens, capacity);
+            highs = unrollInt(highs, capacity);
+            lows = unrollInt(lows, capacity);
+            closes = unrollInt(closes, capacity);
+            volumes = unrollLong(volumes, capacity);
+            tradeCounts = unrollInt(tradeCounts, capacity);
+            head = 0;
+        }
+
+        private long[] unrollLong(long[] column, int capacity) {
+            long[] result = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                result[i] = column[(head + i) % column.length];
+            }
+            return result;
+        }
+
+        private int[] unrollInt(int[] column, int capacity) {
+            int[] result = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                result[i] = column[(head + i) % column.length];
+            }
+            return result;
+        }
+
+        private int slotOf(int index) {
+            return (head + index) % buckets.length;
+        }
+
+        int find(long bucket) {
+            for (int i = size - 1; i >= 0; i--) {
+                int slot = slotOf(i);
+                if (buckets[slot] == bucket) {
+                    return slot;
+                }
+                if (buckets[slot] < bucket) {
+                    break;
+                }
+            }
+            return -1;
+        }
+
+        Candle candle(int slot) {
+            return new Candle(buckets[slot] * resolution.intervalMs, opens[slot], highs[slot], lows[slot],
+                closes[slot], volumes[slot], tradeCounts[slot]);
+        }
+
+        List<Candle> toList(int limit) {
+            int count = Math.min(limit, size);
+            List<Candle> candles = new ArrayList<>(count);
+            for (int i = size - count; i < size; i++) {
+                candles.add(candle(slotOf(i)));
+            }
+            return candles;
+        }
+
+        void addSaveData(SaveData save) {
+            save.addLongArray("bucket", unrollLong(buckets, size));
+            save.addIntArray("open", unrollInt(opens, size));
+            save.addIntArray("high", unrollInt(highs, size));
+            save.addIntArray("low", unrollInt(lows, size));
+            save.addIntArray("close", unrollInt(closes, size));
+            save.addLongArray("volume", unrollLong(volumes, size));
+            save.addIntArray("trades", unrollInt(tradeCounts, size));
+        }
+
+        void applyLoadData(LoadData save) {
+            long[] savedBuckets = save.getLongArray("bucket", new long[0]);
+            int[] savedOpens = save.getIntArray("open", new int[0]);
+            int[] savedHighs = save.getIntArray("high", new int[0]);
+            int[] savedLows = save.getIntArray("low", new int[0]);
+            int[] savedCloses = save.getIntArray("close", new int[0]);
+            long[] savedVolumes = save.getLongArray("volume", new long[0]);
+            int[] savedTrades = save.getIntArray("trades", new int[0]);
+            int count = Math.min(savedBuckets.length, Math.min(savedOpens.length, Math.min(savedHighs.length,
+                Math.min(savedLows.length, Math.min(savedCloses.length,
+                Math.min(savedVolumes.length, savedTrades.length))))));
+
+            // Keep the candles within the retention window of the newest one
+            int start = 0;
+            if (count > 0) {
+                long oldestKept = savedBuckets[count - 1] - resolution.retention + 1;
+                while (start < count && savedBuckets[start] < oldestKept) {
+                    start++;
+                }
+            }
+            int kept = count - start;
+            int capacity = Math.max(INITIAL_CAPACITY, kept);
+            buckets = Arrays.copyOf(Arrays.copyOfRange(savedBuckets, start, count), capacity);
+            opens = Arrays.copyOf(Arrays.copyOfRange(savedOpens, start, count), capacity);
+            highs = Arrays.copyOf(Arrays.copyOfRange(savedHighs, start, count), capacity);
+            lows = Arrays.copyOf(Arrays.copyOfRange(savedLows, start, count), capacity);
+            closes = Arrays.copyOf(Arrays.copyOfRange(savedCloses, start, count), capacity);
+            volumes = Arrays.copyOf(Arrays.copyOfRange(savedVolumes, start, count), capacity);
+            tradeCounts = Arrays.copyOf(Arrays.copyOfRange(savedTrades, start, count), capacity);
+            head = 0;
+            size = kept;
+        }
+    }
+}
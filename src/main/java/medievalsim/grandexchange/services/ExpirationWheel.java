@@ -0,0 +1,217 @@
+package medievalsim.grandexchange.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for offer and buy order expiration.
+ *
+ * Deadlines are rounded up to whole ticks of tickMs and kept in LEVELS wheels of
+ * SLOTS buckets each; level L covers SLOTS^(L+1) ticks. Entries are moved down a
+ * level only when their bucket comes up, so schedule/cancel are O(1) and advance()
+ * is O(1) amortised per entry instead of scanning every offer.
+ *
+ * With the default 1 second tick the wheel spans about 194 days; later deadlines
+ * are parked in the last bucket of the top level and re-filed when it comes up.
+ * Entries never fire early, and fire at most one tick late.
+ *
+ * Thread-safe (synchronized). advance() returns the due keys instead of calling
+ * back, so callers can take item/player locks without holding the wheel's monitor.
+ */
+public class ExpirationWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final List<Node<K>> buckets; // LEVELS * SLOTS sentinels, level-major
+    private final Node<K> overdue = Node.sentinel(); // Scheduled behind currentTick
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private long currentTick; // Next tick to process; everything before it has fired
+
+    public ExpirationWheel(long tickMs, long nowMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive: " + tickMs);
+        }
+        this.tickMs = tickMs;
+        this.buckets = new ArrayList<>(LEVELS * SLOTS);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            buckets.add(Node.sentinel());
+        }
+        this.currentTick = nowMs / tickMs;
+    }
+
+    /**
+     * Schedule key to expire at deadlineMs, replacing any previous deadline.
+     * Deadlines in the past fire on the next advance().
+     */
+    public synchronized void schedule(K key, long deadlineMs) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            node.unlink();
+        }
+        node.deadlineTick = Math.floorDiv(deadlineMs + tickMs - 1, tickMs);
+        if (node.deadlineTick < currentTick) {
+            overdue.append(node);
+        } else {
+            insert(node);
+        }
+    }
+
+    /**
+     * @return true if key was scheduled
+     */
+    public synchronized boolean cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        node.unlink();
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return nodes.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    public synchronized void clear() {
+        for (Node<K> node : nodes.values()) {
+            node.unlink();
+        }
+        nodes.clear();
+    }
+
+    /**
+     * Process every tick up to nowMs and remove the keys that became due.
+     * @return Due keys, earliest deadlines first (empty if none)
+     */
+    public synchronized List<K> advance(long nowMs) {
+        if (nodes.isEmpty()) {
+            currentTick = Math.max(currentTick, nowMs / tickMs + 1);
+            return List.of();
+        }
+
+        List<K> due = new ArrayList<>();
+        while (overdue.next != overdue) {
+            Node<K> node = overdue.next;
+            node.unlink();
+            nodes.remove(node.key);
+            due.add(node.key);
+        }
+
+        long targetTick = nowMs / tickMs;
+        while (currentTick <= targetTick) {
+            // Find the highest level whose bucket boundary this tick crosses, then
+            // cascade from there down so re-filed entries land in buckets not yet processed
+            int top = 0;
+            while (top + 1 < LEVELS && (currentTick & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            for (int level = top; level >= 1; level--) {
+                cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+            }
+
+            Node<K> head = bucket(0, (int) (currentTick & SLOT_MASK));
+            while (head.next != head) {
+                Node<K> node = head.next;
+                node.unlink();
+                if (node.deadlineTick <= currentTick) {
+                    nodes.remove(node.key);
+                    due.add(node.key);
+                } else {
+                    insert(node);
+                }
+            }
+            currentTick++;
+            if (nodes.isEmpty()) {
+                currentTick = targetTick + 1;
+            }
+        }
+        return due;
+    }
+
+    private void cascade(int level, int slot) {
+        Node<K> head = bucket(level, slot);
+        if (head.next == head) {
+            return;
+        }
+        // Detach the whole bucket first: re-filed entries may land back in it
+        Node<K> first = head.next;
+        Node<K> last = head.prev;
+        head.next = head;
+        head.prev = head;
+        last.next = null;
+        for (Node<K> node = first; node != null; ) {
+            Node<K> next = node.next;
+            node.prev = null;
+            node.next = null;
+            insert(node);
+            node = next;
+        }
+    }
+
+    private void insert(Node<K> node) {
+        long deadline = Math.max(node.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < (1L << (SLOT_BITS * (level + 1)))) {
+                int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+                bucket(level, slot).append(node);
+                return;
+            }
+        }
+        // Beyond the wheel's span: park in the top bucket that comes up last
+        int topShift = SLOT_BITS * (LEVELS - 1);
+        int slot = (int) (((currentTick >>> topShift) - 1) & SLOT_MASK);
+        bucket(LEVELS - 1, slot).append(node);
+    }
+
+    private Node<K> bucket(int level, int slot) {
+        return buckets.get(level * SLOTS + slot);
+    }
+
+    private static final class Node<K> {
+        final K key;
+        long deadlineTick;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+
+        static <K> Node<K> sentinel() {
+            Node<K> head = new Node<>(null);
+            head.prev = head;
+            head.next = head;
+            return head;
+        }
+
+        void append(Node<K> node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+
+        void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.config.ModConfig;
+import medievalsim.grandexchange.services.TradeAuditLog.AuditEntry;
+import medievalsim.util.ModLogger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Online fraud detection for Grand Exchange trades.
+ *
+ * Fed one trade at a time from TradeAuditLog.logTrade; every check is O(1):
+ * - Price outliers: per-item exponentially weighted mean/variance of the trade price;
+ *   a trade further than priceOutlierThreshold standard deviations from the mean is flagged
+ * - Self-trading: buyer == seller
+ * - Wash trading: per player-pair counters of trades in each direction inside a time window;
+ *   repeated round trips between the same two players are flagged once per window
+ *
+ * Alerts go into a bounded queue (oldest dropped) that admins read with /gefraudalerts.
+ *
+ * Thread-safe: synchronized on the detector.
+ */
+public class FraudDetector {
+
+    public enum AlertType {
+        PRICE_OUTLIER,
+        SELF_TRADE,
+        WASH_TRADING
+    }
+
+    // Samples an item needs before its average is trusted for outlier checks
+    private static final int MIN_SAMPLES = 10;
+    // Ignore deviations under this fraction of the mean (stable prices have ~0 variance)
+    private static final double MIN_RELATIVE_DEVIATION = 0.25;
+    private static final int MAX_TRACKED_PAIRS = 4096;
+
+    private final Map<String, PriceStats> itemStats = new HashMap<>();
+    private final Map<PairKey, PairStats> pairStats;
+    private final ArrayDeque<Alert> alerts = new ArrayDeque<>();
+    private long totalAlerts = 0;
+
+    public FraudDetector() {
+        this.pairStats = new LinkedHashMap<PairKey, PairStats>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PairKey, PairStats> eldest) {
+                return size() > MAX_TRACKED_PAIRS;
+            }
+        };
+    }
+
+    /**
+     * Check a trade and fold it into the rolling statistics.
+     * @param raiseAlerts false to only warm up the statistics (e.g. while loading saved trades)
+     */
+    public synchronized void onTrade(AuditEntry trade, boolean raiseAlerts) {
+        if (trade.getBuyerAuth() == trade.getSellerAuth()) {
+            if (raiseAlerts) {
+                raise(AlertType.SELF_TRADE, trade, "Buyer and seller are the same player");
+            }
+        } else {
+            checkWashTrading(trade, raiseAlerts);
+        }
+        checkPrice(trade, raiseAlerts);
+    }
+
+    private void checkPrice(AuditEntry trade, boolean raiseAlerts) {
+        PriceStats stats = itemStats.computeIfAbsent(trade.getItemStringID(), k -> new PriceStats());
+        double price = trade.getPricePerItem();
+
+        if (stats.samples == 0) {
+            stats.mean = price;
+            stats.samples = 1;
+            return;
+        }
+
+        double diff = price - stats.mean;
+        if (raiseAlerts && stats.samples >= MIN_SAMPLES) {
+            double stdDev = Math.sqrt(stats.variance);
+            double threshold = Math.max(ModConfig.GrandExchange.priceOutlierThreshold * stdDev,
+                MIN_RELATIVE_DEVIATION * stats.mean);
+            if (Math.abs(diff) > threshold) {
+                raise(AlertType.PRICE_OUTLIER, trade, String.format("Price %d vs average %.0f (stddev %.1f)",
+                    trade.getPricePerItem(), stats.mean, stdDev));
+            }
+        }
+
+        // Incremental exponentially weighted mean/variance update
+        double alpha = ModConfig.GrandExchange.fraudEwmaAlpha;
+        double increment = alpha * diff;
+        stats.mean += increment;
+        stats.variance = (1 - alpha) * (stats.variance + diff * increment);
+        stats.samples++;
+    }
+
+    private void checkWashTrading(AuditEntry trade, boolean raiseAlerts) {
+        long seller = trade.getSellerAuth();
+        long buyer = trade.getBuyerAuth();
+        PairKey key = new PairKey(Math.min(seller, buyer), Math.max(seller, buyer));
+        PairStats stats = pairStats.computeIfAbsent(key, k -> new PairStats(trade.getTimestamp()));
+
+        long window = ModConfig.GrandExchange.washTradeWindowSeconds * 1000L;
+        if (trade.getTimestamp() - stats.windowStart > window) {
+            stats.windowStart = trade.getTimestamp();
+            stats.lowToHigh = 0;
+            stats.highToLow = 0;
+            stats.alerted = false;
+        }
+        if (seller == key.low()) {
+            stats.lowToHigh++;
+        } else {
+            stats.highToLow++;
+        }
+
+        int threshold = ModConfig.GrandExchange.washTradeThreshold;
+        if (raiseAlerts && !stats.alerted && stats.lowToHigh >= threshold && stats.highToLow >= threshold) {
+            stats.alerted = true;
+            raise(AlertType.WASH_TRADING, trade, String.format("%d/%d trades each way between auth=%d and auth=%d",
+                stats.lowToHigh, stats.highToLow, key.low(), key.high()));
+        }
+    }
+
+    private void raise(AlertType type, AuditEntry trade, String detail) {
+        alerts.addLast(new Alert(type, trade, detail));
+        while (alerts.size() > ModConfig.GrandExchange.fraudAlertQueueSize) {
+            alerts.removeFirst();
+        }
+        totalAlerts++;
+        ModLogger.warn("GE fraud alert %s: %s (%s)", type, detail, trade);
+    }
+
+    /**
+     * @return Up to limit most recent alerts, newest first
+     */
+    public synchronized List<Alert> getRecentAlerts(int limit) {
+        List<Alert> result = new ArrayList<>(Math.min(Math.max(0, limit), alerts.size()));
+        Iterator<Alert> it = alerts.descendingIterator();
+        while (it.hasNext() && result.size() < limit) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    public synchronized int getAlertCount() {
+        return alerts.size();
+    }
+
+    public synchronized long getTotalAlerts() {
+        return totalAlerts;
+    }
+
+    public synchronized void clearAlerts() {
+        alerts.clear();
+    }
+
+    /**
+     * Forget all statistics and alerts.
+     */
+    public synchronized void reset() {
+        itemStats.clear();
+        pairStats.clear();
+        alerts.clear();
+    }
+
+    // ===== NESTED TYPES =====
+
+    /**
+     * A flagged trade.
+     */
+    public record Alert(AlertType type, AuditEntry trade, String detail) {
+    }
+
+    private record PairKey(long low, long high) {
+    }
+
+    private static final class PriceStats {
+        double mean;
+        double variance;
+        long samples;
+    }
+
+    private static final class PairStats {
+        long windowStart;
+        int lowToHigh;
+        int highToLow;
+        boolean alerted;
+
+        PairStats(long windowStart) {
+            this.windowStart = windowStart;
+        }
+    }
+}
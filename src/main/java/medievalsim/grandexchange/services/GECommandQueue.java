@@ -0,0 +1,176 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.util.ModLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer / single-consumer command queue for Grand Exchange mutations.
+ *
+ * Pattern: Disruptor-style ring buffer. Each slot carries a sequence number that
+ * tells producers when it is free and the consumer when it is published, so
+ * enqueue and drain are lock-free.
+ *
+ * Features:
+ * - Packet handlers enqueue a command and return immediately
+ * - One writer (the level tick) drains commands in FIFO order
+ * - Per-drain budget so a burst cannot stall the tick
+ * - Completion callbacks run on the writer right after each command
+ *
+ * Thread-safe for any number of producers; drain() must only be called by the writer.
+ * "Writer" is the queue's consumer: commands still take the GE striped locks, because
+ * other GE paths mutate the same state without going through the queue.
+ */
+public class GECommandQueue {
+
+    /**
+     * A GE mutation. Returns true on success.
+     */
+    @FunctionalInterface
+    public interface Command {
+        boolean execute();
+    }
+
+    /**
+     * Result callback, invoked on the writer thread after the command ran.
+     */
+    @FunctionalInterface
+    public interface Completion {
+        void onComplete(boolean success);
+    }
+
+    private static final class Slot {
+        volatile long sequence;
+        String description;
+        Command command;
+        Completion completion;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong claimSequence = new AtomicLong(0);
+    private long consumeSequence = 0; // Writer-only
+
+    // Statistics
+    private final AtomicLong totalEnqueued = new AtomicLong(0);
+    private final AtomicLong totalRejected = new AtomicLong(0);
+    private long totalExecuted = 0;
+    private long totalFailed = 0;
+
+    public GECommandQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+            ring[i].sequence = i;
+        }
+    }
+
+    /**
+     * Enqueue a command.
+     * @param description Short label for logging (e.g. "enableSellOffer auth=1 slot=2")
+     * @param completion Optional callback, may be null
+     * @return false if the queue is full (caller should reject the action)
+     */
+    public boolean offer(String description, Command command, Completion completion) {
+        long seq = claimSequence.get();
+        while (true) {
+            Slot slot = ring[(int) (seq & mask)];
+            long diff = slot.sequence - seq;
+            if (diff == 0) {
+                if (claimSequence.compareAndSet(seq, seq + 1)) {
+                    slot.description = description;
+                    slot.command = command;
+                    slot.completion = completion;
+                    slot.sequence = seq + 1; // Publish
+                    totalEnqueued.incrementAndGet();
+                    return true;
+                }
+                seq = claimSequence.get();
+            } else if (diff < 0) {
+                totalRejected.incrementAndGet();
+                ModLogger.warn("GE command queue full (%d slots), rejected: %s", ring.length, description);
+                return false;
+            } else {
+                seq = claimSequence.get();
+            }
+        }
+    }
+
+    /**
+     * Execute up to maxCommands published commands in order.
+     * Writer thread only.
+     * @return Number of commands executed
+     */
+    public int drain(int maxCommands) {
+        int executed = 0;
+        while (executed < maxCommands) {
+            Slot slot = ring[(int) (consumeSequence & mask)];
+            if (slot.sequence != consumeSequence + 1) {
+                break; // Nothing published
+            }
+
+            String description = slot.description;
+            Command command = slot.command;
+            Completion completion = slot.completion;
+            slot.description = null;
+            slot.command = null;
+            slot.completion = null;
+            slot.sequence = consumeSequence + ring.length; // Release for the next lap
+            consumeSequence++;
+
+            boolean success;
+            try {
+                success = command.execute();
+            } catch (Exception e) {
+                ModLogger.error("GE command failed: %s (%s)", description, e.getMessage());
+                success = false;
+            }
+            if (!success) {
+                totalFailed++;
+            }
+
+            if (completion != null) {
+                try {
+                    completion.onComplete(success);
+                } catch (Exception e) {
+                    ModLogger.error("GE command completion failed: %s (%s)", description, e.getMessage());
+                }
+            }
+
+            totalExecuted++;
+            executed++;
+        }
+        return executed;
+    }
+
+    // ===== STATISTICS =====
+
+    /**
+     * Approximate number of commands waiting (exact when called from the writer).
+     */
+    public int getPendingCount() {
+        return (int) Math.max(0, claimSequence.get() - consumeSequence);
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public long getTotalEnqueued() {
+        return totalEnqueued.get();
+    }
+
+    public long getTotalRejected() {
+        return totalRejected.get();
+    }
+
+    public long getTotalExecuted() {
+        return totalExecuted;
+    }
+
+    public long getTotalFailed() {
+        return totalFailed;
+    }
+}
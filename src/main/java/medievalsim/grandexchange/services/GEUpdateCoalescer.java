@@ -0,0 +1,254 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tick outbound coalescer for Grand Exchange client updates.
+ *
+ * Fills and UI refresh requests are recorded as they happen and merged per player
+ * and slot. The level tick flushes each player at most once per tick, and no more
+ * often than the configured minimum interval, so a buy order sweeping 50 sell offers
+ * produces one update per affected player instead of one (or more) per fill.
+ *
+ * Thread-safe: any thread may record; flush() must only be called by the level tick.
+ */
+public class GEUpdateCoalescer {
+
+    /**
+     * Receives one merged update per flushed player (on the flushing thread).
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void deliver(long playerAuth, PlayerUpdate update);
+    }
+
+    private final Map<Long, PlayerUpdate> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastFlushTimes = new HashMap<>(); // Flushing thread only
+
+    // Statistics
+    private final AtomicLong totalRecorded = new AtomicLong(0);
+    private long totalDelivered = 0;
+
+    // ===== RECORDING =====
+
+    public void recordSellFill(GEOffer offer, int quantity, long coins) {
+        totalRecorded.incrementAndGet();
+        while (true) {
+            PlayerUpdate update = pending.computeIfAbsent(offer.getPlayerAuth(), k -> new PlayerUpdate());
+            synchronized (update) {
+                if (!update.closed) {
+                    update.sellFills.computeIfAbsent(offer.getInventorySlot(), k -> new SellFill(offer))
+                        .add(offer, quantity, coins);
+                    return;
+                }
+            }
+        }
+    }
+
+    public void recordBuyFill(BuyOrder order, int quantity, long coins) {
+        totalRecorded.incrementAndGet();
+        while (true) {
+            PlayerUpdate update = pending.computeIfAbsent(order.getPlayerAuth(), k -> new PlayerUpdate());
+            synchronized (update) {
+                if (!update.closed) {
+                    update.buyFills.computeIfAbsent(order.getSlotIndex(), k -> new BuyFill(order))
+                        .add(order, quantity, coins);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Request a full sell-slot sync for the player at the next flush.
+     */
+    public void requestSellSync(long playerAuth) {
+        while (true) {
+            PlayerUpdate update = pending.computeIfAbsent(playerAuth, k -> new PlayerUpdate());
+            synchronized (update) {
+                if (!update.closed) {
+                    update.sellSync = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Request a full buy-order sync for the player at the next flush.
+     */
+    public void requestBuySync(long playerAuth) {
+        while (true) {
+            PlayerUpdate update = pending.computeIfAbsent(playerAuth, k -> new PlayerUpdate());
+            synchronized (update) {
+                if (!update.closed) {
+                    update.buySync = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    // ===== FLUSH =====
+
+    /**
+     * Deliver every pending player whose last flush is at least minIntervalMs ago.
+     * Players still inside their interval keep accumulating until a later tick.
+     * @return Number of players delivered
+     */
+    public int flush(long now, long minIntervalMs, Sink sink) {
+        if (!lastFlushTimes.isEmpty()) {
+            lastFlushTimes.values().removeIf(time -> now - time >= minIntervalMs);
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        int delivered = 0;
+        for (Long playerAuth : new ArrayList<>(pending.keySet())) {
+            if (lastFlushTimes.containsKey(playerAuth)) {
+                continue;
+            }
+            PlayerUpdate update = pending.remove(playerAuth);
+            if (update == null) {
+                continue;
+            }
+            // Recorders that still hold this instance retry against a fresh one
+            synchronized (update) {
+                update.closed = true;
+            }
+            if (minIntervalMs > 0) {
+                lastFlushTimes.put(playerAuth, now);
+            }
+            sink.deliver(playerAuth, update);
+            delivered++;
+        }
+        totalDelivered += delivered;
+        return delivered;
+    }
+
+    public int getPendingPlayerCount() {
+        return pending.size();
+    }
+
+    public long getTotalRecorded() {
+        return totalRecorded.get();
+    }
+
+    public long getTotalDelivered() {
+        return totalDelivered;
+    }
+
+    // ===== NESTED CLASSES =====
+
+    /**
+     * Everything pending for one player, merged per slot (slot order).
+     * Read-only once handed to the sink.
+     */
+    public static final class PlayerUpdate {
+        private final Map<Integer, SellFill> sellFills = new TreeMap<>();
+        private final Map<Integer, BuyFill> buyFills = new TreeMap<>();
+        private boolean sellSync;
+        private boolean buySync;
+        private boolean closed;
+
+        public Collection<SellFill> getSellFills() {
+            return sellFills.values();
+        }
+
+        public Collection<BuyFill> getBuyFills() {
+            return buyFills.values();
+        }
+
+        public boolean needsSellSync() {
+            return sellSync;
+        }
+
+        public boolean needsBuySync() {
+            return buySync;
+        }
+    }
+
+    /**
+     * Fills merged for one sell slot. The offer is the latest one seen for the slot.
+     */
+    public static final class SellFill {
+        private GEOffer offer;
+        private int quantity;
+        private long coins;
+        private int fillCount;
+
+        SellFill(GEOffer offer) {
+            this.offer = offer;
+        }
+
+        void add(GEOffer latest, int filled, long filledCoins) {
+            offer = latest;
+            quantity += filled;
+            coins += filledCoins;
+            fillCount++;
+        }
+
+        public GEOffer getOffer() {
+            return offer;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public long getCoins() {
+            return coins;
+        }
+
+        public int getFillCount() {
+            return fillCount;
+        }
+    }
+
+    /**
+     * Fills merged for one buy order slot. The order is the latest one seen for the slot.
+     */
+    public static final class BuyFill {
+        private BuyOrder order;
+        private int quantity;
+        private long coins;
+        private int fillCount;
+
+        BuyFill(BuyOrder order) {
+            this.order = order;
+        }
+
+        void add(BuyOrder latest, int filled, long filledCoins) {
+            order = latest;
+            quantity += filled;
+            coins += filledCoins;
+            fillCount++;
+        }
+
+        public BuyOrder getOrder() {
+            return order;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public long getCoins() {
+            return coins;
+        }
+
+        public int getFillCount() {
+            return fillCount;
+        }
+    }
+}
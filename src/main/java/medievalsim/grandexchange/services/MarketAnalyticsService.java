@@ -5,7 +5,6 @@ import medievalsim.util.ModLogger;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * Market analytics and price discovery service.
@@ -17,13 +16,16 @@ import java.util.stream.Collectors;
  * - Price volatility metrics
  * - Trade history management
  * 
+ * Each item's recent trades live in a RollingTradeWindow that maintains every
+ * statistic on insert, so all getters (and getMarketSummary) are O(1).
+ * 
  * Pattern: Service layer for market intelligence.
  * Thread-safe using concurrent collections.
  */
 public class MarketAnalyticsService {
     
     // Trade history per item (limited to last N trades)
-    private final Map<String, List<TradeRecord>> tradeHistory;
+    private final Map<String, RollingTradeWindow> tradeHistory;
     private final int maxTradesPerItem;
     
     // 24-hour price tracking
@@ -39,7 +41,7 @@ public class MarketAnalyticsService {
      * @param maxTradesPerItem Maximum trades to keep in history per item (default: 100)
      */
     public MarketAnalyticsService(int maxTradesPerItem) {
-        this.maxTradesPerItem = maxTradesPerItem;
+        this.maxTradesPerItem = Math.max(1, maxTradesPerItem);
         this.tradeHistory = new ConcurrentHashMap<>();
         this.dailyRanges = new ConcurrentHashMap<>();
     }
@@ -53,16 +55,9 @@ public class MarketAnalyticsService {
         int quantity = trade.getQuantity();
         long timestamp = trade.getTimestamp();
         
-        // Add to trade history
-        List<TradeRecord> history = tradeHistory.computeIfAbsent(itemID, k -> new ArrayList<>());
-        synchronized (history) {
-            history.add(new TradeRecord(price, quantity, timestamp));
-            
-            // Trim if exceeds max
-            if (history.size() > maxTradesPerItem) {
-                history.remove(0); // Remove oldest
-            }
-        }
+        // Add to trade history (the window evicts the oldest trade itself)
+        tradeHistory.computeIfAbsent(itemID, k -> new RollingTradeWindow(maxTradesPerItem))
+            .record(price, quantity, timestamp);
         
         // Update 24-hour range
         PriceRange range = dailyRanges.computeIfAbsent(itemID, k -> new PriceRange());
@@ -83,27 +78,8 @@ public class MarketAnalyticsService {
      * More stable than average, resistant to outliers.
      */
     public int getGuidePrice(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
-        if (history == null || history.isEmpty()) {
-            return 0;
-        }
-        
-        synchronized (history) {
-            List<Integer> prices = history.stream()
-                .map(TradeRecord::getPrice)
-                .sorted()
-                .collect(Collectors.toList());
-            
-            int size = prices.size();
-            if (size == 0) return 0;
-            
-            // Calculate median
-            if (size % 2 == 0) {
-                return (prices.get(size / 2 - 1) + prices.get(size / 2)) / 2;
-            } else {
-                return prices.get(size / 2);
-            }
-        }
+        RollingTradeWindow history = tradeHistory.get(itemID);
+        return history != null ? history.getMedian() : 0;
     }
     
     /**
@@ -111,38 +87,16 @@ public class MarketAnalyticsService {
      * Weights prices by trade volume - more accurate for high-volume items.
      */
     public int getVWAP(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
-        if (history == null || history.isEmpty()) {
-            return 0;
-        }
-        
-        synchronized (history) {
-            long totalValue = 0;
-            long totalVolume = 0;
-            
-            for (TradeRecord trade : history) {
-                totalValue += (long) trade.getPrice() * trade.getQuantity();
-                totalVolume += trade.getQuantity();
-            }
-            
-            return totalVolume > 0 ? (int) (totalValue / totalVolume) : 0;
-        }
+        RollingTradeWindow history = tradeHistory.get(itemID);
+        return history != null ? history.getVWAP() : 0;
     }
     
     /**
      * Get simple average price (mean of recent trades).
-     * Less accurate than VWAP or guide price, but fast to calculate.
      */
     public int getAveragePrice(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
-        if (history == null || history.isEmpty()) {
-            return 0;
-        }
-        
-        synchronized (history) {
-            int sum = history.stream().mapToInt(TradeRecord::getPrice).sum();
-            return sum / history.size();
-        }
+        RollingTradeWindow history = tradeHistory.get(itemID);
+        return history != null ? history.getAverage() : 0;
     }
     
     /**
@@ -173,48 +127,23 @@ public class MarketAnalyticsService {
      * Higher value = more volatile/unstable market.
      */
     public double getPriceVolatility(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
-        if (history == null || history.size() < 2) {
-            return 0.0;
-        }
-        
-        synchronized (history) {
-            // Calculate mean
-            double mean = history.stream()
-                .mapToInt(TradeRecord::getPrice)
-                .average()
-                .orElse(0.0);
-            
-            // Calculate variance
-            double variance = history.stream()
-                .mapToDouble(t -> Math.pow(t.getPrice() - mean, 2))
-                .average()
-                .orElse(0.0);
-            
-            // Return standard deviation
-            return Math.sqrt(variance);
-        }
+        RollingTradeWindow history = tradeHistory.get(itemID);
+        return history != null ? history.getStdDev() : 0.0;
     }
     
     /**
      * Get total trade volume (quantity) for an item in last N trades.
      */
     public int getTradeVolume(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
-        if (history == null) {
-            return 0;
-        }
-        
-        synchronized (history) {
-            return history.stream().mapToInt(TradeRecord::getQuantity).sum();
-        }
+        RollingTradeWindow history = tradeHistory.get(itemID);
+        return history != null ? (int) Math.min(Integer.MAX_VALUE, history.getTotalQuantity()) : 0;
     }
     
     /**
      * Get number of trades recorded for an item.
      */
     public int getTradeCount(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
+        RollingTradeWindow history = tradeHistory.get(itemID);
         return history != null ? history.size() : 0;
     }
     
@@ -222,30 +151,25 @@ public class MarketAnalyticsService {
      * Get all trade history for an item (immutable copy).
      */
     public List<TradeRecord> getTradeHistory(String itemID) {
-        List<TradeRecord> history = tradeHistory.get(itemID);
+        RollingTradeWindow history = tradeHistory.get(itemID);
         if (history == null) {
             return Collections.emptyList();
         }
-        synchronized (history) {
-            return new ArrayList<>(history);
-        }
+        return history.toList();
     }
     
     /**
      * Get market summary for an item.
+     * Constant time: cheap enough to call per tooltip render.
      */
     public MarketSummary getMarketSummary(String itemID) {
-        return new MarketSummary(
-            itemID,
-            getGuidePrice(itemID),
-            getVWAP(itemID),
-            getAveragePrice(itemID),
-            get24hHigh(itemID),
-            get24hLow(itemID),
-            getTradeVolume(itemID),
-            getTradeCount(itemID),
-            getPriceVolatility(itemID)
-        );
+        int high24h = get24hHigh(itemID);
+        int low24h = get24hLow(itemID);
+        RollingTradeWindow history = tradeHistory.get(itemID);
+        if (history == null) {
+            return new MarketSummary(itemID, 0, 0, 0, high24h, low24h, 0, 0, 0.0);
+        }
+        return history.summarize(itemID, high24h, low24h);
     }
     
     /**
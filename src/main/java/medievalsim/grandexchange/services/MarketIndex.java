@@ -0,0 +1,481 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.GEOffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Incrementally maintained secondary indices over active sell offers,
+ * backing the market browser (buildMarketSnapshot).
+ *
+ * Indices:
+ * - Sorted views by price, quantity remaining and expiry (market-wide and per item)
+ * - Category ID -> items (category chain resolved once per item)
+ * - Trigram -> items over the lowercased item ID, for substring filters
+ *
+ * Updated on offer lifecycle events (refresh/remove), so a page request walks
+ * only the matching sorted views instead of copying and sorting the market.
+ * Every change bumps a market version, which lets callers cache rendered pages.
+ *
+ * Thread-safe: all methods synchronize on the index (leaf lock, never calls out
+ * while held except to the category resolver).
+ */
+public class MarketIndex {
+
+    public static final int SORT_PRICE_ASC = 1;
+    public static final int SORT_PRICE_DESC = 2;
+    public static final int SORT_QUANTITY_DESC = 3;
+    public static final int SORT_EXPIRY_ASC = 4;
+
+    private static final int NGRAM_LENGTH = 3;
+
+    private static final Comparator<IndexedOffer> BY_PRICE =
+        Comparator.comparingInt((IndexedOffer o) -> o.price).thenComparingLong(o -> o.offerID);
+    private static final Comparator<IndexedOffer> BY_QUANTITY_DESC =
+        ((Comparator<IndexedOffer>) (a, b) -> Integer.compare(b.quantity, a.quantity)).thenComparingLong(o -> o.offerID);
+    private static final Comparator<IndexedOffer> BY_EXPIRY =
+        Comparator.comparingLong((IndexedOffer o) -> o.expiration).thenComparingLong(o -> o.offerID);
+
+    private final Function<String, Collection<String>> categoryResolver;
+
+    private final Map<Long, IndexedOffer> indexedById = new HashMap<>();
+    private final SortedViews allOffers = new SortedViews();
+    private final Map<String, SortedViews> offersByItem = new HashMap<>();
+    private final Map<String, Set<String>> itemsByCategory = new HashMap<>();
+    private final Map<String, Set<String>> itemsByNgram = new HashMap<>();
+    private final Map<String, List<String>> categoryCache = new HashMap<>();
+    private final AtomicLong version = new AtomicLong(0);
+
+    /**
+     * @param categoryResolver Maps an item ID to its category chain (leaf first, string IDs)
+     */
+    public MarketIndex(Function<String, Collection<String>> categoryResolver) {
+        this.categoryResolver = categoryResolver;
+    }
+
+    // ===== MAINTENANCE =====
+
+    /**
+     * Add, re-key or drop an offer after any change.
+     * Active offers are indexed; anything else is removed.
+     */
+    public synchronized void refresh(GEOffer offer) {
+        if (offer == null) {
+            return;
+        }
+        if (!offer.isActive()) {
+            remove(offer.getOfferID());
+            return;
+        }
+
+        IndexedOffer current = indexedById.get(offer.getOfferID());
+        IndexedOffer updated = new IndexedOffer(offer);
+        if (current != null) {
+            if (current.sameKeys(updated)) {
+                return;
+            }
+            unindex(current);
+        }
+        index(updated);
+    }
+
+    /**
+     * Drop an offer from every index.
+     */
+    public synchronized void remove(long offerID) {
+        IndexedOffer current = indexedById.get(offerID);
+        if (current != null) {
+            unindex(current);
+        }
+    }
+
+    /**
+     * Rebuild all indices from scratch (load / repair).
+     */
+    public synchronized void rebuild(Collection<GEOffer> activeOffers) {
+        indexedById.clear();
+        allOffers.clear();
+        offersByItem.clear();
+        itemsByCategory.clear();
+        itemsByNgram.clear();
+        version.incrementAndGet();
+        for (GEOffer offer : activeOffers) {
+            refresh(offer);
+        }
+    }
+
+    private void index(IndexedOffer entry) {
+        version.incrementAndGet();
+        indexedById.put(entry.offerID, entry);
+        allOffers.add(entry);
+
+        SortedViews itemViews = offersByItem.get(entry.itemKey);
+        if (itemViews == null) {
+            itemViews = new SortedViews();
+            offersByItem.put(entry.itemKey, itemViews);
+            registerItem(entry.itemKey);
+        }
+        itemViews.add(entry);
+    }
+
+    private void unindex(IndexedOffer entry) {
+        version.incrementAndGet();
+        indexedById.remove(entry.offerID);
+        allOffers.remove(entry);
+
+        SortedViews itemViews = offersByItem.get(entry.itemKey);
+        if (itemViews != null) {
+            itemViews.remove(entry);
+            if (itemViews.size() == 0) {
+                offersByItem.remove(entry.itemKey);
+                unregisterItem(entry.itemKey);
+            }
+        }
+    }
+
+    private void registerItem(String itemKey) {
+        for (String category : getCategories(itemKey)) {
+            itemsByCategory.computeIfAbsent(category, k -> new HashSet<>()).add(itemKey);
+        }
+        for (String gram : ngrams(itemKey.toLowerCase(Locale.ROOT))) {
+            itemsByNgram.computeIfAbsent(gram, k -> new HashSet<>()).add(itemKey);
+        }
+    }
+
+    private void unregisterItem(String itemKey) {
+        for (String category : getCategories(itemKey)) {
+            removePosting(itemsByCategory, category, itemKey);
+        }
+        for (String gram : ngrams(itemKey.toLowerCase(Locale.ROOT))) {
+            removePosting(itemsByNgram, gram, itemKey);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> postings, String key, String itemKey) {
+        Set<String> items = postings.get(key);
+        if (items != null) {
+            items.remove(itemKey);
+            if (items.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private List<String> getCategories(String itemKey) {
+        return categoryCache.computeIfAbsent(itemKey, key -> {
+            List<String> categories = new ArrayList<>();
+            if (!key.isEmpty()) {
+                Collection<String> chain = categoryResolver.apply(key);
+                if (chain != null) {
+                    for (String category : chain) {
+                        if (category != null) {
+                            categories.add(category.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+            }
+            return categories;
+        });
+    }
+
+    private static Set<String> ngrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + NGRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + NGRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    // ===== QUERIES =====
+
+    /**
+     * Return one page of matching offers in the requested order.
+     * @param filter Case-insensitive substring of the item ID ("" = any)
+     * @param category Category string ID ("all" = any)
+     * @param requestedPage Clamped to the available pages
+     */
+    public synchronized Page query(String filter, String category, int sortMode, int requestedPage, int pageSize) {
+        Set<String> items = resolveItems(filter, category);
+
+        List<SortedViews> views;
+        int totalResults;
+        if (items == null) {
+            views = Collections.singletonList(allOffers);
+            totalResults = allOffers.size();
+        } else {
+            views = new ArrayList<>(items.size());
+            totalResults = 0;
+            for (String item : items) {
+                SortedViews itemViews = offersByItem.get(item);
+                if (itemViews != null) {
+                    views.add(itemViews);
+                    totalResults += itemViews.size();
+                }
+            }
+        }
+
+        int safePageSize = Math.max(1, pageSize);
+        int totalPages = totalResults == 0 ? 1 : (totalResults + safePageSize - 1) / safePageSize;
+        int safePage = Math.max(0, Math.min(requestedPage, totalPages - 1));
+        int offset = safePage * safePageSize;
+
+        List<GEOffer> offers = new ArrayList<>(Math.min(safePageSize, Math.max(0, totalResults - offset)));
+        Iterator<IndexedOffer> iterator = views.size() == 1
+            ? views.get(0).iterator(sortMode)
+            : new MergingIterator(views, sortMode);
+
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (offers.size() < safePageSize && iterator.hasNext()) {
+            offers.add(iterator.next().offer);
+        }
+
+        return new Page(safePage, totalPages, totalResults, offers);
+    }
+
+    /**
+     * Items matching the filter and category, or null when neither restricts the result.
+     */
+    private Set<String> resolveItems(String filter, String category) {
+        String lowerFilter = filter == null ? "" : filter.trim().toLowerCase(Locale.ROOT);
+        String lowerCategory = category == null || category.isBlank() ? "all" : category.trim().toLowerCase(Locale.ROOT);
+
+        Set<String> items = null;
+        if (!lowerCategory.equals("all")) {
+            items = new HashSet<>(itemsByCategory.getOrDefault(lowerCategory, Collections.emptySet()));
+        }
+
+        if (!lowerFilter.isEmpty()) {
+            Set<String> candidates;
+            if (lowerFilter.length() >= NGRAM_LENGTH) {
+                candidates = null;
+                for (String gram : ngrams(lowerFilter)) {
+                    Set<String> posting = itemsByNgram.getOrDefault(gram, Collections.emptySet());
+                    if (candidates == null) {
+                        candidates = new HashSet<>(posting);
+                    } else {
+                        candidates.retainAll(posting);
+                    }
+                    if (candidates.isEmpty()) {
+                        break;
+                    }
+                }
+            } else {
+                candidates = new HashSet<>(offersByItem.keySet());
+            }
+            // Trigrams only narrow the set; confirm the actual substring
+            candidates.removeIf(item -> !item.toLowerCase(Locale.ROOT).contains(lowerFilter));
+
+            if (items == null) {
+                items = candidates;
+            } else {
+                items.retainAll(candidates);
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Market version, incremented on every index change.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public synchronized int size() {
+        return indexedById.size();
+    }
+
+    public synchronized int getIndexedItemCount() {
+        return offersByItem.size();
+    }
+
+    // ===== NESTED CLASSES =====
+
+    /**
+     * One page of query results.
+     */
+    public static class Page {
+        private final int page;
+        private final int totalPages;
+        private final int totalResults;
+        private final List<GEOffer> offers;
+
+        public Page(int page, int totalPages, int totalResults, List<GEOffer> offers) {
+            this.page = page;
+            this.totalPages = totalPages;
+            this.totalResults = totalResults;
+            this.offers = Collections.unmodifiableList(offers);
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public int getTotalPages() {
+            return totalPages;
+        }
+
+        public int getTotalResults() {
+            return totalResults;
+        }
+
+        public List<GEOffer> getOffers() {
+            return offers;
+        }
+    }
+
+    /**
+     * Offer with the sort keys captured when it was indexed, so it can be
+     * found and removed even after the live offer has changed.
+     */
+    private static final class IndexedOffer {
+        final GEOffer offer;
+        final long offerID;
+        final String itemKey;
+        final int price;
+        final int quantity;
+        final long expiration;
+
+        IndexedOffer(GEOffer offer) {
+            this.offer = offer;
+            this.offerID = offer.getOfferID();
+            this.itemKey = offer.getItemStringID() == null ? "" : offer.getItemStringID();
+            this.price = offer.getPricePerItem();
+            this.quantity = offer.getQuantityRemaining();
+            long expirationTime = offer.getExpirationTime();
+            this.expiration = expirationTime == 0L ? Long.MAX_VALUE : expirationTime;
+        }
+
+        boolean sameKeys(IndexedOffer other) {
+            return offer == other.offer && itemKey.equals(other.itemKey) && price == other.price
+                && quantity == other.quantity && expiration == other.expiration;
+        }
+    }
+
+    /**
+     * The three sort orders over one set of offers.
+     */
+    private static final class SortedViews {
+        final TreeSet<IndexedOffer> byPrice = new TreeSet<>(BY_PRICE);
+        final TreeSet<IndexedOffer> byQuantity = new TreeSet<>(BY_QUANTITY_DESC);
+        final TreeSet<IndexedOffer> byExpiry = new TreeSet<>(BY_EXPIRY);
+
+        void add(IndexedOffer entry) {
+            byPrice.add(entry);
+            byQuantity.add(entry);
+            byExpiry.add(entry);
+        }
+
+        void remove(IndexedOffer entry) {
+            byPrice.remove(entry);
+            byQuantity.remove(entry);
+            byExpiry.remove(entry);
+        }
+
+        void clear() {
+            byPrice.clear();
+            byQuantity.clear();
+            byExpiry.clear();
+        }
+
+        int size() {
+            return byPrice.size();
+        }
+
+        Iterator<IndexedOffer> iterator(int sortMode) {
+            switch (sortMode) {
+                case SORT_PRICE_DESC:
+                    return byPrice.descendingIterator();
+                case SORT_QUANTITY_DESC:
+                    return byQuantity.iterator();
+                case SORT_EXPIRY_ASC:
+                    return byExpiry.iterator();
+                case SORT_PRICE_ASC:
+                default:
+                    return byPrice.iterator();
+            }
+        }
+    }
+
+    private static Comparator<IndexedOffer> comparatorFor(int sortMode) {
+        switch (sortMode) {
+            case SORT_PRICE_DESC:
+                return BY_PRICE.reversed();
+            case SORT_QUANTITY_DESC:
+                return BY_QUANTITY_DESC;
+            case SORT_EXPIRY_ASC:
+                return BY_EXPIRY;
+            case SORT_PRICE_ASC:
+            default:
+                return BY_PRICE;
+        }
+    }
+
+    /**
+     * K-way merge over several per-item sorted views.
+     */
+    private static final class MergingIterator implements Iterator<IndexedOffer> {
+        private final PriorityQueue<Cursor> heap;
+
+        MergingIterator(List<SortedViews> views, int sortMode) {
+            Comparator<IndexedOffer> order = comparatorFor(sortMode);
+            this.heap = new PriorityQueue<>(Math.max(1, views.size()), (a, b) -> order.compare(a.head, b.head));
+            for (SortedViews view : views) {
+                Iterator<IndexedOffer> source = view.iterator(sortMode);
+                if (source.hasNext()) {
+                    heap.add(new Cursor(source));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public IndexedOffer next() {
+            Cursor cursor = heap.poll();
+            IndexedOffer result = cursor.head;
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+            return result;
+        }
+    }
+
+    private static final class Cursor {
+        final Iterator<IndexedOffer> source;
+        IndexedOffer head;
+
+        Cursor(Iterator<IndexedOffer> source) {
+            this.source = source;
+            this.head = source.next();
+        }
+
+        boolean advance() {
+            if (!source.hasNext()) {
+                return false;
+            }
+            head = source.next();
+            return true;
+        }
+    }
+}
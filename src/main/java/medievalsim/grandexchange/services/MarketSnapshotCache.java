@@ -0,0 +1,115 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.MarketSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of rendered market browser pages.
+ *
+ * Keyed by (filter, category, sortMode, page, pageSize). Each entry remembers
+ * the market version it was built at; a lookup at any other version is a miss,
+ * so invalidation is a single counter bump on the MarketIndex.
+ *
+ * Thread-safe: synchronized on the cache.
+ */
+public class MarketSnapshotCache {
+
+    private final int maxEntries;
+    private final Map<Key, CachedPage> pages;
+
+    public MarketSnapshotCache(int maxEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.pages = new LinkedHashMap<Key, CachedPage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedPage> eldest) {
+                return size() > MarketSnapshotCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get a cached page built at the given market version.
+     * @return Snapshot, or null on a miss (absent or stale)
+     */
+    public synchronized MarketSnapshot get(String filter, String category, int sortMode, int page,
+                                           int pageSize, long marketVersion) {
+        Key key = new Key(filter, category, sortMode, page, pageSize);
+        CachedPage cached = pages.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.version != marketVersion) {
+            pages.remove(key);
+            return null;
+        }
+        return cached.snapshot;
+    }
+
+    /**
+     * Cache a page rendered at the given market version.
+     */
+    public synchronized void put(String filter, String category, int sortMode, int page,
+                                 int pageSize, long marketVersion, MarketSnapshot snapshot) {
+        if (maxEntries == 0 || snapshot == null) {
+            return;
+        }
+        pages.put(new Key(filter, category, sortMode, page, pageSize), new CachedPage(marketVersion, snapshot));
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+    }
+
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // ===== NESTED CLASSES =====
+
+    private static final class Key {
+        private final String filter;
+        private final String category;
+        private final int sortMode;
+        private final int page;
+        private final int pageSize;
+
+        Key(String filter, String category, int sortMode, int page, int pageSize) {
+            this.filter = filter == null ? "" : filter;
+            this.category = category == null ? "all" : category;
+            this.sortMode = sortMode;
+            this.page = page;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return sortMode == other.sortMode && page == other.page && pageSize == other.pageSize
+                && filter.equals(other.filter) && category.equals(other.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filter, category, sortMode, page, pageSize);
+        }
+    }
+
+    private static final class CachedPage {
+        private final long version;
+        private final MarketSnapshot snapshot;
+
+        CachedPage(long version, MarketSnapshot snapshot) {
+            this.version = version;
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import medievalsim.util.ModLogger;
+import necesse.level.maps.Level;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Continuous matching engine for Grand Exchange order books.
+ *
+ * Takes an incoming sell offer or buy order, walks the opposite side of the
+ * item's OrderBook in price-time priority, executes each fill through a
+ * TradeTransaction, updates the book in place and rests any remainder.
+ * The whole cross runs under a single acquisition of the book's lock and
+ * returns the executed fills as one MatchBatch.
+ *
+ * Pricing: trades execute at the buy order's price (coins are escrowed at
+ * that price when the order is enabled).
+ *
+ * Post-trade bookkeeping (analytics, audit, notifications, persistence) stays
+ * with the caller, which receives the batch once the book lock is released.
+ *
+ * Locking: callers hold the item stripe; the engine takes the book monitor and,
+ * per fill, the buyer/seller player stripes (see StripedLockManager).
+ */
+public class MatchingEngine {
+
+    private final StripedLockManager lockManager;
+    private final Function<Level, TradeTransaction.Accounts> accountsLookup;
+
+    // Statistics (sweeps on different items run concurrently)
+    private final AtomicLong totalSweeps = new AtomicLong();
+    private final AtomicLong totalFills = new AtomicLong();
+
+    public MatchingEngine(StripedLockManager lockManager) {
+        this(lockManager, TradeTransaction.Accounts::forLevel);
+    }
+
+    /**
+     * Engine whose trades settle against the given accounts instead of the level's stored data.
+     */
+    MatchingEngine(StripedLockManager lockManager, Function<Level, TradeTransaction.Accounts> accountsLookup) {
+        this.lockManager = lockManager;
+        this.accountsLookup = accountsLookup;
+    }
+
+    /**
+     * Match an incoming sell offer against resting buy orders, then rest any remainder.
+     */
+    public MatchBatch submitSellOffer(Level level, OrderBook book, GEOffer sellOffer) {
+        MatchBatch batch = new MatchBatch(book.getItemStringID());
+        synchronized (book) {
+            sweepSellOffer(level, book, sellOffer, batch);
+            if (sellOffer.isActive() && sellOffer.getQuantityRemaining() > 0) {
+                book.addSellOffer(sellOffer);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Match an incoming buy order against resting sell offers, then rest any remainder.
+     */
+    public MatchBatch submitBuyOrder(Level level, OrderBook book, BuyOrder buyOrder) {
+        MatchBatch batch = new MatchBatch(book.getItemStringID());
+        synchronized (book) {
+            sweepBuyOrder(level, book, buyOrder, batch);
+            if (buyOrder.canMatch()) {
+                book.addBuyOrder(buyOrder);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Uncross a book whose best bid meets or exceeds its best ask
+     * (e.g. after load or after instant trades were re-enabled).
+     * Bids are swept in priority order until no bid crosses the best ask.
+     */
+    public MatchBatch uncross(Level level, OrderBook book) {
+        MatchBatch batch = new MatchBatch(book.getItemStringID());
+        synchronized (book) {
+            for (BuyOrder buyOrder : book.getAllBuyOrders()) {
+                int bestAsk = book.getBestSellPrice();
+                if (bestAsk == 0 || buyOrder.getPricePerItem() < bestAsk) {
+                    break;
+                }
+                sweepBuyOrder(level, book, buyOrder, batch);
+            }
+        }
+        return batch;
+    }
+
+    // ===== SWEEPS (caller holds the book lock) =====
+
+    private void sweepSellOffer(Level level, OrderBook book, GEOffer sellOffer, MatchBatch batch) {
+        totalSweeps.incrementAndGet();
+        Set<Long> failedIDs = new HashSet<>();
+
+        while (sellOffer.isActive() && sellOffer.getQuantityRemaining() > 0) {
+            BuyOrder buyOrder = book.peekCrossingBuyOrder(sellOffer.getPricePerItem(),
+                sellOffer.getPlayerAuth(), failedIDs);
+            if (buyOrder == null) {
+                break;
+            }
+
+            int quantity = Math.min(sellOffer.getQuantityRemaining(), buyOrder.getQuantityRemaining());
+            if (!execute(level, book, buyOrder, sellOffer, quantity, batch)) {
+                failedIDs.add(buyOrder.getOrderID());
+            }
+        }
+    }
+
+    private void sweepBuyOrder(Level level, OrderBook book, BuyOrder buyOrder, MatchBatch batch) {
+        totalSweeps.incrementAndGet();
+        Set<Long> failedIDs = new HashSet<>();
+
+        while (buyOrder.canMatch()) {
+            GEOffer sellOffer = book.peekCrossingSellOffer(buyOrder.getPricePerItem(),
+                buyOrder.getPlayerAuth(), failedIDs);
+            if (sellOffer == null) {
+                break;
+            }
+
+            int quantity = Math.min(buyOrder.getQuantityRemaining(), sellOffer.getQuantityRemaining());
+            if (!execute(level, book, buyOrder, sellOffer, quantity, batch)) {
+                failedIDs.add(sellOffer.getOfferID());
+            }
+        }
+    }
+
+    /**
+     * Execute one fill and apply it to the book.
+     * @return true if the trade committed
+     */
+    private boolean execute(Level level, OrderBook book, BuyOrder buyOrder, GEOffer sellOffer,
+                            int quantity, MatchBatch batch) {
+        long startTime = System.nanoTime();
+        int executionPrice = buyOrder.getPricePerItem();
+
+        TradeTransaction transaction = new TradeTransaction(accountsLookup.apply(level), buyOrder, sellOffer, quantity, executionPrice);
+        TradeTransaction.TradeResult result = lockManager.withPlayerLocks(
+            buyOrder.getPlayerAuth(), sellOffer.getPlayerAuth(), () -> {
+                if (!transaction.prepare()) {
+                    ModLogger.error("Trade preparation failed: %s", transaction.getFailureReason());
+                    return null;
+                }
+                TradeTransaction.TradeResult committed = transaction.commit();
+                if (committed == null) {
+                    ModLogger.error("Trade commit failed: %s", transaction.getFailureReason());
+                }
+                return committed;
+            });
+        if (result == null) {
+            return false;
+        }
+
+        // Update the book in place: resync partial fills, drop completed entries
+        if (buyOrder.canMatch()) {
+            book.syncBuyOrderQuantity(buyOrder.getOrderID());
+        } else {
+            book.removeBuyOrder(buyOrder.getOrderID());
+        }
+        if (sellOffer.isActive() && sellOffer.getQuantityRemaining() > 0) {
+            book.syncSellOfferQuantity(sellOffer.getOfferID());
+        } else {
+            book.removeSellOffer(sellOffer.getOfferID());
+        }
+        book.recordMatch();
+
+        totalFills.incrementAndGet();
+        batch.fills.add(new Fill(buyOrder, sellOffer, result, System.nanoTime() - startTime));
+        return true;
+    }
+
+    // ===== STATISTICS =====
+
+    public long getTotalSweeps() {
+        return totalSweeps.get();
+    }
+
+    public long getTotalFills() {
+        return totalFills.get();
+    }
+
+    // ===== NESTED CLASSES =====
+
+    /**
+     * One executed trade between a buy order and a sell offer.
+     */
+    public static class Fill {
+        private final BuyOrder buyOrder;
+        private final GEOffer sellOffer;
+        private final TradeTransaction.TradeResult result;
+        private final long executionTimeNanos;
+
+        public Fill(BuyOrder buyOrder, GEOffer sellOffer, TradeTransaction.TradeResult result, long executionTimeNanos) {
+            this.buyOrder = buyOrder;
+            this.sellOffer = sellOffer;
+            this.result = result;
+            this.executionTimeNanos = executionTimeNanos;
+        }
+
+        public BuyOrder getBuyOrder() {
+            return buyOrder;
+        }
+
+        public GEOffer getSellOffer() {
+            return sellOffer;
+        }
+
+        public TradeTransaction.TradeResult getResult() {
+            return result;
+        }
+
+        public long getExecutionTimeNanos() {
+            return executionTimeNanos;
+        }
+    }
+
+    /**
+     * All fills produced by one engine call, in execution order.
+     */
+    public static class MatchBatch {
+        private final String itemStringID;
+        private final List<Fill> fills = new ArrayList<>();
+
+        public MatchBatch(String itemStringID) {
+            this.itemStringID = itemStringID;
+        }
+
+        public String getItemStringID() {
+            return itemStringID;
+        }
+
+        public List<Fill> getFills() {
+            return Collections.unmodifiableList(fills);
+        }
+
+        public boolean isEmpty() {
+            return fills.isEmpty();
+        }
+
+        public int getTotalQuantity() {
+            int total = 0;
+            for (Fill fill : fills) {
+                total += fill.getResult().getQuantity();
+            }
+            return total;
+        }
+    }
+}
@@ -5,17 +5,28 @@ import medievalsim.grandexchange.domain.GEOffer;
 import medievalsim.util.ModLogger;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * High-performance order book for Grand Exchange item matching.
  * 
- * Architecture:
- * - Buy orders: Max-heap (highest price first, FIFO for same price)
- * - Sell offers: Min-heap (lowest price first, FIFO for same price)
- * - O(log n) insertion, O(1) best price lookup, O(log n) matching
+ * Architecture (price ladder):
+ * - Each side is a sorted map of price levels (bids DESC, asks ASC)
+ * - Each price level holds a FIFO queue of resting orders as an intrusive
+ *   doubly-linked list, plus running order count and quantity totals
+ * - An ID -> node map gives O(1) access to any resting order for cancel
  * 
- * Thread-safety: Uses concurrent collections for multi-threaded server access.
+ * Complexity:
+ * - Add: O(log L) to find/create the level (L = number of distinct prices), O(1) append
+ * - Cancel: O(1) unlink, O(log L) only when the level becomes empty
+ * - Best bid/ask: O(log L)
+ * - Market depth: O(L) (per-level totals are maintained, orders are never walked)
+ * 
+ * Quantities change outside the book (TradeTransaction fills the order objects
+ * directly), so callers report fills with syncBuyOrderQuantity/syncSellOfferQuantity
+ * to keep the per-level totals exact.
+ * 
+ * Thread-safety: All public methods synchronize on the book, except getTopOfBook,
+ * which reads an immutable summary republished after every change.
  * 
  * Pattern: Similar to financial order book systems (Limit Order Book).
  */
@@ -23,15 +34,22 @@ public class OrderBook {
     
     private final String itemStringID;
     
-    // Buy side: Max-heap ordered by price DESC, then creation time ASC (FIFO)
-    private final PriorityQueue<BuyOrder> buyOrders;
+    // Buy side: price levels ordered by price DESC (highest bid first)
+    private final TreeMap<Integer, PriceLevel<BuyOrder>> bidLevels;
+    
+    // Sell side: price levels ordered by price ASC (lowest ask first)
+    private final TreeMap<Integer, PriceLevel<GEOffer>> askLevels;
     
-    // Sell side: Min-heap ordered by price ASC, then creation time ASC (FIFO)
-    private final PriorityQueue<GEOffer> sellOffers;
+    // Intrusive node lookup for O(1) cancel
+    private final Map<Long, Node<BuyOrder>> buyNodesById;
+    private final Map<Long, Node<GEOffer>> sellNodesById;
     
-    // Quick lookup maps for order/offer retrieval
-    private final Map<Long, BuyOrder> buyOrdersById;
-    private final Map<Long, GEOffer> sellOffersById;
+    // Running side totals (sum of per-level quantities)
+    private long totalBuyQuantity;
+    private long totalSellQuantity;
+    
+    // Immutable best bid/ask summary, republished on every book change
+    private volatile TopOfBook topOfBook;
     
     // Statistics
     private int totalMatches;
@@ -42,47 +60,22 @@ public class OrderBook {
      */
     public OrderBook(String itemStringID) {
         this.itemStringID = itemStringID;
-        
-        // Buy orders: Higher price = higher priority, earlier time = higher priority
-        this.buyOrders = new PriorityQueue<>(new Comparator<BuyOrder>() {
-            @Override
-            public int compare(BuyOrder o1, BuyOrder o2) {
-                // Price comparison (DESC - higher price first)
-                int priceCompare = Integer.compare(o2.getPricePerItem(), o1.getPricePerItem());
-                if (priceCompare != 0) {
-                    return priceCompare;
-                }
-                // Time comparison (ASC - earlier first for FIFO)
-                return Long.compare(o1.getCreationTime(), o2.getCreationTime());
-            }
-        });
-        
-        // Sell offers: Lower price = higher priority, earlier time = higher priority
-        this.sellOffers = new PriorityQueue<>(new Comparator<GEOffer>() {
-            @Override
-            public int compare(GEOffer o1, GEOffer o2) {
-                // Price comparison (ASC - lower price first)
-                int priceCompare = Integer.compare(o1.getPricePerItem(), o2.getPricePerItem());
-                if (priceCompare != 0) {
-                    return priceCompare;
-                }
-                // Time comparison (ASC - earlier first for FIFO)
-                return Long.compare(o1.getCreatedTime(), o2.getCreatedTime());
-            }
-        });
-        
-        this.buyOrdersById = new ConcurrentHashMap<>();
-        this.sellOffersById = new ConcurrentHashMap<>();
-        
+        this.bidLevels = new TreeMap<>(Collections.reverseOrder());
+        this.askLevels = new TreeMap<>();
+        this.buyNodesById = new HashMap<>();
+        this.sellNodesById = new HashMap<>();
+        this.totalBuyQuantity = 0L;
+        this.totalSellQuantity = 0L;
         this.totalMatches = 0;
         this.lastMatchTime = 0L;
+        this.topOfBook = TopOfBook.EMPTY;
     }
     
     // ===== BUY ORDER OPERATIONS =====
     
     /**
      * Add buy order to the book.
-     * O(log n) complexity.
+     * O(log L) to locate the price level, O(1) append.
      */
     public synchronized void addBuyOrder(BuyOrder order) {
         if (!order.getItemStringID().equals(itemStringID)) {
@@ -97,14 +90,19 @@ public class OrderBook {
         }
         
         // Prevent duplicate entries by order ID
-        if (buyOrdersById.containsKey(order.getOrderID())) {
+        if (buyNodesById.containsKey(order.getOrderID())) {
             ModLogger.debug("Buy order ID=%d already present in order book for %s, skipping add",
                 order.getOrderID(), itemStringID);
             return;
         }
 
-        buyOrders.offer(order);
-        buyOrdersById.put(order.getOrderID(), order);
+        PriceLevel<BuyOrder> level = bidLevels.computeIfAbsent(order.getPricePerItem(), PriceLevel::new);
+        Node<BuyOrder> node = new Node<>(order, order.getOrderID(), order.getCreationTime(),
+            order.getQuantityRemaining());
+        level.append(node);
+        buyNodesById.put(order.getOrderID(), node);
+        totalBuyQuantity += node.quantity;
+        publishTopOfBook();
         
         ModLogger.debug("Added buy order ID=%d to order book for %s (price=%d, qty=%d)",
             order.getOrderID(), itemStringID, order.getPricePerItem(), order.getQuantityRemaining());
@@ -112,39 +110,78 @@ public class OrderBook {
     
     /**
      * Remove buy order from the book.
-     * O(n) complexity (heap removal by value).
+     * O(1) unlink (O(log L) if the price level empties).
      */
     public synchronized boolean removeBuyOrder(long orderID) {
-        BuyOrder order = buyOrdersById.remove(orderID);
-        if (order == null) {
+        Node<BuyOrder> node = buyNodesById.remove(orderID);
+        if (node == null) {
             return false;
         }
         
-        boolean removed = buyOrders.remove(order);
+        totalBuyQuantity -= node.quantity;
+        PriceLevel<BuyOrder> level = node.level;
+        level.unlink(node);
+        if (level.isEmpty()) {
+            bidLevels.remove(level.price);
+        }
+        publishTopOfBook();
         ModLogger.debug("Removed buy order ID=%d from order book for %s", orderID, itemStringID);
-        return removed;
+        return true;
+    }
+    
+    /**
+     * Re-read a resting buy order's remaining quantity after a fill.
+     * Keeps the running level totals exact. O(1).
+     */
+    public synchronized void syncBuyOrderQuantity(long orderID) {
+        Node<BuyOrder> node = buyNodesById.get(orderID);
+        if (node != null) {
+            totalBuyQuantity += node.level.resync(node, node.order.getQuantityRemaining());
+            publishTopOfBook();
+        }
     }
     
     /**
      * Get best (highest price) buy order.
-     * O(1) complexity.
+     * O(log L) complexity.
      */
     public synchronized BuyOrder getBestBuyOrder() {
-        return buyOrders.peek();
+        Map.Entry<Integer, PriceLevel<BuyOrder>> best = bidLevels.firstEntry();
+        return best == null ? null : best.getValue().head.order;
     }
     
     /**
-     * Get all buy orders sorted by priority.
+     * Get best bid price, or 0 if there are no buy orders.
+     */
+    public synchronized int getBestBuyPrice() {
+        return bidLevels.isEmpty() ? 0 : bidLevels.firstKey();
+    }
+    
+    /**
+     * Get all buy orders sorted by priority (price DESC, then FIFO).
      */
     public synchronized List<BuyOrder> getAllBuyOrders() {
-        return new ArrayList<>(buyOrders);
+        List<BuyOrder> result = new ArrayList<>(buyNodesById.size());
+        for (PriceLevel<BuyOrder> level : bidLevels.values()) {
+            for (Node<BuyOrder> node = level.head; node != null; node = node.next) {
+                result.add(node.order);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Get IDs of all resting buy orders (copy, for consistency checks).
+     */
+    public synchronized Set<Long> getBuyOrderIDs() {
+        return new HashSet<>(buyNodesById.keySet());
     }
     
     // ===== SELL OFFER OPERATIONS =====
     
     /**
      * Add sell offer to the book.
-     * O(log n) complexity.
+     * O(log L) to locate the price level, O(1) append.
      */
     public synchronized void addSellOffer(GEOffer offer) {
         if (!offer.getItemStringID().equals(itemStringID)) {
@@ -159,14 +196,19 @@ public class OrderBook {
         }
         
         // Prevent duplicate entries by offer ID
-        if (sellOffersById.containsKey(offer.getOfferID())) {
+        if (sellNodesById.containsKey(offer.getOfferID())) {
             ModLogger.debug("Sell offer ID=%d already present in order book for %s, skipping add",
                 offer.getOfferID(), itemStringID);
             return;
         }
 
-        sellOffers.offer(offer);
-        sellOffersById.put(offer.getOfferID(), offer);
+        PriceLevel<GEOffer> level = askLevels.computeIfAbsent(offer.getPricePerItem(), PriceLevel::new);
+        Node<GEOffer> node = new Node<>(offer, offer.getOfferID(), offer.getCreatedTime(),
+            offer.getQuantityRemaining());
+        level.append(node);
+        sellNodesById.put(offer.getOfferID(), node);
+        totalSellQuantity += node.quantity;
+        publishTopOfBook();
         
         ModLogger.debug("Added sell offer ID=%d to order book for %s (price=%d, qty=%d)",
             offer.getOfferID(), itemStringID, offer.getPricePerItem(), offer.getQuantityRemaining());
@@ -174,38 +216,78 @@ public class OrderBook {
     
     /**
      * Remove sell offer from the book.
-     * O(n) complexity (heap removal by value).
+     * O(1) unlink (O(log L) if the price level empties).
      */
     public synchronized boolean removeSellOffer(long offerID) {
-        GEOffer offer = sellOffersById.remove(offerID);
-        if (offer == null) {
+        Node<GEOffer> node = sellNodesById.remove(offerID);
+        if (node == null) {
             return false;
         }
         
-        boolean removed = sellOffers.remove(offer);
+        totalSellQuantity -= node.quantity;
+        PriceLevel<GEOffer> level = node.level;
+        level.unlink(node);
+        if (level.isEmpty()) {
+            askLevels.remove(level.price);
+        }
+        publishTopOfBook();
         ModLogger.debug("Removed sell offer ID=%d from order book for %s", offerID, itemStringID);
-        return removed;
+        return true;
+    }
+    
+    /**
+     * Re-read a resting sell offer's remaining quantity after a fill.
+     * Keeps the running level totals exact. O(1).
+     */
+    public synchronized void syncSellOfferQuantity(long offerID) {
+        Node<GEOffer> node = sellNodesById.get(offerID);
+        if (node != null) {
+            totalSellQuantity += node.level.resync(node, node.order.getQuantityRemaining());
+            publishTopOfBook();
+        }
     }
     
     /**
      * Get best (lowest price) sell offer.
-     * O(1) complexity.
+     * O(log L) complexity.
      */
     public synchronized GEOffer getBestSellOffer() {
-        return sellOffers.peek();
+        Map.Entry<Integer, PriceLevel<GEOffer>> best = askLevels.firstEntry();
+        return best == null ? null : best.getValue().head.order;
     }
     
     /**
-     * Get all sell offers sorted by priority.
+     * Get best ask price, or 0 if there are no sell offers.
+     */
+    public synchronized int getBestSellPrice() {
+        return askLevels.isEmpty() ? 0 : askLevels.firstKey();
+    }
+    
+    /**
+     * Get all sell offers sorted by priority (price ASC, then FIFO).
      */
     public synchronized List<GEOffer> getAllSellOffers() {
-        return new ArrayList<>(sellOffers);
+        List<GEOffer> result = new ArrayList<>(sellNodesById.size());
+        for (PriceLevel<GEOffer> level : askLevels.values()) {
+            for (Node<GEOffer> node = level.head; node != null; node = node.next) {
+                result.add(node.order);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Get IDs of all resting sell offers (copy, for consistency checks).
+     */
+    public synchronized Set<Long> getSellOfferIDs() {
+        return new HashSet<>(sellNodesById.keySet());
     }
     
     // ===== MATCHING OPERATIONS =====
     
     /**
      * Find all compatible matches between a buy order and sell offers.
+     * Walks ask levels from the lowest price up to the buy limit.
      * Returns list of (sellOffer, quantity) pairs that can be matched.
      */
     public synchronized List<Match> findMatchesForBuyOrder(BuyOrder buyOrder) {
@@ -217,27 +299,25 @@ public class OrderBook {
         
         int remainingQty = buyOrder.getQuantityRemaining();
         
-        // Iterate through sell offers (lowest price first)
-        for (GEOffer sellOffer : sellOffers) {
+        // Only levels priced at or below the buy limit are compatible
+        for (PriceLevel<GEOffer> level : askLevels.headMap(buyOrder.getPricePerItem(), true).values()) {
+            for (Node<GEOffer> node = level.head; node != null && remainingQty > 0; node = node.next) {
+                GEOffer sellOffer = node.order;
+                
+                // Check if both can still trade
+                if (!sellOffer.isActive() || sellOffer.getQuantityRemaining() <= 0) {
+                    continue;
+                }
+                
+                // Calculate trade quantity
+                int tradeQty = Math.min(remainingQty, sellOffer.getQuantityRemaining());
+                
+                matches.add(new Match(sellOffer, tradeQty, buyOrder.getPricePerItem()));
+                remainingQty -= tradeQty;
+            }
             if (remainingQty <= 0) {
                 break;
             }
-            
-            // Check if prices are compatible (buy price >= sell price)
-            if (buyOrder.getPricePerItem() < sellOffer.getPricePerItem()) {
-                break; // No more compatible offers (heap is sorted)
-            }
-            
-            // Check if both can still trade
-            if (!sellOffer.isActive() || sellOffer.getQuantityRemaining() <= 0) {
-                continue;
-            }
-            
-            // Calculate trade quantity
-            int tradeQty = Math.min(remainingQty, sellOffer.getQuantityRemaining());
-            
-            matches.add(new Match(sellOffer, tradeQty, buyOrder.getPricePerItem()));
-            remainingQty -= tradeQty;
         }
         
         return matches;
@@ -245,6 +325,7 @@ public class OrderBook {
     
     /**
      * Find all compatible matches between a sell offer and buy orders.
+     * Walks bid levels from the highest price down to the sell limit.
      * Returns list of (buyOrder, quantity) pairs that can be matched.
      */
     public synchronized List<Match> findMatchesForSellOffer(GEOffer sellOffer) {
@@ -256,79 +337,157 @@ public class OrderBook {
         
         int remainingQty = sellOffer.getQuantityRemaining();
         
-        // Iterate through buy orders (highest price first)
-        for (BuyOrder buyOrder : buyOrders) {
+        // Only levels priced at or above the ask are compatible (bid map is DESC)
+        for (PriceLevel<BuyOrder> level : bidLevels.headMap(sellOffer.getPricePerItem(), true).values()) {
+            for (Node<BuyOrder> node = level.head; node != null && remainingQty > 0; node = node.next) {
+                BuyOrder buyOrder = node.order;
+                
+                // Check if both can still trade
+                if (!buyOrder.canMatch()) {
+                    continue;
+                }
+                
+                // Calculate trade quantity
+                int tradeQty = Math.min(remainingQty, buyOrder.getQuantityRemaining());
+                
+                matches.add(new Match(sellOffer, buyOrder, tradeQty, buyOrder.getPricePerItem()));
+                remainingQty -= tradeQty;
+            }
             if (remainingQty <= 0) {
                 break;
             }
-            
-            // Check if prices are compatible (buy price >= sell price)
-            if (buyOrder.getPricePerItem() < sellOffer.getPricePerItem()) {
-                break; // No more compatible orders (heap is sorted)
-            }
-            
-            // Check if both can still trade
-            if (!buyOrder.canMatch()) {
-                continue;
-            }
-            
-            // Calculate trade quantity
-            int tradeQty = Math.min(remainingQty, buyOrder.getQuantityRemaining());
-            
-            matches.add(new Match(sellOffer, buyOrder, tradeQty, buyOrder.getPricePerItem()));
-            remainingQty -= tradeQty;
         }
         
         return matches;
     }
     
     /**
-     * Rebuild heaps after external modifications.
-     * Call this if order/offer quantities change externally.
-     * O(n log n) complexity.
+     * Best resting buy order that crosses an ask at askPrice, in price-time priority.
+     * Skips the given player's own orders and any IDs in skipIDs; prunes entries
+     * that can no longer match. Used by MatchingEngine while holding the book lock.
+     */
+    synchronized BuyOrder peekCrossingBuyOrder(int askPrice, long excludePlayerAuth, Set<Long> skipIDs) {
+        List<Long> stale = null;
+        BuyOrder found = null;
+        outer:
+        for (PriceLevel<BuyOrder> level : bidLevels.headMap(askPrice, true).values()) {
+            for (Node<BuyOrder> node = level.head; node != null; node = node.next) {
+                BuyOrder order = node.order;
+                if (!order.canMatch()) {
+                    if (stale == null) stale = new ArrayList<>();
+                    stale.add(node.id);
+                } else if (order.getPlayerAuth() != excludePlayerAuth && !skipIDs.contains(node.id)) {
+                    found = order;
+                    break outer;
+                }
+            }
+        }
+        if (stale != null) {
+            stale.forEach(this::removeBuyOrder);
+        }
+        return found;
+    }
+    
+    /**
+     * Best resting sell offer that crosses a bid at bidPrice, in price-time priority.
+     * Skips the given player's own offers and any IDs in skipIDs; prunes entries
+     * that can no longer match. Used by MatchingEngine while holding the book lock.
+     */
+    synchronized GEOffer peekCrossingSellOffer(int bidPrice, long excludePlayerAuth, Set<Long> skipIDs) {
+        List<Long> stale = null;
+        GEOffer found = null;
+        outer:
+        for (PriceLevel<GEOffer> level : askLevels.headMap(bidPrice, true).values()) {
+            for (Node<GEOffer> node = level.head; node != null; node = node.next) {
+                GEOffer offer = node.order;
+                if (!offer.isActive() || offer.getQuantityRemaining() <= 0) {
+                    if (stale == null) stale = new ArrayList<>();
+                    stale.add(node.id);
+                } else if (offer.getPlayerAuth() != excludePlayerAuth && !skipIDs.contains(node.id)) {
+                    found = offer;
+                    break outer;
+                }
+            }
+        }
+        if (stale != null) {
+            stale.forEach(this::removeSellOffer);
+        }
+        return found;
+    }
+    
+    /**
+     * Drop orders that can no longer match and resync every level total.
+     * Call this if order/offer state changed externally without notifying the book.
+     * O(n) complexity.
      */
     public synchronized void rebuild() {
-        // Remove completed/invalid orders
-        buyOrders.removeIf(order -> !order.canMatch());
-        sellOffers.removeIf(offer -> !offer.isActive() || offer.getQuantityRemaining() <= 0);
-        
-        // Rebuild lookup maps
-        buyOrdersById.clear();
-        for (BuyOrder order : buyOrders) {
-            buyOrdersById.put(order.getOrderID(), order);
+        for (Node<BuyOrder> node : new ArrayList<>(buyNodesById.values())) {
+            if (!node.order.canMatch()) {
+                removeBuyOrder(node.id);
+            } else {
+                syncBuyOrderQuantity(node.id);
+            }
         }
-        
-        sellOffersById.clear();
-        for (GEOffer offer : sellOffers) {
-            sellOffersById.put(offer.getOfferID(), offer);
+        for (Node<GEOffer> node : new ArrayList<>(sellNodesById.values())) {
+            if (!node.order.isActive() || node.order.getQuantityRemaining() <= 0) {
+                removeSellOffer(node.id);
+            } else {
+                syncSellOfferQuantity(node.id);
+            }
         }
         
         ModLogger.debug("Rebuilt order book for %s: %d buy orders, %d sell offers",
-            itemStringID, buyOrders.size(), sellOffers.size());
+            itemStringID, buyNodesById.size(), sellNodesById.size());
+    }
+    
+    // ===== TOP OF BOOK =====
+    
+    /**
+     * Get the current best bid/ask summary without locking or copying.
+     * The returned record is immutable; a newer one replaces it on every book change.
+     */
+    public TopOfBook getTopOfBook() {
+        return topOfBook;
+    }
+    
+    /**
+     * Recompute the top-of-book summary. Caller holds the book monitor.
+     * O(log L): reads only the first (and for asks, last) price level.
+     */
+    private void publishTopOfBook() {
+        Map.Entry<Integer, PriceLevel<BuyOrder>> bid = bidLevels.firstEntry();
+        Map.Entry<Integer, PriceLevel<GEOffer>> ask = askLevels.firstEntry();
+        if (bid == null && ask == null) {
+            topOfBook = TopOfBook.EMPTY;
+            return;
+        }
+        topOfBook = new TopOfBook(
+            bid == null ? 0 : bid.getKey(),
+            bid == null ? 0L : bid.getValue().totalQuantity,
+            ask == null ? 0 : ask.getKey(),
+            ask == null ? 0L : ask.getValue().totalQuantity,
+            askLevels.isEmpty() ? 0 : askLevels.lastKey(),
+            buyNodesById.size(),
+            sellNodesById.size()
+        );
     }
     
     // ===== MARKET DEPTH =====
     
     /**
      * Get market depth (aggregated quantity at each price level).
+     * Reads the maintained per-level totals; O(L) in the number of price levels.
      * Used for visualization and analytics.
      */
     public synchronized MarketDepth getMarketDepth() {
         Map<Integer, Integer> buyDepth = new TreeMap<>(Collections.reverseOrder()); // DESC
         Map<Integer, Integer> sellDepth = new TreeMap<>(); // ASC
         
-        // Aggregate buy orders by price
-        for (BuyOrder order : buyOrders) {
-            int price = order.getPricePerItem();
-            int qty = order.getQuantityRemaining();
-            buyDepth.merge(price, qty, Integer::sum);
+        for (PriceLevel<BuyOrder> level : bidLevels.values()) {
+            buyDepth.put(level.price, (int) Math.min(Integer.MAX_VALUE, level.totalQuantity));
         }
-        
-        // Aggregate sell offers by price
-        for (GEOffer offer : sellOffers) {
-            int price = offer.getPricePerItem();
-            int qty = offer.getQuantityRemaining();
-            sellDepth.merge(price, qty, Integer::sum);
+        for (PriceLevel<GEOffer> level : askLevels.values()) {
+            sellDepth.put(level.price, (int) Math.min(Integer.MAX_VALUE, level.totalQuantity));
         }
         
         return new MarketDepth(buyDepth, sellDepth);
@@ -341,11 +500,27 @@ public class OrderBook {
     }
     
     public synchronized int getBuyOrderCount() {
-        return buyOrders.size();
+        return buyNodesById.size();
     }
     
     public synchronized int getSellOfferCount() {
-        return sellOffers.size();
+        return sellNodesById.size();
+    }
+    
+    public synchronized long getTotalBuyQuantity() {
+        return totalBuyQuantity;
+    }
+    
+    public synchronized long getTotalSellQuantity() {
+        return totalSellQuantity;
+    }
+    
+    public synchronized int getBuyPriceLevelCount() {
+        return bidLevels.size();
+    }
+    
+    public synchronized int getSellPriceLevelCount() {
+        return askLevels.size();
     }
     
     public int getTotalMatches() {
@@ -357,7 +532,7 @@ public class OrderBook {
     }
     
     public synchronized boolean isEmpty() {
-        return buyOrders.isEmpty() && sellOffers.isEmpty();
+        return buyNodesById.isEmpty() && sellNodesById.isEmpty();
     }
     
     synchronized void recordMatch() {
@@ -365,8 +540,139 @@ public class OrderBook {
         lastMatchTime = System.currentTimeMillis();
     }
     
+    // ===== LADDER INTERNALS =====
+    
+    /**
+     * Intrusive list node for one resting order.
+     * Caches the quantity last counted into the level total.
+     */
+    private static final class Node<T> {
+        final T order;
+        final long id;
+        final long timestamp;
+        int quantity;
+        PriceLevel<T> level;
+        Node<T> prev;
+        Node<T> next;
+        
+        Node(T order, long id, long timestamp, int quantity) {
+            this.order = order;
+            this.id = id;
+            this.timestamp = timestamp;
+            this.quantity = quantity;
+        }
+    }
+    
+    /**
+     * One price level: FIFO queue of nodes with running totals.
+     */
+    private static final class PriceLevel<T> {
+        final int price;
+        Node<T> head;
+        Node<T> tail;
+        int orderCount;
+        long totalQuantity;
+        
+        PriceLevel(int price) {
+            this.price = price;
+        }
+        
+        /**
+         * Append in time priority. New orders are almost always the newest,
+         * so this is O(1); older timestamps (re-enabled offers) walk back from
+         * the tail to keep FIFO by creation time. Bulk loads add in creation
+         * order so they never walk.
+         */
+        void append(Node<T> node) {
+            node.level = this;
+            Node<T> after = tail;
+            while (after != null && after.timestamp > node.timestamp) {
+                after = after.prev;
+            }
+            if (after == null) {
+                node.prev = null;
+                node.next = head;
+                if (head != null) {
+                    head.prev = node;
+                } else {
+                    tail = node;
+                }
+                head = node;
+            } else {
+                node.prev = after;
+                node.next = after.next;
+                if (after.next != null) {
+                    after.next.prev = node;
+                } else {
+                    tail = node;
+                }
+                after.next = node;
+            }
+            orderCount++;
+            totalQuantity += node.quantity;
+        }
+        
+        void unlink(Node<T> node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                tail = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.level = null;
+            orderCount--;
+            totalQuantity -= node.quantity;
+        }
+        
+        /**
+         * Update a node's counted quantity.
+         * @return The delta applied to the level total
+         */
+        long resync(Node<T> node, int quantity) {
+            long delta = (long) quantity - node.quantity;
+            node.quantity = quantity;
+            totalQuantity += delta;
+            return delta;
+        }
+        
+        boolean isEmpty() {
+            return head == null;
+        }
+    }
+    
     // ===== NESTED CLASSES =====
     
+    /**
+     * Immutable best bid/ask snapshot of one book. Prices are 0 when that side is empty.
+     * @param highestAsk Highest resting sell price (worst ask)
+     */
+    public record TopOfBook(int bestBid, long bestBidQuantity, int bestAsk, long bestAskQuantity,
+                            int highestAsk, int buyOrderCount, int sellOfferCount) {
+        
+        public static final TopOfBook EMPTY = new TopOfBook(0, 0L, 0, 0L, 0, 0, 0);
+        
+        public boolean hasBid() {
+            return buyOrderCount > 0;
+        }
+        
+        public boolean hasAsk() {
+            return sellOfferCount > 0;
+        }
+        
+        /**
+         * @return Ask minus bid, or 0 unless both sides are present
+         */
+        public int getSpread() {
+            return hasBid() && hasAsk() ? bestAsk - bestBid : 0;
+        }
+    }
+    
     /**
      * Represents a potential match between buy and sell.
      */
@@ -1,70 +1,102 @@
 package medievalsim.grandexchange.services;
 
-import medievalsim.util.ModLogger;
+import medievalsim.config.ModConfig;
+import medievalsim.metrics.LatencyHistogram;
+import medievalsim.metrics.SlidingWindowCounter;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Performance monitoring and metrics collection for Grand Exchange.
  * 
  * Tracks:
  * - Trades per minute/hour
- * - Average trade execution time
+ * - Trade execution time percentiles (p50/p99/p999)
  * - Active offers per item
  * - Coin velocity (economic indicator)
  * - Market health indicators
+ * - Market browser snapshot cache hit/miss
  * 
  * Pattern: Metrics collector with sliding windows.
- * Thread-safe using concurrent collections.
+ * Recording is lock-free: trade and coin rates live in bucketed rings
+ * (per second for the last hour, per minute for the last day), execution times
+ * in HDR-style histograms rotated every metricsWindowSeconds, so percentiles cover
+ * the last one to two windows. Reads never block trades.
  */
 public class PerformanceMetrics {
     
-    // Trade timing tracking
-    private final List<TradeEvent> recentTrades = Collections.synchronizedList(new ArrayList<>());
-    private final int maxTradeHistory = 1000;
+    private static final long SECOND_MS = 1000L;
+    private static final long MINUTE_MS = 60 * SECOND_MS;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    
+    // Rate tracking: per-second buckets for the last hour, per-minute buckets for the last day
+    private final SlidingWindowCounter tradesPerSecond = new SlidingWindowCounter(3600, SECOND_MS);
+    private final SlidingWindowCounter coinsPerSecond = new SlidingWindowCounter(3600, SECOND_MS);
+    private final SlidingWindowCounter tradesPerMinute = new SlidingWindowCounter(1440, MINUTE_MS);
+    private final SlidingWindowCounter coinsPerMinute = new SlidingWindowCounter(1440, MINUTE_MS);
     
     // Per-item metrics
     private final Map<String, ItemMetrics> itemMetrics = new ConcurrentHashMap<>();
     
     // System metrics
-    private long totalTrades = 0;
-    private long totalCoinsTraded = 0;
-    private long systemStartTime = System.currentTimeMillis();
+    private final LongAdder totalTrades = new LongAdder();
+    private final LongAdder totalCoinsTraded = new LongAdder();
+    private final long systemStartTime = System.currentTimeMillis();
+    
+    // Execution time tracking (microseconds): current window plus the one before it
+    private volatile LatencyHistogram currentLatency = new LatencyHistogram();
+    private volatile LatencyHistogram previousLatency = new LatencyHistogram();
+    private volatile long latencyWindowStart = System.currentTimeMillis();
     
-    // Performance tracking
-    private final List<Long> tradeDurations = Collections.synchronizedList(new ArrayList<>());
-    private final int maxDurationSamples = 100;
+    // Snapshot cache tracking
+    private final AtomicLong snapshotCacheHits = new AtomicLong(0);
+    private final AtomicLong snapshotCacheMisses = new AtomicLong(0);
     
     /**
      * Record a completed trade.
      */
-    public void recordTrade(String itemID, int quantity, int pricePerItem, long executionTimeMs) {
+    public void recordTrade(String itemID, int quantity, int pricePerItem, long executionTimeNanos) {
         long now = System.currentTimeMillis();
+        long coins = (long) quantity * pricePerItem;
         
-        // Record trade event
-        TradeEvent event = new TradeEvent(now, itemID, quantity, pricePerItem);
-        synchronized (recentTrades) {
-            recentTrades.add(event);
-            if (recentTrades.size() > maxTradeHistory) {
-                recentTrades.remove(0);
-            }
-        }
+        tradesPerSecond.add(now, 1);
+        coinsPerSecond.add(now, coins);
+        tradesPerMinute.add(now, 1);
+        coinsPerMinute.add(now, coins);
         
         // Update item metrics
         ItemMetrics metrics = itemMetrics.computeIfAbsent(itemID, ItemMetrics::new);
         metrics.recordTrade(quantity, pricePerItem);
         
         // Update system metrics
-        totalTrades++;
-        totalCoinsTraded += (long) quantity * pricePerItem;
+        totalTrades.increment();
+        totalCoinsTraded.add(coins);
         
         // Record execution time
-        synchronized (tradeDurations) {
-            tradeDurations.add(executionTimeMs);
-            if (tradeDurations.size() > maxDurationSamples) {
-                tradeDurations.remove(0);
+        rotateLatencyWindow(now);
+        currentLatency.record(Math.max(0L, executionTimeNanos) / 1000);
+    }
+    
+    /**
+     * Start a new latency window once the configured window has elapsed.
+     * Only the rotating thread takes the lock; recorders just read two volatiles.
+     */
+    private void rotateLatencyWindow(long now) {
+        long windowMs = ModConfig.GrandExchange.metricsWindowSeconds * SECOND_MS;
+        if (now - latencyWindowStart < windowMs) {
+            return;
+        }
+        synchronized (this) {
+            if (now - latencyWindowStart < windowMs) {
+                return;
             }
+            previousLatency = currentLatency;
+            currentLatency = new LatencyHistogram();
+            latencyWindowStart = now;
         }
     }
     
@@ -76,65 +108,97 @@ public class PerformanceMetrics {
         metrics.updateActiveOffers(buyOrders, sellOffers);
     }
     
+    /**
+     * Record a market browser page served from the snapshot cache.
+     */
+    public void recordSnapshotCacheHit() {
+        snapshotCacheHits.incrementAndGet();
+    }
+    
+    /**
+     * Record a market browser page that had to be built from the index.
+     */
+    public void recordSnapshotCacheMiss() {
+        snapshotCacheMisses.incrementAndGet();
+    }
+    
+    public long getSnapshotCacheHits() {
+        return snapshotCacheHits.get();
+    }
+    
+    public long getSnapshotCacheMisses() {
+        return snapshotCacheMisses.get();
+    }
+    
+    /**
+     * Get snapshot cache hit rate (0.0 - 1.0).
+     */
+    public double getSnapshotCacheHitRate() {
+        long hits = snapshotCacheHits.get();
+        long total = hits + snapshotCacheMisses.get();
+        return total > 0 ? (double) hits / total : 0;
+    }
+    
     /**
      * Get trades per minute (last 60 minutes).
      */
     public double getTradesPerMinute() {
-        long now = System.currentTimeMillis();
-        long oneHourAgo = now - (60 * 60 * 1000);
-        
-        synchronized (recentTrades) {
-            long tradesLastHour = recentTrades.stream()
-                .filter(t -> t.getTimestamp() >= oneHourAgo)
-                .count();
-            
-            return tradesLastHour / 60.0;
-        }
+        return tradesPerSecond.sum(System.currentTimeMillis(), HOUR_MS) / 60.0;
     }
     
     /**
      * Get trades per hour (last 24 hours).
      */
     public double getTradesPerHour() {
-        long now = System.currentTimeMillis();
-        long oneDayAgo = now - (24 * 60 * 60 * 1000);
-        
-        synchronized (recentTrades) {
-            long tradesLastDay = recentTrades.stream()
-                .filter(t -> t.getTimestamp() >= oneDayAgo)
-                .count();
-            
-            return tradesLastDay / 24.0;
-        }
+        return tradesPerMinute.sum(System.currentTimeMillis(), DAY_MS) / 24.0;
+    }
+    
+    /**
+     * Get trades in the last given number of seconds (up to one hour).
+     */
+    public long getTradesInLastSeconds(int seconds) {
+        return tradesPerSecond.sum(System.currentTimeMillis(), seconds * SECOND_MS);
     }
     
     /**
-     * Get average trade execution time (milliseconds).
+     * Get average trade execution time (milliseconds) over the latency windows.
      */
     public double getAverageExecutionTime() {
-        synchronized (tradeDurations) {
-            if (tradeDurations.isEmpty()) {
-                return 0;
-            }
-            return tradeDurations.stream()
-                .mapToLong(Long::longValue)
-                .average()
-                .orElse(0);
+        LatencyHistogram current = currentLatency;
+        LatencyHistogram previous = previousLatency;
+        long count = current.getCount() + previous.getCount();
+        if (count == 0) {
+            return 0;
         }
+        double totalMicros = current.getMean() * current.getCount() + previous.getMean() * previous.getCount();
+        return totalMicros / count / 1000.0;
     }
     
     /**
      * Get median trade execution time (milliseconds).
      */
     public long getMedianExecutionTime() {
-        synchronized (tradeDurations) {
-            if (tradeDurations.isEmpty()) {
-                return 0;
-            }
-            List<Long> sorted = new ArrayList<>(tradeDurations);
-            sorted.sort(Long::compareTo);
-            return sorted.get(sorted.size() / 2);
-        }
+        return getExecutionTimePercentileMicros(50.0) / 1000;
+    }
+    
+    /**
+     * Get a trade execution time percentile (microseconds, within ~3%).
+     * @param percentile 0-100, e.g. 99.9
+     */
+    public long getExecutionTimePercentileMicros(double percentile) {
+        return LatencyHistogram.valueAtPercentile(percentile, currentLatency, previousLatency);
+    }
+    
+    public long getP50ExecutionMicros() {
+        return getExecutionTimePercentileMicros(50.0);
+    }
+    
+    public long getP99ExecutionMicros() {
+        return getExecutionTimePercentileMicros(99.0);
+    }
+    
+    public long getP999ExecutionMicros() {
+        return getExecutionTimePercentileMicros(99.9);
     }
     
     /**
@@ -142,17 +206,14 @@ public class PerformanceMetrics {
      * Higher velocity = more active economy.
      */
     public double getCoinVelocity() {
-        long now = System.currentTimeMillis();
-        long oneHourAgo = now - (60 * 60 * 1000);
-        
-        synchronized (recentTrades) {
-            long coinsLastHour = recentTrades.stream()
-                .filter(t -> t.getTimestamp() >= oneHourAgo)
-                .mapToLong(t -> (long) t.getQuantity() * t.getPricePerItem())
-                .sum();
-            
-            return coinsLastHour;
-        }
+        return coinsPerSecond.sum(System.currentTimeMillis(), HOUR_MS);
+    }
+    
+    /**
+     * Get coins traded in the last 24 hours.
+     */
+    public long getCoinsLastDay() {
+        return coinsPerMinute.sum(System.currentTimeMillis(), DAY_MS);
     }
     
     /**
@@ -195,90 +256,51 @@ public class PerformanceMetrics {
      */
     public MarketReport getMarketReport() {
         return new MarketReport(
-            totalTrades,
-            totalCoinsTraded,
+            totalTrades.sum(),
+            totalCoinsTraded.sum(),
             getTradesPerMinute(),
             getTradesPerHour(),
             getAverageExecutionTime(),
+            getP50ExecutionMicros(),
+            getP99ExecutionMicros(),
+            getP999ExecutionMicros(),
             getCoinVelocity(),
             getMarketHealthScore(),
             itemMetrics.size(),
-            System.currentTimeMillis() - systemStartTime
+            System.currentTimeMillis() - systemStartTime,
+            getSnapshotCacheHitRate()
         );
     }
     
     /**
-     * Cleanup old data (called periodically).
+     * Periodic maintenance. Rate buckets recycle themselves, so this only
+     * ages out the latency window when no trades have arrived to do it.
      */
     public void cleanup() {
-        long now = System.currentTimeMillis();
-        long cutoff = now - (24 * 60 * 60 * 1000); // 24 hours
-        
-        synchronized (recentTrades) {
-            int before = recentTrades.size();
-            recentTrades.removeIf(t -> t.getTimestamp() < cutoff);
-            int removed = before - recentTrades.size();
-            
-            if (removed > 0) {
-                ModLogger.debug("Performance metrics cleanup: removed %d old trade events", removed);
-            }
-        }
+        rotateLatencyWindow(System.currentTimeMillis());
     }
     
     // ===== NESTED CLASSES =====
     
-    /**
-     * Trade event for time-series analysis.
-     */
-    private static class TradeEvent {
-        private final long timestamp;
-        private final String itemID;
-        private final int quantity;
-        private final int pricePerItem;
-        
-        public TradeEvent(long timestamp, String itemID, int quantity, int pricePerItem) {
-            this.timestamp = timestamp;
-            this.itemID = itemID;
-            this.quantity = quantity;
-            this.pricePerItem = pricePerItem;
-        }
-        
-        public long getTimestamp() {
-            return timestamp;
-        }
-        
-        public String getItemID() {
-            return itemID;
-        }
-        
-        public int getQuantity() {
-            return quantity;
-        }
-        
-        public int getPricePerItem() {
-            return pricePerItem;
-        }
-    }
-    
     /**
      * Per-item metrics.
      */
     public static class ItemMetrics {
         private final String itemID;
-        private long tradeCount = 0;
-        private long totalVolume = 0; // Total quantity traded
-        private long totalValue = 0;  // Total coins traded
-        private int activeBuyOrders = 0;
-        private int activeSellOffers = 0;
+        private final LongAdder tradeCount = new LongAdder();
+        private final LongAdder totalVolume = new LongAdder(); // Total quantity traded
+        private final LongAdder totalValue = new LongAdder();  // Total coins traded
+        private volatile int activeBuyOrders = 0;
+        private volatile int activeSellOffers = 0;
         
         public ItemMetrics(String itemID) {
             this.itemID = itemID;
         }
         
         public void recordTrade(int quantity, int pricePerItem) {
-            tradeCount++;
-            totalVolume += quantity;
-            totalValue += (long) quantity * pricePerItem;
+            tradeCount.increment();
+            totalVolume.add(quantity);
+            totalValue.add((long) quantity * pricePerItem);
         }
         
         public void updateActiveOffers(int buyOrders, int sellOffers) {
@@ -291,15 +313,15 @@ public class PerformanceMetrics {
         }
         
         public long getTradeCount() {
-            return tradeCount;
+            return tradeCount.sum();
         }
         
         public long getTotalVolume() {
-            return totalVolume;
+            return totalVolume.sum();
         }
         
         public long getTotalValue() {
-            return totalValue;
+            return totalValue.sum();
         }
         
         public int getActiveBuyOrders() {
@@ -311,7 +333,8 @@ public class PerformanceMetrics {
         }
         
         public double getAveragePrice() {
-            return totalVolume > 0 ? (double) totalValue / totalVolume : 0;
+            long volume = totalVolume.sum();
+            return volume > 0 ? (double) totalValue.sum() / volume : 0;
         }
     }
     
@@ -324,23 +347,32 @@ public class PerformanceMetrics {
         private final double tradesPerMinute;
         private final double tradesPerHour;
         private final double avgExecutionTime;
+        private final long p50ExecutionMicros;
+        private final long p99ExecutionMicros;
+        private final long p999ExecutionMicros;
         private final double coinVelocity;
         private final int marketHealth;
         private final int activeItems;
         private final long uptime;
+        private final double snapshotCacheHitRate;
         
         public MarketReport(long totalTrades, long totalCoins, double tradesPerMinute,
-                           double tradesPerHour, double avgExecutionTime, double coinVelocity,
-                           int marketHealth, int activeItems, long uptime) {
+                           double tradesPerHour, double avgExecutionTime, long p50ExecutionMicros,
+                           long p99ExecutionMicros, long p999ExecutionMicros, double coinVelocity,
+                           int marketHealth, int activeItems, long uptime, double snapshotCacheHitRate) {
             this.totalTrades = totalTrades;
             this.totalCoins = totalCoins;
             this.tradesPerMinute = tradesPerMinute;
             this.tradesPerHour = tradesPerHour;
             this.avgExecutionTime = avgExecutionTime;
+            this.p50ExecutionMicros = p50ExecutionMicros;
+            this.p99ExecutionMicros = p99ExecutionMicros;
+            this.p999ExecutionMicros = p999ExecutionMicros;
             this.coinVelocity = coinVelocity;
             this.marketHealth = marketHealth;
             this.activeItems = activeItems;
             this.uptime = uptime;
+            this.snapshotCacheHitRate = snapshotCacheHitRate;
         }
         
         // Getters
@@ -349,10 +381,14 @@ public class PerformanceMetrics {
         public double getTradesPerMinute() { return tradesPerMinute; }
         public double getTradesPerHour() { return tradesPerHour; }
         public double getAvgExecutionTime() { return avgExecutionTime; }
+        public long getP50ExecutionMicros() { return p50ExecutionMicros; }
+        public long getP99ExecutionMicros() { return p99ExecutionMicros; }
+        public long getP999ExecutionMicros() { return p999ExecutionMicros; }
         public double getCoinVelocity() { return coinVelocity; }
         public int getMarketHealth() { return marketHealth; }
         public int getActiveItems() { return activeItems; }
         public long getUptime() { return uptime; }
+        public double getSnapshotCacheHitRate() { return snapshotCacheHitRate; }
         
         @Override
         public String toString() {
@@ -363,13 +399,15 @@ public class PerformanceMetrics {
                 "  Trades/Min: %.2f\n" +
                 "  Trades/Hour: %.2f\n" +
                 "  Avg Exec Time: %.2fms\n" +
+                "  Exec Time p50/p99/p999: %d/%d/%dus\n" +
                 "  Coin Velocity: %.0f/hr\n" +
                 "  Market Health: %d/100\n" +
                 "  Active Items: %d\n" +
-                "  Uptime: %dh",
+                "  Uptime: %dh\n" +
+                "  Snapshot Cache Hit Rate: %.1f%%",
                 totalTrades, totalCoins, tradesPerMinute, tradesPerHour,
-                avgExecutionTime, coinVelocity, marketHealth, activeItems,
-                uptime / (1000 * 60 * 60)
+                avgExecutionTime, p50ExecutionMicros, p99ExecutionMicros, p999ExecutionMicros, coinVelocity, marketHealth, activeItems,
+                uptime / (1000 * 60 * 60), snapshotCacheHitRate * 100
             );
         }
     }
@@ -2,212 +2,205 @@ package medievalsim.grandexchange.services;
 
 import medievalsim.config.ModConfig;
 import medievalsim.util.ModLogger;
+import medievalsim.util.TokenBucketLimiter;
 
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Rate limiting service for Grand Exchange offer creation.
- * 
- * Prevents spam by enforcing cooldowns between offer creations.
- * Tracks per-player timestamps and validates against configurable cooldown.
- * 
- * Pattern: Token bucket / cooldown tracker
- * Thread-safe using concurrent maps.
+ * Rate limiting service for Grand Exchange actions.
+ *
+ * Each action class has its own per-player token bucket (burst + refill rate,
+ * see ModConfig.RateLimits), so a player can act a few times in quick succession
+ * but a packet flood is cut down to the refill rate.
+ *
+ * Offer/order state changes are two-phase (canCreate* before, record* after a
+ * successful change) so rejected attempts don't cost a token; market purchases
+ * and browser refreshes use tryAcquire().
+ *
+ * Pattern: Token bucket (TokenBucketLimiter)
+ * Thread-safe; idle buckets are evicted so memory tracks active players only.
  */
 public class RateLimitService {
-    
-    // Player auth -> last offer creation timestamp
-    private final Map<Long, Long> lastOfferCreationTime = new ConcurrentHashMap<>();
-    
-    // Player auth -> last buy order creation timestamp
-    private final Map<Long, Long> lastBuyOrderCreationTime = new ConcurrentHashMap<>();
-    
-    // Statistics
-    private int totalChecks = 0;
-    private int totalDenied = 0;
-    
+
+    /**
+     * GE action classes, each limited independently.
+     */
+    public enum Action {
+        SELL_OFFER,
+        BUY_ORDER,
+        MARKET_PURCHASE,
+        BROWSE_REFRESH
+    }
+
+    private final Map<Action, TokenBucketLimiter> limiters = new EnumMap<>(Action.class);
+
+    public RateLimitService() {
+        limiters.put(Action.SELL_OFFER, new TokenBucketLimiter("ge_sell_offer",
+            () -> ModConfig.RateLimits.geOfferBurst, RateLimitService::offerRefillPerSecond));
+        limiters.put(Action.BUY_ORDER, new TokenBucketLimiter("ge_buy_order",
+            () -> ModConfig.RateLimits.geOfferBurst, RateLimitService::offerRefillPerSecond));
+        limiters.put(Action.MARKET_PURCHASE, new TokenBucketLimiter("ge_market_purchase",
+            () -> ModConfig.RateLimits.gePurchaseBurst,
+            () -> ModConfig.RateLimits.gePurchasesPerMinute / 60.0));
+        limiters.put(Action.BROWSE_REFRESH, new TokenBucketLimiter("ge_browse_refresh",
+            () -> ModConfig.RateLimits.geBrowseBurst,
+            () -> ModConfig.RateLimits.geBrowseRefreshesPerMinute / 60.0));
+    }
+
+    /**
+     * One offer/order token per offerCreationCooldown milliseconds (0 = unlimited).
+     */
+    private static double offerRefillPerSecond() {
+        int cooldownMs = ModConfig.GrandExchange.offerCreationCooldown;
+        return cooldownMs > 0 ? 1000.0 / cooldownMs : 0.0;
+    }
+
+    // ===== GENERIC =====
+
     /**
-     * Check if player can create a sell offer.
+     * Spend one token for the action if the player has one.
+     * @return true if allowed, false if rate limited
+     */
+    public boolean tryAcquire(Action action, long playerAuth) {
+        boolean allowed = limiters.get(action).tryAcquire(playerAuth, System.currentTimeMillis());
+        if (!allowed) {
+            ModLogger.debug("Rate limit: Player %d denied %s, %.1f seconds until next token",
+                playerAuth, action, getRemainingSeconds(action, playerAuth));
+        }
+        return allowed;
+    }
+
+    /**
+     * @return Seconds until the player can perform the action again, or 0 if they can now
+     */
+    public float getRemainingSeconds(Action action, long playerAuth) {
+        return getWaitMillis(action, playerAuth) / 1000.0f;
+    }
+
+    /**
+     * @return Milliseconds until the player has a token for the action (0 if they have one now).
+     * Does not count as a check, so it can be polled to schedule a retry.
+     */
+    public long getWaitMillis(Action action, long playerAuth) {
+        return limiters.get(action).getWaitMillis(playerAuth, System.currentTimeMillis());
+    }
+
+    // ===== OFFERS AND BUY ORDERS =====
+
+    /**
+     * Check if player can create (enable/disable) a sell offer.
      * @param playerAuth Player authentication ID
-     * @return true if allowed, false if on cooldown
+     * @return true if allowed, false if rate limited
      */
     public boolean canCreateSellOffer(long playerAuth) {
-        totalChecks++;
-        
-        float cooldownSeconds = ModConfig.GrandExchange.offerCreationCooldown;
-        if (cooldownSeconds <= 0) {
-            return true; // Cooldown disabled
-        }
-        
-        long now = System.currentTimeMillis();
-        Long lastTime = lastOfferCreationTime.get(playerAuth);
-        
-        if (lastTime == null) {
-            return true; // First offer
-        }
-        
-        long elapsedMs = now - lastTime;
-        long cooldownMs = (long) (cooldownSeconds * 1000);
-        
-        if (elapsedMs < cooldownMs) {
-            totalDenied++;
-            float remainingSeconds = (cooldownMs - elapsedMs) / 1000.0f;
-            ModLogger.debug("Rate limit: Player %d must wait %.1f more seconds to create offer",
-                playerAuth, remainingSeconds);
-            return false;
-        }
-        
-        return true;
+        return canAct(Action.SELL_OFFER, playerAuth);
     }
-    
+
     /**
-     * Check if player can create a buy order.
+     * Check if player can create (enable/disable) a buy order.
      * @param playerAuth Player authentication ID
-     * @return true if allowed, false if on cooldown
+     * @return true if allowed, false if rate limited
      */
     public boolean canCreateBuyOrder(long playerAuth) {
-        totalChecks++;
-        
-        float cooldownSeconds = ModConfig.GrandExchange.offerCreationCooldown;
-        if (cooldownSeconds <= 0) {
-            return true; // Cooldown disabled
-        }
-        
-        long now = System.currentTimeMillis();
-        Long lastTime = lastBuyOrderCreationTime.get(playerAuth);
-        
-        if (lastTime == null) {
-            return true; // First order
-        }
-        
-        long elapsedMs = now - lastTime;
-        long cooldownMs = (long) (cooldownSeconds * 1000);
-        
-        if (elapsedMs < cooldownMs) {
-            totalDenied++;
-            float remainingSeconds = (cooldownMs - elapsedMs) / 1000.0f;
-            ModLogger.debug("Rate limit: Player %d must wait %.1f more seconds to create buy order",
-                playerAuth, remainingSeconds);
-            return false;
+        return canAct(Action.BUY_ORDER, playerAuth);
+    }
+
+    private boolean canAct(Action action, long playerAuth) {
+        boolean allowed = limiters.get(action).canAcquire(playerAuth, System.currentTimeMillis());
+        if (!allowed) {
+            ModLogger.debug("Rate limit: Player %d must wait %.1f more seconds for %s",
+                playerAuth, getRemainingSeconds(action, playerAuth), action);
         }
-        
-        return true;
+        return allowed;
     }
-    
+
     /**
-     * Record that player created a sell offer.
+     * Record that player created a sell offer (spends a token).
      */
     public void recordSellOfferCreation(long playerAuth) {
-        lastOfferCreationTime.put(playerAuth, System.currentTimeMillis());
+        limiters.get(Action.SELL_OFFER).consume(playerAuth, System.currentTimeMillis());
         ModLogger.debug("Recorded sell offer creation for player %d", playerAuth);
     }
-    
+
     /**
-     * Record that player created a buy order.
+     * Record that player created a buy order (spends a token).
      */
     public void recordBuyOrderCreation(long playerAuth) {
-        lastBuyOrderCreationTime.put(playerAuth, System.currentTimeMillis());
+        limiters.get(Action.BUY_ORDER).consume(playerAuth, System.currentTimeMillis());
         ModLogger.debug("Recorded buy order creation for player %d", playerAuth);
     }
-    
+
     /**
      * Get remaining cooldown for sell offers.
      * @return Seconds remaining, or 0 if no cooldown
      */
     public float getRemainingCooldownForSellOffer(long playerAuth) {
-        float cooldownSeconds = ModConfig.GrandExchange.offerCreationCooldown;
-        if (cooldownSeconds <= 0) {
-            return 0;
-        }
-        
-        Long lastTime = lastOfferCreationTime.get(playerAuth);
-        if (lastTime == null) {
-            return 0;
-        }
-        
-        long now = System.currentTimeMillis();
-        long elapsedMs = now - lastTime;
-        long cooldownMs = (long) (cooldownSeconds * 1000);
-        
-        if (elapsedMs >= cooldownMs) {
-            return 0;
-        }
-        
-        return (cooldownMs - elapsedMs) / 1000.0f;
+        return getRemainingSeconds(Action.SELL_OFFER, playerAuth);
     }
-    
+
     /**
      * Get remaining cooldown for buy orders.
      * @return Seconds remaining, or 0 if no cooldown
      */
     public float getRemainingCooldownForBuyOrder(long playerAuth) {
-        float cooldownSeconds = ModConfig.GrandExchange.offerCreationCooldown;
-        if (cooldownSeconds <= 0) {
-            return 0;
-        }
-        
-        Long lastTime = lastBuyOrderCreationTime.get(playerAuth);
-        if (lastTime == null) {
-            return 0;
-        }
-        
-        long now = System.currentTimeMillis();
-        long elapsedMs = now - lastTime;
-        long cooldownMs = (long) (cooldownSeconds * 1000);
-        
-        if (elapsedMs >= cooldownMs) {
-            return 0;
-        }
-        
-        return (cooldownMs - elapsedMs) / 1000.0f;
+        return getRemainingSeconds(Action.BUY_ORDER, playerAuth);
     }
-    
+
+    // ===== MAINTENANCE =====
+
     /**
-     * Clear cooldown for player (admin override).
+     * Clear all GE limits for player (admin override).
      */
     public void clearCooldown(long playerAuth) {
-        lastOfferCreationTime.remove(playerAuth);
-        lastBuyOrderCreationTime.remove(playerAuth);
+        for (TokenBucketLimiter limiter : limiters.values()) {
+            limiter.reset(playerAuth);
+        }
         ModLogger.info("Cleared rate limit cooldown for player %d", playerAuth);
     }
-    
+
     /**
-     * Cleanup old entries (called periodically).
-     * Removes entries older than 10 minutes.
+     * Evict idle buckets (called periodically).
+     * Buckets are also evicted on demand, so this only returns memory early.
      */
     public void cleanup() {
         long now = System.currentTimeMillis();
-        long cutoff = now - (10 * 60 * 1000); // 10 minutes
-        
-        int before1 = lastOfferCreationTime.size();
-        lastOfferCreationTime.entrySet().removeIf(e -> e.getValue() < cutoff);
-        int removed1 = before1 - lastOfferCreationTime.size();
-        
-        int before2 = lastBuyOrderCreationTime.size();
-        lastBuyOrderCreationTime.entrySet().removeIf(e -> e.getValue() < cutoff);
-        int removed2 = before2 - lastBuyOrderCreationTime.size();
-        
-        int removed = removed1 + removed2;
+        int removed = 0;
+        for (TokenBucketLimiter limiter : limiters.values()) {
+            removed += limiter.evictIdle(now);
+        }
         if (removed > 0) {
-            ModLogger.debug("Rate limit cleanup: removed %d old entries", removed);
+            ModLogger.debug("Rate limit cleanup: removed %d idle buckets", removed);
         }
     }
-    
+
     // Statistics
-    public int getTotalChecks() {
-        return totalChecks;
+    public long getTotalChecks() {
+        long total = 0;
+        for (TokenBucketLimiter limiter : limiters.values()) {
+            total += limiter.getTotalChecks();
+        }
+        return total;
     }
-    
-    public int getTotalDenied() {
-        return totalDenied;
+
+    public long getTotalDenied() {
+        long total = 0;
+        for (TokenBucketLimiter limiter : limiters.values()) {
+            total += limiter.getTotalDenied();
+        }
+        return total;
     }
-    
+
     public int getTrackedPlayerCount() {
-        return lastOfferCreationTime.size() + lastBuyOrderCreationTime.size();
+        int total = 0;
+        for (TokenBucketLimiter limiter : limiters.values()) {
+            total += limiter.getTrackedPlayerCount();
+        }
+        return total;
     }
-    
+
     public float getDenialRate() {
-        return totalChecks > 0 ? (float) totalDenied / totalChecks : 0;
+        long checks = getTotalChecks();
+        return checks > 0 ? (float) getTotalDenied() / checks : 0;
     }
 }
@@ -0,0 +1,350 @@
+package medievalsim.grandexchange.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sliding window over the last N trades of one item, with every statistic kept
+ * up to date on insert so reads are O(1):
+ * - price sum (simple average) and price*quantity / quantity sums (VWAP)
+ * - Welford mean/M2 with removal (population standard deviation)
+ * - running median from two indexed heaps over window slots (max-heap of the lower
+ *   half, min-heap of the upper half); an evicted slot is removed from its heap directly
+ *
+ * Storage is primitive arrays sized to the window; recording a trade is O(log N)
+ * and allocation-free.
+ *
+ * Thread-safe: synchronized on the window.
+ */
+public class RollingTradeWindow {
+
+    private final int[] prices;
+    private final int[] quantities;
+    private final long[] timestamps;
+    private int head;   // Slot of the oldest trade
+    private int size;
+
+    private long priceSum;
+    private long valueSum;    // sum of price * quantity
+    private long quantitySum;
+    private double mean;      // Welford running mean
+    private double m2;        // Welford sum of squared deviations
+
+    // Median heaps hold slot indices. heapPos[slot] is the slot's index in lowHeap (>= 0)
+    // or ~index in highHeap (< 0).
+    private final int[] lowHeap;
+    private int lowSize;
+    private final int[] highHeap;
+    private int highSize;
+    private final int[] heapPos;
+
+    public RollingTradeWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.prices = new int[capacity];
+        this.quantities = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.lowHeap = new int[capacity];
+        this.highHeap = new int[capacity];
+        this.heapPos = new int[capacity];
+    }
+
+    /**
+     * Record a trade, evicting the oldest once the window is full.
+     */
+    public synchronized void record(int price, int quantity, long timestamp) {
+        int capacity = prices.length;
+        int slot;
+        if (size == capacity) {
+            slot = head;
+            evict(slot);
+            head = (head + 1) % capacity;
+        } else {
+            slot = (head + size) % capacity;
+        }
+        size++;
+
+        prices[slot] = price;
+        quantities[slot] = quantity;
+        timestamps[slot] = timestamp;
+
+        priceSum += price;
+        valueSum += (long) price * quantity;
+        quantitySum += quantity;
+
+        double delta = price - mean;
+        mean += delta / size;
+        m2 += delta * (price - mean);
+
+        insertMedian(slot);
+    }
+
+    private void evict(int slot) {
+        int price = prices[slot];
+        priceSum -= price;
+        valueSum -= (long) price * quantities[slot];
+        quantitySum -= quantities[slot];
+
+        int remaining = size - 1;
+        if (remaining == 0) {
+            mean = 0;
+            m2 = 0;
+        } else {
+            double delta = price - mean;
+            mean -= delta / remaining;
+            m2 = Math.max(0, m2 - delta * (price - mean));
+        }
+
+        removeMedian(slot);
+        size = remaining;
+    }
+
+    // ===== READS (O(1)) =====
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return prices.length;
+    }
+
+    /**
+     * @return Median price (mean of the two middle prices for an even count), or 0 if empty
+     */
+    public synchronized int getMedian() {
+        return medianUnsafe();
+    }
+
+    public synchronized int getVWAP() {
+        return vwapUnsafe();
+    }
+
+    public synchronized int getAverage() {
+        return size == 0 ? 0 : (int) (priceSum / size);
+    }
+
+    /**
+     * @return Population standard deviation of the prices, or 0 with fewer than 2 trades
+     */
+    public synchronized double getStdDev() {
+        return stdDevUnsafe();
+    }
+
+    public synchronized long getTotalQuantity() {
+        return quantitySum;
+    }
+
+    /**
+     * Consistent read of every statistic at once.
+     */
+    public synchronized MarketAnalyticsService.MarketSummary summarize(String itemID, int high24h, int low24h) {
+        return new MarketAnalyticsService.MarketSummary(
+            itemID,
+            medianUnsafe(),
+            vwapUnsafe(),
+            size == 0 ? 0 : (int) (priceSum / size),
+            high24h,
+            low24h,
+            (int) Math.min(Integer.MAX_VALUE, quantitySum),
+            size,
+            stdDevUnsafe()
+        );
+    }
+
+    /**
+     * @return Trades in the window, oldest first
+     */
+    public synchronized List<MarketAnalyticsService.TradeRecord> toList() {
+        List<MarketAnalyticsService.TradeRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % prices.length;
+            records.add(new MarketAnalyticsService.TradeRecord(prices[slot], quantities[slot], timestamps[slot]));
+        }
+        return records;
+    }
+
+    private int medianUnsafe() {
+        if (size == 0) {
+            return 0;
+        }
+        int lowTop = prices[lowHeap[0]];
+        if (lowSize > highSize) {
+            return lowTop;
+        }
+        return (int) (((long) lowTop + prices[highHeap[0]]) / 2);
+    }
+
+    private int vwapUnsafe() {
+        return quantitySum > 0 ? (int) (valueSum / quantitySum) : 0;
+    }
+
+    private double stdDevUnsafe() {
+        return size < 2 ? 0.0 : Math.sqrt(m2 / size);
+    }
+
+    // ===== MEDIAN HEAPS =====
+    // Invariant: every price in lowHeap <= every price in highHeap, and
+    // lowSize == highSize or lowSize == highSize + 1.
+
+    private void insertMedian(int slot) {
+        if (lowSize == 0 || prices[slot] <= prices[lowHeap[0]]) {
+            pushLow(slot);
+        } else {
+            pushHigh(slot);
+        }
+        rebalance();
+    }
+
+    private void removeMedian(int slot) {
+        int pos = heapPos[slot];
+        if (pos >= 0) {
+            int last = lowHeap[--lowSize];
+            if (pos < lowSize) {
+                placeLow(pos, last);
+                siftLow(pos);
+            }
+        } else {
+            pos = ~pos;
+            int last = highHeap[--highSize];
+            if (pos < highSize) {
+                placeHigh(pos, last);
+                siftHigh(pos);
+            }
+        }
+        rebalance();
+    }
+
+    private void rebalance() {
+        if (lowSize > highSize + 1) {
+            int moved = lowHeap[0];
+            removeTopLow();
+            pushHigh(moved);
+        } else if (highSize > lowSize) {
+            int moved = highHeap[0];
+            removeTopHigh();
+            pushLow(moved);
+        }
+    }
+
+    // Low heap: max-heap by price
+
+    private void pushLow(int slot) {
+        placeLow(lowSize++, slot);
+        siftUpLow(lowSize - 1);
+    }
+
+    private void removeTopLow() {
+        int last = lowHeap[--lowSize];
+        if (lowSize > 0) {
+            placeLow(0, last);
+            siftDownLow(0);
+        }
+    }
+
+    private void siftLow(int pos) {
+        if (pos > 0 && prices[lowHeap[pos]] > prices[lowHeap[(pos - 1) / 2]]) {
+            siftUpLow(pos);
+        } else {
+            siftDownLow(pos);
+        }
+    }
+
+    private void siftUpLow(int pos) {
+        int slot = lowHeap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (prices[lowHeap[parent]] >= prices[slot]) {
+                break;
+            }
+            placeLow(pos, lowHeap[parent]);
+            pos = parent;
+        }
+        placeLow(pos, slot);
+    }
+
+    private void siftDownLow(int pos) {
+        int slot = lowHeap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= lowSize) {
+                break;
+            }
+            if (child + 1 < lowSize && prices[lowHeap[child + 1]] > prices[lowHeap[child]]) {
+                child++;
+            }
+            if (prices[lowHeap[child]] <= prices[slot]) {
+                break;
+            }
+            placeLow(pos, lowHeap[child]);
+            pos = child;
+        }
+        placeLow(pos, slot);
+    }
+
+    private void placeLow(int pos, int slot) {
+        lowHeap[pos] = slot;
+        heapPos[slot] = pos;
+    }
+
+    // High heap: min-heap by price
+
+    private void pushHigh(int slot) {
+        placeHigh(highSize++, slot);
+        siftUpHigh(highSize - 1);
+    }
+
+    private void removeTopHigh() {
+        int last = highHeap[--highSize];
+        if (highSize > 0) {
+            placeHigh(0, last);
+            siftDownHigh(0);
+        }
+    }
+
+    private void siftHigh(int pos) {
+        if (pos > 0 && prices[highHeap[pos]] < prices[highHeap[(pos - 1) / 2]]) {
+            siftUpHigh(pos);
+        } else {
+            siftDownHigh(pos);
+        }
+    }
+
+    private void siftUpHigh(int pos) {
+        int slot = highHeap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (prices[highHeap[parent]] <= prices[slot]) {
+                break;
+            }
+            placeHigh(pos, highHeap[parent]);
+            pos = parent;
+        }
+        placeHigh(pos, slot);
+    }
+
+    private void siftDownHigh(int pos) {
+        int slot = highHeap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= highSize) {
+                break;
+            }
+            if (child + 1 < highSize && prices[highHeap[child + 1]] < prices[highHeap[child]]) {
+                child++;
+            }
+            if (prices[highHeap[child]] >= prices[slot]) {
+                break;
+            }
+            placeHigh(pos, highHeap[child]);
+            pos = child;
+        }
+        placeHigh(pos, slot);
+    }
+
+    private void placeHigh(int pos, int slot) {
+        highHeap[pos] = slot;
+        heapPos[slot] = ~pos;
+    }
+}
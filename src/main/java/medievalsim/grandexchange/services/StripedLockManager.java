@@ -0,0 +1,178 @@
+package medievalsim.grandexchange.services;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks for Grand Exchange mutations.
+ *
+ * Pattern: Lock striping. Items hash onto a fixed set of item stripes and
+ * players onto a fixed set of player stripes, so mutations on unrelated
+ * items (or players) proceed in parallel without a lock per key.
+ *
+ * Lock order (deadlock-free as long as every caller follows it):
+ * 1. Item stripe (at most one, or all of them in index order)
+ * 2. OrderBook monitor
+ * 3. Player stripes, in ascending stripe index
+ *
+ * Never acquire an item stripe while holding a player stripe.
+ */
+public class StripedLockManager {
+
+    private static final int DEFAULT_ITEM_STRIPES = 64;
+    private static final int DEFAULT_PLAYER_STRIPES = 64;
+
+    private final ReentrantLock[] itemStripes;
+    private final ReentrantLock[] playerStripes;
+
+    public StripedLockManager() {
+        this(DEFAULT_ITEM_STRIPES, DEFAULT_PLAYER_STRIPES);
+    }
+
+    public StripedLockManager(int itemStripeCount, int playerStripeCount) {
+        this.itemStripes = createStripes(itemStripeCount);
+        this.playerStripes = createStripes(playerStripeCount);
+    }
+
+    private static ReentrantLock[] createStripes(int count) {
+        ReentrantLock[] stripes = new ReentrantLock[Math.max(1, count)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
+
+    // ===== ITEM STRIPES =====
+
+    /**
+     * Run an action holding the stripe for one item.
+     */
+    public <T> T withItemLock(String itemStringID, Supplier<T> action) {
+        ReentrantLock lock = itemStripes[itemStripeIndex(itemStringID)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run an action holding the stripe for one item.
+     */
+    public void runWithItemLock(String itemStringID, Runnable action) {
+        withItemLock(itemStringID, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run an action holding every item stripe (whole-market operations such as rebuilds).
+     */
+    public <T> T withAllItemLocks(Supplier<T> action) {
+        int acquired = 0;
+        try {
+            for (ReentrantLock lock : itemStripes) {
+                lock.lock();
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                itemStripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Run an action holding every item stripe and then every player stripe, so no
+     * striped mutation is in flight (consistent snapshots).
+     */
+    public <T> T withAllLocks(Supplier<T> action) {
+        return withAllItemLocks(() -> {
+            int acquired = 0;
+            try {
+                for (ReentrantLock lock : playerStripes) {
+                    lock.lock();
+                    acquired++;
+                }
+                return action.get();
+            } finally {
+                for (int i = acquired - 1; i >= 0; i--) {
+                    playerStripes[i].unlock();
+                }
+            }
+        });
+    }
+
+    // ===== PLAYER STRIPES =====
+
+    /**
+     * Run an action holding the stripe for one player's GE inventory.
+     */
+    public <T> T withPlayerLock(long playerAuth, Supplier<T> action) {
+        ReentrantLock lock = playerStripes[playerStripeIndex(playerAuth)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run an action holding the stripe for one player's GE inventory.
+     */
+    public void runWithPlayerLock(long playerAuth, Runnable action) {
+        withPlayerLock(playerAuth, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run an action holding the stripes for two players (buyer and seller),
+     * acquired in ascending stripe order.
+     */
+    public <T> T withPlayerLocks(long playerAuthA, long playerAuthB, Supplier<T> action) {
+        int a = playerStripeIndex(playerAuthA);
+        int b = playerStripeIndex(playerAuthB);
+        if (a == b) {
+            return withPlayerLock(playerAuthA, action);
+        }
+
+        ReentrantLock first = playerStripes[Math.min(a, b)];
+        ReentrantLock second = playerStripes[Math.max(a, b)];
+        first.lock();
+        try {
+            second.lock();
+            try {
+                return action.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    // ===== STRIPE SELECTION =====
+
+    int itemStripeIndex(String itemStringID) {
+        int hash = itemStringID == null ? 0 : itemStringID.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), itemStripes.length);
+    }
+
+    int playerStripeIndex(long playerAuth) {
+        return Math.floorMod(Long.hashCode(playerAuth * 0x9E3779B97F4A7C15L), playerStripes.length);
+    }
+
+    public int getItemStripeCount() {
+        return itemStripes.length;
+    }
+
+    public int getPlayerStripeCount() {
+        return playerStripes.length;
+    }
+}
@@ -1,13 +1,14 @@
 package medievalsim.grandexchange.services;
 
+import medievalsim.config.ModConfig;
 import medievalsim.grandexchange.services.TradeTransaction.TradeResult;
 import medievalsim.util.ModLogger;
 import necesse.engine.save.LoadData;
 import necesse.engine.save.SaveData;
 
+import java.lang.invoke.VarHandle;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * Comprehensive audit logging system for Grand Exchange trades.
@@ -18,173 +19,301 @@ import java.util.stream.Collectors;
  * - Enable admin oversight of market activity
  * 
  * Storage:
- * - Last N trades globally (ring buffer)
- * - Last N trades per item (ring buffer)
- * - Last N trades per player (ring buffer)
+ * - Fixed-capacity columnar ring: one primitive array per field, slot = sequence % capacity
+ * - Item IDs stored as indices into an append-only string table
+ * - Per-item and per-player history are chains through the ring: each trade stores the
+ *   distance back to the previous trade of the same item, buyer and seller
  * 
- * Thread-safe using concurrent collections.
+ * Threading:
+ * - Appends are serialized on a small writer lock (trades on different items run in parallel)
+ * - Readers never lock. They read slots below the published sequence, then validate against
+ *   the claimed sequence (seqlock style) and drop anything a concurrent append overwrote.
  */
 public class TradeAuditLog {
     
     // Configuration
-    private final int maxGlobalTrades;
+    private final int capacity;
     private final int maxTradesPerItem;
     private final int maxTradesPerPlayer;
     
-    // Global trade log (ring buffer via LinkedList)
-    private final LinkedList<AuditEntry> globalLog = new LinkedList<>();
+    // Columns
+    private final long[] buyOrderIDs;
+    private final long[] sellOfferIDs;
+    private final long[] buyerAuths;
+    private final long[] sellerAuths;
+    private final long[] timestamps;
+    private final int[] itemIndices;
+    private final int[] quantities;
+    private final int[] prices;
+    private final int[] totalCoins;
+    private final int[] taxes;
+    private final int[] sellerProceeds;
     
-    // Per-item trade logs
-    private final Map<String, LinkedList<AuditEntry>> itemLogs = new ConcurrentHashMap<>();
+    // Index chains: sequences back to the previous trade of the same item/buyer/seller (0 = none)
+    private final int[] prevItemTrade;
+    private final int[] prevBuyerTrade;
+    private final int[] prevSellerTrade;
     
-    // Per-player trade logs (buyer and seller)
-    private final Map<Long, LinkedList<AuditEntry>> playerLogs = new ConcurrentHashMap<>();
+    // Sequences: trades [max(firstValid, published - capacity), published) are readable.
+    // claimed runs ahead of published while a slot is being overwritten.
+    private final Object writeLock = new Object();
+    private volatile long claimedSequence = 0;
+    private volatile long publishedSequence = 0;
+    private volatile long firstValidSequence = 0;
+    
+    // Item string table (append-only)
+    private final Map<String, Integer> itemTable = new ConcurrentHashMap<>();
+    private volatile String[] itemNames = new String[64];
+    private int itemCount = 0;
+    
+    // Newest trade per item / player (updated after the trade is published)
+    private final Map<String, ChainHead> itemHeads = new ConcurrentHashMap<>();
+    private final Map<Long, ChainHead> playerHeads = new ConcurrentHashMap<>();
+    
+    // Online fraud checks, fed from logTrade
+    private final FraudDetector fraudDetector = new FraudDetector();
     
     // Statistics
-    private long totalTradesLogged = 0;
-    private long totalCoinsTraded = 0;
+    private volatile long totalTradesLogged = 0;
+    private volatile long totalCoinsTraded = 0;
     
     /**
      * Create audit log with configurable limits.
+     * maxGlobalTrades is the ring capacity; per-item and per-player limits cap how far
+     * back their chains are followed.
      */
     public TradeAuditLog(int maxGlobalTrades, int maxTradesPerItem, int maxTradesPerPlayer) {
-        this.maxGlobalTrades = maxGlobalTrades;
+        this.capacity = Math.max(1, maxGlobalTrades);
         this.maxTradesPerItem = maxTradesPerItem;
         this.maxTradesPerPlayer = maxTradesPerPlayer;
+        
+        this.buyOrderIDs = new long[capacity];
+        this.sellOfferIDs = new long[capacity];
+        this.buyerAuths = new long[capacity];
+        this.sellerAuths = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.itemIndices = new int[capacity];
+        this.quantities = new int[capacity];
+        this.prices = new int[capacity];
+        this.totalCoins = new int[capacity];
+        this.taxes = new int[capacity];
+        this.sellerProceeds = new int[capacity];
+        this.prevItemTrade = new int[capacity];
+        this.prevBuyerTrade = new int[capacity];
+        this.prevSellerTrade = new int[capacity];
     }
     
     /**
      * Log a completed trade.
      */
-    public synchronized void logTrade(TradeResult trade) {
-        AuditEntry entry = new AuditEntry(
-            trade.getBuyOrderID(),
-            trade.getSellOfferID(),
-            trade.getBuyerAuth(),
-            trade.getSellerAuth(),
-            trade.getItemStringID(),
-            trade.getQuantity(),
-            trade.getPricePerItem(),
-            trade.getTotalCoins(),
-            trade.getTax(),
-            trade.getSellerProceeds(),
-            trade.getTimestamp()
-        );
+    public void logTrade(TradeResult trade) {
+        append(trade.getBuyOrderID(), trade.getSellOfferID(), trade.getBuyerAuth(), trade.getSellerAuth(),
+            trade.getItemStringID(), trade.getQuantity(), trade.getPricePerItem(), trade.getTotalCoins(),
+            trade.getTax(), trade.getSellerProceeds(), trade.getTimestamp());
         
-        // Add to global log
-        globalLog.addLast(entry);
-        if (globalLog.size() > maxGlobalTrades) {
-            globalLog.removeFirst();
+        if (ModConfig.GrandExchange.enableFraudDetection) {
+            fraudDetector.onTrade(new AuditEntry(trade.getBuyOrderID(), trade.getSellOfferID(),
+                trade.getBuyerAuth(), trade.getSellerAuth(), trade.getItemStringID(), trade.getQuantity(),
+                trade.getPricePerItem(), trade.getTotalCoins(), trade.getTax(), trade.getSellerProceeds(),
+                trade.getTimestamp()), true);
         }
         
-        // Add to item log
-        String itemID = trade.getItemStringID();
-        LinkedList<AuditEntry> itemLog = itemLogs.computeIfAbsent(itemID, k -> new LinkedList<>());
-        itemLog.addLast(entry);
-        if (itemLog.size() > maxTradesPerItem) {
-            itemLog.removeFirst();
+        ModLogger.debug("Logged trade: buyer=%d, seller=%d, item=%s, qty=%d, price=%d",
+            trade.getBuyerAuth(), trade.getSellerAuth(), trade.getItemStringID(),
+            trade.getQuantity(), trade.getPricePerItem());
+    }
+    
+    private void append(long buyOrderID, long sellOfferID, long buyerAuth, long sellerAuth, String itemStringID,
+                        int quantity, int pricePerItem, int coins, int tax, int proceeds, long timestamp) {
+        synchronized (writeLock) {
+            long seq = publishedSequence;
+            claimedSequence = seq + 1;
+            VarHandle.releaseFence(); // Slot writes below must not become visible before the claim
+            
+            int slot = (int) (seq % capacity);
+            buyOrderIDs[slot] = buyOrderID;
+            sellOfferIDs[slot] = sellOfferID;
+            buyerAuths[slot] = buyerAuth;
+            sellerAuths[slot] = sellerAuth;
+            timestamps[slot] = timestamp;
+            itemIndices[slot] = internItem(itemStringID);
+            quantities[slot] = quantity;
+            prices[slot] = pricePerItem;
+            totalCoins[slot] = coins;
+            taxes[slot] = tax;
+            sellerProceeds[slot] = proceeds;
+            
+            ChainHead itemHead = itemHeads.computeIfAbsent(itemStringID, k -> new ChainHead());
+            ChainHead buyerHead = playerHeads.computeIfAbsent(buyerAuth, k -> new ChainHead());
+            ChainHead sellerHead = playerHeads.computeIfAbsent(sellerAuth, k -> new ChainHead());
+            prevItemTrade[slot] = linkTo(seq, itemHead.lastSequence);
+            prevBuyerTrade[slot] = linkTo(seq, buyerHead.lastSequence);
+            prevSellerTrade[slot] = linkTo(seq, sellerHead.lastSequence);
+            
+            publishedSequence = seq + 1;
+            
+            itemHead.lastSequence = seq;
+            buyerHead.lastSequence = seq;
+            sellerHead.lastSequence = seq;
+            
+            totalTradesLogged++;
+            totalCoinsTraded += coins;
         }
-        
-        // Add to buyer's log
-        addToPlayerLog(trade.getBuyerAuth(), entry);
-        
-        // Add to seller's log
-        addToPlayerLog(trade.getSellerAuth(), entry);
-        
-        // Update statistics
-        totalTradesLogged++;
-        totalCoinsTraded += trade.getTotalCoins();
-        
-        ModLogger.debug("Logged trade: %s", entry);
     }
     
-    private void addToPlayerLog(long playerAuth, AuditEntry entry) {
-        LinkedList<AuditEntry> playerLog = playerLogs.computeIfAbsent(playerAuth, k -> new LinkedList<>());
-        playerLog.addLast(entry);
-        if (playerLog.size() > maxTradesPerPlayer) {
-            playerLog.removeFirst();
+    private int linkTo(long seq, long previous) {
+        long distance = seq - previous;
+        return previous < 0 || distance > capacity ? 0 : (int) distance;
+    }
+    
+    private int internItem(String itemStringID) {
+        Integer index = itemTable.get(itemStringID);
+        if (index != null) {
+            return index;
+        }
+        String[] names = itemNames;
+        if (itemCount == names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
         }
+        names[itemCount] = itemStringID;
+        itemNames = names;
+        itemTable.put(itemStringID, itemCount);
+        return itemCount++;
     }
     
     /**
      * Get recent global trades.
      */
-    public synchronized List<AuditEntry> getRecentGlobalTrades(int limit) {
-        int count = Math.min(limit, globalLog.size());
-        return new ArrayList<>(globalLog.subList(Math.max(0, globalLog.size() - count), globalLog.size()));
+    public List<AuditEntry> getRecentGlobalTrades(int limit) {
+        long published = publishedSequence;
+        long from = Math.max(oldestReadable(published), published - Math.max(0, limit));
+        return readRange(from, published);
     }
     
     /**
      * Get recent trades for an item.
      */
-    public synchronized List<AuditEntry> getRecentTradesForItem(String itemID, int limit) {
-        LinkedList<AuditEntry> itemLog = itemLogs.get(itemID);
-        if (itemLog == null) {
+    public List<AuditEntry> getRecentTradesForItem(String itemID, int limit) {
+        ChainHead head = itemHeads.get(itemID);
+        if (head == null) {
             return Collections.emptyList();
         }
-        
-        int count = Math.min(limit, itemLog.size());
-        return new ArrayList<>(itemLog.subList(Math.max(0, itemLog.size() - count), itemLog.size()));
+        return walkChain(head.lastSequence, 0L, false, Math.min(limit, maxTradesPerItem));
     }
     
     /**
      * Get recent trades for a player (both buying and selling).
      */
-    public synchronized List<AuditEntry> getRecentTradesForPlayer(long playerAuth, int limit) {
-        LinkedList<AuditEntry> playerLog = playerLogs.get(playerAuth);
-        if (playerLog == null) {
+    public List<AuditEntry> getRecentTradesForPlayer(long playerAuth, int limit) {
+        ChainHead head = playerHeads.get(playerAuth);
+        if (head == null) {
             return Collections.emptyList();
         }
-        
-        int count = Math.min(limit, playerLog.size());
-        return new ArrayList<>(playerLog.subList(Math.max(0, playerLog.size() - count), playerLog.size()));
+        return walkChain(head.lastSequence, playerAuth, true, Math.min(limit, maxTradesPerPlayer));
     }
     
     /**
-     * Find suspicious trades (fraud detection).
-     * Returns trades that match suspicious patterns.
+     * @return Every retained trade, oldest first
      */
-    public synchronized List<AuditEntry> findSuspiciousTrades() {
-        List<AuditEntry> suspicious = new ArrayList<>();
-        
-        // Pattern 1: Self-trading (buyer == seller, shouldn't happen but check anyway)
-        for (AuditEntry entry : globalLog) {
-            if (entry.getBuyerAuth() == entry.getSellerAuth()) {
-                suspicious.add(entry);
-            }
+    public List<AuditEntry> snapshot() {
+        long published = publishedSequence;
+        return readRange(oldestReadable(published), published);
+    }
+    
+    public int size() {
+        long published = publishedSequence;
+        return (int) (published - oldestReadable(published));
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    private long oldestReadable(long published) {
+        return Math.max(firstValidSequence, published - capacity);
+    }
+    
+    /**
+     * Read trades [from, to) oldest first, dropping any a concurrent append overwrote.
+     */
+    private List<AuditEntry> readRange(long from, long to) {
+        if (from >= to) {
+            return new ArrayList<>();
         }
-        
-        // Pattern 2: Extreme price outliers (10x+ market average)
-        Map<String, List<AuditEntry>> byItem = globalLog.stream()
-            .collect(Collectors.groupingBy(AuditEntry::getItemStringID));
-        
-        for (Map.Entry<String, List<AuditEntry>> itemEntry : byItem.entrySet()) {
-            List<AuditEntry> trades = itemEntry.getValue();
-            if (trades.size() < 5) continue; // Need enough data
-            
-            // Calculate average price
-            double avgPrice = trades.stream()
-                .mapToInt(AuditEntry::getPricePerItem)
-                .average()
-                .orElse(0);
-            
-            // Find outliers (10x average)
-            for (AuditEntry trade : trades) {
-                if (trade.getPricePerItem() > avgPrice * 10) {
-                    suspicious.add(trade);
-                }
+        List<AuditEntry> entries = new ArrayList<>((int) (to - from));
+        for (long seq = from; seq < to; seq++) {
+            entries.add(readEntry((int) (seq % capacity)));
+        }
+        VarHandle.acquireFence(); // Slot reads above must complete before the claim check
+        long overwritten = claimedSequence - capacity - from;
+        if (overwritten > 0) {
+            entries.subList(0, (int) Math.min(overwritten, entries.size())).clear();
+        }
+        return entries;
+    }
+    
+    /**
+     * Follow an item or player chain back from its newest trade, returning oldest first.
+     */
+    private List<AuditEntry> walkChain(long seq, long playerAuth, boolean playerChain, int limit) {
+        List<AuditEntry> entries = new ArrayList<>();
+        long floor = oldestReadable(publishedSequence);
+        while (seq >= floor && seq >= 0 && entries.size() < limit) {
+            int slot = (int) (seq % capacity);
+            AuditEntry entry = readEntry(slot);
+            int link;
+            if (!playerChain) {
+                link = prevItemTrade[slot];
+            } else if (entry.getBuyerAuth() == playerAuth) {
+                link = prevBuyerTrade[slot];
+            } else {
+                link = prevSellerTrade[slot];
+            }
+            VarHandle.acquireFence();
+            if (seq < claimedSequence - capacity) {
+                break; // Slot was reused while we read it; everything older is gone too
+            }
+            entries.add(entry);
+            if (link == 0) {
+                break;
             }
+            seq -= link;
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+    
+    private AuditEntry readEntry(int slot) {
+        String[] names = itemNames;
+        int itemIndex = itemIndices[slot];
+        String itemID = itemIndex >= 0 && itemIndex < names.length ? names[itemIndex] : null;
+        return new AuditEntry(buyOrderIDs[slot], sellOfferIDs[slot], buyerAuths[slot], sellerAuths[slot],
+            itemID, quantities[slot], prices[slot], totalCoins[slot], taxes[slot], sellerProceeds[slot],
+            timestamps[slot]);
+    }
+    
+    /**
+     * Find suspicious trades (fraud detection).
+     * Returns the trades behind the most recent fraud alerts, newest first.
+     */
+    public List<AuditEntry> findSuspiciousTrades() {
+        List<AuditEntry> suspicious = new ArrayList<>();
+        for (FraudDetector.Alert alert : fraudDetector.getRecentAlerts(Integer.MAX_VALUE)) {
+            suspicious.add(alert.trade());
         }
-        
         return suspicious;
     }
     
+    public FraudDetector getFraudDetector() {
+        return fraudDetector;
+    }
+    
     /**
      * Get trading statistics for a player.
      */
-    public synchronized PlayerTradingStats getPlayerStats(long playerAuth) {
-        LinkedList<AuditEntry> playerLog = playerLogs.get(playerAuth);
-        if (playerLog == null) {
+    public PlayerTradingStats getPlayerStats(long playerAuth) {
+        List<AuditEntry> playerLog = getRecentTradesForPlayer(playerAuth, maxTradesPerPlayer);
+        if (playerLog.isEmpty()) {
             return new PlayerTradingStats(playerAuth, 0, 0, 0, 0, 0, 0);
         }
         
@@ -215,11 +344,11 @@ public class TradeAuditLog {
     /**
      * Get market summary statistics.
      */
-    public synchronized MarketStats getMarketStats() {
+    public MarketStats getMarketStats() {
         Map<String, Integer> tradesByItem = new HashMap<>();
         Map<Long, Integer> tradesByPlayer = new HashMap<>();
         
-        for (AuditEntry entry : globalLog) {
+        for (AuditEntry entry : snapshot()) {
             tradesByItem.merge(entry.getItemStringID(), 1, Integer::sum);
             tradesByPlayer.merge(entry.getBuyerAuth(), 1, Integer::sum);
             tradesByPlayer.merge(entry.getSellerAuth(), 1, Integer::sum);
@@ -248,60 +377,156 @@ public class TradeAuditLog {
     /**
      * Clear all logs (admin function).
      */
-    public synchronized void clearAll() {
-        globalLog.clear();
-        itemLogs.clear();
-        playerLogs.clear();
+    public void clearAll() {
+        synchronized (writeLock) {
+            firstValidSequence = publishedSequence;
+            itemHeads.clear();
+            playerHeads.clear();
+        }
+        fraudDetector.reset();
         ModLogger.info("Cleared all trade audit logs");
     }
     
     /**
      * Save audit log data.
+     * The columns are saved as-is (oldest first), with the item string table alongside.
      */
-    public synchronized void addSaveData(SaveData save) {
-        // Save global log
-        SaveData globalSave = new SaveData("GLOBAL_LOG");
-        globalSave.addInt("size", globalLog.size());
-        int i = 0;
-        for (AuditEntry entry : globalLog) {
-            SaveData entrySave = new SaveData("ENTRY_" + i);
-            entry.addSaveData(entrySave);
-            globalSave.addSaveData(entrySave);
-            i++;
+    public void addSaveData(SaveData save) {
+        SaveData columns = new SaveData("AUDIT_COLUMNS");
+        synchronized (writeLock) {
+            long published = publishedSequence;
+            long from = oldestReadable(published);
+            int size = (int) (published - from);
+            
+            columns.addInt("size", size);
+            columns.addStringArray("items", Arrays.copyOf(itemNames, itemCount));
+            columns.addIntArray("itemIndex", ringToArray(itemIndices, from, size));
+            columns.addLongArray("buyOrderID", ringToArray(buyOrderIDs, from, size));
+            columns.addLongArray("sellOfferID", ringToArray(sellOfferIDs, from, size));
+            columns.addLongArray("buyerAuth", ringToArray(buyerAuths, from, size));
+            columns.addLongArray("sellerAuth", ringToArray(sellerAuths, from, size));
+            columns.addIntArray("quantity", ringToArray(quantities, from, size));
+            columns.addIntArray("pricePerItem", ringToArray(prices, from, size));
+            columns.addIntArray("totalCoins", ringToArray(totalCoins, from, size));
+            columns.addIntArray("tax", ringToArray(taxes, from, size));
+            columns.addIntArray("sellerProceeds", ringToArray(sellerProceeds, from, size));
+            columns.addLongArray("timestamp", ringToArray(timestamps, from, size));
+            
+            // Save statistics
+            save.addLong("totalTradesLogged", totalTradesLogged);
+            save.addLong("totalCoinsTraded", totalCoinsTraded);
         }
-        save.addSaveData(globalSave);
-        
-        // Save statistics
-        save.addLong("totalTradesLogged", totalTradesLogged);
-        save.addLong("totalCoinsTraded", totalCoinsTraded);
+        save.addSaveData(columns);
+    }
+    
+    private int[] ringToArray(int[] column, long from, int size) {
+        int[] result = new int[size];
+        int start = (int) (from % capacity);
+        int firstPart = Math.min(size, capacity - start);
+        System.arraycopy(column, start, result, 0, firstPart);
+        System.arraycopy(column, 0, result, firstPart, size - firstPart);
+        return result;
+    }
+    
+    private long[] ringToArray(long[] column, long from, int size) {
+        long[] result = new long[size];
+        int start = (int) (from % capacity);
+        int firstPart = Math.min(size, capacity - start);
+        System.arraycopy(column, start, result, 0, firstPart);
+        System.arraycopy(column, 0, result, firstPart, size - firstPart);
+        return result;
     }
     
     /**
-     * Load audit log data.
+     * Load audit log data (columnar format, or the older one-child-per-entry GLOBAL_LOG).
      */
-    public synchronized void applyLoadData(LoadData save) {
-        // Load global log
-        LoadData globalLoad = save.getFirstLoadDataByName("GLOBAL_LOG");
-        if (globalLoad != null) {
-            int size = globalLoad.getInt("size", 0);
-            for (int i = 0; i < size; i++) {
-                LoadData entryLoad = globalLoad.getFirstLoadDataByName("ENTRY_" + i);
-                if (entryLoad != null) {
-                    AuditEntry entry = AuditEntry.fromLoadData(entryLoad);
-                    if (entry != null) {
-                        logTrade(TradeResult.fromAuditEntry(entry));
+    public void applyLoadData(LoadData save) {
+        List<AuditEntry> entries;
+        LoadData columns = save.getFirstLoadDataByName("AUDIT_COLUMNS");
+        if (columns != null) {
+            entries = loadColumns(columns);
+        } else {
+            entries = new ArrayList<>();
+            LoadData globalLoad = save.getFirstLoadDataByName("GLOBAL_LOG");
+            if (globalLoad != null) {
+                // Entries were written in order as ENTRY_0..ENTRY_n; walk the children once
+                for (LoadData entryLoad : globalLoad.getLoadData()) {
+                    if (entryLoad.getName().startsWith("ENTRY_")) {
+                        AuditEntry entry = AuditEntry.fromLoadData(entryLoad);
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
                     }
                 }
             }
         }
         
-        // Load statistics
-        totalTradesLogged = save.getLong("totalTradesLogged", 0);
-        totalCoinsTraded = save.getLong("totalCoinsTraded", 0);
+        synchronized (writeLock) {
+            firstValidSequence = publishedSequence;
+            itemHeads.clear();
+            playerHeads.clear();
+            fraudDetector.reset();
+            for (int i = Math.max(0, entries.size() - capacity); i < entries.size(); i++) {
+                AuditEntry entry = entries.get(i);
+                append(entry.getBuyOrderID(), entry.getSellOfferID(), entry.getBuyerAuth(), entry.getSellerAuth(),
+                    entry.getItemStringID(), entry.getQuantity(), entry.getPricePerItem(), entry.getTotalCoins(),
+                    entry.getTax(), entry.getSellerProceeds(), entry.getTimestamp());
+                // Warm the rolling statistics without re-raising alerts for old trades
+                fraudDetector.onTrade(entry, false);
+            }
+            
+            // Load statistics
+            totalTradesLogged = save.getLong("totalTradesLogged", entries.size());
+            totalCoinsTraded = save.getLong("totalCoinsTraded", 0);
+        }
     }
-    
+
+    private static List<AuditEntry> loadColumns(LoadData columns) {
+        String[] items = columns.getStringArray("items", new String[0]);
+        int[] itemIndices = columns.getIntArray("itemIndex", new int[0]);
+        long[] buyOrderIDs = columns.getLongArray("buyOrderID", new long[0]);
+        long[] sellOfferIDs = columns.getLongArray("sellOfferID", new long[0]);
+        long[] buyerAuths = columns.getLongArray("buyerAuth", new long[0]);
+        long[] sellerAuths = columns.getLongArray("sellerAuth", new long[0]);
+        int[] quantities = columns.getIntArray("quantity", new int[0]);
+        int[] prices = columns.getIntArray("pricePerItem", new int[0]);
+        int[] totalCoins = columns.getIntArray("totalCoins", new int[0]);
+        int[] taxes = columns.getIntArray("tax", new int[0]);
+        int[] sellerProceeds = columns.getIntArray("sellerProceeds", new int[0]);
+        long[] timestamps = columns.getLongArray("timestamp", new long[0]);
+
+        int size = columns.getInt("size", 0);
+        int available = Math.min(size, Math.min(itemIndices.length, Math.min(buyOrderIDs.length,
+            Math.min(sellOfferIDs.length, Math.min(buyerAuths.length, Math.min(sellerAuths.length,
+            Math.min(quantities.length, Math.min(prices.length, Math.min(totalCoins.length,
+            Math.min(taxes.length, Math.min(sellerProceeds.length, timestamps.length)))))))))));
+        if (available < size) {
+            ModLogger.warn("Audit log columns truncated: expected %d entries, found %d", size, available);
+        }
+
+        List<AuditEntry> entries = new ArrayList<>(available);
+        for (int i = 0; i < available; i++) {
+            int itemIndex = itemIndices[i];
+            if (itemIndex < 0 || itemIndex >= items.length) {
+                ModLogger.warn("Skipping audit entry %d with invalid item index %d", i, itemIndex);
+                continue;
+            }
+            entries.add(new AuditEntry(buyOrderIDs[i], sellOfferIDs[i], buyerAuths[i], sellerAuths[i],
+                items[itemIndex], quantities[i], prices[i], totalCoins[i], taxes[i], sellerProceeds[i],
+                timestamps[i]));
+        }
+        return entries;
+    }
+
     // ===== NESTED CLASSES =====
     
+    /**
+     * Newest trade sequence of one item or player chain.
+     */
+    private static final class ChainHead {
+        volatile long lastSequence = -1;
+    }
+    
     /**
      * Immutable audit entry for a single trade.
      */
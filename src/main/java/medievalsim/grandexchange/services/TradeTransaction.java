@@ -6,6 +6,7 @@ import medievalsim.config.ModConfig;
 import medievalsim.grandexchange.domain.BuyOrder;
 import medievalsim.grandexchange.domain.CollectionItem;
 import medievalsim.grandexchange.domain.GEOffer;
+import medievalsim.grandexchange.domain.GrandExchangeLevelData;
 import medievalsim.grandexchange.domain.PlayerGEInventory;
 import medievalsim.util.ModLogger;
 import necesse.engine.registries.ItemRegistry;
@@ -43,7 +44,7 @@ public class TradeTransaction {
     }
     
     // Transaction participants
-    private final Level level;
+    private final Accounts accounts;
     private final BuyOrder buyOrder;
     private final GEOffer sellOffer;
     private final int quantity;
@@ -62,15 +63,16 @@ public class TradeTransaction {
     /**
      * Create new trade transaction.
      * 
-     * @param level Server level
+     * @param accounts Where the buyer's and seller's GE inventories and banks are looked up
+     *                 (Accounts.forLevel on the server)
      * @param buyOrder Buy order (buyer)
      * @param sellOffer Sell offer (seller)
      * @param quantity Quantity to trade
      * @param executionPrice Price per item (typically buyer's price)
      */
-    public TradeTransaction(Level level, BuyOrder buyOrder, GEOffer sellOffer, 
+    public TradeTransaction(Accounts accounts, BuyOrder buyOrder, GEOffer sellOffer,
                             int quantity, int executionPrice) {
-        this.level = level;
+        this.accounts = accounts;
         this.buyOrder = buyOrder;
         this.sellOffer = sellOffer;
         this.quantity = quantity;
@@ -146,6 +148,8 @@ public class TradeTransaction {
             // Record for undo (capture current state)
             undoLog.buyOrderQty = buyOrder.getQuantityRemaining();
             undoLog.sellOfferQty = sellOffer.getQuantityRemaining();
+            undoLog.buyOrderState = buyOrder.getState();
+            undoLog.sellOfferState = sellOffer.getState();
             undoLog.buyerCoinsEscrowed = getBuyerInventory().getCoinsInEscrow();
             undoLog.sellerBankCoins = getSellerBank().getCoins();
             
@@ -261,9 +265,11 @@ public class TradeTransaction {
         }
         
         try {
-            // Restore quantities
+            // Restore quantities (and the states a fill to zero marked COMPLETED)
             buyOrder.setQuantityRemaining(undoLog.buyOrderQty);
             sellOffer.setQuantityRemaining(undoLog.sellOfferQty);
+            buyOrder.setState(undoLog.buyOrderState);
+            sellOffer.setState(undoLog.sellOfferState);
             
             // Restore coins
             PlayerGEInventory buyerInventory = getBuyerInventory();
@@ -284,31 +290,16 @@ public class TradeTransaction {
     
     // ===== HELPER METHODS =====
     
-    private BankingLevelData getBankingData() {
-        return BankingLevelData.getBankingData(level);
-    }
-    
     private PlayerGEInventory getBuyerInventory() {
-        // Assumes GE data is available (should be validated in prepare())
-        return level.getLevelData("grandexchangedata") instanceof medievalsim.grandexchange.domain.GrandExchangeLevelData
-            ? ((medievalsim.grandexchange.domain.GrandExchangeLevelData) level.getLevelData("grandexchangedata"))
-                .getInventory(buyOrder.getPlayerAuth())
-            : null;
+        return accounts.getInventory(buyOrder.getPlayerAuth());
     }
     
     private PlayerGEInventory getSellerInventory() {
-        return level.getLevelData("grandexchangedata") instanceof medievalsim.grandexchange.domain.GrandExchangeLevelData
-            ? ((medievalsim.grandexchange.domain.GrandExchangeLevelData) level.getLevelData("grandexchangedata"))
-                .getInventory(sellOffer.getPlayerAuth())
-            : null;
-    }
-    
-    private PlayerBank getBuyerBank() {
-        return getBankingData().getOrCreateBank(buyOrder.getPlayerAuth());
+        return accounts.getInventory(sellOffer.getPlayerAuth());
     }
     
     private PlayerBank getSellerBank() {
-        return getBankingData().getOrCreateBank(sellOffer.getPlayerAuth());
+        return accounts.getBank(sellOffer.getPlayerAuth());
     }
     
     // ===== GETTERS =====
@@ -327,12 +318,43 @@ public class TradeTransaction {
     
     // ===== NESTED CLASSES =====
     
+    /**
+     * Lookup for the GE inventories and banks a trade moves coins and items between.
+     */
+    public interface Accounts {
+        PlayerGEInventory getInventory(long playerAuth);
+        
+        PlayerBank getBank(long playerAuth);
+        
+        /**
+         * Accounts stored in the level's GE and banking data.
+         * Assumes GE data is available (validated in prepare()).
+         */
+        static Accounts forLevel(Level level) {
+            return new Accounts() {
+                @Override
+                public PlayerGEInventory getInventory(long playerAuth) {
+                    return level.getLevelData("grandexchangedata") instanceof GrandExchangeLevelData
+                        ? ((GrandExchangeLevelData) level.getLevelData("grandexchangedata")).getInventory(playerAuth)
+                        : null;
+                }
+                
+                @Override
+                public PlayerBank getBank(long playerAuth) {
+                    return BankingLevelData.getBankingData(level).getOrCreateBank(playerAuth);
+                }
+            };
+        }
+    }
+    
     /**
      * Undo log for rollback operations.
      */
     private static class UndoLog {
         int buyOrderQty;
         int sellOfferQty;
+        BuyOrder.BuyOrderState buyOrderState;
+        GEOffer.OfferState sellOfferState;
         int buyerCoinsEscrowed;
         long sellerBankCoins;  // Long to match PlayerBank.getCoins()
     }
@@ -6,6 +6,7 @@ import medievalsim.grandexchange.domain.GEOffer;
 import medievalsim.grandexchange.domain.BuyOrder;
 import medievalsim.grandexchange.domain.CollectionItem;
 import medievalsim.grandexchange.domain.MarketSnapshot;
+import medievalsim.grandexchange.services.RateLimitService;
 import medievalsim.banking.domain.PlayerBank;
 import medievalsim.banking.service.BankingService;
 import medievalsim.banking.service.BankingResult;
@@ -14,6 +15,7 @@ import medievalsim.util.ModLogger;
 import medievalsim.packets.PacketGEBuyOrderSync;
 import medievalsim.packets.PacketGESync;
 import necesse.engine.Settings;
+import necesse.engine.localization.Localization;
 import necesse.engine.network.NetworkClient;
 import necesse.engine.network.Packet;
 import necesse.engine.network.PacketReader;
@@ -72,6 +74,13 @@ public class GrandExchangeContainer extends Container {
     public int marketTotalPages = 1;
     public int marketTotalResults = 0;
     public int marketPageSize = ModConfig.GrandExchange.maxListingsPerPage;
+    public int marketSyncSequence = PacketGESync.FULL_SYNC; // Client-side: sequence of the page currently held
+    private MarketSnapshot lastSentMarketSnapshot = null; // Server-side: last page pushed via PacketGESync
+    private int lastSentMarketSequence = PacketGESync.FULL_SYNC; // Server-side: sequence of lastSentMarketSnapshot
+    private int ackedMarketSequence = PacketGESync.FULL_SYNC; // Server-side: last sequence the client acknowledged
+    private int nextMarketSequence = 0;
+    private boolean marketRefreshDeferred = false; // Server-side: browse refresh held back by the rate limiter
+    private long marketRefreshRetryTime = 0L;      // Server-side: when the deferred refresh has a token again
     
     // ===== TAB 1: BUY ORDERS =====
     // Data stored in playerInventory.buyOrders[3]
@@ -220,6 +229,7 @@ public class GrandExchangeContainer extends Container {
                 ModLogger.error("Failed to get bank for player auth=%d", playerAuth);
                 throw new IllegalStateException("Bank not found for player");
             }
+            this.bank.retainView(); // Keep the bank loaded while this container holds it
             this.clientCoinCount = bank.getCoins();
             ModLogger.info("[BANK SYNC] Server initialized GE container: auth=%d, bank coins=%d, clientCoinCount=%d", 
                 playerAuth, bank.getCoins(), clientCoinCount);
@@ -307,7 +317,7 @@ public class GrandExchangeContainer extends Container {
                 marketFilter = filter == null ? "" : filter;
                 marketPage = 0;
                 if (client.isServer()) {
-                    refreshMarketListings();
+                    requestMarketRefresh();
                 }
                 ModLogger.debug("Market filter set to: %s", marketFilter);
             }
@@ -319,7 +329,7 @@ public class GrandExchangeContainer extends Container {
                 marketCategory = category == null ? "all" : category;
                 marketPage = 0;
                 if (client.isServer()) {
-                    refreshMarketListings();
+                    requestMarketRefresh();
                 }
                 ModLogger.debug("Market category set to: %s", marketCategory);
             }
@@ -330,7 +340,7 @@ public class GrandExchangeContainer extends Container {
             protected void run(int page) {
                 if (client.isServer()) {
                     marketPage = Math.max(0, page);
-                    refreshMarketListings();
+                    requestMarketRefresh();
                 }
             }
         });
@@ -341,7 +351,7 @@ public class GrandExchangeContainer extends Container {
                 if (client.isServer()) {
                     marketSort = sortMode;
                     marketPage = 0;
-                    refreshMarketListings();
+                    requestMarketRefresh();
                 }
             }
         });
@@ -605,12 +615,89 @@ public class GrandExchangeContainer extends Container {
             marketPage
         );
 
+        // Cached snapshots are shared instances: same instance means the client already has this page
+        boolean unchanged = snapshot == lastSentMarketSnapshot;
         applyMarketSnapshot(snapshot);
-        client.getServerClient().sendPacket(new PacketGESync(playerAuth, snapshot));
+        if (unchanged) {
+            ModLogger.debug("Market snapshot unchanged, skipping PacketGESync: page=%d", marketPage);
+            return;
+        }
+
+        // Delta only against a page the client has confirmed it holds
+        boolean canDelta = ModConfig.GrandExchange.enableDeltaSync
+            && lastSentMarketSnapshot != null
+            && ackedMarketSequence == lastSentMarketSequence;
+        int sequence = nextMarketSequence++;
+        PacketGESync packet = canDelta
+            ? new PacketGESync(playerAuth, sequence, snapshot, lastSentMarketSequence, lastSentMarketSnapshot)
+            : new PacketGESync(playerAuth, sequence, snapshot);
+        lastSentMarketSnapshot = snapshot;
+        lastSentMarketSequence = sequence;
+        client.getServerClient().sendPacket(packet);
         ModLogger.debug("Market snapshot refreshed: page=%d totalResults=%d filter='%s' category='%s' sort=%d",
             marketPage, marketTotalResults, marketFilter, marketCategory, marketSort);
     }
 
+    /**
+     * Browser-driven refresh (filter, category, page, sort), throttled per player.
+     * When rate limited the latest browser state is kept and refreshed from tick()
+     * once a token is available, so the client always ends up on the page it asked for.
+     * Requests while a refresh is already deferred just wait for it (no extra denials).
+     */
+    private void requestMarketRefresh() {
+        if (geData == null || !client.isServer() || marketRefreshDeferred) {
+            return;
+        }
+        RateLimitService rateLimits = geData.getRateLimitService();
+        if (rateLimits.tryAcquire(RateLimitService.Action.BROWSE_REFRESH, playerAuth)) {
+            refreshMarketListings();
+        } else {
+            marketRefreshDeferred = true;
+            marketRefreshRetryTime = System.currentTimeMillis()
+                + rateLimits.getWaitMillis(RateLimitService.Action.BROWSE_REFRESH, playerAuth);
+        }
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+
+        if (client.isServer()) {
+            // Slot drags edit the sell inventory in place; flag its save segment
+            playerInventory.checkSellSlotChanges();
+        }
+
+        // Only retry once the limiter says a token is due, so waiting does not count as denials
+        if (marketRefreshDeferred && client.isServer() && System.currentTimeMillis() >= marketRefreshRetryTime) {
+            marketRefreshDeferred = false;
+            requestMarketRefresh();
+        }
+    }
+
+    @Override
+    public void onClose() {
+        super.onClose();
+        if (client.isServer()) {
+            playerInventory.checkSellSlotChanges();
+            if (bank != null) {
+                bank.releaseView();
+            }
+        }
+    }
+
+    /**
+     * Server-side: record the client's PacketGESyncAck.
+     * An ack of PacketGESync.FULL_SYNC means the client lost its base page, so the next send is full.
+     */
+    public void acknowledgeMarketSync(int sequence) {
+        ackedMarketSequence = sequence;
+        if (sequence == PacketGESync.FULL_SYNC) {
+            // Same per-player budget as browsing, so repeated FULL_SYNC acks cannot force full pages
+            lastSentMarketSnapshot = null;
+            requestMarketRefresh();
+        }
+    }
+
     /**
      * Called by both server refreshes and client packets to align container state.
      */
@@ -662,6 +749,14 @@ public class GrandExchangeContainer extends Container {
             return;
         }
 
+        RateLimitService rateLimits = geData.getRateLimitService();
+        if (!rateLimits.tryAcquire(RateLimitService.Action.MARKET_PURCHASE, playerAuth)) {
+            float remaining = rateLimits.getRemainingSeconds(RateLimitService.Action.MARKET_PURCHASE, playerAuth);
+            client.getServerClient().sendChatMessage(
+                Localization.translate("ui", "ratelimited", "seconds", String.format("%.1f", remaining)));
+            return;
+        }
+
         Level level = client.getServerClient().getLevel();
         String buyerName = client.getServerClient().getName();
         boolean success = geData.processMarketPurchase(level, playerAuth, buyerName, offerID);
@@ -859,10 +954,16 @@ public class GrandExchangeContainer extends Container {
             return;
         }
         
-        geData.enableSellOffer(client.getServerClient().getLevel(), playerAuth, slotIndex);
-        ModLogger.info("Enabled sell offer slot %d for player auth=%d", slotIndex, playerAuth);
-        
-        sendSellInventorySync();
+        // Runs on the GE writer during the next level tick; UI resyncs once it has
+        boolean queued = geData.submitSellOfferToggle(client.getServerClient().getLevel(), playerAuth, slotIndex, true,
+            success -> {
+                ModLogger.info("Enabled sell offer slot %d for player auth=%d: %s",
+                    slotIndex, playerAuth, success ? "SUCCESS" : "FAILED");
+                sendSellInventorySync();
+            });
+        if (!queued) {
+            sendSellInventorySync();
+        }
     }
     
     /**
@@ -873,10 +974,16 @@ public class GrandExchangeContainer extends Container {
             return;
         }
         
-        geData.disableSellOffer(client.getServerClient().getLevel(), playerAuth, slotIndex);
-        ModLogger.info("Disabled sell offer slot %d for player auth=%d", slotIndex, playerAuth);
-        
-        sendSellInventorySync();
+        // Runs on the GE writer during the next level tick; UI resyncs once it has
+        boolean queued = geData.submitSellOfferToggle(client.getServerClient().getLevel(), playerAuth, slotIndex, false,
+            success -> {
+                ModLogger.info("Disabled sell offer slot %d for player auth=%d: %s",
+                    slotIndex, playerAuth, success ? "SUCCESS" : "FAILED");
+                sendSellInventorySync();
+            });
+        if (!queued) {
+            sendSellInventorySync();
+        }
     }
     
     /**
@@ -957,21 +1064,12 @@ public class GrandExchangeContainer extends Container {
         // If auto-bank enabled, send directly to bank
         if (playerInventory.isAutoSendToBank()) {
             if (bankingService != null && bank != null) {
-                // Add item to bank inventory
-                InventoryItem invItem = new InventoryItem(item.getItemStringID(), item.getQuantity());
-                boolean added = bank.getInventory().addItem(
-                    playerLevel,
-                    serverClient.playerMob,
-                    invItem,
-                    "grandexchange_collect",
-                    null
-                );
-                
-                if (added) {
-                    // Only remove from collection if successfully added to bank
-                    collectionBox.remove(collectionIndex);
+                // Whatever does not fit stays in the collection box
+                String itemStringID = item.getItemStringID();
+                int deposited = geData.collectToBank(playerLevel, playerAuth, collectionIndex);
+                if (deposited > 0) {
                     ModLogger.info("Collected item %d to bank (auto-bank enabled): %s x%d",
-                        collectionIndex, item.getItemStringID(), item.getQuantity());
+                        collectionIndex, itemStringID, deposited);
                 } else {
                     ModLogger.warn("Failed to add item to bank, keeping in collection box");
                 }
@@ -986,7 +1084,7 @@ public class GrandExchangeContainer extends Container {
             }
             InventoryItem invItem = new InventoryItem(removed.getItemStringID(), removed.getQuantity());
             if (invItem.item == null) {
-                playerInventory.insertIntoCollectionBox(collectionIndex, removed);
+                geData.restoreToCollectionBox(playerAuth, collectionIndex, removed);
                 ModLogger.warn("Unknown item string ID '%s' at collection index %d for auth=%d; restored to collection box",
                     removed.getItemStringID(), collectionIndex, playerAuth);
                 sendCollectionSync();
@@ -1003,7 +1101,7 @@ public class GrandExchangeContainer extends Container {
                 ModLogger.info("Collected item %d from collection box for player auth=%d: %s x%d",
                     collectionIndex, playerAuth, removed.getItemStringID(), removed.getQuantity());
             } else {
-                playerInventory.insertIntoCollectionBox(collectionIndex, removed);
+                geData.restoreToCollectionBox(playerAuth, collectionIndex, removed);
                 ModLogger.warn("Inventory full when collecting %s x%d for player auth=%d; restored to collection box",
                     removed.getItemStringID(), removed.getQuantity(), playerAuth);
             }
@@ -1014,44 +1112,18 @@ public class GrandExchangeContainer extends Container {
     
     /**
      * Collect all items from collection box to bank.
-     * Fixed: Collects in reverse order to prevent index shifting issues.
+     * Delegates to the level data so the whole box goes in as one bulk deposit under the player lock.
      */
     private void handleCollectAllToBank() {
-        if (bankingService == null || bank == null) {
+        if (bankingService == null || bank == null || geData == null) {
             ModLogger.warn("Banking service not available for collect all");
             return;
         }
         
-        List<CollectionItem> collectionBox = playerInventory.getCollectionBox();
-        int collectedCount = 0;
-        int failedCount = 0;
-        
-        // Collect in REVERSE order to avoid index shifting issues
-        for (int i = collectionBox.size() - 1; i >= 0; i--) {
-            CollectionItem item = collectionBox.get(i);
-            if (item != null) {
-                InventoryItem invItem = new InventoryItem(item.getItemStringID(), item.getQuantity());
-                boolean added = bank.getInventory().addItem(
-                    client.getServerClient().getLevel(),
-                    client.getServerClient().playerMob,
-                    invItem,
-                    "grandexchange_collect_all",
-                    null
-                );
-                
-                if (added) {
-                    collectionBox.remove(i);
-                    collectedCount++;
-                } else {
-                    failedCount++;
-                    ModLogger.warn("Failed to add item to bank: %s x%d",
-                        item.getItemStringID(), item.getQuantity());
-                }
-            }
-        }
-        
-        ModLogger.info("Collected %d items to bank for player auth=%d (%d failed)",
-            collectedCount, playerAuth, failedCount);
+        int remainingBefore = playerInventory.getCollectionBoxSize();
+        int collectedCount = geData.collectAllToBank(client.getServerClient().getLevel(), playerAuth);
+        ModLogger.info("Collected %d items to bank for player auth=%d (%d left in collection box)",
+            collectedCount, playerAuth, remainingBefore - collectedCount);
         
         sendCollectionSync();
     }
@@ -0,0 +1,105 @@
+package medievalsim.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free HDR-style latency histogram.
+ *
+ * Values (microseconds) below 64 get one bucket each; above that every power of two
+ * is split into 32 linear sub-buckets, so any recorded value is reported within ~3%.
+ * Values beyond MAX_VALUE are clamped into the last bucket. Recording is one
+ * atomic increment; percentiles walk the fixed ~1k bucket array.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;   // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;         // 64: exact below this
+    private static final int MAX_EXPONENT = 36;                      // ~19 hours in microseconds
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+
+    public void record(long value) {
+        long clamped = Math.max(0L, Math.min(value, MAX_VALUE));
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.increment();
+        totalValue.add(clamped);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * @param percentile 0-100 (e.g. 99.9)
+     * @return Value at the percentile (bucket midpoint), or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        return valueAtPercentile(percentile, this);
+    }
+
+    /**
+     * Percentile over several histograms combined (e.g. the current and previous window).
+     */
+    public static long valueAtPercentile(double percentile, LatencyHistogram... histograms) {
+        long total = 0;
+        for (LatencyHistogram histogram : histograms) {
+            if (histogram != null) {
+                total += histogram.totalCount.sum();
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            for (LatencyHistogram histogram : histograms) {
+                if (histogram != null) {
+                    seen += histogram.counts.get(index);
+                }
+            }
+            if (seen >= target) {
+                return midpointOf(index);
+            }
+        }
+        return midpointOf(BUCKET_COUNT - 1);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);        // >= SUB_BUCKET_BITS + 1
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)); // 32..63
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (subBucket - SUB_BUCKETS);
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return (long) subBucket << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long midpointOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        long lower = lowerBoundOf(index);
+        long width = index + 1 < BUCKET_COUNT ? lowerBoundOf(index + 1) - lower : MAX_VALUE + 1 - lower;
+        return lower + width / 2;
+    }
+}
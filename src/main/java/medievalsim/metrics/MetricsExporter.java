@@ -0,0 +1,135 @@
+package medievalsim.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import medievalsim.config.ModConfig;
+import medievalsim.util.ModLogger;
+import necesse.engine.GlobalData;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodic export of MetricsRegistry in the Prometheus text format.
+ *
+ * Driven from server level ticks: the first tick past the export interval renders
+ * the registry and replaces medievalsim/metrics/medievalsim.prom under the app data
+ * folder (next to the GE journal), suitable for node_exporter's textfile collector.
+ * When httpPort is set, the same text is also served on http://127.0.0.1:PORT/metrics;
+ * the listener follows config changes at the next export and stops when export is disabled.
+ */
+public final class MetricsExporter {
+
+    private static final String FILE_NAME = "medievalsim.prom";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final AtomicLong lastExportTime = new AtomicLong(0);
+    private static HttpServer httpServer;
+    private static int httpServerPort;
+
+    private MetricsExporter() {
+    }
+
+    /**
+     * Export if the interval has elapsed. Cheap when not due; safe to call from every level's tick.
+     */
+    public static void tick() {
+        if (!ModConfig.Metrics.enableMetricsExport) {
+            if (httpServer != null) {
+                updateHttpServer(0);
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastExportTime.get();
+        if (now - last < ModConfig.Metrics.exportIntervalSeconds * 1000L
+            || !lastExportTime.compareAndSet(last, now)) {
+            return;
+        }
+        writeFile(MetricsRegistry.renderPrometheus());
+        updateHttpServer(ModConfig.Metrics.httpPort);
+    }
+
+    public static Path getExportPath() {
+        return Paths.get(GlobalData.appDataPath(), "medievalsim", "metrics", FILE_NAME);
+    }
+
+    /**
+     * Write to a temp file and move it over the export, so scrapers never read a partial file.
+     */
+    private static void writeFile(String text) {
+        Path target = getExportPath();
+        Path temp = target.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            ModLogger.warn("Failed to write metrics to %s: %s", target, e.getMessage());
+        }
+    }
+
+    // ===== HTTP ENDPOINT =====
+
+    private static synchronized void updateHttpServer(int port) {
+        if (httpServer != null && httpServerPort == port) {
+            return;
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+            ModLogger.info("Stopped metrics endpoint on port %d", httpServerPort);
+        }
+        httpServerPort = port;
+        if (port <= 0) {
+            return;
+        }
+
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", MetricsExporter::handleScrape);
+            // The dispatcher thread inherits daemon status from the thread that starts it;
+            // start it from a daemon thread so the endpoint never keeps the JVM alive
+            Thread starter = new Thread(server::start, "MedievalSim-Metrics-Start");
+            starter.setDaemon(true);
+            starter.start();
+            starter.join();
+            httpServer = server;
+            ModLogger.info("Serving metrics on http://127.0.0.1:%d/metrics", port);
+        } catch (IOException e) {
+            ModLogger.warn("Failed to start metrics endpoint on port %d: %s", port, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = MetricsRegistry.renderPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package medievalsim.metrics;
+
+import medievalsim.config.ModConfig;
+import medievalsim.util.ModLogger;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Process-wide registry of the mod's hot-path metrics, rendered in the Prometheus
+ * text exposition format by MetricsExporter.
+ *
+ * Metric kinds:
+ * - Counter: monotonically increasing LongAdder (exported as NAME_total)
+ * - Gauge: sampled from a supplier at export time, so owners pay nothing per update.
+ *   Per-instance owners (e.g. level data) register with gauge(name, help, owner, reader):
+ *   the owner is held weakly, readings of all live owners are summed, and a collected
+ *   owner drops out of the export on its own
+ * - Timer: latency summary (p50/p99/p999 over the last one to two quantile windows,
+ *   plus lifetime _sum and _count in seconds)
+ *
+ * Names are registered without the "medievalsim_" prefix. A metric may carry one
+ * label (e.g. op="deposit"); every label value of a name shares its HELP/TYPE header.
+ * Recording is lock-free; metrics are meant to be held in static final fields by
+ * their owners.
+ */
+public final class MetricsRegistry {
+
+    public static final String PREFIX = "medievalsim_";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private enum Kind {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        TIMER("summary");
+
+        private final String prometheusType;
+
+        Kind(String prometheusType) {
+            this.prometheusType = prometheusType;
+        }
+    }
+
+    private static final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    // ===== REGISTRATION =====
+
+    public static Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    public static Counter counter(String name, String help, String labelName, String labelValue) {
+        return (Counter) family(name, help, Kind.COUNTER).members
+            .computeIfAbsent(labels(labelName, labelValue), k -> new Counter());
+    }
+
+    public static Timer timer(String name, String help) {
+        return timer(name, help, null, null);
+    }
+
+    public static Timer timer(String name, String help, String labelName, String labelValue) {
+        return (Timer) family(name, help, Kind.TIMER).members
+            .computeIfAbsent(labels(labelName, labelValue), k -> new Timer());
+    }
+
+    /**
+     * Register (or replace) a gauge. The supplier is called on the exporting thread,
+     * so it must be thread-safe and cheap.
+     */
+    public static void gauge(String name, String help, DoubleSupplier supplier) {
+        gaugeOf(name, help).supplier = supplier;
+    }
+
+    /**
+     * Register (or replace) one owner's contribution to a gauge. The owner is only
+     * weakly reachable from the registry, so the reader must take it as its argument
+     * rather than capture it.
+     */
+    public static <T> void gauge(String name, String help, T owner, ToDoubleFunction<? super T> reader) {
+        Gauge gauge = gaugeOf(name, help);
+        gauge.owned.removeIf(source -> source.owner.get() == owner);
+        gauge.owned.add(new OwnedSource<>(owner, reader));
+    }
+
+    private static Gauge gaugeOf(String name, String help) {
+        return (Gauge) family(name, help, Kind.GAUGE).members.computeIfAbsent("", k -> new Gauge());
+    }
+
+    private static Family family(String name, String help, Kind kind) {
+        Family family = families.computeIfAbsent(name, k -> new Family(help, kind));
+        if (family.kind != kind) {
+            throw new IllegalArgumentException("Metric " + name + " already registered as " + family.kind);
+        }
+        return family;
+    }
+
+    private static String labels(String labelName, String labelValue) {
+        if (labelName == null || labelValue == null) {
+            return "";
+        }
+        return labelName + "=\"" + labelValue.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    // ===== EXPORT =====
+
+    /**
+     * @return Every registered metric in the Prometheus text exposition format (version 0.0.4)
+     */
+    public static String renderPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            String name = PREFIX + entry.getKey();
+            out.append("# HELP ").append(name).append(' ').append(family.help.replace('\n', ' ')).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.kind.prometheusType).append('\n');
+            for (Map.Entry<String, Metric> member : family.members.entrySet()) {
+                try {
+                    member.getValue().render(out, name, member.getKey());
+                } catch (RuntimeException e) {
+                    // A failing gauge supplier must not take down the whole export
+                    ModLogger.warn("Failed to render metric %s: %s", name, e.getMessage());
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String joinLabels(String labels, String extra) {
+        return labels.isEmpty() ? extra : labels + "," + extra;
+    }
+
+    // ===== METRIC TYPES =====
+
+    private static final class Family {
+        final String help;
+        final Kind kind;
+        final Map<String, Metric> members = new ConcurrentSkipListMap<>();
+
+        Family(String help, Kind kind) {
+            this.help = help;
+            this.kind = kind;
+        }
+    }
+
+    private abstract static class Metric {
+        abstract void render(StringBuilder out, String name, String labels);
+    }
+
+    public static final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        void render(StringBuilder out, String name, String labels) {
+            sample(out, name + "_total", labels, Long.toString(value.sum()));
+        }
+    }
+
+    private static final class Gauge extends Metric {
+        private volatile DoubleSupplier supplier;
+        private final List<OwnedSource<?>> owned = new CopyOnWriteArrayList<>();
+
+        @Override
+        void render(StringBuilder out, String name, String labels) {
+            DoubleSupplier current = supplier;
+            boolean present = current != null;
+            double value = present ? current.getAsDouble() : 0.0;
+            for (OwnedSource<?> source : owned) {
+                Double reading = source.read();
+                if (reading == null) {
+                    owned.remove(source);
+                    continue;
+                }
+                value += reading;
+                present = true;
+            }
+            if (present) {
+                sample(out, name, labels, Double.toString(value));
+            }
+        }
+    }
+
+    private static final class OwnedSource<T> {
+        final WeakReference<T> owner;
+        final ToDoubleFunction<? super T> reader;
+
+        OwnedSource(T owner, ToDoubleFunction<? super T> reader) {
+            this.owner = new WeakReference<>(owner);
+            this.reader = reader;
+        }
+
+        /**
+         * @return The owner's reading, or null once the owner has been collected
+         */
+        Double read() {
+            T current = owner.get();
+            return current == null ? null : reader.applyAsDouble(current);
+        }
+    }
+
+    /**
+     * Latency summary. Quantiles come from HDR-style histograms rotated every
+     * quantileWindowSeconds; only the rotating thread takes the lock.
+     */
+    public static final class Timer extends Metric {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous = new LatencyHistogram();
+        private volatile long windowStart = System.currentTimeMillis();
+
+        private Timer() {
+        }
+
+        public void recordNanos(long nanos) {
+            long clamped = Math.max(0L, nanos);
+            count.increment();
+            sumNanos.add(clamped);
+            rotateIfDue(System.currentTimeMillis());
+            current.record(clamped / 1000);
+        }
+
+        /**
+         * Record the time elapsed since a System.nanoTime() reading.
+         */
+        public void recordSince(long startNanos) {
+            recordNanos(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @param percentile 0-100, e.g. 99.9
+         * @return Latency in microseconds over the last one to two quantile windows
+         */
+        public long getPercentileMicros(double percentile) {
+            rotateIfDue(System.currentTimeMillis());
+            return LatencyHistogram.valueAtPercentile(percentile, current, previous);
+        }
+
+        private void rotateIfDue(long now) {
+            long windowMs = ModConfig.Metrics.quantileWindowSeconds * 1000L;
+            if (now - windowStart < windowMs) {
+                return;
+            }
+            synchronized (this) {
+                if (now - windowStart < windowMs) {
+                    return;
+                }
+                // A window with no samples at all leaves both histograms stale; drop them together
+                previous = now - windowStart < 2 * windowMs ? current : new LatencyHistogram();
+                current = new LatencyHistogram();
+                windowStart = now;
+            }
+        }
+
+        @Override
+        void render(StringBuilder out, String name, String labels) {
+            for (double quantile : QUANTILES) {
+                sample(out, name, joinLabels(labels, "quantile=\"" + quantile + "\""),
+                    Double.toString(getPercentileMicros(quantile * 100.0) / 1_000_000.0));
+            }
+            sample(out, name + "_sum", labels, Double.toString(sumNanos.sum() / 1_000_000_000.0));
+            sample(out, name + "_count", labels, Long.toString(count.sum()));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package medievalsim.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter over a sliding time window, kept as a ring of fixed-width buckets.
+ *
+ * Each bucket stores its bucket number next to its count. A writer landing on a bucket
+ * still holding an older bucket number claims it with a CAS and zeroes it, so stale
+ * buckets are recycled in place and nothing ever needs a cleanup pass. Adds racing the
+ * claim of a rolled-over bucket can be lost; counts are exact otherwise.
+ */
+public class SlidingWindowCounter {
+
+    private final long bucketMs;
+    private final AtomicLongArray bucketNumbers;
+    private final AtomicLongArray counts;
+
+    /**
+     * @param bucketCount Number of buckets (window length = bucketCount * bucketMs)
+     * @param bucketMs    Width of one bucket in milliseconds
+     */
+    public SlidingWindowCounter(int bucketCount, long bucketMs) {
+        if (bucketCount <= 0 || bucketMs <= 0) {
+            throw new IllegalArgumentException("bucketCount and bucketMs must be positive");
+        }
+        this.bucketMs = bucketMs;
+        this.bucketNumbers = new AtomicLongArray(bucketCount);
+        this.counts = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            bucketNumbers.set(i, -1L);
+        }
+    }
+
+    public void add(long nowMs, long delta) {
+        long bucket = Math.floorDiv(nowMs, bucketMs);
+        int slot = (int) Math.floorMod(bucket, (long) counts.length());
+        long current = bucketNumbers.get(slot);
+        while (current < bucket) {
+            if (bucketNumbers.compareAndSet(slot, current, bucket)) {
+                counts.set(slot, 0L);
+                break;
+            }
+            current = bucketNumbers.get(slot);
+        }
+        if (bucketNumbers.get(slot) == bucket) {
+            counts.addAndGet(slot, delta);
+        }
+    }
+
+    /**
+     * @return Total over the last windowMs (whole buckets, including the current one),
+     *         capped at the ring's length
+     */
+    public long sum(long nowMs, long windowMs) {
+        long newest = Math.floorDiv(nowMs, bucketMs);
+        long buckets = Math.min(counts.length(), Math.max(1L, windowMs / bucketMs));
+        long oldest = newest - buckets + 1;
+        long total = 0;
+        for (int slot = 0; slot < counts.length(); slot++) {
+            long bucket = bucketNumbers.get(slot);
+            if (bucket >= oldest && bucket <= newest) {
+                total += counts.get(slot);
+            }
+        }
+        return total;
+    }
+
+    public long getWindowMs() {
+        return bucketMs * counts.length();
+    }
+}
@@ -1,5 +1,6 @@
 package medievalsim.packets;
 
+import medievalsim.banking.service.BankSlotTracker;
 import medievalsim.banking.ui.BankContainer;
 import medievalsim.packets.core.AbstractPayloadPacket;
 import medievalsim.util.ModLogger;
@@ -9,16 +10,24 @@ import necesse.engine.network.PacketWriter;
 import necesse.engine.network.client.Client;
 import necesse.engine.network.server.Server;
 import necesse.engine.network.server.ServerClient;
+import necesse.inventory.Inventory;
 import necesse.inventory.InventoryItem;
 
 /**
- * Packet to sync a single bank inventory slot from server to client.
- * Similar to PacketOEInventoryUpdate but for bank inventories.
+ * Packet to sync bank inventory slots from server to client.
+ * Similar to PacketOEInventoryUpdate but for bank inventories, and carries every
+ * slot that changed since the last tick so bulk deposits cost one packet.
+ *
+ * Updates are sequenced per open container (BankSlotTracker): a delta applies only
+ * on top of baseSequence, otherwise the client discards it and asks for a full
+ * resync with PacketBankResyncRequest. Full updates have baseSequence FULL_SYNC.
  */
 public class PacketBankInventoryUpdate extends AbstractPayloadPacket {
     public final long ownerAuth;
-    public final int inventorySlot;
-    public final Packet itemContent;
+    public final int syncSequence;
+    public final int baseSequence;
+    public final int[] inventorySlots;
+    public final Packet[] itemContents;
 
     /**
      * Receiving constructor (client-side).
@@ -27,37 +36,71 @@ public class PacketBankInventoryUpdate extends AbstractPayloadPacket {
         super(data);
         PacketReader reader = new PacketReader(this);
         this.ownerAuth = reader.getNextLong();
-        this.inventorySlot = reader.getNextShortUnsigned();
-        this.itemContent = reader.getNextContentPacket();
+        this.syncSequence = reader.getNextInt();
+        this.baseSequence = reader.getNextInt();
+        int count = reader.getNextShortUnsigned();
+        this.inventorySlots = new int[count];
+        this.itemContents = new Packet[count];
+        for (int i = 0; i < count; i++) {
+            this.inventorySlots[i] = reader.getNextShortUnsigned();
+            this.itemContents[i] = reader.getNextContentPacket();
+        }
     }
 
     /**
-     * Sending constructor (server-side).
+     * Sending constructor (server-side) for the given slots of a bank inventory.
      */
-    public PacketBankInventoryUpdate(long ownerAuth, int inventorySlot, InventoryItem item) {
+    public PacketBankInventoryUpdate(long ownerAuth, BankSlotTracker.Batch batch, Inventory inventory) {
         this.ownerAuth = ownerAuth;
-        this.inventorySlot = inventorySlot;
-        this.itemContent = InventoryItem.getContentPacket(item);
-        
+        this.syncSequence = batch.getSequence();
+        this.baseSequence = batch.getBaseSequence();
+        this.inventorySlots = batch.getSlots();
+        this.itemContents = new Packet[inventorySlots.length];
+
         PacketWriter writer = new PacketWriter(this);
         writer.putNextLong(ownerAuth);
-        writer.putNextShortUnsigned(inventorySlot);
-        writer.putNextContentPacket(this.itemContent);
+        writer.putNextInt(syncSequence);
+        writer.putNextInt(baseSequence);
+        writer.putNextShortUnsigned(inventorySlots.length);
+        for (int i = 0; i < inventorySlots.length; i++) {
+            this.itemContents[i] = InventoryItem.getContentPacket(inventory.getItem(inventorySlots[i]));
+            writer.putNextShortUnsigned(inventorySlots[i]);
+            writer.putNextContentPacket(this.itemContents[i]);
+        }
     }
 
     @Override
     public void processClient(necesse.engine.network.NetworkPacket packet, Client client) {
-        // Update the bank inventory slot on the client side
+        // Update the bank inventory slots on the client side
         necesse.inventory.container.Container container = client.getContainer();
         if (container instanceof BankContainer) {
             BankContainer bankContainer = (BankContainer) container;
 
             // Only update if this packet is for the current player's bank
             if (bankContainer.ownerAuth == this.ownerAuth) {
-                InventoryItem item = InventoryItem.fromContentPacket(this.itemContent);
-                bankContainer.getBank().getInventory().setItem(this.inventorySlot, item);
-                ModLogger.debug("Client: Updated bank slot %d for player auth=%d",
-                    this.inventorySlot, this.ownerAuth);
+                boolean full = baseSequence == BankSlotTracker.FULL_SYNC;
+                if (!full && bankContainer.bankSyncSequence != baseSequence) {
+                    // Missed an update (or it belonged to an earlier container): ask for everything once
+                    if (!bankContainer.bankResyncRequested) {
+                        ModLogger.warn("Bank delta base mismatch: have=%d base=%d, requesting full resync",
+                            bankContainer.bankSyncSequence, baseSequence);
+                        bankContainer.bankResyncRequested = true;
+                        client.network.sendPacket(new PacketBankResyncRequest(ownerAuth));
+                    }
+                    return;
+                }
+                Inventory inventory = bankContainer.getBank().getInventory();
+                for (int i = 0; i < inventorySlots.length; i++) {
+                    if (inventorySlots[i] < inventory.getSize()) {
+                        inventory.setItem(inventorySlots[i], InventoryItem.fromContentPacket(itemContents[i]));
+                    }
+                }
+                bankContainer.bankSyncSequence = syncSequence;
+                if (full) {
+                    bankContainer.bankResyncRequested = false;
+                }
+                ModLogger.debug("Client: Updated %d bank slots for player auth=%d (seq=%d%s)",
+                    inventorySlots.length, this.ownerAuth, syncSequence, full ? ", full" : "");
             }
         }
     }
@@ -68,4 +111,3 @@ public class PacketBankInventoryUpdate extends AbstractPayloadPacket {
         ModLogger.warn("PacketBankInventoryUpdate.processServer called - this should not happen!");
     }
 }
-
@@ -0,0 +1,55 @@
+package medievalsim.packets;
+
+import medievalsim.banking.ui.BankContainer;
+import medievalsim.packets.core.AbstractPayloadPacket;
+import medievalsim.util.ModLogger;
+import necesse.engine.network.NetworkPacket;
+import necesse.engine.network.PacketReader;
+import necesse.engine.network.PacketWriter;
+import necesse.engine.network.client.Client;
+import necesse.engine.network.server.Server;
+import necesse.engine.network.server.ServerClient;
+import necesse.inventory.container.Container;
+
+/**
+ * Client-to-server request for a full bank slot sync, sent when a
+ * PacketBankInventoryUpdate delta does not build on the sequence the client holds.
+ */
+public class PacketBankResyncRequest extends AbstractPayloadPacket {
+    public final long ownerAuth;
+
+    /**
+     * Receiving constructor (server-side).
+     */
+    public PacketBankResyncRequest(byte[] data) {
+        super(data);
+        PacketReader reader = new PacketReader(this);
+        this.ownerAuth = reader.getNextLong();
+    }
+
+    /**
+     * Sending constructor (client-side).
+     */
+    public PacketBankResyncRequest(long ownerAuth) {
+        this.ownerAuth = ownerAuth;
+
+        PacketWriter writer = new PacketWriter(this);
+        writer.putNextLong(ownerAuth);
+    }
+
+    @Override
+    public void processClient(NetworkPacket packet, Client client) {
+        ModLogger.warn("PacketBankResyncRequest.processClient called - client-to-server only!");
+    }
+
+    @Override
+    public void processServer(NetworkPacket packet, Server server, ServerClient client) {
+        if (client == null) {
+            return;
+        }
+        Container container = client.getContainer();
+        if (container instanceof BankContainer bankContainer && bankContainer.ownerAuth == ownerAuth) {
+            bankContainer.requestFullBankResync();
+        }
+    }
+}
@@ -90,6 +90,7 @@ public class PacketConfigureProtectedZone extends Packet {
             // Validate using ZoneAPI
             medievalsim.util.ZoneAPI.ZoneContext ctx = medievalsim.util.ZoneAPI.forClient(client)
                 .withPacketName("PacketConfigureProtectedZone")
+                .checkEditRateLimit()
                 .requireProtectedZone(zoneID)
                 .build();
             if (!ctx.isValid()) return;
@@ -47,6 +47,7 @@ extends Packet {
             // Validate using ZoneAPI
             medievalsim.util.ZoneAPI.ZoneContext ctx = medievalsim.util.ZoneAPI.forClient(client)
                 .withPacketName("PacketConfigurePvPZone")
+                .checkEditRateLimit()
                 .requirePvPZone(this.zoneID)
                 .build();
             if (!ctx.isValid()) return;
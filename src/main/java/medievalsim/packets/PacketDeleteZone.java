@@ -39,6 +39,7 @@ extends Packet {
             // Validate using ZoneAPI
             medievalsim.util.ZoneAPI.ZoneContext ctx = medievalsim.util.ZoneAPI.forClient(client)
                 .withPacketName("PacketDeleteZone")
+                .checkEditRateLimit()
                 .requireAnyZone(this.zoneID, !this.isProtectedZone)
                 .build();
             if (!ctx.isValid()) return;
@@ -48,6 +48,7 @@ extends Packet {
             // Validate using ZoneAPI
             medievalsim.util.ZoneAPI.ZoneContext ctx = medievalsim.util.ZoneAPI.forClient(client)
                 .withPacketName("PacketExpandZone")
+                .checkEditRateLimit()
                 .requireAnyZone(this.zoneID, !this.isProtectedZone)
                 .build();
             if (!ctx.isValid()) return;
@@ -86,7 +86,7 @@ public class PacketGECollectItem extends AbstractPayloadPacket {
         
         InventoryItem invItem = removed.toInventoryItem();
         if (invItem == null || invItem.item == null) {
-            playerInventory.insertIntoCollectionBox(collectionIndex, removed);
+            geData.restoreToCollectionBox(playerAuth, collectionIndex, removed);
             ModLogger.warn("Unknown collection item %s when collecting for auth=%d; restored entry",
                 removed.getItemStringID(), playerAuth);
             sendCollectionSync(client, playerAuth, playerInventory);
@@ -98,7 +98,7 @@ public class PacketGECollectItem extends AbstractPayloadPacket {
             ModLogger.info("Player auth=%d collected item from collection box: %d x %s",
                 playerAuth, removed.getQuantity(), removed.getItemStringID());
         } else {
-            playerInventory.insertIntoCollectionBox(collectionIndex, removed);
+            geData.restoreToCollectionBox(playerAuth, collectionIndex, removed);
             ModLogger.warn("Player auth=%d inventory full, cannot collect %s x%d", playerAuth,
                 removed.getItemStringID(), removed.getQuantity());
         }
@@ -60,23 +60,29 @@ public class PacketGEEnableBuyOrder extends AbstractPayloadPacket {
         
         long playerAuth = client.authentication;
         
-        if (enable) {
-            // Enable buy order (DRAFT → ACTIVE, escrow coins from bank)
-            boolean success = geData.enableBuyOrder(level, playerAuth, slotIndex);
-            if (success) {
-                ModLogger.info("Player auth=%d enabled buy order in slot %d", playerAuth, slotIndex);
-            } else {
+        // Enable (DRAFT → ACTIVE, escrow coins from bank) or disable (ACTIVE → DRAFT, refund coins)
+        // runs on the GE writer during the next level tick
+        boolean queued = geData.submitBuyOrderToggle(level, playerAuth, slotIndex, enable, success -> {
+            if (enable && !success) {
                 ModLogger.warn("Player auth=%d failed to enable buy order in slot %d (insufficient coins?)", 
                     playerAuth, slotIndex);
+            } else {
+                ModLogger.info("Player auth=%d %s buy order in slot %d: %s",
+                    playerAuth, enable ? "enabled" : "disabled", slotIndex, success ? "SUCCESS" : "FAILED");
             }
-        } else {
-            // Disable buy order (ACTIVE → DRAFT, refund coins to bank)
-            boolean success = geData.disableBuyOrder(level, playerAuth, slotIndex);
-            ModLogger.info("Player auth=%d disabled buy order in slot %d: %s", 
-                playerAuth, slotIndex, success ? "SUCCESS" : "FAILED");
-        }
+            sendBuyOrderSync(geData, client, playerAuth);
+        });
         
-        // Send sync packet back to client to update UI
+        if (!queued) {
+            // Queue full: resync so the checkbox snaps back to the current state
+            sendBuyOrderSync(geData, client, playerAuth);
+        }
+    }
+    
+    /**
+     * Send sync packet back to client to update UI.
+     */
+    private static void sendBuyOrderSync(GrandExchangeLevelData geData, ServerClient client, long playerAuth) {
         try {
             var playerInventory = geData.getOrCreateInventory(playerAuth);
             PacketGEBuyOrderSync syncPacket = new PacketGEBuyOrderSync(playerAuth, playerInventory.getBuyOrders());
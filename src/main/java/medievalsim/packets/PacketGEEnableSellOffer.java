@@ -59,28 +59,27 @@ public class PacketGEEnableSellOffer extends AbstractPayloadPacket {
         }
         
         long playerAuth = client.authentication;
-        boolean success = false;
         
-        if (enable) {
-            // Enable offer (DRAFT → ACTIVE, add to market)
-            success = geData.enableSellOffer(level, playerAuth, slotIndex);
-            ModLogger.info("Player auth=%d enabled sell offer in slot %d: %s", 
-                playerAuth, slotIndex, success ? "SUCCESS" : "FAILED");
-        } else {
-            // Disable offer (ACTIVE → DRAFT, remove from market)
-            success = geData.disableSellOffer(level, playerAuth, slotIndex);
-            ModLogger.info("Player auth=%d disabled sell offer in slot %d: %s", 
-                playerAuth, slotIndex, success ? "SUCCESS" : "FAILED");
-        }
-        
-        // Send sync packet back to client to update UI
-        geData.sendSellInventorySyncToClient(client, playerAuth);
+        // Enable (DRAFT → ACTIVE, add to market) or disable (ACTIVE → DRAFT, remove from market)
+        // runs on the GE writer during the next level tick
+        boolean queued = geData.submitSellOfferToggle(level, playerAuth, slotIndex, enable, success -> {
+            ModLogger.info("Player auth=%d %s sell offer in slot %d: %s",
+                playerAuth, enable ? "enabled" : "disabled", slotIndex, success ? "SUCCESS" : "FAILED");
+            
+            // Send sync packet back to client to update UI
+            geData.sendSellInventorySyncToClient(client, playerAuth);
+            
+            // If failed, optionally send error notification (future enhancement)
+            if (!success) {
+                // TODO: Send error packet to show notification on client
+                ModLogger.debug("Failed to %s offer in slot %d, sync sent to show current state",
+                    enable ? "enable" : "disable", slotIndex);
+            }
+        });
         
-        // If failed, optionally send error notification (future enhancement)
-        if (!success) {
-            // TODO: Send error packet to show notification on client
-            ModLogger.debug("Failed to %s offer in slot %d, sync sent to show current state",
-                enable ? "enable" : "disable", slotIndex);
+        if (!queued) {
+            // Queue full: resync so the checkbox snaps back to the current state
+            geData.sendSellInventorySyncToClient(client, playerAuth);
         }
     }
 }
@@ -0,0 +1,212 @@
+package medievalsim.packets;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import medievalsim.grandexchange.services.GEUpdateCoalescer;
+import medievalsim.grandexchange.ui.GrandExchangeContainer;
+import medievalsim.packets.core.AbstractPayloadPacket;
+import medievalsim.util.ModLogger;
+import necesse.engine.network.NetworkPacket;
+import necesse.engine.network.PacketReader;
+import necesse.engine.network.PacketWriter;
+import necesse.engine.network.client.Client;
+import necesse.engine.network.server.Server;
+import necesse.engine.network.server.ServerClient;
+
+import java.util.Collection;
+
+/**
+ * Compact server -> client update for the slots touched by fills since the last flush.
+ * Carries only the changed fields (remaining quantity, state) of each touched sell
+ * and buy slot plus the merged fill totals, instead of a full slot sync per trade.
+ * Slots whose ID no longer matches the client's copy are skipped; the next full sync fixes them.
+ */
+public class PacketGEFillUpdate extends AbstractPayloadPacket {
+    public final long ownerAuth;
+    public final int[] sellSlots;
+    public final long[] sellOfferIDs;
+    public final int[] sellRemaining;
+    public final int[] sellStates;
+    public final boolean[] sellEnabled;
+    public final int[] sellFilled;
+    public final long[] sellCoins;
+    public final int[] buySlots;
+    public final long[] buyOrderIDs;
+    public final int[] buyRemaining;
+    public final int[] buyStates;
+    public final boolean[] buyEnabled;
+    public final int[] buyFilled;
+    public final long[] buyCoins;
+
+    /**
+     * Receiving constructor (client-side).
+     */
+    public PacketGEFillUpdate(byte[] data) {
+        super(data);
+        PacketReader reader = new PacketReader(this);
+        this.ownerAuth = reader.getNextLong();
+
+        int sellCount = reader.getNextByteUnsigned();
+        this.sellSlots = new int[sellCount];
+        this.sellOfferIDs = new long[sellCount];
+        this.sellRemaining = new int[sellCount];
+        this.sellStates = new int[sellCount];
+        this.sellEnabled = new boolean[sellCount];
+        this.sellFilled = new int[sellCount];
+        this.sellCoins = new long[sellCount];
+        for (int i = 0; i < sellCount; i++) {
+            sellSlots[i] = reader.getNextByteUnsigned();
+            sellOfferIDs[i] = reader.getNextLong();
+            sellRemaining[i] = reader.getNextInt();
+            sellStates[i] = reader.getNextByteUnsigned();
+            sellEnabled[i] = reader.getNextBoolean();
+            sellFilled[i] = reader.getNextInt();
+            sellCoins[i] = reader.getNextLong();
+        }
+
+        int buyCount = reader.getNextByteUnsigned();
+        this.buySlots = new int[buyCount];
+        this.buyOrderIDs = new long[buyCount];
+        this.buyRemaining = new int[buyCount];
+        this.buyStates = new int[buyCount];
+        this.buyEnabled = new boolean[buyCount];
+        this.buyFilled = new int[buyCount];
+        this.buyCoins = new long[buyCount];
+        for (int i = 0; i < buyCount; i++) {
+            buySlots[i] = reader.getNextByteUnsigned();
+            buyOrderIDs[i] = reader.getNextLong();
+            buyRemaining[i] = reader.getNextInt();
+            buyStates[i] = reader.getNextByteUnsigned();
+            buyEnabled[i] = reader.getNextBoolean();
+            buyFilled[i] = reader.getNextInt();
+            buyCoins[i] = reader.getNextLong();
+        }
+    }
+
+    /**
+     * Sending constructor (server-side). Reads the current state of each touched offer/order.
+     */
+    public PacketGEFillUpdate(long ownerAuth, Collection<GEUpdateCoalescer.SellFill> sellFills,
+                              Collection<GEUpdateCoalescer.BuyFill> buyFills) {
+        this.ownerAuth = ownerAuth;
+
+        int sellCount = sellFills.size();
+        this.sellSlots = new int[sellCount];
+        this.sellOfferIDs = new long[sellCount];
+        this.sellRemaining = new int[sellCount];
+        this.sellStates = new int[sellCount];
+        this.sellEnabled = new boolean[sellCount];
+        this.sellFilled = new int[sellCount];
+        this.sellCoins = new long[sellCount];
+        int i = 0;
+        for (GEUpdateCoalescer.SellFill fill : sellFills) {
+            GEOffer offer = fill.getOffer();
+            sellSlots[i] = offer.getInventorySlot();
+            sellOfferIDs[i] = offer.getOfferID();
+            sellRemaining[i] = offer.getQuantityRemaining();
+            sellStates[i] = offer.getState().ordinal();
+            sellEnabled[i] = offer.isEnabled();
+            sellFilled[i] = fill.getQuantity();
+            sellCoins[i] = fill.getCoins();
+            i++;
+        }
+
+        int buyCount = buyFills.size();
+        this.buySlots = new int[buyCount];
+        this.buyOrderIDs = new long[buyCount];
+        this.buyRemaining = new int[buyCount];
+        this.buyStates = new int[buyCount];
+        this.buyEnabled = new boolean[buyCount];
+        this.buyFilled = new int[buyCount];
+        this.buyCoins = new long[buyCount];
+        i = 0;
+        for (GEUpdateCoalescer.BuyFill fill : buyFills) {
+            BuyOrder order = fill.getOrder();
+            buySlots[i] = order.getSlotIndex();
+            buyOrderIDs[i] = order.getOrderID();
+            buyRemaining[i] = order.getQuantityRemaining();
+            buyStates[i] = order.getState().ordinal();
+            buyEnabled[i] = order.isEnabled();
+            buyFilled[i] = fill.getQuantity();
+            buyCoins[i] = fill.getCoins();
+            i++;
+        }
+
+        PacketWriter writer = new PacketWriter(this);
+        writer.putNextLong(ownerAuth);
+        writer.putNextByteUnsigned(sellCount);
+        for (int j = 0; j < sellCount; j++) {
+            writer.putNextByteUnsigned(sellSlots[j]);
+            writer.putNextLong(sellOfferIDs[j]);
+            writer.putNextInt(sellRemaining[j]);
+            writer.putNextByteUnsigned(sellStates[j]);
+            writer.putNextBoolean(sellEnabled[j]);
+            writer.putNextInt(sellFilled[j]);
+            writer.putNextLong(sellCoins[j]);
+        }
+        writer.putNextByteUnsigned(buyCount);
+        for (int j = 0; j < buyCount; j++) {
+            writer.putNextByteUnsigned(buySlots[j]);
+            writer.putNextLong(buyOrderIDs[j]);
+            writer.putNextInt(buyRemaining[j]);
+            writer.putNextByteUnsigned(buyStates[j]);
+            writer.putNextBoolean(buyEnabled[j]);
+            writer.putNextInt(buyFilled[j]);
+            writer.putNextLong(buyCoins[j]);
+        }
+    }
+
+    @Override
+    public void processClient(NetworkPacket packet, Client client) {
+        if (!(client.getContainer() instanceof GrandExchangeContainer geContainer)) {
+            return; // GE closed: the full sync on open brings the slots up to date
+        }
+        if (geContainer.playerAuth != this.ownerAuth) {
+            ModLogger.warn("Fill update auth mismatch: container=%d, packet=%d",
+                geContainer.playerAuth, this.ownerAuth);
+            return;
+        }
+
+        boolean sellChanged = false;
+        for (int i = 0; i < sellSlots.length; i++) {
+            GEOffer current = geContainer.playerInventory.getSlotOffer(sellSlots[i]);
+            if (current == null || current.getOfferID() != sellOfferIDs[i]) {
+                continue;
+            }
+            GEOffer updated = GEOffer.fromPacketData(
+                sellOfferIDs[i], ownerAuth, sellSlots[i], current.getItemStringID(),
+                current.getQuantityTotal(), sellRemaining[i], current.getPricePerItem(),
+                sellEnabled[i], GEOffer.OfferState.values()[sellStates[i]]);
+            geContainer.playerInventory.setSlotOffer(sellSlots[i], updated);
+            sellChanged = true;
+        }
+
+        boolean buyChanged = false;
+        for (int i = 0; i < buySlots.length; i++) {
+            BuyOrder current = geContainer.playerInventory.getBuyOrder(buySlots[i]);
+            if (current == null || current.getOrderID() != buyOrderIDs[i]) {
+                continue;
+            }
+            BuyOrder updated = BuyOrder.fromPacketData(
+                buyOrderIDs[i], ownerAuth, buySlots[i], current.getItemStringID(),
+                current.getQuantityTotal(), buyRemaining[i], current.getPricePerItem(),
+                buyEnabled[i], BuyOrder.BuyOrderState.values()[buyStates[i]], current.getDurationDays());
+            geContainer.playerInventory.setBuyOrder(buySlots[i], updated);
+            buyChanged = true;
+        }
+
+        if (sellChanged) {
+            geContainer.onSellOffersUpdated();
+        }
+        if (buyChanged) {
+            geContainer.onBuyOrdersUpdated();
+        }
+        ModLogger.debug("Client: Applied fill update (%d sell slots, %d buy slots)",
+            sellSlots.length, buySlots.length);
+    }
+
+    @Override
+    public void processServer(NetworkPacket packet, Server server, ServerClient client) {
+        ModLogger.warn("PacketGEFillUpdate.processServer called - server-to-client only!");
+    }
+}
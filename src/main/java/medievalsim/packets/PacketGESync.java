@@ -1,7 +1,13 @@
 package medievalsim.packets;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import medievalsim.grandexchange.domain.GEOffer;
 import medievalsim.grandexchange.domain.MarketSnapshot;
@@ -17,10 +23,22 @@ import necesse.inventory.container.Container;
 
 /**
  * Server -> client packet carrying the paginated Grand Exchange market snapshot.
+ *
+ * Two modes:
+ * - Full: every entry on the page
+ * - Delta: removed offer IDs, added/changed entries and (if it moved) the page order,
+ *   relative to the page the client last acknowledged (baseSequence)
+ *
+ * Item IDs and seller names go through a per-packet string table so repeated
+ * values cost two bytes each. The client answers every sync with PacketGESyncAck.
  */
 public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket {
 
+    public static final int FULL_SYNC = -1;
+
     public final long viewerAuth;
+    public final int syncSequence;
+    public final int baseSequence;
     public final int page;
     public final int totalPages;
     public final int totalResults;
@@ -28,7 +46,9 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
     public final String filter;
     public final String category;
     public final int sortMode;
-    public final List<EntryPayload> entries;
+    public final List<EntryPayload> entries;     // Full: whole page; delta: added/changed only
+    public final List<Long> removedOfferIds;     // Delta only
+    public final List<Long> pageOrder;           // Delta only, null if order unchanged
 
     /**
      * Client-side constructor.
@@ -37,6 +57,8 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
         super(data);
         PacketReader reader = new PacketReader(this);
         this.viewerAuth = reader.getNextLong();
+        this.syncSequence = reader.getNextInt();
+        this.baseSequence = reader.getNextInt();
         this.page = reader.getNextInt();
         this.totalPages = reader.getNextInt();
         this.totalResults = reader.getNextInt();
@@ -45,29 +67,66 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
         this.category = reader.getNextString();
         this.sortMode = reader.getNextInt();
 
+        int stringCount = reader.getNextShortUnsigned();
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = reader.getNextString();
+        }
+
+        if (isDelta()) {
+            int removedCount = reader.getNextInt();
+            this.removedOfferIds = new ArrayList<>(removedCount);
+            for (int i = 0; i < removedCount; i++) {
+                removedOfferIds.add(reader.getNextLong());
+            }
+        } else {
+            this.removedOfferIds = List.of();
+        }
+
         int listingCount = reader.getNextInt();
         this.entries = new ArrayList<>(listingCount);
         for (int i = 0; i < listingCount; i++) {
             long offerId = reader.getNextLong();
-            String itemStringID = reader.getNextString();
+            String itemStringID = strings[reader.getNextShortUnsigned()];
             int quantityTotal = reader.getNextInt();
             int quantityRemaining = reader.getNextInt();
             int pricePerItem = reader.getNextInt();
             long sellerAuth = reader.getNextLong();
-            String sellerName = reader.getNextString();
+            String sellerName = strings[reader.getNextShortUnsigned()];
             long expirationTime = reader.getNextLong();
             long createdTime = reader.getNextLong();
             int stateOrdinal = reader.getNextByteUnsigned();
             entries.add(new EntryPayload(offerId, itemStringID, quantityTotal, quantityRemaining,
                 pricePerItem, sellerAuth, sellerName, expirationTime, createdTime, stateOrdinal));
         }
+
+        if (isDelta() && reader.getNextBoolean()) {
+            int orderCount = reader.getNextInt();
+            this.pageOrder = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                pageOrder.add(reader.getNextLong());
+            }
+        } else {
+            this.pageOrder = null;
+        }
     }
 
     /**
-     * Server-side constructor from a snapshot.
+     * Server-side constructor for a full sync.
      */
-    public PacketGESync(long viewerAuth, MarketSnapshot snapshot) {
+    public PacketGESync(long viewerAuth, int syncSequence, MarketSnapshot snapshot) {
+        this(viewerAuth, syncSequence, snapshot, FULL_SYNC, null);
+    }
+
+    /**
+     * Server-side constructor. Encodes a delta against base when given, otherwise the full page.
+     * @param baseSequence Sequence of the acknowledged page the delta applies to (FULL_SYNC if base is null)
+     */
+    public PacketGESync(long viewerAuth, int syncSequence, MarketSnapshot snapshot,
+                        int baseSequence, MarketSnapshot base) {
         this.viewerAuth = viewerAuth;
+        this.syncSequence = syncSequence;
+        this.baseSequence = base == null ? FULL_SYNC : baseSequence;
         this.page = snapshot.getPage();
         this.totalPages = snapshot.getTotalPages();
         this.totalResults = snapshot.getTotalResults();
@@ -76,9 +135,50 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
         this.category = snapshot.getCategory();
         this.sortMode = snapshot.getSortMode();
         this.entries = new ArrayList<>();
+        this.removedOfferIds = new ArrayList<>();
+
+        List<MarketSnapshot.Entry> snapshotEntries = snapshot.getEntries();
+        List<MarketSnapshot.Entry> written;
+        List<Long> order = null;
+        if (base == null) {
+            written = snapshotEntries;
+        } else {
+            Map<Long, MarketSnapshot.Entry> baseById = new HashMap<>();
+            for (MarketSnapshot.Entry entry : base.getEntries()) {
+                baseById.put(entry.getOfferId(), entry);
+            }
+            written = new ArrayList<>();
+            List<Long> currentOrder = new ArrayList<>(snapshotEntries.size());
+            for (MarketSnapshot.Entry entry : snapshotEntries) {
+                currentOrder.add(entry.getOfferId());
+                MarketSnapshot.Entry previous = baseById.remove(entry.getOfferId());
+                if (previous == null || !sameListing(previous, entry)) {
+                    written.add(entry);
+                }
+            }
+            removedOfferIds.addAll(baseById.keySet());
+
+            List<Long> baseOrder = new ArrayList<>(base.getEntries().size());
+            for (MarketSnapshot.Entry entry : base.getEntries()) {
+                baseOrder.add(entry.getOfferId());
+            }
+            if (!currentOrder.equals(baseOrder)) {
+                order = currentOrder;
+            }
+        }
+        this.pageOrder = order;
+
+        // String table: each distinct item ID / seller name is written once
+        Map<String, Integer> stringIndex = new LinkedHashMap<>();
+        for (MarketSnapshot.Entry entry : written) {
+            stringIndex.putIfAbsent(nullSafe(entry.getItemStringID(), ""), stringIndex.size());
+            stringIndex.putIfAbsent(nullSafe(entry.getSellerName(), "Unknown"), stringIndex.size());
+        }
 
         PacketWriter writer = new PacketWriter(this);
         writer.putNextLong(viewerAuth);
+        writer.putNextInt(syncSequence);
+        writer.putNextInt(this.baseSequence);
         writer.putNextInt(page);
         writer.putNextInt(totalPages);
         writer.putNextInt(totalResults);
@@ -87,33 +187,84 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
         writer.putNextString(category);
         writer.putNextInt(sortMode);
 
-        List<MarketSnapshot.Entry> snapshotEntries = snapshot.getEntries();
-        writer.putNextInt(snapshotEntries.size());
-        for (MarketSnapshot.Entry entry : snapshotEntries) {
+        writer.putNextShortUnsigned(stringIndex.size());
+        for (String value : stringIndex.keySet()) {
+            writer.putNextString(value);
+        }
+
+        if (isDelta()) {
+            writer.putNextInt(removedOfferIds.size());
+            for (long offerId : removedOfferIds) {
+                writer.putNextLong(offerId);
+            }
+        }
+
+        writer.putNextInt(written.size());
+        for (MarketSnapshot.Entry entry : written) {
+            String itemStringID = nullSafe(entry.getItemStringID(), "");
+            String sellerName = nullSafe(entry.getSellerName(), "Unknown");
             writer.putNextLong(entry.getOfferId());
-            writer.putNextString(entry.getItemStringID());
+            writer.putNextShortUnsigned(stringIndex.get(itemStringID));
             writer.putNextInt(entry.getQuantityTotal());
             writer.putNextInt(entry.getQuantityRemaining());
             writer.putNextInt(entry.getPricePerItem());
             writer.putNextLong(entry.getSellerAuth());
-            writer.putNextString(entry.getSellerName() == null ? "Unknown" : entry.getSellerName());
+            writer.putNextShortUnsigned(stringIndex.get(sellerName));
             writer.putNextLong(entry.getExpirationTime());
             writer.putNextLong(entry.getCreatedTime());
             writer.putNextByteUnsigned(entry.getState().ordinal());
 
             entries.add(new EntryPayload(
                 entry.getOfferId(),
-                entry.getItemStringID(),
+                itemStringID,
                 entry.getQuantityTotal(),
                 entry.getQuantityRemaining(),
                 entry.getPricePerItem(),
                 entry.getSellerAuth(),
-                entry.getSellerName(),
+                sellerName,
                 entry.getExpirationTime(),
                 entry.getCreatedTime(),
                 entry.getState().ordinal()
             ));
         }
+
+        if (isDelta()) {
+            writer.putNextBoolean(order != null);
+            if (order != null) {
+                writer.putNextInt(order.size());
+                for (long offerId : order) {
+                    writer.putNextLong(offerId);
+                }
+            }
+        }
+    }
+
+    public boolean isDelta() {
+        return baseSequence != FULL_SYNC;
+    }
+
+    /**
+     * A full page always applies; a delta only on top of the page it was encoded against.
+     * @param heldSequence Sequence of the page the client currently shows (FULL_SYNC if none)
+     */
+    public boolean canApplyTo(int heldSequence) {
+        return !isDelta() || heldSequence == baseSequence;
+    }
+
+    private static String nullSafe(String value, String fallback) {
+        return value == null ? fallback : value;
+    }
+
+    private static boolean sameListing(MarketSnapshot.Entry a, MarketSnapshot.Entry b) {
+        return a.getQuantityTotal() == b.getQuantityTotal()
+            && a.getQuantityRemaining() == b.getQuantityRemaining()
+            && a.getPricePerItem() == b.getPricePerItem()
+            && a.getSellerAuth() == b.getSellerAuth()
+            && a.getExpirationTime() == b.getExpirationTime()
+            && a.getCreatedTime() == b.getCreatedTime()
+            && a.getState() == b.getState()
+            && Objects.equals(a.getItemStringID(), b.getItemStringID())
+            && Objects.equals(a.getSellerName(), b.getSellerName());
     }
 
     @Override
@@ -134,6 +285,17 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
             return;
         }
 
+        if (!canApplyTo(geContainer.marketSyncSequence)) {
+            // Client no longer holds the base page: ask the server for a full page
+            ModLogger.warn("GE delta sync base mismatch: have=%d base=%d, requesting full sync",
+                geContainer.marketSyncSequence, baseSequence);
+            geContainer.marketSyncSequence = FULL_SYNC;
+            client.network.sendPacket(new PacketGESyncAck(FULL_SYNC));
+            return;
+        }
+        List<GrandExchangeContainer.MarketListingView> listings = applyTo(geContainer.marketListings,
+            view -> view.offerId, EntryPayload::toListingView);
+
         geContainer.marketPage = page;
         geContainer.marketTotalPages = totalPages;
         geContainer.marketTotalResults = totalResults;
@@ -141,29 +303,53 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
         geContainer.marketFilter = filter;
         geContainer.marketCategory = category;
         geContainer.marketSort = sortMode;
+        geContainer.marketSyncSequence = syncSequence;
 
         geContainer.marketListings.clear();
-        GEOffer.OfferState[] states = GEOffer.OfferState.values();
-        for (EntryPayload payload : entries) {
-            GEOffer.OfferState state = (payload.stateOrdinal >= 0 && payload.stateOrdinal < states.length)
-                ? states[payload.stateOrdinal]
-                : GEOffer.OfferState.DRAFT;
+        geContainer.marketListings.addAll(listings);
+        geContainer.onMarketListingsUpdated();
 
-            geContainer.marketListings.add(new GrandExchangeContainer.MarketListingView(
-                payload.offerId,
-                payload.itemStringID,
-                payload.quantityTotal,
-                payload.quantityRemaining,
-                payload.pricePerItem,
-                payload.sellerAuth,
-                payload.sellerName,
-                payload.expirationTime,
-                payload.createdTime,
-                state
-            ));
+        client.network.sendPacket(new PacketGESyncAck(syncSequence));
+    }
+
+    /**
+     * Build the page this packet describes. A full page replaces current; a delta applies
+     * removed/changed entries and the new order to it, reusing unchanged listings as-is.
+     * Only valid when canApplyTo() holds for current.
+     * @param idOf Offer ID of a listing in current
+     * @param toView Converts a sent entry into a listing
+     */
+    public <T> List<T> applyTo(List<T> current, ToLongFunction<T> idOf, Function<EntryPayload, T> toView) {
+        if (!isDelta()) {
+            List<T> listings = new ArrayList<>(entries.size());
+            for (EntryPayload payload : entries) {
+                listings.add(toView.apply(payload));
+            }
+            return listings;
         }
 
-        geContainer.onMarketListingsUpdated();
+        Map<Long, T> byId = new LinkedHashMap<>();
+        for (T view : current) {
+            byId.put(idOf.applyAsLong(view), view);
+        }
+        for (long offerId : removedOfferIds) {
+            byId.remove(offerId);
+        }
+        for (EntryPayload payload : entries) {
+            byId.put(payload.offerId, toView.apply(payload));
+        }
+
+        if (pageOrder == null) {
+            return new ArrayList<>(byId.values());
+        }
+        List<T> ordered = new ArrayList<>(pageOrder.size());
+        for (long offerId : pageOrder) {
+            T view = byId.get(offerId);
+            if (view != null) {
+                ordered.add(view);
+            }
+        }
+        return ordered;
     }
 
     public static final class EntryPayload {
@@ -192,6 +378,15 @@ public class PacketGESync extends medievalsim.packets.core.AbstractPayloadPacket
             this.createdTime = createdTime;
             this.stateOrdinal = stateOrdinal;
         }
+
+        public GrandExchangeContainer.MarketListingView toListingView() {
+            GEOffer.OfferState[] states = GEOffer.OfferState.values();
+            GEOffer.OfferState state = (stateOrdinal >= 0 && stateOrdinal < states.length)
+                ? states[stateOrdinal]
+                : GEOffer.OfferState.DRAFT;
+            return new GrandExchangeContainer.MarketListingView(offerId, itemStringID, quantityTotal,
+                quantityRemaining, pricePerItem, sellerAuth, sellerName, expirationTime, createdTime, state);
+        }
     }
 }
 
@@ -0,0 +1,56 @@
+package medievalsim.packets;
+
+import medievalsim.grandexchange.ui.GrandExchangeContainer;
+import medievalsim.packets.core.AbstractPayloadPacket;
+import medievalsim.util.ModLogger;
+import necesse.engine.network.NetworkPacket;
+import necesse.engine.network.PacketReader;
+import necesse.engine.network.PacketWriter;
+import necesse.engine.network.client.Client;
+import necesse.engine.network.server.Server;
+import necesse.engine.network.server.ServerClient;
+import necesse.inventory.container.Container;
+
+/**
+ * Client-to-server acknowledgement of a PacketGESync.
+ * The acknowledged sequence is the base the server may send the next delta against;
+ * PacketGESync.FULL_SYNC asks for a full page.
+ */
+public class PacketGESyncAck extends AbstractPayloadPacket {
+    public final int syncSequence;
+
+    /**
+     * Receiving constructor (server-side).
+     */
+    public PacketGESyncAck(byte[] data) {
+        super(data);
+        PacketReader reader = new PacketReader(this);
+        this.syncSequence = reader.getNextInt();
+    }
+
+    /**
+     * Sending constructor (client-side).
+     */
+    public PacketGESyncAck(int syncSequence) {
+        this.syncSequence = syncSequence;
+
+        PacketWriter writer = new PacketWriter(this);
+        writer.putNextInt(syncSequence);
+    }
+
+    @Override
+    public void processClient(NetworkPacket packet, Client client) {
+        ModLogger.warn("PacketGESyncAck.processClient called - client-to-server only!");
+    }
+
+    @Override
+    public void processServer(NetworkPacket packet, Server server, ServerClient client) {
+        if (client == null) {
+            return;
+        }
+        Container container = client.getContainer();
+        if (container instanceof GrandExchangeContainer geContainer) {
+            geContainer.acknowledgeMarketSync(syncSequence);
+        }
+    }
+}
@@ -40,6 +40,7 @@ extends Packet {
             // Validate using ZoneAPI
             medievalsim.util.ZoneAPI.ZoneContext ctx = medievalsim.util.ZoneAPI.forClient(client)
                 .withPacketName("PacketRenameZone")
+                .checkEditRateLimit()
                 .requireAnyZone(this.zoneUniqueID, !this.isProtectedZone)
                 .build();
             if (!ctx.isValid()) return;
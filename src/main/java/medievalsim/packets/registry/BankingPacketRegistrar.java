@@ -4,6 +4,7 @@ import java.util.List;
 
 import medievalsim.packets.PacketBankInventoryUpdate;
 import medievalsim.packets.PacketBankOpenResponse;
+import medievalsim.packets.PacketBankResyncRequest;
 import medievalsim.packets.PacketBankSync;
 import medievalsim.packets.PacketOpenBank;
 import medievalsim.packets.PacketSetBankPIN;
@@ -16,7 +17,8 @@ public final class BankingPacketRegistrar {
         new PacketSpec(PacketSetBankPIN.class, "banking", "Client -> server PIN set request"),
         new PacketSpec(PacketBankOpenResponse.class, "banking", "Server -> client response to open request"),
         new PacketSpec(PacketBankSync.class, "banking", "Server -> client full bank sync"),
-        new PacketSpec(PacketBankInventoryUpdate.class, "banking", "Server -> client slot delta")
+        new PacketSpec(PacketBankInventoryUpdate.class, "banking", "Server -> client slot delta"),
+        new PacketSpec(PacketBankResyncRequest.class, "banking", "Client -> server full slot resync request")
     );
 
     private BankingPacketRegistrar() {
@@ -3,9 +3,11 @@ package medievalsim.packets.registry;
 import java.util.List;
 
 import medievalsim.packets.PacketGESync;
+import medievalsim.packets.PacketGESyncAck;
 import medievalsim.packets.PacketOpenGrandExchange;
 import medievalsim.packets.PacketGECreateBuyOrder;
 import medievalsim.packets.PacketGEBuyOrderSync;
+import medievalsim.packets.PacketGEFillUpdate;
 import medievalsim.packets.PacketGESellInventorySync;
 import medievalsim.packets.core.PacketRegistrar;
 import medievalsim.packets.core.PacketSpec;
@@ -14,9 +16,11 @@ public final class GrandExchangePacketRegistrar {
     private static final PacketRegistrar REGISTRAR = () -> List.of(
         new PacketSpec(PacketOpenGrandExchange.class, "grandexchange", "Client -> server open request"),
         new PacketSpec(PacketGESync.class, "grandexchange", "Server -> client listings sync"),
+        new PacketSpec(PacketGESyncAck.class, "grandexchange", "Client -> server listings sync acknowledgement"),
         new PacketSpec(PacketGECreateBuyOrder.class, "grandexchange", "Client -> server create buy order"),
         new PacketSpec(PacketGEBuyOrderSync.class, "grandexchange", "Server -> client buy orders sync"),
-        new PacketSpec(PacketGESellInventorySync.class, "grandexchange", "Server -> client sell inventory sync")
+        new PacketSpec(PacketGESellInventorySync.class, "grandexchange", "Server -> client sell inventory sync"),
+        new PacketSpec(PacketGEFillUpdate.class, "grandexchange", "Server -> client coalesced fill update")
     );
 
     private GrandExchangePacketRegistrar() {
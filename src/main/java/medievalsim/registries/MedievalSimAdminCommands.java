@@ -1,7 +1,9 @@
 package medievalsim.registries;
 
 import medievalsim.grandexchange.commands.DumpOrderBooksCommand;
+import medievalsim.grandexchange.commands.FraudAlertsCommand;
 import medievalsim.grandexchange.commands.MarketDepthCommand;
+import medievalsim.grandexchange.commands.VerifyOrderBooksCommand;
 import medievalsim.commandcenter.service.CommandRegistry;
 import medievalsim.util.ModLogger;
 
@@ -14,7 +16,9 @@ public class MedievalSimAdminCommands {
             CommandRegistry.register(new DumpOrderBooksCommand());
             // MarketDepthCommand is useful too
             CommandRegistry.register(new MarketDepthCommand());
-            ModLogger.debug("Registered GE admin commands: DumpOrderBooks, MarketDepth");
+            CommandRegistry.register(new VerifyOrderBooksCommand());
+            CommandRegistry.register(new FraudAlertsCommand());
+            ModLogger.debug("Registered GE admin commands: DumpOrderBooks, MarketDepth, VerifyOrderBooks, FraudAlerts");
         } catch (Exception e) {
             ModLogger.error("Failed to register admin commands", e);
         }
@@ -0,0 +1,305 @@
+package medievalsim.util;
+
+import medievalsim.config.ModConfig;
+import medievalsim.metrics.MetricsRegistry;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-player token bucket for one class of action (e.g. market purchases).
+ *
+ * Each player holds up to burst tokens, refilled continuously at refillPerSecond;
+ * an action spends one token. Burst and rate are read from suppliers on every call,
+ * so config changes apply immediately. A refill rate of 0 disables the limit.
+ *
+ * Buckets live in a primitive open-addressing table keyed by player auth (no boxing,
+ * ~25 bytes per tracked player). A bucket that has refilled to burst is identical to
+ * having none, so idle buckets are evicted whenever the table would grow and by
+ * evictIdle(): memory tracks recently active players, not everyone ever seen.
+ *
+ * Thread-safe (synchronized; each call is a few array reads).
+ */
+public class TokenBucketLimiter {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final String name;
+    private final IntSupplier burst;
+    private final DoubleSupplier refillPerSecond;
+    private final MetricsRegistry.Counter deniedCounter;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private double[] tokens = new double[MIN_CAPACITY];
+    private long[] stamps = new long[MIN_CAPACITY];
+    private boolean[] used = new boolean[MIN_CAPACITY];
+    private int size = 0;
+
+    // Statistics
+    private long totalChecks = 0;
+    private long totalDenied = 0;
+
+    /**
+     * @param name Action class name, used for logging and the rate_limit_denials metric label
+     */
+    public TokenBucketLimiter(String name, IntSupplier burst, DoubleSupplier refillPerSecond) {
+        this.name = name;
+        this.burst = burst;
+        this.refillPerSecond = refillPerSecond;
+        this.deniedCounter = MetricsRegistry.counter("rate_limit_denials",
+            "Player actions rejected by a rate limiter", "action", name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // ===== ACQUIRE =====
+
+    /**
+     * Spend one token if available.
+     * @return true if the action is allowed
+     */
+    public synchronized boolean tryAcquire(long playerAuth, long nowMs) {
+        totalChecks++;
+        double perMs = refillPerMs();
+        if (perMs <= 0) {
+            return true;
+        }
+        int capacity = Math.max(1, burst.getAsInt());
+        int index = find(playerAuth);
+        double available = index < 0 ? capacity : refill(index, capacity, perMs, nowMs);
+        if (available < 1.0) {
+            deny(index, available, nowMs);
+            return false;
+        }
+        store(index, playerAuth, available - 1.0, nowMs);
+        return true;
+    }
+
+    /**
+     * Check for a token without spending it (pair with consume() once the action succeeds).
+     */
+    public synchronized boolean canAcquire(long playerAuth, long nowMs) {
+        totalChecks++;
+        double perMs = refillPerMs();
+        if (perMs <= 0) {
+            return true;
+        }
+        int index = find(playerAuth);
+        if (index < 0 || refill(index, Math.max(1, burst.getAsInt()), perMs, nowMs) >= 1.0) {
+            return true;
+        }
+        totalDenied++;
+        deniedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Spend one token unconditionally (floored at zero).
+     */
+    public synchronized void consume(long playerAuth, long nowMs) {
+        double perMs = refillPerMs();
+        if (perMs <= 0) {
+            return;
+        }
+        int capacity = Math.max(1, burst.getAsInt());
+        int index = find(playerAuth);
+        double available = index < 0 ? capacity : refill(index, capacity, perMs, nowMs);
+        store(index, playerAuth, Math.max(0.0, available - 1.0), nowMs);
+    }
+
+    /**
+     * @return Milliseconds until the player has a token again (0 if one is available now)
+     */
+    public synchronized long getWaitMillis(long playerAuth, long nowMs) {
+        double perMs = refillPerMs();
+        int index = find(playerAuth);
+        if (perMs <= 0 || index < 0) {
+            return 0L;
+        }
+        double available = refill(index, Math.max(1, burst.getAsInt()), perMs, nowMs);
+        return available >= 1.0 ? 0L : (long) Math.ceil((1.0 - available) / perMs);
+    }
+
+    /**
+     * Give the player a full bucket again (admin override).
+     */
+    public synchronized void reset(long playerAuth) {
+        int index = find(playerAuth);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Drop every bucket that has refilled to burst (equivalent to untracked), shrinking the table.
+     * @return Number of buckets evicted
+     */
+    public synchronized int evictIdle(long nowMs) {
+        int before = size;
+        double perMs = refillPerMs();
+        if (perMs <= 0) {
+            // Limit disabled: every bucket is effectively full
+            rehash(MIN_CAPACITY, 0.0, 0, nowMs, true);
+            return before;
+        }
+        int capacity = Math.max(1, burst.getAsInt());
+        int kept = 0;
+        for (int i = 0; i < used.length; i++) {
+            if (used[i] && refill(i, capacity, perMs, nowMs) < capacity) {
+                kept++;
+            }
+        }
+        rehash(tableSizeFor(kept), perMs, capacity, nowMs, false);
+        return before - size;
+    }
+
+    // ===== STATISTICS =====
+
+    public synchronized int getTrackedPlayerCount() {
+        return size;
+    }
+
+    public synchronized long getTotalChecks() {
+        return totalChecks;
+    }
+
+    public synchronized long getTotalDenied() {
+        return totalDenied;
+    }
+
+    // ===== TABLE =====
+
+    private double refillPerMs() {
+        if (!ModConfig.RateLimits.enableRateLimits) {
+            return 0.0;
+        }
+        return refillPerSecond.getAsDouble() / 1000.0;
+    }
+
+    private double refill(int index, int capacity, double perMs, long nowMs) {
+        long elapsed = Math.max(0L, nowMs - stamps[index]);
+        return Math.min(capacity, tokens[index] + elapsed * perMs);
+    }
+
+    private void deny(int index, double available, long nowMs) {
+        totalDenied++;
+        deniedCounter.increment();
+        if (index >= 0) {
+            tokens[index] = available;
+            stamps[index] = nowMs;
+        }
+    }
+
+    private void store(int index, long playerAuth, double remaining, long nowMs) {
+        if (index < 0) {
+            index = insert(playerAuth, nowMs);
+        }
+        tokens[index] = remaining;
+        stamps[index] = nowMs;
+    }
+
+    private int find(long playerAuth) {
+        int mask = used.length - 1;
+        for (int i = hash(playerAuth) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == playerAuth) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(long playerAuth, long nowMs) {
+        if ((size + 1) * 4 > used.length * 3) {
+            // Make room from idle buckets before growing
+            evictIdle(nowMs);
+            if ((size + 1) * 4 > used.length * 3) {
+                rehash(used.length * 2, 0.0, 0, nowMs, false);
+            }
+        }
+        int mask = used.length - 1;
+        int i = hash(playerAuth) & mask;
+        while (used[i]) {
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = playerAuth;
+        size++;
+        return i;
+    }
+
+    /**
+     * Backward-shift deletion, so linear probing needs no tombstones.
+     */
+    private void removeAt(int index) {
+        int mask = used.length - 1;
+        used[index] = false;
+        size--;
+        int hole = index;
+        for (int i = (index + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            boolean homeInGap = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!homeInGap) {
+                keys[hole] = keys[i];
+                tokens[hole] = tokens[i];
+                stamps[hole] = stamps[i];
+                used[hole] = true;
+                used[i] = false;
+                hole = i;
+            }
+        }
+    }
+
+    /**
+     * Rebuild into newCapacity slots; when perMs > 0, buckets already full are dropped
+     * (dropAll empties the table).
+     */
+    private void rehash(int newCapacity, double perMs, int capacity, long nowMs, boolean dropAll) {
+        long[] oldKeys = keys;
+        double[] oldTokens = tokens;
+        long[] oldStamps = stamps;
+        boolean[] oldUsed = used;
+
+        keys = new long[newCapacity];
+        tokens = new double[newCapacity];
+        stamps = new long[newCapacity];
+        used = new boolean[newCapacity];
+        size = 0;
+        if (dropAll) {
+            return;
+        }
+
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldUsed.length; j++) {
+            if (!oldUsed[j]) {
+                continue;
+            }
+            if (perMs > 0 && Math.min(capacity, oldTokens[j] + Math.max(0L, nowMs - oldStamps[j]) * perMs) >= capacity) {
+                continue;
+            }
+            int i = hash(oldKeys[j]) & mask;
+            while (used[i]) {
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            keys[i] = oldKeys[j];
+            tokens[i] = oldTokens[j];
+            stamps[i] = oldStamps[j];
+            size++;
+        }
+    }
+
+    private static int tableSizeFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 < entries * 4 + 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -37,6 +37,11 @@ import necesse.level.maps.regionSystem.RegionPositionGetter;
  * </pre>
  */
 public class ZoneAPI {
+    // Zone edits from every level share one bucket per player
+    private static final TokenBucketLimiter EDIT_LIMITER = new TokenBucketLimiter("zone_edit",
+        () -> ModConfig.RateLimits.zoneEditBurst,
+        () -> ModConfig.RateLimits.zoneEditsPerMinute / 60.0);
+
     private final ServerClient client;
     private Level level;
     private AdminZonesLevelData zoneData;
@@ -260,6 +265,27 @@ public class ZoneAPI {
         return this;
     }
     
+    /**
+     * Spend one of the player's zone edit tokens (create/expand/shrink/delete/rename/configure).
+     * Sends error message to client if rate limited.
+     * 
+     * @return This builder for chaining
+     */
+    public ZoneAPI checkEditRateLimit() {
+        if (!valid) return this;
+        
+        long now = System.currentTimeMillis();
+        if (!EDIT_LIMITER.tryAcquire(client.authentication, now)) {
+            float remainingSeconds = EDIT_LIMITER.getWaitMillis(client.authentication, now) / 1000.0f;
+            client.sendChatMessage(Localization.translate("ui", "ratelimited", "seconds", String.format("%.1f", remainingSeconds)));
+            ModLogger.debug("Zone edit rate limit: player %s denied in %s", client.getName(), packetName);
+            valid = false;
+            return this;
+        }
+        
+        return this;
+    }
+    
     /**
      * Build the final context object.
      * 
@@ -9,6 +9,7 @@ import necesse.engine.save.SaveData;
 import necesse.level.maps.Level;
 import necesse.level.maps.regionSystem.Region;
 
+import medievalsim.metrics.MetricsExporter;
 import medievalsim.util.ModLogger;
 import necesse.engine.network.server.Server;
 import necesse.level.maps.levelData.LevelData;
@@ -185,6 +186,9 @@ extends LevelData implements necesse.entity.manager.RegionLoadedListenerEntityCo
         this.hasCreatedInitialBarriers = effectsService.ensureInitialBarriers(this.level, this.hasCreatedInitialBarriers);
         effectsService.updatePlayerEffects(this.level);
         effectsService.processTick(this.level);
+        if (this.level.isServer()) {
+            MetricsExporter.tick();
+        }
     }
 
     @Override
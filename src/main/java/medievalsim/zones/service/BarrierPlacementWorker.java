@@ -15,6 +15,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.ArrayList;
 
+import medievalsim.metrics.MetricsRegistry;
 import medievalsim.util.ModLogger;
 import necesse.engine.util.PointHashSet;
 import necesse.level.maps.Level;
@@ -27,8 +28,22 @@ import necesse.level.maps.regionSystem.Region;
 public final class BarrierPlacementWorker {
     private static final Map<Level, Queue<PlacementTask>> queues = new ConcurrentHashMap<>();
 
+    static {
+        MetricsRegistry.gauge("zones_barrier_queue_depth", "Queued barrier placement tasks across all levels",
+            BarrierPlacementWorker::getQueuedTaskCount);
+    }
+
     private BarrierPlacementWorker() {}
 
+    /** Queued placement tasks across all levels (walks the queues; for diagnostics only). */
+    public static int getQueuedTaskCount() {
+        int total = 0;
+        for (Queue<PlacementTask> q : queues.values()) {
+            total += q.size();
+        }
+        return total;
+    }
+
     public static void queueZoneRegionPlacement(Level level, AdminZone zone, Region region) {
         if (level == null || zone == null || region == null) return;
         Queue<PlacementTask> q = queues.computeIfAbsent(level, k -> new ConcurrentLinkedQueue<>());
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import medievalsim.metrics.MetricsRegistry;
 import medievalsim.zones.domain.AdminZone;
 import medievalsim.zones.domain.ProtectedZone;
 import medievalsim.zones.domain.PvPZone;
@@ -18,6 +19,11 @@ import necesse.engine.util.GameMath;
  * read/write access and unique ID generation.
  */
 public class ZoneRepository {
+    private static final MetricsRegistry.Counter PROTECTED_LOOKUPS = MetricsRegistry.counter(
+        "zones_point_lookups", "Zone-at-position lookups", "kind", "protected");
+    private static final MetricsRegistry.Counter PVP_LOOKUPS = MetricsRegistry.counter(
+        "zones_point_lookups", "Zone-at-position lookups", "kind", "pvp");
+
     private final Map<Integer, ProtectedZone> protectedZones = new HashMap<>();
     private final Map<Integer, PvPZone> pvpZones = new HashMap<>();
     private final AtomicInteger nextUniqueID = new AtomicInteger(1);
@@ -147,6 +153,7 @@ public class ZoneRepository {
     }
 
     public ProtectedZone getProtectedZoneAt(int tileX, int tileY) {
+        PROTECTED_LOOKUPS.increment();
         synchronized (protectedZones) {
             for (ProtectedZone zone : protectedZones.values()) {
                 Rectangle bounds = zone.zoning.getTileBounds();
@@ -162,6 +169,7 @@ public class ZoneRepository {
     public PvPZone getPvPZoneAt(float x, float y) {
         int tileX = GameMath.getTileCoordinate((int) x);
         int tileY = GameMath.getTileCoordinate((int) y);
+        PVP_LOOKUPS.increment();
         synchronized (pvpZones) {
             for (PvPZone zone : pvpZones.values()) {
                 Rectangle bounds = zone.zoning.getTileBounds();
@@ -0,0 +1,162 @@
+package medievalsim.banking.domain;
+
+import medievalsim.config.ModConfig;
+import necesse.engine.save.SaveData;
+import necesse.inventory.InventoryItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerBankTest {
+
+    @Test
+    public void compactDataRoundTripsBank() {
+        PlayerBank bank = buildBank();
+        bank.recordFailedPinAttempt(1, 60_000L);    // Locks the bank
+        bank.recordFailedPinAttempt(3, 60_000L);    // One failed attempt towards the next lock
+
+        PlayerBank restored = PlayerBank.fromCompactData(bank.getOwnerAuth(), bank.toCompactData());
+
+        assertSameBank(bank, restored);
+        assertTrue(restored.isLocked());
+        assertTrue(restored.getLockRemainingMillis() > 0);
+        assertEquals(2, restored.getRemainingPinAttempts(3));
+    }
+
+    @Test
+    public void compactLoadDataMatchesApplyLoadData() {
+        PlayerBank bank = buildBank();
+        SaveData save = new SaveData("BANK");
+        bank.addSaveData(save);
+
+        PlayerBank expected = new PlayerBank(bank.getOwnerAuth());
+        expected.applyLoadData(save.toLoadData());
+        byte[] compact = PlayerBank.compactLoadData(save.toLoadData());
+
+        assertSameBank(expected, PlayerBank.fromCompactData(bank.getOwnerAuth(), compact));
+        assertFalse(PlayerBank.fromCompactData(bank.getOwnerAuth(), compact).isLocked());
+    }
+
+    @Test
+    public void compactSaveEntryIsReadBackWithoutDecoding() {
+        PlayerBank bank = buildBank();
+        byte[] compact = bank.toCompactData();
+        SaveData save = PlayerBank.compactSaveData(bank.getOwnerAuth(), compact);
+
+        assertSame(compact, PlayerBank.compactLoadData(save.toLoadData()));
+        assertSameBank(bank, PlayerBank.fromCompactData(bank.getOwnerAuth(), compact));
+    }
+
+    @Test
+    public void depositTopsUpExistingStacksBeforeEmptySlots() {
+        PlayerBank bank = new PlayerBank(1L);
+        int stackSize = stackSize("ironbar");
+        bank.getInventory().setItem(2, new InventoryItem("ironbar", stackSize - 10));
+
+        PlayerBank.BulkDepositResult result = bank.depositItems(null, List.of(new InventoryItem("ironbar", 15)), "test");
+
+        assertEquals(15, result.getDeposited(0));
+        assertEquals(stackSize, bank.getInventory().getItem(2).getAmount());
+        assertEquals(5, bank.getInventory().getItem(0).getAmount(), "Overflow goes to the first empty slot");
+        assertNull(bank.getInventory().getItem(1));
+        assertArrayEquals(new int[]{0, 2}, result.getChangedSlots());
+    }
+
+    @Test
+    public void depositGroupsMixedItemsAndSplitsFullStacks() {
+        PlayerBank bank = new PlayerBank(1L);
+        int stackSize = stackSize("ironbar");
+        List<InventoryItem> items = Arrays.asList(new InventoryItem("ironbar", stackSize), new InventoryItem("goldbar", 2),
+            null, new InventoryItem("ironbar", 4));
+
+        PlayerBank.BulkDepositResult result = bank.depositItems(null, items, "test");
+
+        assertEquals(stackSize, result.getDeposited(0));
+        assertEquals(2, result.getDeposited(1));
+        assertEquals(0, result.getDeposited(2));
+        assertEquals(4, result.getDeposited(3));
+        assertEquals(stackSize + 6, result.getTotalDeposited());
+        assertStack(bank, 0, "ironbar", stackSize);
+        assertStack(bank, 1, "ironbar", 4);
+        assertStack(bank, 2, "goldbar", 2);
+        assertNull(bank.getInventory().getItem(3));
+    }
+
+    @Test
+    public void fullBankTakesOnlyWhatFits() {
+        PlayerBank bank = new PlayerBank(1L);
+        for (int slot = 0; slot < bank.getTotalSlots(); slot++) {
+            bank.getInventory().setItem(slot, new InventoryItem("goldbar", stackSize("goldbar")));
+        }
+        bank.getInventory().setItem(1, new InventoryItem("ironbar", stackSize("ironbar") - 3));
+        List<InventoryItem> items = List.of(new InventoryItem("ironbar", 5), new InventoryItem("ironbar", 4),
+            new InventoryItem("copperbar", 2));
+
+        PlayerBank.BulkDepositResult result = bank.depositItems(null, items, "test");
+
+        assertEquals(3, result.getDeposited(0), "Earlier items are credited first");
+        assertEquals(0, result.getDeposited(1));
+        assertEquals(0, result.getDeposited(2), "No empty slot for a new item");
+        assertEquals(stackSize("ironbar"), bank.getInventory().getItem(1).getAmount());
+        assertArrayEquals(new int[]{1}, result.getChangedSlots());
+        assertEquals(2, items.get(2).getAmount(), "Inputs are not modified");
+    }
+
+    private static int stackSize(String itemStringID) {
+        return new InventoryItem(itemStringID, 1).item.getStackSize();
+    }
+
+    private static void assertStack(PlayerBank bank, int slot, String itemStringID, int amount) {
+        InventoryItem item = bank.getInventory().getItem(slot);
+        assertNotNull(item, "slot " + slot);
+        assertEquals(itemStringID, item.item.getStringID(), "slot " + slot);
+        assertEquals(amount, item.getAmount(), "slot " + slot);
+    }
+
+    private PlayerBank buildBank() {
+        PlayerBank bank = new PlayerBank(424242L, 2);
+        assertTrue(bank.setPin("7".repeat(ModConfig.Banking.pinLength)));
+        bank.setCoins(12_345L);
+        bank.recordDeposit();
+        bank.recordDeposit();
+        bank.recordWithdrawal();
+        bank.recordCoinsReceived(500L);
+
+        // Sparse slots, including the last one that only exists after upgrading
+        int lastSlot = bank.getTotalSlots() - 1;
+        assertTrue(lastSlot >= ModConfig.Banking.getTotalSlots(0));
+        bank.getInventory().setItem(0, new InventoryItem("ironbar", 7));
+        bank.getInventory().setItem(3, new InventoryItem("goldbar", 1));
+        bank.getInventory().setItem(lastSlot, new InventoryItem("ironbar", 99));
+        return bank;
+    }
+
+    private static void assertSameBank(PlayerBank expected, PlayerBank actual) {
+        assertEquals(expected.getOwnerAuth(), actual.getOwnerAuth());
+        assertEquals(expected.isPinSet(), actual.isPinSet());
+        assertTrue(actual.validatePin("7".repeat(ModConfig.Banking.pinLength)));
+        assertEquals(expected.getUpgradeLevel(), actual.getUpgradeLevel());
+        assertEquals(expected.getCoins(), actual.getCoins());
+        assertEquals(expected.getTotalDeposits(), actual.getTotalDeposits());
+        assertEquals(expected.getTotalWithdrawals(), actual.getTotalWithdrawals());
+        assertEquals(expected.getTotalCoinsReceived(), actual.getTotalCoinsReceived());
+        assertEquals(expected.getLastAccessTime(), actual.getLastAccessTime());
+        assertEquals(expected.getCreationTime(), actual.getCreationTime());
+
+        assertEquals(expected.getTotalSlots(), actual.getTotalSlots());
+        for (int i = 0; i < expected.getTotalSlots(); i++) {
+            InventoryItem want = expected.getInventory().getItem(i);
+            InventoryItem got = actual.getInventory().getItem(i);
+            if (want == null) {
+                assertNull(got, "slot " + i);
+            } else {
+                assertNotNull(got, "slot " + i);
+                assertEquals(want.item.getStringID(), got.item.getStringID(), "slot " + i);
+                assertEquals(want.getAmount(), got.getAmount(), "slot " + i);
+            }
+        }
+    }
+}
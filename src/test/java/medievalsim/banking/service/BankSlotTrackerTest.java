@@ -0,0 +1,43 @@
+package medievalsim.banking.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankSlotTrackerTest {
+
+    @Test
+    public void firstBatchIsFullThenDeltasChain() {
+        BankSlotTracker tracker = new BankSlotTracker(4);
+        BankSlotTracker.Batch full = tracker.poll();
+        assertTrue(full.isFull());
+        assertArrayEquals(new int[] {0, 1, 2, 3}, full.getSlots());
+        assertNull(tracker.poll());
+
+        tracker.markDirty(2);
+        tracker.markDirty(0);
+        tracker.markDirty(2);
+        tracker.markDirty(9); // Out of range, ignored
+        BankSlotTracker.Batch delta = tracker.poll();
+        assertFalse(delta.isFull());
+        assertEquals(full.getSequence(), delta.getBaseSequence());
+        assertArrayEquals(new int[] {0, 2}, delta.getSlots());
+
+        tracker.markDirty(3);
+        assertEquals(delta.getSequence(), tracker.poll().getBaseSequence());
+    }
+
+    @Test
+    public void resyncSendsEverySlotWithoutBase() {
+        BankSlotTracker tracker = new BankSlotTracker(2);
+        tracker.poll();
+        tracker.markDirty(1);
+        tracker.requestFullResync(3);
+
+        BankSlotTracker.Batch batch = tracker.poll();
+        assertTrue(batch.isFull());
+        assertEquals(BankSlotTracker.FULL_SYNC, batch.getBaseSequence());
+        assertArrayEquals(new int[] {0, 1, 2}, batch.getSlots());
+        assertFalse(tracker.hasPending());
+    }
+}
@@ -0,0 +1,61 @@
+package medievalsim.grandexchange.domain;
+
+import necesse.engine.save.SaveData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GrandExchangeLevelDataTest {
+
+    @Test
+    public void saveReencodesOnlyTouchedSegments() {
+        GrandExchangeLevelData data = new GrandExchangeLevelData();
+        data.getOrCreateInventory(1L);
+        data.getOrCreateInventory(2L);
+        data.getOrCreateInventory(3L);
+
+        assertEquals(64, data.encodeDirtySaveSegments(), "First save encodes every segment");
+        assertEquals(0, data.encodeDirtySaveSegments(), "Nothing changed since the last save");
+
+        data.getInventory(2L).addCoinsToEscrow(40);
+        assertEquals(1, data.encodeDirtySaveSegments());
+
+        // Reused and re-encoded segments both end up in the saved data
+        data.getInventory(3L).addCoinsToEscrow(7);
+        SaveData save = new SaveData("GE");
+        data.addSaveData(save);
+        GrandExchangeLevelData restored = new GrandExchangeLevelData();
+        restored.applyLoadData(save.toLoadData());
+
+        assertNotNull(restored.getInventory(1L));
+        assertEquals(40, restored.getInventory(2L).getCoinsInEscrow());
+        assertEquals(7, restored.getInventory(3L).getCoinsInEscrow());
+    }
+
+    @Test
+    public void concurrentInventoryCreationIsCounted() throws InterruptedException {
+        GrandExchangeLevelData data = new GrandExchangeLevelData();
+        int threads = 4;
+        int perThread = 250;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long firstAuth = (long) t * perThread;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    data.getOrCreateInventory(firstAuth + i);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals((long) threads * perThread, data.getTotalInventoriesCreated());
+    }
+}
@@ -0,0 +1,46 @@
+package medievalsim.grandexchange.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceHistoryTest {
+
+    @Test
+    public void slidingWindowTracksAverageMinAndMax() {
+        PriceHistory history = new PriceHistory(3);
+        assertEquals(0, history.getAverage());
+        assertEquals(0, history.getMin());
+
+        history.record(10);
+        history.record(50);
+        history.record(30);
+        assertEquals(30, history.getAverage());
+        assertEquals(10, history.getMin());
+        assertEquals(50, history.getMax());
+
+        history.record(20); // Evicts 10
+        assertEquals(20, history.getMin());
+        assertEquals(50, history.getMax());
+
+        history.record(40); // Evicts 50
+        history.record(25); // Evicts 30
+        assertArrayEquals(new int[] {20, 40, 25}, history.toArray());
+        assertEquals(28, history.getAverage());
+        assertEquals(20, history.getMin());
+        assertEquals(40, history.getMax());
+    }
+
+    @Test
+    public void restoreAndResizeKeepNewestPrices() {
+        PriceHistory history = PriceHistory.fromArray(new int[] {5, 1, 9, 7}, 3);
+        assertArrayEquals(new int[] {1, 9, 7}, history.toArray());
+        assertEquals(1, history.getMin());
+
+        PriceHistory smaller = history.withCapacity(2);
+        assertArrayEquals(new int[] {9, 7}, smaller.toArray());
+        assertEquals(7, smaller.getMin());
+        assertEquals(9, smaller.getMax());
+        assertSame(history, history.withCapacity(3));
+    }
+}
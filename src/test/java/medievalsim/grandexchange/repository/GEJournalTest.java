@@ -0,0 +1,167 @@
+package medievalsim.grandexchange.repository;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GEJournalTest {
+
+    private static final long JOURNAL_ID = 0x5EEDL;
+
+    @Test
+    public void replaysCommittedRecordsInOrder() throws IOException {
+        Path dir = Files.createTempDirectory("gejournal");
+        GEJournal journal = new GEJournal(dir, JOURNAL_ID, false);
+        assertTrue(journal.open(0, 0xA1L, 0L));
+
+        GEOffer offer = GEOffer.createSellOffer(7L, 100L, "Seller", 2, "ironbar", 10, 25);
+        assertTrue(offer.enable());
+        journal.appendOffer(offer);
+        journal.appendCoins(200L, 50, -50L);
+        journal.appendCollectionAdd(200L, "ironbar", 2, "purchase");
+        journal.appendCollectionRemove(200L, "ironbar", 1, true);
+        journal.appendOfferRemoved(7L);
+        assertEquals(5, journal.commit(), "One commit should flush the whole batch");
+        assertEquals(0, journal.commit());
+
+        journal.appendCoins(300L, 0, 99L); // Never committed: lost like a crash would lose it
+        RecordingReplayer replayer = new RecordingReplayer();
+        GEJournal.ReplayResult result = new GEJournal(dir, JOURNAL_ID, false).replay(0xA1L, replayer);
+
+        assertEquals(5, result.getRecords());
+        assertEquals(0, result.getLastEpoch());
+        assertEquals(0xA1L, result.getLastToken());
+        assertEquals(List.of("offer:7:ironbar:10:ACTIVE", "coins:200:50:-50", "collect:200:ironbar:2:purchase",
+            "uncollect:200:ironbar:1:true", "offerRemoved:7"), replayer.events);
+    }
+
+    @Test
+    public void rotationStartsNewSegmentAndDropsOlderOnes() throws IOException {
+        Path dir = Files.createTempDirectory("gejournal");
+        GEJournal journal = new GEJournal(dir, JOURNAL_ID, false);
+        assertTrue(journal.open(0, 0xA0L, 0L));
+        journal.appendBuyOrderRemoved(1L);
+        assertTrue(journal.rotate(1, 0xA1L)); // Commits epoch 0 first
+        journal.appendBuyOrderRemoved(2L);
+        assertTrue(journal.rotate(2, 0xA2L));
+        journal.appendBuyOrderRemoved(3L);
+        journal.close();
+
+        assertFalse(Files.exists(journal.segmentPath(0, 0xA0L, 0L)),
+            "Segments older than the previous epoch are deleted");
+        assertTrue(Files.exists(journal.segmentPath(1, 0xA1L, 0xA0L)));
+
+        RecordingReplayer fromSnapshot = new RecordingReplayer();
+        GEJournal.ReplayResult result = journal.replay(0xA2L, fromSnapshot);
+        assertEquals(List.of("buyOrderRemoved:3"), fromSnapshot.events);
+        assertEquals(2, result.getLastEpoch());
+        assertEquals(0xA2L, result.getLastToken());
+
+        RecordingReplayer fromOlderSnapshot = new RecordingReplayer();
+        journal.replay(0xA1L, fromOlderSnapshot);
+        assertEquals(List.of("buyOrderRemoved:2", "buyOrderRemoved:3"), fromOlderSnapshot.events);
+    }
+
+    @Test
+    public void otherTimelinesAreNotReplayed() throws IOException {
+        Path dir = Files.createTempDirectory("gejournal");
+        GEJournal journal = new GEJournal(dir, JOURNAL_ID, false);
+        assertTrue(journal.open(3, 0xB0L, 0L));
+        journal.appendCoins(200L, 0, 10L);
+        journal.close();
+
+        // A snapshot whose own segment does not exist (e.g. a restored backup) replays nothing
+        GEJournal.ReplayResult unknown = journal.replay(0xC0L, new RecordingReplayer());
+        assertEquals(0, unknown.getSegments());
+        assertEquals(0xC0L, unknown.getLastToken());
+
+        // Two copies of the same world both continued after 0xB0: neither branch is replayed
+        GEJournal copyA = new GEJournal(dir, JOURNAL_ID, false);
+        assertTrue(copyA.open(4, 0xB1L, 0xB0L));
+        copyA.appendCoins(200L, 0, 20L);
+        copyA.close();
+        GEJournal copyB = new GEJournal(dir, JOURNAL_ID, false);
+        assertTrue(copyB.open(4, 0xB2L, 0xB0L));
+        copyB.appendCoins(200L, 0, 30L);
+        copyB.close();
+
+        RecordingReplayer replayer = new RecordingReplayer();
+        GEJournal.ReplayResult result = journal.replay(0xB0L, replayer);
+        assertEquals(List.of("coins:200:0:10"), replayer.events);
+        assertEquals(0xB0L, result.getLastToken());
+
+        // Each branch's own snapshot still replays its segment
+        RecordingReplayer branch = new RecordingReplayer();
+        journal.replay(0xB2L, branch);
+        assertEquals(List.of("coins:200:0:30"), branch.events);
+    }
+
+    @Test
+    public void tornTailIsIgnored() throws IOException {
+        Path dir = Files.createTempDirectory("gejournal");
+        GEJournal journal = new GEJournal(dir, JOURNAL_ID, false);
+        assertTrue(journal.open(0, 0xA0L, 0L));
+        BuyOrder order = BuyOrder.fromPacketData(4L, 200L, 1, "goldbar", 5, 5, 30, true,
+            BuyOrder.BuyOrderState.ACTIVE, 1);
+        journal.appendBuyOrder(order);
+        journal.close();
+
+        // Half-written record at the end of the segment
+        Files.write(journal.segmentPath(0, 0xA0L, 0L), new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        RecordingReplayer replayer = new RecordingReplayer();
+        GEJournal.ReplayResult result = journal.replay(0xA0L, replayer);
+        assertEquals(1, result.getRecords());
+        assertEquals(List.of("buyOrder:4:goldbar:5"), replayer.events);
+    }
+
+    private static final class RecordingReplayer implements GEJournal.Replayer {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onOffer(GEOffer offer) {
+            events.add("offer:" + offer.getOfferID() + ":" + offer.getItemStringID() + ":"
+                + offer.getQuantityRemaining() + ":" + offer.getState());
+        }
+
+        @Override
+        public void onOfferRemoved(long offerID) {
+            events.add("offerRemoved:" + offerID);
+        }
+
+        @Override
+        public void onBuyOrder(BuyOrder order) {
+            events.add("buyOrder:" + order.getOrderID() + ":" + order.getItemStringID() + ":"
+                + order.getQuantityRemaining());
+        }
+
+        @Override
+        public void onBuyOrderRemoved(long orderID) {
+            events.add("buyOrderRemoved:" + orderID);
+        }
+
+        @Override
+        public void onCoins(long playerAuth, int escrowDelta, long bankDelta) {
+            events.add("coins:" + playerAuth + ":" + escrowDelta + ":" + bankDelta);
+        }
+
+        @Override
+        public void onCollectionAdd(long playerAuth, String itemStringID, int quantity, String source) {
+            events.add("collect:" + playerAuth + ":" + itemStringID + ":" + quantity + ":" + source);
+        }
+
+        @Override
+        public void onCollectionRemove(long playerAuth, String itemStringID, int quantity, boolean toBank) {
+            events.add("uncollect:" + playerAuth + ":" + itemStringID + ":" + quantity + ":" + toBank);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.services.CandleAggregator.Candle;
+import medievalsim.grandexchange.services.CandleAggregator.Resolution;
+import necesse.engine.save.SaveData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CandleAggregatorTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void foldsTradesIntoOhlcvPerInterval() {
+        CandleAggregator candles = new CandleAggregator();
+        candles.recordTrade("item:a", 10, 2, 0L);
+        candles.recordTrade("item:a", 15, 1, 10_000L);
+        candles.recordTrade("item:a", 8, 3, 20_000L);
+        candles.recordTrade("item:a", 12, 1, 30_000L);
+        candles.recordTrade("item:a", 20, 5, 3 * MINUTE);
+
+        List<Candle> minutes = candles.getCandles("item:a", Resolution.MINUTE, 10);
+        assertEquals(2, minutes.size(), "Intervals without trades have no candle");
+        assertEquals(new Candle(0L, 10, 15, 8, 12, 7L, 4), minutes.get(0));
+        assertEquals(3 * MINUTE, minutes.get(1).startTime());
+
+        List<Candle> hours = candles.getCandles("item:a", Resolution.HOUR, 10);
+        assertEquals(1, hours.size());
+        assertEquals(new Candle(0L, 10, 20, 8, 20, 12L, 5), hours.get(0));
+        assertNull(candles.getCandleAt("item:a", Resolution.MINUTE, MINUTE));
+    }
+
+    @Test
+    public void keepsOnlyRetainedCandlesAndSurvivesSaveLoad() {
+        CandleAggregator candles = new CandleAggregator();
+        int total = Resolution.MINUTE.getRetention() + 20;
+        for (int i = 0; i < total; i++) {
+            candles.recordTrade("item:a", 100 + i, 1, i * MINUTE);
+        }
+
+        List<Candle> minutes = candles.getCandles("item:a", Resolution.MINUTE, Integer.MAX_VALUE);
+        assertEquals(Resolution.MINUTE.getRetention(), minutes.size());
+        assertEquals(20 * MINUTE, minutes.get(0).startTime());
+        assertEquals(100 + total - 1, minutes.get(minutes.size() - 1).close());
+
+        SaveData save = new SaveData("CANDLES");
+        candles.addSaveData(save);
+        CandleAggregator loaded = new CandleAggregator();
+        loaded.applyLoadData(save.toLoadData());
+
+        assertEquals(minutes, loaded.getCandles("item:a", Resolution.MINUTE, Integer.MAX_VALUE));
+        assertEquals(candles.getCandles("item:a", Resolution.DAY, 5), loaded.getCandles("item:a", Resolution.DAY, 5));
+
+        loaded.recordTrade("item:a", 1, 1, total * MINUTE);
+        assertEquals(1, loaded.getCandles("item:a", Resolution.MINUTE, 1).get(0).low());
+    }
+
+    @Test
+    public void retentionIsATimeWindowForSparseSeries() {
+        CandleAggregator candles = new CandleAggregator();
+        long window = Resolution.MINUTE.getRetention() * MINUTE;
+        candles.recordTrade("item:a", 10, 1, 0L);
+        candles.recordTrade("item:a", 11, 1, MINUTE);
+        candles.recordTrade("item:a", 12, 1, window);
+
+        List<Candle> minutes = candles.getCandles("item:a", Resolution.MINUTE, Integer.MAX_VALUE);
+        assertEquals(2, minutes.size(), "A candle a full window older than the newest is dropped");
+        assertEquals(MINUTE, minutes.get(0).startTime());
+
+        candles.recordTrade("item:a", 13, 1, 10 * window);
+        assertEquals(1, candles.getCandles("item:a", Resolution.MINUTE, Integer.MAX_VALUE).size());
+        assertEquals(3, candles.getCandles("item:a", Resolution.HOUR, Integer.MAX_VALUE).size(),
+            "Coarser resolutions keep their own, longer window");
+    }
+}
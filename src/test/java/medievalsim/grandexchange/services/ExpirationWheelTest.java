@@ -0,0 +1,79 @@
+package medievalsim.grandexchange.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpirationWheelTest {
+
+    @Test
+    public void firesDueKeysOnceAndSkipsCancelled() {
+        ExpirationWheel<Long> wheel = new ExpirationWheel<>(1000, 0);
+        wheel.schedule(1L, 5_000);
+        wheel.schedule(2L, 5_500);        // Rounded up to the 6s tick
+        wheel.schedule(3L, 10_000_000);   // Spans several levels
+        wheel.schedule(4L, 7_000);
+        assertTrue(wheel.cancel(4L));
+        assertFalse(wheel.cancel(4L));
+
+        assertTrue(wheel.advance(4_999).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(5_000));
+        assertEquals(List.of(2L), wheel.advance(6_000));
+        assertTrue(wheel.advance(9_999_999).isEmpty());
+        assertEquals(List.of(3L), wheel.advance(10_000_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void rescheduleReplacesDeadline() {
+        ExpirationWheel<Long> wheel = new ExpirationWheel<>(1000, 0);
+        wheel.schedule(1L, 2_000);
+        wheel.schedule(1L, 90_000);
+        assertTrue(wheel.advance(60_000).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(90_000));
+        // Deadlines already in the past fire on the next advance
+        wheel.schedule(2L, 1_000);
+        assertEquals(List.of(2L), wheel.advance(90_000));
+    }
+
+    @Test
+    public void matchesFullScanUnderRandomSchedule() {
+        Random random = new Random(42);
+        long now = 1_700_000_000_000L;
+        ExpirationWheel<Long> wheel = new ExpirationWheel<>(1000, now);
+        Map<Long, Long> deadlines = new HashMap<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            long key = random.nextInt(2_000);
+            int action = random.nextInt(10);
+            if (action < 5) {
+                // Up to ~400 days out, past the wheel's span
+                long delay = random.nextInt(4) == 0 ? (long) random.nextInt(1_000_000) * 35_000L : random.nextInt(600_000);
+                wheel.schedule(key, now + delay);
+                deadlines.put(key, now + delay);
+            } else if (action < 7) {
+                assertEquals(deadlines.remove(key) != null, wheel.cancel(key));
+            } else {
+                now += random.nextInt(4) == 0 ? random.nextInt(20_000_000) : random.nextInt(3_000);
+                List<Long> expected = new ArrayList<>();
+                for (Map.Entry<Long, Long> entry : deadlines.entrySet()) {
+                    if (entry.getValue() <= now - now % 1000) {
+                        expected.add(entry.getKey());
+                    }
+                }
+                List<Long> fired = wheel.advance(now);
+                assertEquals(expected.size(), fired.size(), "step " + step);
+                for (Long firedKey : fired) {
+                    assertTrue(deadlines.remove(firedKey) <= now, "fired early: " + firedKey);
+                }
+            }
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.services.TradeAuditLog.AuditEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FraudDetectorTest {
+
+    @Test
+    public void flagsPriceOutliersOnceTheAverageHasWarmedUp() {
+        FraudDetector detector = new FraudDetector();
+        for (int i = 0; i < 20; i++) {
+            detector.onTrade(trade(100L + i, 200L + i, "item:a", 100 + (i % 3), i), true);
+        }
+        assertEquals(0, detector.getAlertCount(), "Normal price noise should not alert");
+
+        detector.onTrade(trade(1L, 2L, "item:a", 1000, 100), true);
+        detector.onTrade(trade(3L, 4L, "item:b", 1000, 101), true); // First trade of a new item
+
+        List<FraudDetector.Alert> alerts = detector.getRecentAlerts(10);
+        assertEquals(1, alerts.size());
+        assertEquals(FraudDetector.AlertType.PRICE_OUTLIER, alerts.get(0).type());
+        assertEquals(1000, alerts.get(0).trade().getPricePerItem());
+    }
+
+    @Test
+    public void flagsSelfTradesAndRepeatedRoundTripsOnce() {
+        FraudDetector detector = new FraudDetector();
+        detector.onTrade(trade(5L, 5L, "item:a", 10, 0), true);
+
+        for (int i = 0; i < 5; i++) {
+            detector.onTrade(trade(1L, 2L, "item:a", 10, 1000L * i), true);
+            detector.onTrade(trade(2L, 1L, "item:a", 10, 1000L * i + 500), true);
+        }
+
+        List<FraudDetector.Alert> alerts = detector.getRecentAlerts(10);
+        assertEquals(2, alerts.size());
+        assertEquals(FraudDetector.AlertType.WASH_TRADING, alerts.get(0).type());
+        assertEquals(FraudDetector.AlertType.SELF_TRADE, alerts.get(1).type());
+    }
+
+    @Test
+    public void warmUpDoesNotRaiseAlerts() {
+        FraudDetector detector = new FraudDetector();
+        detector.onTrade(trade(5L, 5L, "item:a", 10, 0), false);
+        assertEquals(0, detector.getTotalAlerts());
+    }
+
+    private AuditEntry trade(long buyer, long seller, String item, int price, long timestamp) {
+        return new AuditEntry(1L, 1L, buyer, seller, item, 1, price, price, 0, price, timestamp);
+    }
+}
@@ -0,0 +1,59 @@
+package medievalsim.grandexchange.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GECommandQueueTest {
+
+    @Test
+    public void drainsInFifoOrderWithinBudget() {
+        GECommandQueue queue = new GECommandQueue(8);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int id = i;
+            assertTrue(queue.offer("cmd" + id, () -> order.add(id), null));
+        }
+
+        assertEquals(3, queue.drain(3));
+        assertEquals(List.of(0, 1, 2), order);
+        assertEquals(2, queue.getPendingCount());
+
+        assertEquals(2, queue.drain(10));
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+        assertEquals(0, queue.drain(10));
+    }
+
+    @Test
+    public void rejectsWhenFullAndReusesSlotsAfterDrain() {
+        GECommandQueue queue = new GECommandQueue(4);
+        assertEquals(4, queue.getCapacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer("cmd", () -> true, null));
+        }
+        assertFalse(queue.offer("overflow", () -> true, null));
+        assertEquals(1L, queue.getTotalRejected());
+
+        queue.drain(2);
+        assertTrue(queue.offer("wrap1", () -> true, null));
+        assertTrue(queue.offer("wrap2", () -> true, null));
+        assertEquals(4, queue.drain(10));
+        assertEquals(6L, queue.getTotalExecuted());
+    }
+
+    @Test
+    public void completionReceivesResultAndExceptionsCountAsFailure() {
+        GECommandQueue queue = new GECommandQueue(4);
+        List<Boolean> results = new ArrayList<>();
+        queue.offer("ok", () -> true, results::add);
+        queue.offer("rejected", () -> false, results::add);
+        queue.offer("throws", () -> { throw new IllegalStateException("boom"); }, results::add);
+
+        assertEquals(3, queue.drain(10));
+        assertEquals(List.of(true, false, false), results);
+        assertEquals(2L, queue.getTotalFailed());
+    }
+}
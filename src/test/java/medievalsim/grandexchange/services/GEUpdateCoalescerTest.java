@@ -0,0 +1,71 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GEUpdateCoalescerTest {
+
+    private static final String ITEM = "ironbar";
+
+    @Test
+    public void mergesFillsPerPlayerAndSlot() {
+        GEUpdateCoalescer coalescer = new GEUpdateCoalescer();
+        GEOffer offer = GEOffer.createSellOffer(1L, 100L, "Seller", 2, ITEM, 50, 10);
+        BuyOrder order = BuyOrder.fromPacketData(2L, 200L, 0, ITEM, 50, 50, 10, true,
+            BuyOrder.BuyOrderState.ACTIVE, 7);
+
+        for (int i = 0; i < 5; i++) {
+            coalescer.recordSellFill(offer, 4, 40);
+            coalescer.recordBuyFill(order, 4, 40);
+        }
+        coalescer.requestSellSync(200L);
+
+        List<Long> delivered = new ArrayList<>();
+        List<GEUpdateCoalescer.PlayerUpdate> updates = new ArrayList<>();
+        int count = coalescer.flush(1_000, 0, (auth, update) -> {
+            delivered.add(auth);
+            updates.add(update);
+        });
+
+        assertEquals(2, count);
+        assertEquals(10, coalescer.getTotalRecorded());
+        assertEquals(0, coalescer.getPendingPlayerCount());
+        GEUpdateCoalescer.PlayerUpdate seller = updates.get(delivered.indexOf(100L));
+        assertEquals(1, seller.getSellFills().size());
+        GEUpdateCoalescer.SellFill fill = seller.getSellFills().iterator().next();
+        assertEquals(20, fill.getQuantity());
+        assertEquals(200, fill.getCoins());
+        assertEquals(5, fill.getFillCount());
+        assertFalse(seller.needsSellSync());
+
+        GEUpdateCoalescer.PlayerUpdate buyer = updates.get(delivered.indexOf(200L));
+        assertEquals(20, buyer.getBuyFills().iterator().next().getQuantity());
+        assertTrue(buyer.needsSellSync());
+        assertFalse(buyer.needsBuySync());
+    }
+
+    @Test
+    public void holdsUpdatesInsideMinInterval() {
+        GEUpdateCoalescer coalescer = new GEUpdateCoalescer();
+        coalescer.requestBuySync(100L);
+        assertEquals(1, coalescer.flush(1_000, 250, (auth, update) -> { }));
+
+        // Within 250ms of the last flush the player's updates keep accumulating
+        coalescer.requestBuySync(100L);
+        coalescer.requestSellSync(100L);
+        assertEquals(0, coalescer.flush(1_100, 250, (auth, update) -> { }));
+        assertEquals(1, coalescer.getPendingPlayerCount());
+
+        List<GEUpdateCoalescer.PlayerUpdate> updates = new ArrayList<>();
+        assertEquals(1, coalescer.flush(1_250, 250, (auth, update) -> updates.add(update)));
+        assertTrue(updates.get(0).needsBuySync());
+        assertTrue(updates.get(0).needsSellSync());
+        assertEquals(2, coalescer.getTotalDelivered());
+    }
+}
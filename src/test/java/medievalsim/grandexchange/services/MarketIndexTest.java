@@ -0,0 +1,92 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.GEOffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarketIndexTest {
+
+    private static final Map<String, List<String>> CATEGORIES = Map.of(
+        "ironsword", List.of("melee", "weapons"),
+        "ironbar", List.of("materials"),
+        "goldbar", List.of("materials")
+    );
+
+    private MarketIndex newIndex() {
+        return new MarketIndex(item -> CATEGORIES.getOrDefault(item, List.of()));
+    }
+
+    @Test
+    public void pagesAcrossWholeMarketInPriceOrder() {
+        MarketIndex index = newIndex();
+        index.refresh(sellOffer(1L, "ironbar", 5, 30));
+        index.refresh(sellOffer(2L, "goldbar", 5, 10));
+        index.refresh(sellOffer(3L, "ironsword", 5, 20));
+
+        MarketIndex.Page first = index.query("", "all", MarketIndex.SORT_PRICE_ASC, 0, 2);
+        assertEquals(3, first.getTotalResults());
+        assertEquals(2, first.getTotalPages());
+        assertEquals(List.of(2L, 3L), ids(first));
+
+        MarketIndex.Page last = index.query("", "all", MarketIndex.SORT_PRICE_DESC, 5, 2);
+        assertEquals(1, last.getPage(), "Requested page should clamp to the last page");
+        assertEquals(List.of(2L), ids(last));
+    }
+
+    @Test
+    public void filterAndCategoryNarrowToMatchingItems() {
+        MarketIndex index = newIndex();
+        index.refresh(sellOffer(1L, "ironbar", 5, 30));
+        index.refresh(sellOffer(2L, "goldbar", 5, 10));
+        index.refresh(sellOffer(3L, "ironsword", 5, 20));
+        index.refresh(sellOffer(4L, "ironbar", 5, 15));
+
+        assertEquals(List.of(4L, 3L, 1L), ids(index.query("IRON", "all", MarketIndex.SORT_PRICE_ASC, 0, 10)));
+        assertEquals(List.of(2L, 4L, 1L), ids(index.query("", "Materials", MarketIndex.SORT_PRICE_ASC, 0, 10)));
+        assertEquals(List.of(4L, 1L), ids(index.query("ir", "materials", MarketIndex.SORT_PRICE_ASC, 0, 10)));
+        assertEquals(0, index.query("diamond", "all", MarketIndex.SORT_PRICE_ASC, 0, 10).getTotalResults());
+    }
+
+    @Test
+    public void refreshRekeysPartialFillsAndDropsInactiveOffers() {
+        MarketIndex index = newIndex();
+        GEOffer big = sellOffer(1L, "ironbar", 10, 30);
+        GEOffer small = sellOffer(2L, "ironbar", 6, 30);
+        index.refresh(big);
+        index.refresh(small);
+        assertEquals(List.of(1L, 2L), ids(index.query("", "all", MarketIndex.SORT_QUANTITY_DESC, 0, 10)));
+
+        assertTrue(big.reduceQuantity(7));
+        index.refresh(big);
+        assertEquals(List.of(2L, 1L), ids(index.query("", "all", MarketIndex.SORT_QUANTITY_DESC, 0, 10)));
+
+        assertTrue(small.reduceQuantity(6));
+        index.refresh(small);
+        assertEquals(1, index.size());
+        assertEquals(List.of(1L), ids(index.query("", "materials", MarketIndex.SORT_PRICE_ASC, 0, 10)));
+
+        index.remove(1L);
+        assertEquals(0, index.size());
+        assertEquals(0, index.getIndexedItemCount());
+        assertEquals(0, index.query("iron", "all", MarketIndex.SORT_PRICE_ASC, 0, 10).getTotalResults());
+    }
+
+    private static List<Long> ids(MarketIndex.Page page) {
+        List<Long> ids = new ArrayList<>();
+        for (GEOffer offer : page.getOffers()) {
+            ids.add(offer.getOfferID());
+        }
+        return ids;
+    }
+
+    private GEOffer sellOffer(long id, String item, int quantity, int price) {
+        GEOffer offer = GEOffer.createSellOffer(id, 100L + id, "Seller" + id, 0, item, quantity, price);
+        assertTrue(offer.enable());
+        return offer;
+    }
+}
@@ -0,0 +1,39 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.MarketSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarketSnapshotCacheTest {
+
+    @Test
+    public void hitsOnlyAtTheVersionThePageWasBuiltAt() {
+        MarketSnapshotCache cache = new MarketSnapshotCache(8);
+        MarketSnapshot page = MarketSnapshot.empty(10, "iron", "all", 1);
+        cache.put("iron", "all", 1, 0, 10, 5L, page);
+
+        assertSame(page, cache.get("iron", "all", 1, 0, 10, 5L));
+        assertNull(cache.get("iron", "all", 2, 0, 10, 5L), "Different sort mode is a different key");
+        assertNull(cache.get("iron", "all", 1, 0, 10, 6L), "Market changed since the page was built");
+        assertEquals(0, cache.size(), "Stale entry should be dropped on lookup");
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPage() {
+        MarketSnapshotCache cache = new MarketSnapshotCache(2);
+        MarketSnapshot first = MarketSnapshot.empty(10, "", "all", 1);
+        MarketSnapshot second = MarketSnapshot.empty(10, "", "all", 2);
+        MarketSnapshot third = MarketSnapshot.empty(10, "", "all", 3);
+
+        cache.put("", "all", 1, 0, 10, 1L, first);
+        cache.put("", "all", 2, 0, 10, 1L, second);
+        assertNotNull(cache.get("", "all", 1, 0, 10, 1L)); // Touch first
+        cache.put("", "all", 3, 0, 10, 1L, third);
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("", "all", 1, 0, 10, 1L));
+        assertNull(cache.get("", "all", 2, 0, 10, 1L));
+        assertSame(third, cache.get("", "all", 3, 0, 10, 1L));
+    }
+}
@@ -0,0 +1,185 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.banking.domain.PlayerBank;
+import medievalsim.config.ModConfig;
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import medievalsim.grandexchange.domain.PlayerGEInventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchingEngineTest {
+
+    private static final String ITEM = "item:x";
+
+    private final Map<Long, PlayerGEInventory> inventories = new ConcurrentHashMap<>();
+    private final Map<Long, PlayerBank> banks = new ConcurrentHashMap<>();
+    private final MatchingEngine engine = new MatchingEngine(new StripedLockManager(), level -> new TradeTransaction.Accounts() {
+        @Override
+        public PlayerGEInventory getInventory(long playerAuth) {
+            return inventories.computeIfAbsent(playerAuth, PlayerGEInventory::new);
+        }
+
+        @Override
+        public PlayerBank getBank(long playerAuth) {
+            return banks.computeIfAbsent(playerAuth, PlayerBank::new);
+        }
+    });
+
+    @Test
+    public void buyOrderFillsLowestAskFirstThenOldest() {
+        OrderBook book = new OrderBook(ITEM);
+        book.addSellOffer(sellOffer(1L, 100L, 5, 25));
+        book.addSellOffer(sellOffer(2L, 101L, 5, 20));
+        book.addSellOffer(sellOffer(3L, 102L, 5, 20));
+        book.addSellOffer(sellOffer(4L, 103L, 5, 40));
+
+        BuyOrder buyOrder = buyOrder(10L, 200L, 12, 30);
+        List<MatchingEngine.Fill> fills = engine.submitBuyOrder(null, book, buyOrder).getFills();
+
+        assertEquals(List.of(2L, 3L, 1L), offerIDs(fills));
+        assertEquals(List.of(5, 5, 2), quantities(fills));
+        for (MatchingEngine.Fill fill : fills) {
+            assertEquals(30, fill.getResult().getPricePerItem(), "Trades execute at the buy order's price");
+        }
+
+        assertTrue(buyOrder.isCompleted());
+        assertEquals(0, book.getBuyOrderCount(), "A filled buy order is not rested");
+        assertEquals(25, book.getBestSellPrice());
+        assertEquals(3, book.getMarketDepth().getSellDepth().get(25), "Offer 1 keeps its unfilled part");
+    }
+
+    @Test
+    public void partialFillRestsTheRemainder() {
+        OrderBook book = new OrderBook(ITEM);
+        BuyOrder resting = buyOrder(10L, 200L, 4, 25);
+        book.addBuyOrder(resting);
+
+        GEOffer sellOffer = sellOffer(1L, 100L, 10, 20);
+        MatchingEngine.MatchBatch batch = engine.submitSellOffer(null, book, sellOffer);
+
+        assertEquals(4, batch.getTotalQuantity());
+        assertTrue(resting.isCompleted());
+        assertEquals(0, book.getBuyOrderCount());
+        assertEquals(6, sellOffer.getQuantityRemaining());
+        assertEquals(GEOffer.OfferState.PARTIAL, sellOffer.getState());
+        assertEquals(20, book.getBestSellPrice(), "The unfilled part rests at the offer's price");
+        assertEquals(6, book.getMarketDepth().getSellDepth().get(20));
+    }
+
+    @Test
+    public void ownOrdersAreSkipped() {
+        OrderBook book = new OrderBook(ITEM);
+        BuyOrder own = buyOrder(10L, 100L, 5, 50);
+        BuyOrder other = buyOrder(11L, 201L, 5, 40);
+        book.addBuyOrder(own);
+        book.addBuyOrder(other);
+
+        List<MatchingEngine.Fill> fills = engine.submitSellOffer(null, book, sellOffer(1L, 100L, 5, 30)).getFills();
+
+        assertEquals(1, fills.size());
+        assertSame(other, fills.get(0).getBuyOrder());
+        assertEquals(5, own.getQuantityRemaining(), "Self-trade must not touch the seller's own bid");
+        assertEquals(50, book.getBestBuyPrice());
+    }
+
+    @Test
+    public void escrowPaysSellerAfterTax() {
+        OrderBook book = new OrderBook(ITEM);
+        BuyOrder buyOrder = buyOrder(10L, 200L, 10, 25);
+        book.addBuyOrder(buyOrder);
+
+        engine.submitSellOffer(null, book, sellOffer(1L, 100L, 4, 20));
+
+        int total = 4 * 25;
+        int tax = ModConfig.GrandExchange.getSalesTax(total);
+        assertEquals(10 * 25 - total, inventory(200L).getCoinsInEscrow(),
+            "Escrow for the unfilled quantity stays held");
+        assertEquals(total - tax, banks.get(100L).getCoins());
+        assertEquals(1, inventory(200L).getCollectionBox().size());
+        assertEquals(4, inventory(200L).getCollectionBox().get(0).getQuantity());
+        assertEquals(6, buyOrder.getQuantityRemaining());
+    }
+
+    @Test
+    public void failedFillIsRolledBackAndSkipped() {
+        OrderBook book = new OrderBook(ITEM);
+        BuyOrder unfunded = buyOrder(10L, 200L, 5, 50);
+        BuyOrder funded = buyOrder(11L, 201L, 5, 40);
+        book.addBuyOrder(unfunded);
+        book.addBuyOrder(funded);
+        inventory(200L).setCoinsInEscrow(100);   // Short of the 250 the fill needs
+
+        GEOffer sellOffer = sellOffer(1L, 100L, 5, 30);
+        List<MatchingEngine.Fill> fills = engine.submitSellOffer(null, book, sellOffer).getFills();
+
+        assertEquals(1, fills.size());
+        assertSame(funded, fills.get(0).getBuyOrder());
+        assertTrue(sellOffer.isCompleted());
+
+        // Rollback restored the failed order completely
+        assertEquals(5, unfunded.getQuantityRemaining());
+        assertTrue(unfunded.canMatch());
+        assertEquals(100, inventory(200L).getCoinsInEscrow());
+        assertEquals(50, book.getBestBuyPrice());
+        assertEquals(5 * 40 - ModConfig.GrandExchange.getSalesTax(5 * 40), banks.get(100L).getCoins());
+    }
+
+    @Test
+    public void concurrentSweepsAreAllCounted() throws InterruptedException {
+        int threads = 4;
+        int ordersPerThread = 200;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long firstID = (long) t * ordersPerThread * 2;
+            Thread worker = new Thread(() -> {
+                OrderBook book = new OrderBook(ITEM);    // One book per thread, as with separate items
+                for (int i = 0; i < ordersPerThread; i++) {
+                    long id = firstID + i * 2;
+                    book.addSellOffer(sellOffer(id, 1_000 + id, 1, 10));
+                    engine.submitBuyOrder(null, book, buyOrder(id + 1, 1_001 + id, 1, 10));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals((long) threads * ordersPerThread, engine.getTotalSweeps());
+        assertEquals((long) threads * ordersPerThread, engine.getTotalFills());
+    }
+
+    private PlayerGEInventory inventory(long playerAuth) {
+        return inventories.computeIfAbsent(playerAuth, PlayerGEInventory::new);
+    }
+
+    private GEOffer sellOffer(long id, long playerAuth, int quantity, int price) {
+        GEOffer offer = GEOffer.createSellOffer(id, playerAuth, "Seller" + id, 0, ITEM, quantity, price);
+        assertTrue(offer.enable());
+        return offer;
+    }
+
+    /** Active buy order with its coins already escrowed. */
+    private BuyOrder buyOrder(long id, long playerAuth, int quantity, int price) {
+        inventory(playerAuth).addCoinsToEscrow(quantity * price);
+        return BuyOrder.fromPacketData(id, playerAuth, 0, ITEM, quantity, quantity, price, true,
+            BuyOrder.BuyOrderState.ACTIVE, 1);
+    }
+
+    private static List<Long> offerIDs(List<MatchingEngine.Fill> fills) {
+        return fills.stream().map(fill -> fill.getSellOffer().getOfferID()).toList();
+    }
+
+    private static List<Integer> quantities(List<MatchingEngine.Fill> fills) {
+        return fills.stream().map(fill -> fill.getResult().getQuantity()).toList();
+    }
+}
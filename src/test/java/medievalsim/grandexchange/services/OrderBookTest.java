@@ -0,0 +1,131 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.domain.BuyOrder;
+import medievalsim.grandexchange.domain.GEOffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBookTest {
+
+    private static final String ITEM = "item:x";
+
+    @Test
+    public void bestPricesFollowLadderAfterCancel() {
+        OrderBook book = new OrderBook(ITEM);
+        book.addSellOffer(sellOffer(1L, 100L, 5, 30));
+        book.addSellOffer(sellOffer(2L, 101L, 5, 20));
+        book.addBuyOrder(buyOrder(10L, 200L, 5, 15));
+        book.addBuyOrder(buyOrder(11L, 201L, 5, 18));
+
+        assertEquals(20, book.getBestSellPrice());
+        assertEquals(18, book.getBestBuyPrice());
+
+        assertTrue(book.removeSellOffer(2L));
+        assertTrue(book.removeBuyOrder(11L));
+        assertFalse(book.removeSellOffer(2L), "Second cancel of the same offer should be a no-op");
+
+        assertEquals(30, book.getBestSellPrice());
+        assertEquals(15, book.getBestBuyPrice());
+        assertEquals(1, book.getSellPriceLevelCount());
+        assertEquals(1, book.getBuyPriceLevelCount());
+    }
+
+    @Test
+    public void depthUsesRunningLevelTotals() {
+        OrderBook book = new OrderBook(ITEM);
+        GEOffer first = sellOffer(1L, 100L, 5, 20);
+        book.addSellOffer(first);
+        book.addSellOffer(sellOffer(2L, 101L, 7, 20));
+        book.addSellOffer(sellOffer(3L, 102L, 4, 25));
+
+        OrderBook.MarketDepth depth = book.getMarketDepth();
+        assertEquals(12, depth.getSellDepth().get(20));
+        assertEquals(4, depth.getSellDepth().get(25));
+        assertEquals(16L, book.getTotalSellQuantity());
+
+        // Simulate a partial fill applied outside the book
+        assertTrue(first.reduceQuantity(3));
+        book.syncSellOfferQuantity(1L);
+
+        assertEquals(9, book.getMarketDepth().getSellDepth().get(20));
+        assertEquals(13L, book.getTotalSellQuantity());
+
+        book.removeSellOffer(1L);
+        assertEquals(7, book.getMarketDepth().getSellDepth().get(20));
+        assertEquals(11L, book.getTotalSellQuantity());
+    }
+
+    @Test
+    public void topOfBookIsRepublishedOnEveryChange() {
+        OrderBook book = new OrderBook(ITEM);
+        assertSame(OrderBook.TopOfBook.EMPTY, book.getTopOfBook());
+
+        GEOffer cheap = sellOffer(1L, 100L, 5, 20);
+        book.addSellOffer(cheap);
+        book.addSellOffer(sellOffer(2L, 101L, 3, 35));
+        book.addBuyOrder(buyOrder(10L, 200L, 4, 15));
+
+        OrderBook.TopOfBook top = book.getTopOfBook();
+        assertEquals(15, top.bestBid());
+        assertEquals(20, top.bestAsk());
+        assertEquals(5L, top.bestAskQuantity());
+        assertEquals(35, top.highestAsk());
+        assertEquals(5, top.getSpread());
+
+        assertTrue(cheap.reduceQuantity(2));
+        book.syncSellOfferQuantity(1L);
+        assertEquals(3L, book.getTopOfBook().bestAskQuantity());
+        assertEquals(5L, top.bestAskQuantity(), "Published summaries are immutable");
+
+        book.removeSellOffer(1L);
+        book.removeBuyOrder(10L);
+        assertEquals(35, book.getTopOfBook().bestAsk());
+        assertFalse(book.getTopOfBook().hasBid());
+        assertEquals(0, book.getTopOfBook().getSpread());
+    }
+
+    @Test
+    public void buyOrderMatchesWalkLowestAskFirstInFifoOrder() {
+        OrderBook book = new OrderBook(ITEM);
+        book.addSellOffer(sellOffer(1L, 100L, 5, 25));
+        book.addSellOffer(sellOffer(2L, 101L, 5, 20));
+        book.addSellOffer(sellOffer(3L, 102L, 5, 20));
+        book.addSellOffer(sellOffer(4L, 103L, 5, 40));
+
+        List<OrderBook.Match> matches = book.findMatchesForBuyOrder(buyOrder(10L, 200L, 12, 30));
+
+        assertEquals(3, matches.size());
+        assertEquals(2L, matches.get(0).getSellOffer().getOfferID());
+        assertEquals(3L, matches.get(1).getSellOffer().getOfferID());
+        assertEquals(1L, matches.get(2).getSellOffer().getOfferID());
+        assertEquals(2, matches.get(2).getQuantity(), "Last match should only take the remaining quantity");
+    }
+
+    @Test
+    public void sellOfferMatchesStopAtAskPrice() {
+        OrderBook book = new OrderBook(ITEM);
+        book.addBuyOrder(buyOrder(10L, 200L, 5, 50));
+        book.addBuyOrder(buyOrder(11L, 201L, 5, 40));
+        book.addBuyOrder(buyOrder(12L, 202L, 5, 10));
+
+        List<OrderBook.Match> matches = book.findMatchesForSellOffer(sellOffer(1L, 100L, 20, 35));
+
+        assertEquals(2, matches.size());
+        assertEquals(10L, matches.get(0).getBuyOrder().getOrderID());
+        assertEquals(11L, matches.get(1).getBuyOrder().getOrderID());
+    }
+
+    private GEOffer sellOffer(long id, long playerAuth, int quantity, int price) {
+        GEOffer offer = GEOffer.createSellOffer(id, playerAuth, "Seller" + id, 0, ITEM, quantity, price);
+        assertTrue(offer.enable());
+        return offer;
+    }
+
+    private BuyOrder buyOrder(long id, long playerAuth, int quantity, int price) {
+        return BuyOrder.fromPacketData(id, playerAuth, 0, ITEM, quantity, quantity, price, true,
+            BuyOrder.BuyOrderState.ACTIVE, 1);
+    }
+}
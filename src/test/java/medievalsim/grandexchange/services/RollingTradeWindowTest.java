@@ -0,0 +1,45 @@
+package medievalsim.grandexchange.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollingTradeWindowTest {
+
+    @Test
+    public void matchesRecomputedStatisticsAsTheWindowSlides() {
+        RollingTradeWindow window = new RollingTradeWindow(7);
+        ArrayDeque<int[]> expected = new ArrayDeque<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            int price = 1 + random.nextInt(i % 50 < 25 ? 20 : 2000);
+            int quantity = 1 + random.nextInt(10);
+            window.record(price, quantity, i);
+            expected.addLast(new int[]{price, quantity});
+            if (expected.size() > 7) {
+                expected.removeFirst();
+            }
+
+            int[] sorted = expected.stream().mapToInt(t -> t[0]).sorted().toArray();
+            int n = sorted.length;
+            int median = n % 2 == 0 ? (sorted[n / 2 - 1] + sorted[n / 2]) / 2 : sorted[n / 2];
+            double mean = Arrays.stream(sorted).average().orElse(0);
+            double variance = Arrays.stream(sorted).mapToDouble(p -> (p - mean) * (p - mean)).average().orElse(0);
+            long value = expected.stream().mapToLong(t -> (long) t[0] * t[1]).sum();
+            long volume = expected.stream().mapToLong(t -> t[1]).sum();
+
+            assertEquals(median, window.getMedian(), "median after trade " + i);
+            assertEquals((int) (value / volume), window.getVWAP());
+            assertEquals((int) (Arrays.stream(sorted).sum() / n), window.getAverage());
+            assertEquals(n < 2 ? 0.0 : Math.sqrt(variance), window.getStdDev(), 1e-6);
+            assertEquals(volume, window.getTotalQuantity());
+        }
+        assertEquals(7, window.toList().size());
+        assertEquals(499L, window.toList().get(6).getTimestamp());
+    }
+}
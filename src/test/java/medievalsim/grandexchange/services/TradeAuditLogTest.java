@@ -0,0 +1,97 @@
+package medievalsim.grandexchange.services;
+
+import medievalsim.grandexchange.services.TradeTransaction.TradeResult;
+import necesse.engine.save.SaveData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeAuditLogTest {
+
+    @Test
+    public void columnarSaveRoundTripsEntriesAndIndices() {
+        TradeAuditLog log = new TradeAuditLog(100, 2, 100);
+        log.logTrade(trade(1L, 10L, 20L, "item:a", 5, 100L));
+        log.logTrade(trade(2L, 11L, 20L, "item:b", 7, 200L));
+        log.logTrade(trade(3L, 10L, 21L, "item:a", 9, 300L));
+        log.logTrade(trade(4L, 12L, 21L, "item:a", 11, 400L));
+
+        SaveData save = new SaveData("AuditLog");
+        log.addSaveData(save);
+
+        TradeAuditLog loaded = new TradeAuditLog(100, 2, 100);
+        loaded.applyLoadData(save.toLoadData());
+
+        List<TradeAuditLog.AuditEntry> global = loaded.getRecentGlobalTrades(10);
+        assertEquals(4, global.size());
+        assertEquals(1L, global.get(0).getBuyOrderID());
+        assertEquals("item:b", global.get(1).getItemStringID());
+        assertEquals(400L, global.get(3).getTimestamp());
+
+        List<TradeAuditLog.AuditEntry> itemA = loaded.getRecentTradesForItem("item:a", 10);
+        assertEquals(2, itemA.size(), "Per-item log keeps only its newest entries");
+        assertEquals(3L, itemA.get(0).getBuyOrderID());
+        assertEquals(4L, itemA.get(1).getBuyOrderID());
+
+        assertEquals(2, loaded.getRecentTradesForPlayer(20L, 10).size());
+        assertEquals(4L, loaded.getMarketStats().getTotalTrades());
+    }
+
+    @Test
+    public void loadsLegacyPerEntryLayout() {
+        SaveData save = new SaveData("AuditLog");
+        SaveData global = new SaveData("GLOBAL_LOG");
+        global.addInt("size", 2);
+        for (int i = 0; i < 2; i++) {
+            SaveData entry = new SaveData("ENTRY_" + i);
+            new TradeAuditLog.AuditEntry(i, i, 10L, 20L, "item:a", 1, 50 + i, 50 + i, 0, 50 + i, i)
+                .addSaveData(entry);
+            global.addSaveData(entry);
+        }
+        save.addSaveData(global);
+        save.addLong("totalTradesLogged", 2L);
+
+        TradeAuditLog loaded = new TradeAuditLog(100, 100, 100);
+        loaded.applyLoadData(save.toLoadData());
+
+        List<TradeAuditLog.AuditEntry> entries = loaded.getRecentGlobalTrades(10);
+        assertEquals(2, entries.size());
+        assertEquals(51, entries.get(1).getPricePerItem());
+    }
+
+    @Test
+    public void chainsStopAtTradesTheRingOverwrote() {
+        TradeAuditLog log = new TradeAuditLog(4, 10, 10);
+        log.logTrade(trade(1L, 10L, 20L, "item:a", 5, 1L));
+        log.logTrade(trade(2L, 11L, 21L, "item:b", 5, 2L));
+        log.logTrade(trade(3L, 20L, 10L, "item:a", 5, 3L));
+        log.logTrade(trade(4L, 12L, 22L, "item:b", 5, 4L));
+        log.logTrade(trade(5L, 12L, 10L, "item:a", 5, 5L));
+        log.logTrade(trade(6L, 13L, 23L, "item:c", 5, 6L));
+
+        assertEquals(4, log.size());
+        List<TradeAuditLog.AuditEntry> global = log.getRecentGlobalTrades(10);
+        assertEquals(3L, global.get(0).getBuyOrderID());
+        assertEquals(6L, global.get(3).getBuyOrderID());
+
+        List<TradeAuditLog.AuditEntry> player = log.getRecentTradesForPlayer(10L, 10);
+        assertEquals(2, player.size(), "Trade 1 was overwritten");
+        assertEquals(3L, player.get(0).getBuyOrderID());
+        assertEquals(5L, player.get(1).getBuyOrderID());
+
+        assertEquals(1, log.getRecentTradesForItem("item:b", 10).size());
+        assertEquals(1, log.getRecentTradesForPlayer(10L, 1).size());
+
+        log.clearAll();
+        assertTrue(log.getRecentGlobalTrades(10).isEmpty());
+        assertTrue(log.getRecentTradesForItem("item:a", 10).isEmpty());
+        log.logTrade(trade(7L, 10L, 20L, "item:a", 5, 7L));
+        assertEquals(1, log.getRecentTradesForPlayer(10L, 10).size());
+    }
+
+    private TradeResult trade(long id, long buyer, long seller, String item, int price, long timestamp) {
+        return new TradeResult(id, id, buyer, seller, item, 1, price, price, 0, price, timestamp);
+    }
+}
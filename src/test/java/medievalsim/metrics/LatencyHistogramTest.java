@@ -0,0 +1,59 @@
+package medievalsim.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketIndexRoundTripsThroughLowerBounds() {
+        long[] values = {0, 1, 63, 64, 65, 127, 128, 1000, 123_456, LatencyHistogram.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowerBoundOf(index) <= value, "lower bound of " + value);
+            assertTrue(value < LatencyHistogram.lowerBoundOf(index + 1) || value == LatencyHistogram.MAX_VALUE,
+                "upper bound of " + value);
+        }
+    }
+
+    @Test
+    public void percentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(7);
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            // Mostly fast trades with a long tail
+            samples[i] = i % 100 == 0 ? 50_000 + random.nextInt(200_000) : 100 + random.nextInt(900);
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        for (double percentile : new double[]{50.0, 99.0, 99.9}) {
+            long exact = samples[(int) Math.ceil(percentile / 100.0 * samples.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertEquals(exact, reported, exact * 0.04, "p" + percentile);
+        }
+        assertEquals(samples.length, histogram.getCount());
+        assertEquals(Arrays.stream(samples).average().orElse(0), histogram.getMean(), 1e-6);
+    }
+
+    @Test
+    public void combinesHistogramsAndClampsOutliers() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 50; i++) {
+            first.record(10);
+            second.record(20);
+        }
+        second.record(Long.MAX_VALUE);
+
+        assertEquals(10, LatencyHistogram.valueAtPercentile(40.0, first, second));
+        assertEquals(20, LatencyHistogram.valueAtPercentile(90.0, first, second));
+        assertTrue(LatencyHistogram.valueAtPercentile(100.0, first, second) <= LatencyHistogram.MAX_VALUE);
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99.0));
+    }
+}
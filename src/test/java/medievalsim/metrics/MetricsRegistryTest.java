@@ -0,0 +1,45 @@
+package medievalsim.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void rendersPrometheusTextFormat() {
+        MetricsRegistry.Counter hits = MetricsRegistry.counter("test_lookups", "Test lookups", "kind", "pvp");
+        hits.add(3);
+        MetricsRegistry.gauge("test_queue_depth", "Test queue", () -> 7);
+        MetricsRegistry.Timer timer = MetricsRegistry.timer("test_latency_seconds", "Test latency", "op", "deposit");
+        timer.recordNanos(2_000_000);   // 2ms
+        timer.recordNanos(2_000_000);
+
+        String text = MetricsRegistry.renderPrometheus();
+
+        assertTrue(text.contains("# TYPE medievalsim_test_lookups counter\n"), text);
+        assertTrue(text.contains("medievalsim_test_lookups_total{kind=\"pvp\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE medievalsim_test_queue_depth gauge\nmedievalsim_test_queue_depth 7.0\n"), text);
+        assertTrue(text.contains("# TYPE medievalsim_test_latency_seconds summary\n"), text);
+        assertTrue(text.contains("medievalsim_test_latency_seconds{op=\"deposit\",quantile=\"0.99\"} 0.00"), text);
+        assertTrue(text.contains("medievalsim_test_latency_seconds_sum{op=\"deposit\"} 0.004\n"), text);
+        assertTrue(text.contains("medievalsim_test_latency_seconds_count{op=\"deposit\"} 2\n"), text);
+
+        // Same name and label returns the same counter; a different kind is rejected
+        assertSame(hits, MetricsRegistry.counter("test_lookups", "Test lookups", "kind", "pvp"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsRegistry.timer("test_lookups", "x"));
+    }
+
+    @Test
+    public void sumsOwnedGaugesPerOwner() {
+        int[] first = {2};
+        int[] second = {5};
+        MetricsRegistry.gauge("test_owned_depth", "Test owned", first, owner -> owner[0]);
+        MetricsRegistry.gauge("test_owned_depth", "Test owned", second, owner -> owner[0]);
+        assertTrue(MetricsRegistry.renderPrometheus().contains("medievalsim_test_owned_depth 7.0\n"));
+
+        // Registering again replaces that owner's reader instead of adding another
+        MetricsRegistry.gauge("test_owned_depth", "Test owned", first, owner -> owner[0] * 10);
+        assertTrue(MetricsRegistry.renderPrometheus().contains("medievalsim_test_owned_depth 25.0\n"));
+    }
+}
@@ -0,0 +1,23 @@
+package medievalsim.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingWindowCounterTest {
+
+    @Test
+    public void forgetsExpiredBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, 1000);
+        counter.add(0, 5);
+        counter.add(500, 1);
+        counter.add(30_000, 10);
+
+        assertEquals(16, counter.sum(30_000, 60_000));
+        assertEquals(10, counter.sum(30_000, 1_000));
+        // 61s later the first bucket's slot has been recycled and falls outside the window
+        counter.add(61_000, 2);
+        assertEquals(12, counter.sum(61_000, 60_000));
+        assertEquals(0, counter.sum(200_000, 60_000));
+    }
+}
@@ -0,0 +1,113 @@
+package medievalsim.packets;
+
+import medievalsim.grandexchange.domain.GEOffer;
+import medievalsim.grandexchange.domain.MarketSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PacketGESyncTest {
+
+    private static final long VIEWER = 77L;
+
+    @Test
+    public void fullPageRoundTrips() {
+        MarketSnapshot page = page(entry(1, "ironbar", 10, 25, "Alice"), entry(2, "ironbar", 5, 30, "Bob"),
+            entry(3, "goldbar", 1, 200, "Alice"));
+
+        PacketGESync received = decode(new PacketGESync(VIEWER, 4, page));
+
+        assertFalse(received.isDelta());
+        assertEquals(4, received.syncSequence);
+        assertEquals(3, received.entries.size());
+        assertEquals("goldbar", received.entries.get(2).itemStringID);
+        assertEquals("Alice", received.entries.get(2).sellerName);
+        assertEquals(List.of(1L, 2L, 3L), ids(received.applyTo(List.of(), p -> p.offerId, p -> p)));
+    }
+
+    @Test
+    public void deltaCarriesOnlyChangesAndRebuildsThePage() {
+        MarketSnapshot base = page(entry(1, "ironbar", 10, 25, "Alice"), entry(2, "ironbar", 5, 30, "Bob"),
+            entry(3, "goldbar", 1, 200, "Alice"));
+        // 1 partly sold, 2 gone, 4 new, 3 unchanged but now first
+        MarketSnapshot next = page(entry(3, "goldbar", 1, 200, "Alice"), entry(1, "ironbar", 7, 25, "Alice"),
+            entry(4, "copperbar", 50, 3, "Cara"));
+
+        PacketGESync delta = decode(new PacketGESync(VIEWER, 5, next, 4, base));
+
+        assertTrue(delta.isDelta());
+        assertEquals(4, delta.baseSequence);
+        assertEquals(List.of(2L), delta.removedOfferIds);
+        assertEquals(List.of(1L, 4L), ids(delta.entries));
+        assertEquals(List.of(3L, 1L, 4L), delta.pageOrder);
+
+        List<PacketGESync.EntryPayload> held = decode(new PacketGESync(VIEWER, 4, base))
+            .applyTo(List.of(), p -> p.offerId, p -> p);
+        List<PacketGESync.EntryPayload> applied = delta.applyTo(held, p -> p.offerId, p -> p);
+        assertEquals(List.of(3L, 1L, 4L), ids(applied));
+        assertEquals(7, applied.get(1).quantityRemaining);
+        assertSame(held.get(2), applied.get(0), "Unchanged listings are reused");
+    }
+
+    @Test
+    public void unchangedOrderIsNotResent() {
+        MarketSnapshot base = page(entry(1, "ironbar", 10, 25, "Alice"), entry(2, "ironbar", 5, 30, "Bob"));
+        MarketSnapshot next = page(entry(1, "ironbar", 9, 25, "Alice"), entry(2, "ironbar", 5, 30, "Bob"));
+
+        PacketGESync delta = decode(new PacketGESync(VIEWER, 2, next, 1, base));
+
+        assertNull(delta.pageOrder);
+        assertEquals(List.of(1L), ids(delta.entries));
+    }
+
+    @Test
+    public void deltaOnlyAppliesToItsBasePage() {
+        MarketSnapshot base = page(entry(1, "ironbar", 10, 25, "Alice"));
+        MarketSnapshot next = page(entry(1, "ironbar", 8, 25, "Alice"));
+        PacketGESync delta = decode(new PacketGESync(VIEWER, 6, next, 5, base));
+
+        assertTrue(delta.canApplyTo(5));
+        assertFalse(delta.canApplyTo(4), "A page was missed: the client must ask for a full sync");
+        assertFalse(delta.canApplyTo(PacketGESync.FULL_SYNC));
+    }
+
+    @Test
+    public void resyncSendsAFullPage() {
+        MarketSnapshot next = page(entry(1, "ironbar", 8, 25, "Alice"));
+
+        // After a FULL_SYNC ack the server has no base and encodes the whole page
+        PacketGESync full = decode(new PacketGESync(VIEWER, 7, next, 6, null));
+
+        assertFalse(full.isDelta());
+        assertEquals(PacketGESync.FULL_SYNC, full.baseSequence);
+        assertTrue(full.canApplyTo(PacketGESync.FULL_SYNC));
+        assertTrue(full.canApplyTo(3));
+        assertEquals(List.of(1L), ids(full.entries));
+    }
+
+    private static PacketGESync decode(PacketGESync sent) {
+        return new PacketGESync(sent.getPacketData());
+    }
+
+    private static MarketSnapshot page(MarketSnapshot.Entry... entries) {
+        return new MarketSnapshot(0, 1, entries.length, 20, "", "", 0, Arrays.asList(entries));
+    }
+
+    private static MarketSnapshot.Entry entry(long offerId, String itemStringID, int remaining, int price,
+                                              String seller) {
+        return new MarketSnapshot.Entry(offerId, itemStringID, 10, remaining, price, seller.hashCode(), seller,
+            100_000L, 1_000L, GEOffer.OfferState.ACTIVE);
+    }
+
+    private static List<Long> ids(List<PacketGESync.EntryPayload> payloads) {
+        List<Long> ids = new ArrayList<>(payloads.size());
+        for (PacketGESync.EntryPayload payload : payloads) {
+            ids.add(payload.offerId);
+        }
+        return ids;
+    }
+}
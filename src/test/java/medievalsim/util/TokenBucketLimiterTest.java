@@ -0,0 +1,93 @@
+package medievalsim.util;
+
+import medievalsim.config.ModConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketLimiterTest {
+
+    @Test
+    public void allowsBurstThenRefillRate() {
+        // 3 token burst, 1 token per second
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test_burst", () -> 3, () -> 1.0);
+        assertTrue(limiter.tryAcquire(1L, 0));
+        assertTrue(limiter.tryAcquire(1L, 0));
+        assertTrue(limiter.tryAcquire(1L, 0));
+        assertFalse(limiter.tryAcquire(1L, 0));
+        assertEquals(1000, limiter.getWaitMillis(1L, 0));
+        assertEquals(500, limiter.getWaitMillis(1L, 500));
+
+        assertFalse(limiter.tryAcquire(1L, 999));
+        assertTrue(limiter.tryAcquire(1L, 1000));
+        assertFalse(limiter.tryAcquire(1L, 1000));
+
+        // Other players have their own bucket
+        assertTrue(limiter.tryAcquire(2L, 1000));
+        assertEquals(3, limiter.getTotalDenied());
+    }
+
+    @Test
+    public void canAcquireDoesNotSpend() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test_two_phase", () -> 1, () -> 1.0);
+        assertTrue(limiter.canAcquire(1L, 0));
+        assertTrue(limiter.canAcquire(1L, 0));
+        limiter.consume(1L, 0);
+        assertFalse(limiter.canAcquire(1L, 0));
+        // Consuming with an empty bucket never goes negative
+        limiter.consume(1L, 0);
+        assertTrue(limiter.canAcquire(1L, 1000));
+    }
+
+    @Test
+    public void zeroRateOrDisabledIsUnlimited() {
+        TokenBucketLimiter unlimited = new TokenBucketLimiter("test_zero_rate", () -> 1, () -> 0.0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(unlimited.tryAcquire(1L, 0));
+        }
+        assertEquals(0, unlimited.getTrackedPlayerCount());
+
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test_disabled", () -> 1, () -> 1.0);
+        assertTrue(limiter.tryAcquire(1L, 0));
+        assertFalse(limiter.tryAcquire(1L, 0));
+        ModConfig.RateLimits.enableRateLimits = false;
+        try {
+            assertTrue(limiter.tryAcquire(1L, 0));
+            assertEquals(1, limiter.evictIdle(0));
+        } finally {
+            ModConfig.RateLimits.enableRateLimits = true;
+        }
+    }
+
+    @Test
+    public void evictsIdleBucketsAndResets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter("test_evict", () -> 2, () -> 1.0);
+        for (long auth = 0; auth < 1_000; auth++) {
+            assertTrue(limiter.tryAcquire(auth, auth * 10));
+        }
+        // Each bucket refills within a second, so later inserts reclaim idle players
+        assertTrue(limiter.getTrackedPlayerCount() < 1_000);
+
+        long now = 20_000;
+        for (long auth = 0; auth < 50; auth++) {
+            limiter.tryAcquire(auth, now);
+            limiter.tryAcquire(auth, now);
+        }
+        assertEquals(limiter.getTrackedPlayerCount() - 50, limiter.evictIdle(now));
+        assertEquals(50, limiter.getTrackedPlayerCount());
+        for (long auth = 0; auth < 50; auth++) {
+            assertFalse(limiter.tryAcquire(auth, now), "auth " + auth);
+        }
+
+        limiter.reset(7L);
+        assertEquals(49, limiter.getTrackedPlayerCount());
+        assertTrue(limiter.tryAcquire(7L, now));
+        for (long auth = 0; auth < 50; auth++) {
+            if (auth != 7L) {
+                assertEquals(1000, limiter.getWaitMillis(auth, now), "auth " + auth);
+            }
+        }
+        assertEquals(50, limiter.evictIdle(now + 2_000));
+        assertEquals(0, limiter.getTrackedPlayerCount());
+    }
+}